@@ -0,0 +1,87 @@
+package com.dailybrief.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result (-rf json) against the stored baseline and exits non-zero
+ * when a benchmark got slower or allocates more per operation than the tolerance allows.
+ * A score only counts as slower when the change is also beyond the two runs' combined
+ * error (JMH's 99.9% confidence half-widths), so a noisy benchmark needs a bigger change to
+ * fail than a steady one.
+ *
+ * Usage: BaselineCheck &lt;baseline.json&gt; &lt;result.json&gt; [tolerancePercent]
+ */
+public class BaselineCheck {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private record Score(String mode, double score, double error, String unit, Double allocPerOp) {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.json> <result.json> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : 10.0) / 100.0;
+        Map<String, Score> baseline = load(Path.of(args[0]));
+        Map<String, Score> current = load(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW   %s: %.3f %s%n", entry.getKey(), after.score(), after.unit());
+                continue;
+            }
+            // Throughput regresses downwards, time-per-op modes upwards
+            double change = (after.score() - before.score()) / before.score();
+            double threshold = Math.max(tolerance, (before.error() + after.error()) / before.score());
+            boolean slower = after.mode().equals("thrpt") ? change < -threshold : change > threshold;
+            boolean moreGarbage = before.allocPerOp() != null && after.allocPerOp() != null
+                    && after.allocPerOp() > before.allocPerOp() * (1 + tolerance) + 16;
+
+            String status = (slower || moreGarbage) ? "FAIL" : "ok";
+            if (slower || moreGarbage) {
+                regressions++;
+            }
+            System.out.printf("%-5s %s: %.3f -> %.3f %s (%+.1f%%, allowed %.1f%%)%s%n", status, entry.getKey(),
+                    before.score(), after.score(), after.unit(), change * 100, threshold * 100,
+                    after.allocPerOp() != null ? String.format(", %.0f -> %.0f B/op",
+                            before.allocPerOp() != null ? before.allocPerOp() : Double.NaN, after.allocPerOp()) : "");
+        }
+
+        System.out.printf("%d regression(s) beyond %.0f%% or the runs' error, whichever is larger%n", regressions, tolerance * 100);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Map<String, Score> load(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText())
+                    .append(" [").append(run.path("mode").asText()).append(']');
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+
+            JsonNode primary = run.path("primaryMetric");
+            Double alloc = null;
+            // Older JMH versions prefix secondary metric names with a middle dot
+            for (String name : new String[]{ALLOC_METRIC, "·" + ALLOC_METRIC}) {
+                JsonNode metric = run.path("secondaryMetrics").path(name);
+                if (!metric.isMissingNode()) {
+                    alloc = metric.path("score").asDouble();
+                }
+            }
+            // NaN when a run had too few iterations for an error estimate
+            double error = primary.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(run.path("mode").asText(), primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, primary.path("scoreUnit").asText(), alloc));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,62 @@
+package com.dailybrief.benchmarks;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.JsonDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full data binding with ObjectMapper (the original decoding path) against the
+ * streaming projection in {@link JsonDecoder}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class DecodingBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] weather;
+    private byte[] news;
+
+    @Setup
+    public void load() {
+        weather = Payloads.weather();
+        news = Payloads.news();
+    }
+
+    @Benchmark
+    public WeatherResponse objectMapperWeather() throws IOException {
+        return mapper.readValue(weather, WeatherResponse.class);
+    }
+
+    @Benchmark
+    public NewsResponse objectMapperNews() throws IOException {
+        return mapper.readValue(news, NewsResponse.class);
+    }
+
+    @Benchmark
+    public WeatherResponse streamingWeather() throws IOException {
+        return JsonDecoder.decodeWeather(new ByteArrayInputStream(weather));
+    }
+
+    @Benchmark
+    public NewsResponse streamingNews() throws IOException {
+        return JsonDecoder.decodeNews(new ByteArrayInputStream(news));
+    }
+}
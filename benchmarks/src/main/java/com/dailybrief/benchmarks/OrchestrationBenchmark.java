@@ -0,0 +1,90 @@
+package com.dailybrief.benchmarks;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.BatchService;
+import com.dailybrief.services.DashboardService;
+import com.dailybrief.services.JsonDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Orchestration overhead with in-memory services: the two-widget dashboard join,
+ * and the batch fan-out across a varying number of cities.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class OrchestrationBenchmark {
+    private ExecutorService executor;
+    private StubServices.Weather weatherService;
+    private StubServices.News newsService;
+    private DashboardService dashboardService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        WeatherResponse weather = JsonDecoder.decodeWeather(new ByteArrayInputStream(Payloads.weather()));
+        NewsResponse news = JsonDecoder.decodeNews(new ByteArrayInputStream(Payloads.news()));
+        executor = Executors.newFixedThreadPool(4);
+
+        weatherService = new StubServices.Weather(weather, executor);
+        newsService = new StubServices.News(news, executor);
+        dashboardService = new DashboardService(weatherService, newsService);
+    }
+
+    /** Only the batch benchmark is parameterized by fan-out. */
+    @State(Scope.Benchmark)
+    public static class FanOut {
+        @Param({"1", "8", "64"})
+        public int cities;
+
+        private BatchService batchService;
+        private String[] names;
+
+        @Setup(Level.Trial)
+        public void setUp(OrchestrationBenchmark benchmark) {
+            batchService = new BatchService(benchmark.weatherService, benchmark.newsService, Math.min(cities, 16), 0);
+            names = IntStream.range(0, cities).mapToObj(i -> "City" + i).toArray(String[]::new);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public DashboardService.DashboardData dashboard() {
+        return dashboardService.getDashboard("London", false, false);
+    }
+
+    @Benchmark
+    public BatchService.BatchSummary batch(FanOut fanOut, Blackhole blackhole) throws InterruptedException {
+        Iterator<String> input = Arrays.asList(fanOut.names).iterator();
+        return fanOut.batchService.run(input, false, blackhole::consume, blackhole::consume);
+    }
+}
@@ -0,0 +1,31 @@
+package com.dailybrief.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/** Realistic upstream bodies (full OpenWeatherMap current weather, 20-article NewsAPI page). */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static byte[] weather() {
+        return load("/payloads/weather.json");
+    }
+
+    static byte[] news() {
+        return load("/payloads/news.json");
+    }
+
+    private static byte[] load(String resource) {
+        try (InputStream in = Payloads.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark payload " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
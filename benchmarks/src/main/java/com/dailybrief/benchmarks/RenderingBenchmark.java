@@ -0,0 +1,56 @@
+package com.dailybrief.benchmarks;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.JsonDecoder;
+import com.dailybrief.ui.ConsoleRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/** Renderer cost on its own: output goes to a null sink so terminal speed is not measured. */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class RenderingBenchmark {
+    private final ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(OutputStream.nullOutputStream()));
+    private WeatherResponse weather;
+    private NewsResponse news;
+
+    @Setup
+    public void decode() throws IOException {
+        weather = JsonDecoder.decodeWeather(new ByteArrayInputStream(Payloads.weather()));
+        news = JsonDecoder.decodeNews(new ByteArrayInputStream(Payloads.news()));
+    }
+
+    @Benchmark
+    public void renderWeather() {
+        renderer.renderWeather(weather);
+    }
+
+    @Benchmark
+    public void renderNews() {
+        renderer.renderNews(news);
+    }
+
+    @Benchmark
+    public void renderDashboard() {
+        renderer.renderDashboard(weather, news, false, false, 0L);
+    }
+}
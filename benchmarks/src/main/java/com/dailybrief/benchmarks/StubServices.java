@@ -0,0 +1,49 @@
+package com.dailybrief.benchmarks;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.NewsService;
+import com.dailybrief.services.WeatherService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/** In-memory services: complete on an executor like the HttpClient would, without any I/O. */
+final class StubServices {
+
+    private StubServices() {
+    }
+
+    static final class Weather extends WeatherService {
+        private final WeatherResponse response;
+        private final Executor executor;
+
+        Weather(WeatherResponse response, Executor executor) {
+            super(null, ResponseCache.disabled());
+            this.response = response;
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletableFuture<WeatherResponse> getWeatherAsync(String city) {
+            return CompletableFuture.supplyAsync(() -> response, executor);
+        }
+    }
+
+    static final class News extends NewsService {
+        private final NewsResponse response;
+        private final Executor executor;
+
+        News(NewsResponse response, Executor executor) {
+            super(null, ResponseCache.disabled());
+            this.response = response;
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletableFuture<NewsResponse> getNewsAsync() {
+            return CompletableFuture.supplyAsync(() -> response, executor);
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.dailybrief;
 
 import com.dailybrief.commands.RootCommand;
+import com.dailybrief.config.StartupReport;
+import com.dailybrief.daemon.DaemonClient;
 import picocli.CommandLine;
 
 public class Responsi1_PPBO_L0124042_SC {
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new RootCommand()).execute(args);
+        StartupReport startupReport = StartupReport.fromMain();
+        // Try a resident daemon first; fall back to the in-process path if none answers
+        if (DaemonClient.shouldForward(args)) {
+            Integer daemonExitCode = DaemonClient.tryRun(args);
+            if (daemonExitCode != null) {
+                System.exit(daemonExitCode);
+            }
+        }
+        int exitCode = new CommandLine(new RootCommand(startupReport)).execute(args);
         System.exit(exitCode);
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.dailybrief.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.UnaryOperator;
+
+/** How a cached value is written to and read back from the on-disk store. */
+public interface Codec<T> {
+
+    byte[] encode(T value) throws IOException;
+
+    T decode(InputStream in) throws IOException;
+
+    /** The value as served past its TTL: a model that can say so comes back marked, others as they are. */
+    default T stale(T value) {
+        return value;
+    }
+
+    @FunctionalInterface
+    interface Encoder<T> {
+        byte[] encode(T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Decoder<T> {
+        T decode(InputStream in) throws IOException;
+    }
+
+    static <T> Codec<T> of(Encoder<T> encoder, Decoder<T> decoder) {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(T value) throws IOException {
+                return encoder.encode(value);
+            }
+
+            @Override
+            public T decode(InputStream in) throws IOException {
+                return decoder.decode(in);
+            }
+        };
+    }
+
+    static <T> Codec<T> of(Encoder<T> encoder, Decoder<T> decoder, UnaryOperator<T> stale) {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(T value) throws IOException {
+                return encoder.encode(value);
+            }
+
+            @Override
+            public T decode(InputStream in) throws IOException {
+                return decoder.decode(in);
+            }
+
+            @Override
+            public T stale(T value) {
+                return stale.apply(value);
+            }
+        };
+    }
+}
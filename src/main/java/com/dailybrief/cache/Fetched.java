@@ -0,0 +1,16 @@
+package com.dailybrief.cache;
+
+/**
+ * Outcome of a conditional fetch: a new value with the validators the upstream sent along,
+ * or "not modified", meaning the stored value is still current.
+ */
+public record Fetched<T>(T value, String etag, String lastModified, boolean unchanged) {
+
+    public static <T> Fetched<T> of(T value, String etag, String lastModified) {
+        return new Fetched<>(value, etag, lastModified, false);
+    }
+
+    public static <T> Fetched<T> notModified() {
+        return new Fetched<>(null, null, null, true);
+    }
+}
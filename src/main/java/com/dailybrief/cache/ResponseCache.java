@@ -0,0 +1,317 @@
+package com.dailybrief.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * TTL response cache shared by the services.
+ * Entries live in an in-memory map and are persisted as one memory-mapped file per key,
+ * so repeated CLI runs for the same city are served without touching the network.
+ * Expired entries are served immediately, marked stale by their {@link Codec}, while a background
+ * fetch refreshes them; each kind of data says how long past its TTL that is still acceptable.
+ * Entries keep the upstream ETag/Last-Modified, so refreshes can be conditional requests:
+ * a 304 re-validates the stored body instead of downloading it again.
+ */
+public class ResponseCache {
+    private static final int MAGIC = 0x44424332; // "DBC2": adds the validators to "DBC1"
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + 3 * Integer.BYTES;
+
+    private final Path dir;
+    private final Duration maxAge;
+    private final boolean enabled;
+    private final PrintStream err;
+    private final Map<String, Entry> memory;
+    private final Map<String, CompletableFuture<?>> refreshing;
+
+    private record Entry(long fetchedAt, Object value, String etag, String lastModified) {
+        Validators validators() {
+            return (etag != null || lastModified != null) ? new Validators(etag, lastModified) : null;
+        }
+    }
+
+    /** HTTP validators of a stored entry, sent as If-None-Match / If-Modified-Since. */
+    public record Validators(String etag, String lastModified) {}
+
+    /**
+     * @param dir    directory for the on-disk store, or null for a memory-only cache
+     * @param maxAge maximum age of an entry that may still be served, or null for each caller's
+     *               TTL plus its stale window
+     */
+    public ResponseCache(Path dir, Duration maxAge) {
+        this(dir, maxAge, System.err);
+    }
+
+    /** @param err where entries that can't be stored are reported: the request's own stream under the daemon */
+    public ResponseCache(Path dir, Duration maxAge, PrintStream err) {
+        this(dir, maxAge, true, err, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private ResponseCache(Path dir, Duration maxAge, boolean enabled, PrintStream err,
+                          Map<String, Entry> memory, Map<String, CompletableFuture<?>> refreshing) {
+        this.dir = dir;
+        this.maxAge = maxAge;
+        this.enabled = enabled;
+        this.err = err;
+        this.memory = memory;
+        this.refreshing = refreshing;
+    }
+
+    /** A pass-through cache that always calls the fetcher. */
+    public static ResponseCache disabled() {
+        return new ResponseCache(null, Duration.ZERO, false, System.err, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /** A view over the same entries with a different maximum age. */
+    public ResponseCache withMaxAge(Duration maxAge) {
+        return withMaxAge(maxAge, err);
+    }
+
+    /** A view over the same entries with a different maximum age and error stream (used by the daemon per request). */
+    public ResponseCache withMaxAge(Duration maxAge, PrintStream err) {
+        return new ResponseCache(dir, maxAge, enabled, err, memory, refreshing);
+    }
+
+    /** Builds a cache key from a provider name and a case/whitespace-insensitive query. */
+    public static String key(String provider, String query) {
+        String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return provider + ":" + normalized;
+    }
+
+    /** {@link #getConditional} for fetchers without validators, stale for as long again as {@code ttl}. */
+    public <T> CompletableFuture<T> get(String key, Duration ttl, Codec<T> codec, Supplier<CompletableFuture<T>> fetcher) {
+        return getConditional(key, ttl, ttl, codec, validators -> cancelling(fetcher.get(), value -> Fetched.of(value, null, null)));
+    }
+
+    /**
+     * Like {@link #get}, but the fetcher is handed the stored entry's validators (null when there
+     * are none) and may answer {@link Fetched#notModified()}: the stored value is then served and
+     * its age reset. An entry too old to serve still lends its validators and body to a 304.
+     * <p>
+     * Past {@code ttl} an entry is served for {@code staleFor} more, marked stale, while it is
+     * refreshed in the background; after that the caller waits for the fetch.
+     */
+    public <T> CompletableFuture<T> getConditional(String key, Duration ttl, Duration staleFor, Codec<T> codec,
+                                                   Function<Validators, CompletableFuture<Fetched<T>>> fetcher) {
+        if (!enabled) {
+            return cancelling(fetcher.apply(null), Fetched::value);
+        }
+
+        Entry entry = lookup(key, codec);
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.fetchedAt();
+            long limit = maxAge != null ? maxAge.toMillis() : ttl.plus(staleFor).toMillis();
+            if (age <= limit) {
+                @SuppressWarnings("unchecked")
+                T value = (T) entry.value();
+                if (age > ttl.toMillis()) {
+                    revalidate(key, codec, fetcher, entry);
+                    value = codec.stale(value);
+                }
+                return CompletableFuture.completedFuture(value);
+            }
+        }
+        return fetch(key, codec, fetcher, entry);
+    }
+
+    /**
+     * The last stored value for {@code key} whatever its age, or null. Used when the provider's
+     * circuit is open: old data beats no data. Marked stale once older than {@code ttl}.
+     */
+    public <T> T lastKnown(String key, Duration ttl, Codec<T> codec) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = lookup(key, codec);
+        if (entry == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) entry.value();
+        return System.currentTimeMillis() - entry.fetchedAt() > ttl.toMillis() ? codec.stale(value) : value;
+    }
+
+    /** Directory of the on-disk store, where other per-user state can live too; null when memory-only. */
+    public Path dir() {
+        return enabled ? dir : null;
+    }
+
+    /** Waits (bounded) for background refreshes so they are persisted before the JVM exits. */
+    public void awaitRefreshes(Duration timeout) {
+        CompletableFuture<?>[] pending = refreshing.values().toArray(new CompletableFuture<?>[0]);
+        if (pending.length == 0) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(pending).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception ignored) {
+            // Refresh failures keep the stale entry; the next run will try again
+        }
+    }
+
+    // Serve stale, refresh in the background (at most one refresh per key)
+    private <T> void revalidate(String key, Codec<T> codec,
+                                Function<Validators, CompletableFuture<Fetched<T>>> fetcher, Entry entry) {
+        CompletableFuture<Void> marker = new CompletableFuture<>();
+        if (refreshing.putIfAbsent(key, marker) == null) {
+            fetch(key, codec, fetcher, entry).whenComplete((v, e) -> {
+                refreshing.remove(key, marker);
+                marker.complete(null);
+            });
+        }
+    }
+
+    private <T> CompletableFuture<T> fetch(String key, Codec<T> codec,
+                                           Function<Validators, CompletableFuture<Fetched<T>>> fetcher, Entry entry) {
+        Validators validators = entry != null ? entry.validators() : null;
+        return cancelling(fetcher.apply(validators), fetched -> {
+            if (fetched.unchanged()) {
+                if (validators == null) {
+                    throw new IllegalStateException("Not Modified for an unconditional request: " + key);
+                }
+                @SuppressWarnings("unchecked")
+                T value = (T) entry.value();
+                put(key, value, codec, entry.etag(), entry.lastModified());
+                return value;
+            }
+            if (fetched.value() != null) {
+                put(key, fetched.value(), codec, fetched.etag(), fetched.lastModified());
+            }
+            return fetched.value();
+        });
+    }
+
+    // A caller giving up on the result (deadline, lost race) abandons the upstream request too
+    private static <S, T> CompletableFuture<T> cancelling(CompletableFuture<S> source, Function<S, T> mapper) {
+        CompletableFuture<T> mapped = source.thenApply(mapper);
+        mapped.whenComplete((value, e) -> source.cancel(true));
+        return mapped;
+    }
+
+    private Entry lookup(String key, Codec<?> codec) {
+        Entry entry = memory.get(key);
+        if (entry == null && dir != null) {
+            entry = readFromDisk(key, codec);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private <T> void put(String key, T value, Codec<T> codec, String etag, String lastModified) {
+        Entry entry = new Entry(System.currentTimeMillis(), value, etag, lastModified);
+        memory.put(key, entry);
+        if (dir != null) {
+            writeToDisk(key, entry, value, codec);
+        }
+    }
+
+    private Entry readFromDisk(String key, Codec<?> codec) {
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            long fetchedAt = buffer.getLong();
+            String etag = readString(buffer);
+            String lastModified = readString(buffer);
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            return new Entry(fetchedAt, codec.decode(new ByteArrayInputStream(payload)), etag, lastModified);
+        } catch (IOException | RuntimeException e) {
+            return null; // Corrupt or unreadable entries are treated as misses
+        }
+    }
+
+    private <T> void writeToDisk(String key, Entry entry, T value, Codec<T> codec) {
+        Path tmp = null;
+        try {
+            byte[] payload = codec.encode(value);
+            byte[] etag = bytes(entry.etag());
+            byte[] lastModified = bytes(entry.lastModified());
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, "entry", ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_BYTES + etag.length + lastModified.length + payload.length);
+                buffer.putInt(MAGIC).putLong(entry.fetchedAt());
+                writeString(buffer, etag);
+                writeString(buffer, lastModified);
+                buffer.putInt(payload.length).put(payload);
+                buffer.force();
+            }
+            // Atomic replace so concurrent CLI processes never see a half-written entry
+            Files.move(tmp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            err.println("Cache Warning: " + e.getMessage());
+            deleteQuietly(tmp);
+        }
+    }
+
+    // Length-prefixed UTF-8; -1 for null
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length == 0) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Best effort
+        }
+    }
+
+    private Path fileFor(String key) {
+        String safe = key.replaceAll("[^a-z0-9]+", "_");
+        return dir.resolve(safe + "-" + Integer.toHexString(key.hashCode()) + ".bin");
+    }
+}
@@ -0,0 +1,10 @@
+package com.dailybrief.cities;
+
+/** One entry of the OpenWeatherMap city list. */
+public record City(int id, String name, String country, double latitude, double longitude) {
+
+    /** "London, GB" */
+    public String label() {
+        return country.isEmpty() ? name : name + ", " + country;
+    }
+}
@@ -0,0 +1,276 @@
+package com.dailybrief.cities;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Read side of the city index built by {@link CityIndexWriter}: a memory-mapped file of
+ * fixed-size records sorted by normalized name, followed by a string pool. A name or prefix
+ * lookup is a binary search over the mapped records, so it touches a handful of pages and
+ * allocates only for the matches; nothing is parsed at startup.
+ * <p>
+ * Layout (big-endian): magic "DBCI", version, record count, pool offset; then per city
+ * id, latitude, longitude (floats), key offset, key length, country (2 ASCII bytes),
+ * name offset, name length and 2 bytes of padding. Keys are names lower-cased with
+ * diacritics and repeated whitespace removed, compared as unsigned UTF-8 bytes.
+ */
+public final class CityIndex {
+    static final int MAGIC = 0x44424349; // "DBCI"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES;
+    static final int RECORD_BYTES = 28;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int pool;
+
+    private CityIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a city index (rebuild it with: dailybrief cities build)");
+        }
+        this.count = buffer.getInt(8);
+        this.pool = buffer.getInt(12);
+        if (count < 0 || (long) HEADER_BYTES + (long) count * RECORD_BYTES > pool || pool > buffer.capacity()) {
+            throw new IOException("Corrupt city index");
+        }
+    }
+
+    /** Where {@code cities build} puts the index by default. */
+    public static Path defaultPath(Path cacheDir) {
+        return cacheDir.resolve("cities.idx");
+    }
+
+    public static CityIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CityIndex(mapped);
+        }
+    }
+
+    /** The index at {@code file}, or null when it was never built or is unreadable. */
+    public static CityIndex openIfPresent(Path file) {
+        return openIfPresent(file, System.err);
+    }
+
+    /** @param err where an unreadable index is reported: the request's own stream under the daemon */
+    public static CityIndex openIfPresent(Path file, PrintStream err) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            err.println("City Index Warning: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Cities named exactly {@code query} ("Paris", "Paris, FR" or "Portland, OR, US"): none
+     * for an unknown name, several for an ambiguous one. The index has no states, so a state
+     * only narrows the query down to its country.
+     */
+    public List<City> matches(String query) {
+        String[] parts = query.split(",", -1);
+        String country = null;
+        String name = query;
+        String suffix = parts[parts.length - 1].trim();
+        if (parts.length > 1 && !parts[0].isBlank() && (suffix.length() == 2 || parts.length > 2)) {
+            name = parts[0];
+            country = suffix.length() == 2 ? suffix.toUpperCase(Locale.ROOT) : null;
+        }
+        byte[] key = normalize(name).getBytes(StandardCharsets.UTF_8);
+        List<City> found = new ArrayList<>();
+        for (int i = lowerBound(key); i < count && compareKey(i, key, false) == 0; i++) {
+            if (country == null || country.equals(country(i))) {
+                found.add(city(i));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether {@code query} says more than a name ("Paris, FR", "Portland, OR, US"). Such a
+     * query may still mean something to the provider when it matches nothing here, so it is
+     * passed on rather than rejected as unknown.
+     */
+    public static boolean qualified(String query) {
+        return query.indexOf(',') > 0;
+    }
+
+    /** Up to {@code limit} distinct names starting with {@code prefix}, alphabetically. */
+    public List<City> prefix(String prefix, int limit) {
+        byte[] key = normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        Map<String, City> distinct = new LinkedHashMap<>();
+        for (int i = lowerBound(key); i < count && distinct.size() < limit && compareKey(i, key, true) == 0; i++) {
+            City city = city(i);
+            distinct.putIfAbsent(city.label(), city);
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+    /**
+     * Near misses for a name that is not in the index, closest first: same first letter,
+     * within an edit distance of 1 (2 for names of eight letters or more), a swap of
+     * neighbouring letters counting as one edit.
+     */
+    public List<City> suggest(String query, int limit) {
+        int comma = query.indexOf(',');
+        String target = normalize(comma > 0 ? query.substring(0, comma) : query);
+        if (target.isEmpty()) {
+            return List.of();
+        }
+        int maxDistance = target.length() >= 8 ? 2 : 1;
+        byte[] first = target.substring(0, target.offsetByCodePoints(0, 1)).getBytes(StandardCharsets.UTF_8);
+        List<Map.Entry<Integer, City>> scored = new ArrayList<>();
+        Map<String, Boolean> seen = new LinkedHashMap<>();
+        for (int i = lowerBound(first); i < count && compareKey(i, first, true) == 0; i++) {
+            int keyLength = buffer.getShort(record(i) + 16) & 0xFFFF;
+            if (Math.abs(keyLength - target.length()) > maxDistance) {
+                continue; // Cheap byte-length filter before decoding the key
+            }
+            int distance = distance(key(i), target, maxDistance);
+            if (distance <= maxDistance) {
+                City city = city(i);
+                if (seen.putIfAbsent(city.label(), true) == null) {
+                    scored.add(Map.entry(distance, city));
+                }
+            }
+        }
+        scored.sort(Map.Entry.comparingByKey());
+        return scored.stream().limit(limit).map(Map.Entry::getValue).toList();
+    }
+
+    /** The form names are indexed and looked up in. */
+    public static String normalize(String name) {
+        String stripped = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    static final Comparator<byte[]> KEY_ORDER = (a, b) -> {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    };
+
+    // First record whose key is >= key
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, key, false) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Compares record i's key with key, without decoding it; asPrefix ignores the key's tail
+    private int compareKey(int i, byte[] key, boolean asPrefix) {
+        int at = record(i);
+        int offset = pool + buffer.getInt(at + 12);
+        int length = buffer.getShort(at + 16) & 0xFFFF;
+        int n = Math.min(length, key.length);
+        for (int j = 0; j < n; j++) {
+            int diff = (buffer.get(offset + j) & 0xFF) - (key[j] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        if (asPrefix && length >= key.length) {
+            return 0;
+        }
+        return length - key.length;
+    }
+
+    private static int record(int i) {
+        return HEADER_BYTES + i * RECORD_BYTES;
+    }
+
+    private String country(int i) {
+        int at = record(i) + 18;
+        if (buffer.get(at) == 0) {
+            return "";
+        }
+        return new String(new byte[]{buffer.get(at), buffer.get(at + 1)}, StandardCharsets.US_ASCII);
+    }
+
+    private String key(int i) {
+        int at = record(i);
+        return string(buffer.getInt(at + 12), buffer.getShort(at + 16) & 0xFFFF);
+    }
+
+    private City city(int i) {
+        int at = record(i);
+        return new City(buffer.getInt(at), string(buffer.getInt(at + 20), buffer.getShort(at + 24) & 0xFFFF),
+                country(i), buffer.getFloat(at + 4), buffer.getFloat(at + 8));
+    }
+
+    private String string(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(pool + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Edit distance counting a swap of neighbours as one edit ("Lodnon"), giving up (returning
+    // max + 1) once it must exceed max
+    static int distance(String a, String b, int max) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
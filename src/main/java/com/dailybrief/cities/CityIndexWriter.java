@@ -0,0 +1,156 @@
+package com.dailybrief.cities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds the {@link CityIndex} file from OpenWeatherMap's city list
+ * (http://bulk.openweathermap.org/sample/city.list.json.gz, gzipped or not). The list is
+ * streamed, so only the compact entries are held while sorting.
+ */
+public final class CityIndexWriter {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private CityIndexWriter() {
+    }
+
+    private record Entry(byte[] key, City city) {}
+
+    /** Writes the index for {@code cityList} to {@code target}, replacing it atomically; returns the city count. */
+    public static int build(Path cityList, Path target) throws IOException {
+        try (InputStream in = open(cityList)) {
+            return build(in, target);
+        }
+    }
+
+    public static int build(InputStream cityList, Path target) throws IOException {
+        List<Entry> entries = read(cityList);
+        entries.sort(Comparator.comparing(Entry::key, CityIndex.KEY_ORDER)
+                .thenComparing(e -> e.city().country())
+                .thenComparingInt(e -> e.city().id()));
+
+        // Each distinct string is stored once; most keys are just the lower-cased name
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        Map<String, Integer> offsets = new HashMap<>();
+        ByteBuffer records = ByteBuffer.allocate(entries.size() * CityIndex.RECORD_BYTES);
+        for (Entry entry : entries) {
+            City city = entry.city();
+            byte[] name = city.name().getBytes(StandardCharsets.UTF_8);
+            byte[] country = city.country().getBytes(StandardCharsets.US_ASCII);
+            records.putInt(city.id())
+                    .putFloat((float) city.latitude())
+                    .putFloat((float) city.longitude())
+                    .putInt(intern(pool, offsets, entry.key()))
+                    .putShort((short) entry.key().length)
+                    .put(country.length == 2 ? country[0] : 0)
+                    .put(country.length == 2 ? country[1] : 0)
+                    .putInt(intern(pool, offsets, name))
+                    .putShort((short) name.length)
+                    .putShort((short) 0);
+        }
+
+        int poolOffset = CityIndex.HEADER_BYTES + records.capacity();
+        byte[] strings = pool.toByteArray();
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "cities", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) poolOffset + strings.length);
+                out.putInt(CityIndex.MAGIC).putInt(CityIndex.VERSION).putInt(entries.size()).putInt(poolOffset);
+                out.put(records.flip()).put(strings);
+                out.force();
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return entries.size();
+    }
+
+    private static InputStream open(Path cityList) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(cityList), 1 << 16);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        return magic == GZIPInputStream.GZIP_MAGIC ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    private static int intern(ByteArrayOutputStream pool, Map<String, Integer> offsets, byte[] bytes) {
+        return offsets.computeIfAbsent(new String(bytes, StandardCharsets.UTF_8), s -> {
+            int offset = pool.size();
+            pool.writeBytes(bytes);
+            return offset;
+        });
+    }
+
+    private static List<Entry> read(InputStream cityList) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (JsonParser p = FACTORY.createParser(cityList)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of cities");
+            }
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                City city = readCity(p);
+                if (city.name() != null && !city.name().isBlank()) {
+                    byte[] key = CityIndex.normalize(city.name()).getBytes(StandardCharsets.UTF_8);
+                    entries.add(new Entry(key, city));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static City readCity(JsonParser p) throws IOException {
+        int id = 0;
+        String name = null;
+        String country = "";
+        double lat = 0;
+        double lon = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "id" -> id = p.getValueAsInt();
+                case "name" -> name = p.getValueAsString();
+                case "country" -> country = p.getValueAsString("").toUpperCase(Locale.ROOT);
+                case "coord" -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String axis = p.currentName();
+                        p.nextToken();
+                        if (axis.equals("lat")) {
+                            lat = p.getValueAsDouble();
+                        } else if (axis.equals("lon")) {
+                            lon = p.getValueAsDouble();
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return new City(id, name, country, lat, lon);
+    }
+}
@@ -0,0 +1,76 @@
+package com.dailybrief.cities;
+
+/**
+ * Standard base-32 geohash: each character halves the cell's longitude and latitude range
+ * five more times, alternately, starting with longitude. Nearby points share a prefix, so the
+ * first {@code precision} characters name a grid cell: 4 is about 39 x 20 km, 5 about
+ * 4.9 x 4.9 km, 6 about 1.2 x 0.6 km.
+ */
+public final class Geohash {
+    public static final int MAX_PRECISION = 12;
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and " + MAX_PRECISION);
+        }
+        double[] lat = {-90, 90};
+        double[] lon = {-180, 180};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean even = true;
+        int bits = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            double[] range = even ? lon : lat;
+            double value = even ? longitude : latitude;
+            double mid = (range[0] + range[1]) / 2;
+            ch <<= 1;
+            if (value >= mid) {
+                ch |= 1;
+                range[0] = mid;
+            } else {
+                range[1] = mid;
+            }
+            even = !even;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(ch));
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /** {south, west, north, east} of the cell. */
+    public static double[] bounds(String hash) {
+        double[] lat = {-90, 90};
+        double[] lon = {-180, 180};
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(hash.charAt(i));
+            if (ch < 0) {
+                throw new IllegalArgumentException("Not a geohash: " + hash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                double[] range = even ? lon : lat;
+                double mid = (range[0] + range[1]) / 2;
+                if ((ch >> bit & 1) == 1) {
+                    range[0] = mid;
+                } else {
+                    range[1] = mid;
+                }
+                even = !even;
+            }
+        }
+        return new double[] {lat[0], lon[0], lat[1], lon[1]};
+    }
+
+    /** {latitude, longitude} of the cell's centre. */
+    public static double[] centre(String hash) {
+        double[] b = bounds(hash);
+        return new double[] {(b[0] + b[2]) / 2, (b[1] + b[3]) / 2};
+    }
+}
@@ -0,0 +1,84 @@
+package com.dailybrief.commands;
+
+import com.dailybrief.cities.City;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.cities.CityIndexWriter;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.ui.AnsiColors;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+import picocli.CommandLine.Spec;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.List;
+
+@Command(name = "cities", mixinStandardHelpOptions = true,
+        description = "Manage the local city index used to resolve --city without a round trip.")
+public class CitiesCommand {
+
+    @Spec
+    private CommandSpec spec;
+
+    @ParentCommand
+    private RootCommand root;
+
+    @Option(names = {"--index"}, paramLabel = "FILE", description = "Index file (default: <cache dir>/cities.idx)")
+    private Path index;
+
+    @Command(name = "build", description = "Build the index from OpenWeatherMap's city.list.json(.gz).")
+    int build(@Parameters(paramLabel = "CITY_LIST") Path cityList) {
+        long start = System.currentTimeMillis();
+        try {
+            int count = CityIndexWriter.build(root.resolve(cityList), indexPath());
+            out().printf("Indexed %d cities into %s in %dms%n", count, indexPath(), System.currentTimeMillis() - start);
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            spec.commandLine().getErr().println(AnsiColors.RED + "City Index Error: " + e.getMessage() + AnsiColors.RESET);
+            return 1;
+        }
+    }
+
+    @Command(name = "complete", description = "Print city names starting with PREFIX, one per line (used by shell completion).")
+    int complete(@Parameters(paramLabel = "PREFIX", defaultValue = "") String prefix,
+                 @Option(names = {"--limit"}, defaultValue = "20") int limit) {
+        CityIndex cities = CityIndex.openIfPresent(indexPath());
+        if (cities == null) {
+            return 1;
+        }
+        PrintWriter out = out();
+        List<City> matches = cities.prefix(prefix, limit);
+        matches.forEach(city -> out.println(city.label()));
+        out.flush();
+        return 0;
+    }
+
+    @Command(name = "completion", description = "Print a bash completion script that completes --city from the index.")
+    int completion() {
+        // Names contain spaces and commas: complete whole lines, not words
+        out().print(String.join("\n",
+                "_dailybrief_city() {",
+                "  local cur=\"${COMP_WORDS[COMP_CWORD]}\" prev=\"${COMP_WORDS[COMP_CWORD-1]}\"",
+                "  if [[ \"$prev\" == \"-c\" || \"$prev\" == \"--city\" ]]; then",
+                "    local IFS=$'\\n'",
+                "    COMPREPLY=($(dailybrief cities complete \"$cur\" 2>/dev/null))",
+                "  fi",
+                "}",
+                "complete -o default -F _dailybrief_city dailybrief",
+                ""));
+        out().flush();
+        return 0;
+    }
+
+    private Path indexPath() {
+        return index != null ? root.resolve(index) : CityIndex.defaultPath(AppConfig.getInstance().getCacheDir());
+    }
+
+    private PrintWriter out() {
+        return spec.commandLine().getOut();
+    }
+}
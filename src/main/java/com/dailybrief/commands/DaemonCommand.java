@@ -0,0 +1,49 @@
+package com.dailybrief.commands;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.daemon.DaemonServer;
+import com.dailybrief.prefetch.Prefetcher;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+@Command(name = "daemon", mixinStandardHelpOptions = true,
+        description = "Keep DailyBrief resident and serve invocations over a Unix domain socket.")
+public class DaemonCommand implements Callable<Integer> {
+
+    @Option(names = {"--socket"}, paramLabel = "PATH", description = "Socket path (default: $DAILYBRIEF_SOCKET or <cache dir>/daemon.sock)")
+    private Path socket;
+
+    @Option(names = {"--idle-timeout"}, paramLabel = "MINUTES", description = "Shut down after this long without clients (default: 30)")
+    private long idleMinutes = 30;
+
+    @Option(names = {"--prefetch"}, description = "Also refresh the briefs you usually run shortly before you run them (see: dailybrief prefetch)")
+    private boolean prefetch = false;
+
+    @Override
+    public Integer call() throws Exception {
+        AppConfig config = AppConfig.getInstance();
+        Path socketPath = (socket != null) ? socket : DaemonServer.defaultSocketPath();
+        ResponseCache cache = new ResponseCache(config.getCacheDir(), null);
+        DaemonServer server = new DaemonServer(socketPath, Duration.ofMinutes(idleMinutes), cache, System.err);
+
+        // Into the daemon's own cache, so prefetched entries are already in memory for the clients
+        Prefetcher prefetcher = prefetch ? PrefetchCommand.create(config, cache, Duration.ofMinutes(5), 3, 1) : null;
+        if (prefetcher != null) {
+            prefetcher.start(Duration.ofMinutes(1));
+        }
+        System.out.println("DailyBrief daemon listening on " + socketPath);
+        try {
+            server.run();
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+        }
+        System.out.println("DailyBrief daemon stopped (idle)");
+        return 0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.dailybrief.commands;
+
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.history.HistoryStore;
+import com.dailybrief.history.HistoryStore.Headline;
+import com.dailybrief.history.HistoryStore.Reading;
+import com.dailybrief.services.HeadlineQuery;
+import com.dailybrief.ui.AnsiColors;
+import com.dailybrief.ui.Sparkline;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+@Command(name = "history", mixinStandardHelpOptions = true,
+        description = "Read back past dashboards from the local history, without calling any API.")
+public class HistoryCommand implements Callable<Integer> {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("EEE dd MMM HH:mm", Locale.ROOT);
+    // Longer series are averaged down to this many bars
+    private static final int TREND_WIDTH = 60;
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(names = {"-c", "--city"}, description = "Temperature trend of this city")
+    private String city;
+
+    @Option(names = {"--since"}, paramLabel = "INTERVAL", converter = RootCommand.IntervalConverter.class,
+            description = "How far back the trend goes, e.g. 12h or 7d (default: 7d)")
+    private Duration since = Duration.ofDays(7);
+
+    @Option(names = {"--headlines"}, description = "The headlines as they were at --at")
+    private boolean headlines = false;
+
+    @Option(names = {"--news-country"}, split = ",", paramLabel = "CC", description = "Headlines fetched for these countries (default: us)")
+    private List<String> newsCountries = new ArrayList<>();
+
+    @Option(names = {"--news-category"}, split = ",", paramLabel = "CATEGORY", description = "Headlines fetched for these categories")
+    private List<String> newsCategories = new ArrayList<>();
+
+    @Option(names = {"--at"}, paramLabel = "TIME",
+            description = "A local time such as 2026-10-17T09:00, or an interval ago such as 1d (default: now)")
+    private String at;
+
+    @Option(names = {"--compact"}, description = "Drop repeated and expired records and repack the segments")
+    private boolean compact = false;
+
+    @Override
+    public Integer call() {
+        HistoryStore store = HistoryStore.inDir(AppConfig.getInstance().getCacheDir());
+        if (city == null && !headlines && !compact) {
+            err("Give --city, --headlines or --compact");
+            return 1;
+        }
+        try {
+            if (compact) {
+                HistoryStore.Compaction result = store.compact();
+                out().printf(Locale.ROOT, "Compacted %d segments (%d records, %d KB) into %d (%d records, %d KB)%n",
+                        result.segmentsBefore(), result.recordsBefore(), result.bytesBefore() / 1024,
+                        result.segmentsAfter(), result.recordsAfter(), result.bytesAfter() / 1024);
+            }
+            if (city != null) {
+                long now = System.currentTimeMillis();
+                printTrend(store.readings(city, now - since.toMillis(), now));
+            }
+            if (headlines) {
+                HeadlineQuery query = new HeadlineQuery(newsCountries.isEmpty() ? HeadlineQuery.DEFAULT.countries() : newsCountries,
+                        newsCategories, 1, HeadlineQuery.DEFAULT.limit());
+                printHeadlines(query.label(), store.headlinesAt(query.label(), at(at)));
+            }
+            out().flush();
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            err("History Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private void printTrend(List<Reading> readings) {
+        PrintWriter out = out();
+        String days = since.toHours() % 24 == 0 ? since.toDays() + "d" : since.toHours() + "h";
+        if (readings.isEmpty()) {
+            out.printf("No readings for %s in the last %s%n", city.trim(), days);
+            return;
+        }
+        double[] temps = readings.stream().mapToDouble(Reading::temp).filter(t -> !Double.isNaN(t)).toArray();
+        Reading latest = readings.get(readings.size() - 1);
+        out.printf(Locale.ROOT, "%s: %d readings in the last %s%n",
+                latest.country() != null ? latest.name() + ", " + latest.country() : latest.name(), readings.size(), days);
+        if (temps.length > 0) {
+            StringBuilder line = new StringBuilder("Temp  ");
+            Sparkline.append(line, downsample(temps, TREND_WIDTH));
+            line.append(String.format(Locale.ROOT, "  %.1f..%.1f°C (avg %.1f°C)",
+                    Sparkline.min(temps), Sparkline.max(temps), Arrays.stream(temps).average().orElse(0)));
+            out.println(line);
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        for (Reading reading : readings) {
+            out.printf(Locale.ROOT, "  %s  %5.1f°C  %3d%%  %s%n", TIME.format(Instant.ofEpochMilli(reading.at()).atZone(zone)),
+                    reading.temp(), reading.humidity(), reading.condition() != null ? reading.condition() : "");
+        }
+    }
+
+    private void printHeadlines(String label, List<Headline> snapshot) {
+        PrintWriter out = out();
+        if (snapshot.isEmpty()) {
+            out.printf("No %s headlines recorded by then%n", label);
+            return;
+        }
+        out.printf("HEADLINES (%s) as fetched %s%n", label,
+                TIME.format(Instant.ofEpochMilli(snapshot.get(0).at()).atZone(ZoneId.systemDefault())));
+        for (Headline headline : snapshot) {
+            out.println("  - " + headline.title() + (headline.source() != null ? " (" + headline.source() + ")" : ""));
+        }
+    }
+
+    // Bucket means, so a week of readings still fits a line
+    static double[] downsample(double[] values, int width) {
+        if (values.length <= width) {
+            return values;
+        }
+        double[] buckets = new double[width];
+        for (int b = 0; b < width; b++) {
+            int from = (int) ((long) b * values.length / width);
+            int to = (int) ((long) (b + 1) * values.length / width);
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            buckets[b] = sum / (to - from);
+        }
+        return buckets;
+    }
+
+    /** "2026-10-17T09:00" in local time, an interval ago ("1d", "90m"), or now. */
+    static long at(String value) {
+        if (value == null) {
+            return System.currentTimeMillis();
+        }
+        try {
+            return LocalDateTime.parse(value.trim()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return System.currentTimeMillis() - new RootCommand.IntervalConverter().convert(value).toMillis();
+            } catch (RuntimeException notAnInterval) {
+                throw new IllegalArgumentException("'" + value + "' is neither a time such as 2026-10-17T09:00 nor an interval such as 1d");
+            }
+        }
+    }
+
+    private PrintWriter out() {
+        return spec.commandLine().getOut();
+    }
+
+    private void err(String message) {
+        spec.commandLine().getErr().println(AnsiColors.RED + message + AnsiColors.RESET);
+    }
+}
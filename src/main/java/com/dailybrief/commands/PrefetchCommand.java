@@ -0,0 +1,88 @@
+package com.dailybrief.commands;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.prefetch.PrefetchPlanner.Habit;
+import com.dailybrief.prefetch.Prefetcher;
+import com.dailybrief.prefetch.UsageLog;
+import com.dailybrief.services.RateLimiter;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+@Command(name = "prefetch", mixinStandardHelpOptions = true,
+        description = "Refresh the local store shortly before the briefs you usually run, learned from past runs.")
+public class PrefetchCommand implements Callable<Integer> {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("EEE HH:mm:ss");
+
+    @Option(names = {"--once"}, description = "Fetch whatever is due now and exit, for cron or a systemd timer every few minutes")
+    private boolean once = false;
+
+    @Option(names = {"--list"}, description = "Print the learned habits and when each is fetched next, without fetching")
+    private boolean list = false;
+
+    @Option(names = {"--lead"}, paramLabel = "MINUTES", description = "Fetch this long before the expected run (default: 5)")
+    private long leadMinutes = 5;
+
+    @Option(names = {"--min-days"}, paramLabel = "N", description = "Days a brief must have run at about the same time (default: 3)")
+    private int minDays = 3;
+
+    @Option(names = {"--rate-limit"}, paramLabel = "RPS", description = "Maximum prefetch requests per second (default: 1)")
+    private double rateLimit = 1;
+
+    @Override
+    public Integer call() throws Exception {
+        Prefetcher prefetcher = create(AppConfig.getInstance(), new ResponseCache(AppConfig.getInstance().getCacheDir(), null),
+                Duration.ofMinutes(leadMinutes), minDays, rateLimit);
+        if (list) {
+            List<Habit> habits = prefetcher.habits();
+            if (habits.isEmpty()) {
+                System.out.println("No habits learned yet: a brief needs " + minDays + " days of runs at about the same time.");
+            }
+            ZonedDateTime now = ZonedDateTime.now();
+            for (Habit habit : habits) {
+                ZonedDateTime expected = now.with(habit.at());
+                if (!expected.isAfter(now)) {
+                    expected = expected.plusDays(1).with(habit.at());
+                }
+                System.out.printf("%s  (%d days)  next fetch %s%n", habit.brief().describe(), habit.days(),
+                        TIME.format(prefetcher.prefetchAt(habit, expected).atZone(now.getZone())));
+            }
+            return 0;
+        }
+        if (once) {
+            int fetched = prefetcher.runDue();
+            System.err.println("Prefetched " + fetched + " brief" + (fetched == 1 ? "" : "s"));
+            return 0;
+        }
+        System.out.println("Prefetching ahead of " + prefetcher.habits().size() + " learned habits (Ctrl-C to stop)");
+        prefetcher.start(Duration.ofMinutes(1));
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            prefetcher.close();
+        }
+        return 130;
+    }
+
+    /** A prefetcher over the usage log and store in the cache directory; the daemon uses its own cache. */
+    static Prefetcher create(AppConfig config, ResponseCache cache, Duration lead, int minDays, double rateLimit) throws IOException {
+        UsageLog log = UsageLog.inDir(cache.dir());
+        if (log == null) {
+            throw new IOException("Prefetching needs the on-disk cache");
+        }
+        CityIndex cities = CityIndex.openIfPresent(CityIndex.defaultPath(config.getCacheDir()));
+        return new Prefetcher(log, Prefetcher.services(config, cache, cities, new RateLimiter(rateLimit)),
+                lead, minDays, System.err);
+    }
+}
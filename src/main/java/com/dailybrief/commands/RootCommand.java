@@ -1,38 +1,312 @@
 package com.dailybrief.commands;
 
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.StartupReport;
+import com.dailybrief.config.Threads;
+import com.dailybrief.history.HistoryStore;
+import com.dailybrief.metrics.Metrics;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.prefetch.Brief;
+import com.dailybrief.prefetch.UsageLog;
+import com.dailybrief.services.BatchService;
+import com.dailybrief.services.BatchService.BatchSummary;
 import com.dailybrief.services.DashboardService;
 import com.dailybrief.services.DashboardService.DashboardData;
+import com.dailybrief.services.DashboardWatcher;
+import com.dailybrief.services.HeadlineQuery;
+import com.dailybrief.services.NewsService;
+import com.dailybrief.services.OpenMeteoWeatherService;
+import com.dailybrief.services.RacingWeatherService;
+import com.dailybrief.services.WeatherGrid;
+import com.dailybrief.services.WeatherProvider;
+import com.dailybrief.services.WeatherService;
 import com.dailybrief.ui.AnsiColors;
+import com.dailybrief.ui.BatchWriter;
 import com.dailybrief.ui.ConsoleRenderer;
+import com.dailybrief.ui.JsonRenderer;
+import com.dailybrief.ui.OutputFormat;
+import com.dailybrief.ui.ProgressiveRenderer;
+import com.dailybrief.ui.WatchRenderer;
+import com.dailybrief.widgets.ForecastWidget;
+import com.dailybrief.widgets.NewsWidget;
+import com.dailybrief.widgets.Panel;
+import com.dailybrief.widgets.WeatherWidget;
+import com.dailybrief.widgets.Widget;
+import com.dailybrief.widgets.WidgetScheduler;
+import com.dailybrief.widgets.Widgets;
+import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
 
 @Command(name = "dailybrief", mixinStandardHelpOptions = true, version = "1.0",
-        description = "A lightweight terminal dashboard.")
+        description = "A lightweight terminal dashboard.",
+        subcommands = {DaemonCommand.class, CitiesCommand.class, PrefetchCommand.class, HistoryCommand.class})
 public class RootCommand implements Callable<Integer> {
 
-    @Option(names = {"-c", "--city"}, description = "City for weather (default: London)")
-    private String city = "London";
+    @Option(names = {"-c", "--city"}, description = "City for weather (default: London). Repeat for batch mode.")
+    private List<String> cities = new ArrayList<>();
+
+    @Option(names = {"--no-city-index"}, description = "Send city names to the provider as typed, even with a city index built")
+    private boolean noCityIndex = false;
+
+    @Option(names = {"--grid"}, paramLabel = "PRECISION",
+            description = "Share weather between cities in the same geohash cell of PRECISION characters (4 ~ 40km, 5 ~ 5km, 6 ~ 1km); needs the city index")
+    private Integer gridPrecision;
+
+    @Option(names = {"--cities-file"}, paramLabel = "FILE", description = "Batch mode: read cities from a file, one per line")
+    private Path citiesFile;
+
+    @Option(names = {"--concurrency"}, description = "Batch mode: maximum weather requests in flight (default: 8)")
+    private int concurrency = 8;
+
+    @Option(names = {"--rate-limit"}, paramLabel = "RPS", description = "Batch mode: maximum requests per second per provider (default: unlimited)")
+    private double rateLimit = 0;
+
+    @Option(names = {"-o", "--output"}, paramLabel = "FILE", description = "Batch mode: stream results to a .csv or .ndjson file")
+    private Path output;
+
+    @Option(names = {"--format"}, paramLabel = "FORMAT", converter = FormatConverter.class,
+            description = "text (default), json (one document) or ndjson (a record per widget or city as soon as it lands)")
+    private OutputFormat format = OutputFormat.TEXT;
 
     @Option(names = {"--no-news"}, description = "Disable news fetch")
     private boolean noNews = false;
 
+    @Option(names = {"--news-country"}, split = ",", paramLabel = "CC",
+            description = "Headlines from these countries, comma-separated or repeated (default: us)")
+    private List<String> newsCountries = new ArrayList<>();
+
+    @Option(names = {"--news-category"}, split = ",", paramLabel = "CATEGORY",
+            description = "Only these categories: business, entertainment, general, health, science, sports, technology")
+    private List<String> newsCategories = new ArrayList<>();
+
+    @Option(names = {"--news-pages"}, paramLabel = "N", description = "Pages fetched per country and category (default: 1)")
+    private int newsPages = 1;
+
+    @Option(names = {"--news-limit"}, paramLabel = "K", description = "Headlines shown: the K most recent, duplicates removed (default: 5)")
+    private int newsLimit = HeadlineQuery.DEFAULT.limit();
+
     @Option(names = {"--no-weather"}, description = "Disable weather fetch")
     private boolean noWeather = false;
 
-    private final DashboardService dashboardService = new DashboardService();
-    private final ConsoleRenderer consoleRenderer = new ConsoleRenderer();
+    @Option(names = {"--skip"}, paramLabel = "WIDGET", description = "Leave a widget out of the dashboard (repeatable), e.g. --skip news")
+    private Set<String> skip = new LinkedHashSet<>();
+
+    @Option(names = {"--widget"}, paramLabel = "WIDGET", description = "Add an opt-in widget to the dashboard (repeatable), e.g. --widget forecast")
+    private Set<String> optInWidgets = new LinkedHashSet<>();
+
+    @Option(names = {"--progressive"}, description = "Paint each widget as soon as it arrives instead of waiting for all of them")
+    private boolean progressive = false;
+
+    @Option(names = {"--deadline"}, paramLabel = "MILLIS", description = "Total time budget; widgets that miss it are shown as unavailable")
+    private Long deadline;
+
+    @Option(names = {"--hedge-percentile"}, paramLabel = "P",
+            description = "Fire a duplicate weather request when the first is slower than this percentile of recent latencies, kept with the cache across runs (default: 95, 0 disables)")
+    private double hedgePercentile = WeatherService.DEFAULT_HEDGE_PERCENTILE;
+
+    @Option(names = {"--race"}, description = "Race OpenWeatherMap against keyless Open-Meteo; the first answer wins")
+    private boolean race = false;
+
+    @Option(names = {"--watch"}, paramLabel = "INTERVAL", converter = IntervalConverter.class,
+            description = "Stay open and refresh every INTERVAL (e.g. 90, 30s, 5m), redrawing only what changed")
+    private Duration watch;
+
+    @Option(names = {"--max-age"}, paramLabel = "SECONDS",
+            description = "Maximum age of cached data to serve (default: a few minutes past each kind's TTL, shown as stale while it refreshes)")
+    private Long maxAge;
+
+    @Option(names = {"--no-cache"}, description = "Ignore cached responses and fetch fresh data")
+    private boolean noCache = false;
+
+    @Option(names = {"--startup-report"}, description = "Print how long each startup phase took")
+    private boolean startupReport = false;
+
+    @Option(names = {"--timings"}, description = "Print a per-phase latency breakdown")
+    private boolean timings = false;
+
+    @Option(names = {"--metrics-out"}, paramLabel = "FILE", description = "Append this run's latency histograms to FILE as NDJSON")
+    private Path metricsOut;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final ResponseCache sharedCache;
+    private final Path workingDir;
+    private final StartupReport startup;
+    // Created once the options are known: the headlines header depends on them
+    private ConsoleRenderer consoleRenderer;
+    private Metrics metrics = Metrics.NONE;
+
+    /** @param startup begun in main, so --startup-report covers the whole run */
+    public RootCommand(StartupReport startup) {
+        this(System.out, System.err, null, null, startup);
+    }
+
+    /**
+     * Used by the daemon: output goes to the client's streams, the cache stays resident
+     * across requests and relative paths resolve against the client's working directory.
+     * The request's startup phases count from here.
+     */
+    public RootCommand(PrintStream out, PrintStream err, ResponseCache sharedCache, Path workingDir) {
+        this(out, err, sharedCache, workingDir, new StartupReport());
+    }
+
+    private RootCommand(PrintStream out, PrintStream err, ResponseCache sharedCache, Path workingDir,
+                        StartupReport startup) {
+        this.out = out;
+        this.err = err;
+        this.sharedCache = sharedCache;
+        this.workingDir = workingDir;
+        this.startup = startup;
+    }
 
     @Override
     public Integer call() {
         long startTime = System.currentTimeMillis();
+        startup.mark("cli parse");
+        // This invocation's phases only, even when the daemon runs others alongside
+        metrics = new Metrics();
+        String threadsWarning = Threads.configurationWarning();
+        if (threadsWarning != null) {
+            err.println(AnsiColors.RED + "Config Warning: " + threadsWarning + AnsiColors.RESET);
+        }
 
-        System.out.println("Fetching Daily Brief...");
+        if (watch != null && (sharedCache != null || citiesFile != null || cities.size() > 1)) {
+            err.println(AnsiColors.RED + "--watch shows a single city and runs in the foreground, not through the daemon" + AnsiColors.RESET);
+            return 1;
+        }
+        if (format != OutputFormat.TEXT && (watch != null || progressive)) {
+            err.println(AnsiColors.RED + "--format " + format.name().toLowerCase(Locale.ROOT)
+                    + " can't be combined with --watch or --progressive" + AnsiColors.RESET);
+            return 1;
+        }
+
+        HeadlineQuery headlines;
+        try {
+            headlines = new HeadlineQuery(newsCountries.isEmpty() ? HeadlineQuery.DEFAULT.countries() : newsCountries,
+                    newsCategories, newsPages, newsLimit);
+        } catch (IllegalArgumentException e) {
+            err.println(AnsiColors.RED + e.getMessage() + AnsiColors.RESET);
+            return 1;
+        }
+        consoleRenderer = new ConsoleRenderer(out, headlines.label(), metrics);
+
+        // --no-cache still stores the fresh responses for the next run.
+        // Watch mode revalidates on every tick unless --max-age says otherwise.
+        Duration cacheMaxAge = noCache || (watch != null && maxAge == null)
+                ? Duration.ZERO
+                : (maxAge != null ? Duration.ofSeconds(maxAge) : null);
+        ResponseCache cache = (sharedCache != null)
+                ? sharedCache.withMaxAge(cacheMaxAge, err)
+                : new ResponseCache(AppConfig.getInstance().getCacheDir(), cacheMaxAge, err);
+        AppConfig config = AppConfig.getInstance();
+        CityIndex cityIndex = noCityIndex ? null : CityIndex.openIfPresent(CityIndex.defaultPath(config.getCacheDir()), err);
+        WeatherGrid grid = null;
+        if (gridPrecision != null) {
+            if (cityIndex == null) {
+                err.println(AnsiColors.RED + "--grid places cities through the city index: build it with 'dailybrief cities build'"
+                        + AnsiColors.RESET);
+                return 1;
+            }
+            try {
+                grid = new WeatherGrid(gridPrecision);
+            } catch (IllegalArgumentException e) {
+                err.println(AnsiColors.RED + e.getMessage() + AnsiColors.RESET);
+                return 1;
+            }
+        }
+        WeatherProvider weatherService = new WeatherService(config, cache, hedgePercentile, cityIndex, grid, metrics);
+        if (race) {
+            weatherService = new RacingWeatherService(List.of(weatherService, new OpenMeteoWeatherService(config, cache, cityIndex)));
+        }
+        NewsService newsService = new NewsService(config, cache, headlines, metrics);
+
+        if (citiesFile != null || cities.size() > 1) {
+            int exitCode = runBatch(new BatchService(weatherService, newsService, concurrency, rateLimit, err), startTime);
+            startup.mark("batch");
+            if (grid != null) {
+                err.println("Grid: " + grid.stats().describe());
+            }
+            printStartupReport();
+            reportMetrics();
+            awaitRefreshes(cache);
+            return exitCode;
+        }
+
+        String city = cities.isEmpty() ? "London" : cities.get(0);
+        List<String> installed = Widgets.installed().stream().map(Widget::id).toList();
+        for (String widget : optInWidgets) {
+            if (!installed.contains(widget)) {
+                err.println(AnsiColors.RED + "Unknown widget: " + widget + " (installed: "
+                        + String.join(", ", installed) + ")" + AnsiColors.RESET);
+                return 1;
+            }
+        }
+        DashboardService dashboardService = new DashboardService(weatherService, newsService,
+                deadline != null ? Duration.ofMillis(deadline) : null, Widgets.discover(optInWidgets), new WidgetScheduler(), metrics);
+        for (String widget : skip) {
+            if (!dashboardService.widgetIds().contains(widget)) {
+                err.println(AnsiColors.RED + "Unknown widget: " + widget + " (installed: "
+                        + String.join(", ", dashboardService.widgetIds()) + ")" + AnsiColors.RESET);
+                return 1;
+            }
+        }
+        Set<String> skipped = DashboardService.skipped(noNews, noWeather, skip);
+        boolean hideWeather = skipped.contains(WeatherWidget.ID);
+        boolean hideNews = skipped.contains(NewsWidget.ID);
+        // A name the index doesn't know would only come back as a 404: stop before any request.
+        // "Portland, OR, US" and the like may still mean something to the provider
+        if (cityIndex != null && !hideWeather && !CityIndex.qualified(city) && cityIndex.matches(city).isEmpty()) {
+            err.println(AnsiColors.RED + WeatherService.unknownCity(cityIndex, city) + AnsiColors.RESET);
+            return 1;
+        }
+        if (watch != null) {
+            return runWatch(city, dashboardService.enabledWidgets(skipped), weatherService, newsService);
+        }
+        if (format != OutputFormat.TEXT) {
+            DashboardData[] fetched = new DashboardData[1];
+            int exitCode = runJson(dashboardService, city, skipped, hideWeather, hideNews, startTime, fetched);
+            startup.mark("render");
+            printStartupReport();
+            reportMetrics();
+            logUsage(cache, startTime, city, skipped, headlines);
+            recordHistory(cache, city, fetched[0], headlines);
+            awaitRefreshes(cache);
+            return exitCode;
+        }
+
+        out.println("Fetching Daily Brief...");
+        ProgressiveRenderer progressiveRenderer = progressive
+                ? new ProgressiveRenderer(consoleRenderer, err, isTerminal(), hideWeather, hideNews)
+                : null;
         DashboardData data;
         try {
-            data = dashboardService.getDashboard(city, noNews, noWeather);
+            if (progressiveRenderer != null) {
+                progressiveRenderer.start();
+                data = dashboardService.getDashboard(city, skipped, progressiveListener(progressiveRenderer));
+            } else {
+                data = dashboardService.getDashboard(city, skipped, DashboardService.Listener.printingTo(err));
+            }
         } catch (CompletionException e) {
             Throwable cause = e.getCause();
             // Unwrap RuntimeException if present (added in DashboardService)
@@ -41,32 +315,237 @@ public class RootCommand implements Callable<Integer> {
             }
 
             if (cause instanceof IllegalStateException) {
-                System.out.println(AnsiColors.RED + "Setup Required: Please create a .env file with your API keys." + AnsiColors.RESET);
-                System.exit(1);
+                out.println(AnsiColors.RED + "Setup Required: Please create a .env file with your API keys." + AnsiColors.RESET);
+                return 1;
             }
             throw e; // Rethrow if it's not the expected config error
         } catch (Exception e) {
             // Should not happen based on current logic, but good safety
             throw new RuntimeException(e);
         }
+        startup.mark("fetch");
 
-        System.out.println("\n=========================================");
-
-        if (data.weather() != null) {
-            consoleRenderer.renderWeather(data.weather());
+        // Whole dashboard as one frame: a single write instead of a flush per line
+        if (progressiveRenderer != null) {
+            progressiveRenderer.finish(startTime);
         } else {
-            if (!noWeather) System.out.println("WEATHER: Unavailable (See errors above)");
+            consoleRenderer.renderDashboard(data.weather(), data.news(), data.panels(), hideWeather, hideNews, startTime);
         }
+        startup.mark("render");
+        printStartupReport();
+        reportMetrics();
+        logUsage(cache, startTime, city, skipped, headlines);
+        recordHistory(cache, city, data, headlines);
 
-        if (data.news() != null) {
-            consoleRenderer.renderNews(data.news());
-        } else {
-            if (!noNews) System.out.println("\nNEWS: Unavailable (See errors above)");
+        awaitRefreshes(cache);
+
+        return 0;
+    }
+
+    private int runBatch(BatchService batchService, long startTime) {
+        try (Stream<String> fileLines = citiesFile != null ? Files.lines(resolve(citiesFile), StandardCharsets.UTF_8) : Stream.empty();
+             BatchWriter writer = BatchWriter.forOutput(output != null ? resolve(output) : null, format, consoleRenderer, out)) {
+            // Lazily concatenated so a huge cities file is never held in memory
+            Iterator<String> input = Stream.concat(cities.stream(), fileLines)
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .iterator();
+
+            BatchSummary summary = batchService.run(input, noNews,
+                    writer::writeNews,
+                    result -> writer.writeWeather(result.city(), result.weather(), result.error()));
+
+            err.printf("Done: %d cities (%d failed) in %dms%n",
+                    summary.cities(), summary.failed(), (System.currentTimeMillis() - startTime));
+            return summary.failed() == 0 ? 0 : 2;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            err.println(AnsiColors.RED + "Batch Error: " + e.getMessage() + AnsiColors.RESET);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 130;
         }
+    }
 
-        System.out.println("=========================================");
-        System.out.printf("Done in %dms%n", (System.currentTimeMillis() - startTime));
+    private int runJson(DashboardService dashboardService, String city, Set<String> skipped,
+                        boolean hideWeather, boolean hideNews, long startTime, DashboardData[] fetched) {
+        try (JsonRenderer renderer = new JsonRenderer(out, format == OutputFormat.NDJSON, city, hideWeather, hideNews)) {
+            DashboardData data = dashboardService.getDashboard(city, skipped, renderer.listener());
+            fetched[0] = data;
+            startup.mark("fetch");
+            renderer.finish(data, startTime);
+            return 0;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IllegalStateException) {
+                // stdout carries only JSON: the setup hint goes to stderr
+                err.println(AnsiColors.RED + "Setup Required: Please create a .env file with your API keys." + AnsiColors.RESET);
+                return 1;
+            }
+            throw e;
+        } catch (IOException | UncheckedIOException e) {
+            err.println(AnsiColors.RED + "Output Error: " + e.getMessage() + AnsiColors.RESET);
+            return 1;
+        }
+    }
 
-        return 0;
+    // Runs until the process is interrupted (Ctrl-C)
+    private int runWatch(String city, List<Widget<?>> widgets, WeatherProvider weatherService, NewsService newsService) {
+        WatchRenderer renderer = new WatchRenderer(consoleRenderer, out, isTerminal(), widgets, watch);
+        DashboardWatcher watcher = new DashboardWatcher(weatherService, newsService, widgets, new WidgetScheduler(), watch);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            watcher.stop();
+            renderer.close();
+        }));
+        renderer.start();
+        try {
+            watcher.start(city, new DashboardWatcher.Listener() {
+                @Override
+                public void onChange(Widget<?> widget, Object value) {
+                    renderer.update(widget, value);
+                }
+
+                @Override
+                public void onError(Widget<?> widget, Throwable e) {
+                    renderer.error(widget, e);
+                }
+            });
+            new CountDownLatch(1).await();
+        } catch (IllegalArgumentException e) {
+            renderer.close();
+            err.println(AnsiColors.RED + "Watch Error: " + e.getMessage() + AnsiColors.RESET);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 130;
+    }
+
+    /** "90" (seconds), "30s", "5m", "1h" or "7d". */
+    static class IntervalConverter implements CommandLine.ITypeConverter<Duration> {
+        @Override
+        public Duration convert(String value) {
+            String trimmed = value.trim().toLowerCase(Locale.ROOT);
+            char unit = trimmed.isEmpty() ? ' ' : trimmed.charAt(trimmed.length() - 1);
+            String amount = Character.isDigit(unit) ? trimmed : trimmed.substring(0, trimmed.length() - 1);
+            long count;
+            try {
+                count = Long.parseLong(amount);
+            } catch (NumberFormatException e) {
+                count = -1;
+            }
+            if (count <= 0 || "smhd".indexOf(unit) < 0 && !Character.isDigit(unit)) {
+                throw new CommandLine.TypeConversionException("'" + value + "' is not an interval such as 90, 30s, 5m, 1h or 7d");
+            }
+            return switch (unit) {
+                case 'm' -> Duration.ofMinutes(count);
+                case 'h' -> Duration.ofHours(count);
+                case 'd' -> Duration.ofDays(count);
+                default -> Duration.ofSeconds(count);
+            };
+        }
+    }
+
+    /** "text", "json" or "ndjson", in any case. */
+    static class FormatConverter implements CommandLine.ITypeConverter<OutputFormat> {
+        @Override
+        public OutputFormat convert(String value) {
+            try {
+                return OutputFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CommandLine.TypeConversionException("'" + value + "' is not a format: use text, json or ndjson");
+            }
+        }
+    }
+
+    private static DashboardService.Listener progressiveListener(ProgressiveRenderer renderer) {
+        return new DashboardService.Listener() {
+            @Override
+            public void onWeather(WeatherResponse weather) {
+                renderer.weatherReady(weather);
+            }
+
+            @Override
+            public void onNews(NewsResponse news) {
+                renderer.newsReady(news);
+            }
+
+            @Override
+            public void onPanel(Panel panel) {
+                renderer.panelReady(panel);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                renderer.error(e);
+            }
+        };
+    }
+
+    // In-place repaints need a terminal; the daemon's forwarded streams never are one
+    private boolean isTerminal() {
+        return out == System.out && System.console() != null;
+    }
+
+    private void reportMetrics() {
+        if (timings) {
+            metrics.printTimings(err);
+        }
+        if (metricsOut != null) {
+            try {
+                metrics.appendTo(resolve(metricsOut));
+            } catch (IOException e) {
+                err.println(AnsiColors.RED + "Metrics Error: " + e.getMessage() + AnsiColors.RESET);
+            }
+        }
+    }
+
+    private void printStartupReport() {
+        if (startupReport) {
+            startup.print(err);
+        }
+    }
+
+    // What the prefetcher learns from; written after the frame, so it never delays it
+    private void logUsage(ResponseCache cache, long startTime, String city, Set<String> skipped, HeadlineQuery headlines) {
+        UsageLog log = UsageLog.inDir(cache.dir());
+        if (log == null) {
+            return;
+        }
+        boolean forecast = optInWidgets.contains(ForecastWidget.ID) && !skipped.contains(ForecastWidget.ID);
+        try {
+            log.append(startTime, new Brief(city, !skipped.contains(WeatherWidget.ID),
+                    skipped.contains(NewsWidget.ID) ? null : headlines, forecast));
+        } catch (IOException e) {
+            // Best effort: a run that can't be logged only goes unlearned
+        }
+    }
+
+    // Kept for `dailybrief history`; like the usage log, written after the frame
+    private void recordHistory(ResponseCache cache, String city, DashboardData data, HeadlineQuery headlines) {
+        HistoryStore history = HistoryStore.inDir(cache.dir());
+        if (history == null || data == null) {
+            return;
+        }
+        try {
+            history.record(city, data.weather(), headlines.label(), data.news());
+        } catch (IOException e) {
+            err.println(AnsiColors.RED + "History Warning: " + e.getMessage() + AnsiColors.RESET);
+        }
+    }
+
+    // Let stale-while-revalidate refreshes land on disk before the JVM exits.
+    // A resident daemon keeps running, so it never waits on the client's time.
+    private void awaitRefreshes(ResponseCache cache) {
+        if (sharedCache == null) {
+            cache.awaitRefreshes(Duration.ofSeconds(5));
+        }
+    }
+
+    Path resolve(Path path) {
+        return workingDir != null ? workingDir.resolve(path) : path;
     }
 }
@@ -1,24 +1,19 @@
 package com.dailybrief.config;
 
+import com.dailybrief.metrics.Metrics;
 import io.github.cdimascio.dotenv.Dotenv;
 import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 public class AppConfig {
     private static AppConfig instance;
-    private final Dotenv dotenv;
-    private final HttpClient httpClient;
+    // Both are created on first use, so --help, --version and cache hits never pay for them
+    private volatile Dotenv dotenv;
+    private volatile HttpClient httpClient;
 
     private AppConfig() {
-        // Load .env file (ignore if missing to allow system env vars)
-        this.dotenv = Dotenv.configure().ignoreIfMissing().load();
-
-        // PRD 5.1: Timeout Policy - 5 seconds
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
-
-        assert this.httpClient != null : "HttpClient failed to initialize";
     }
 
     public static synchronized AppConfig getInstance() {
@@ -28,11 +23,119 @@ public class AppConfig {
         return instance;
     }
 
+    // A -D system property wins over .env and the environment (used by the training run)
     public String getApiKey(String keyName) {
-        return dotenv.get(keyName);
+        String override = System.getProperty(keyName);
+        if (override != null) {
+            return override;
+        }
+        return dotenv().get(keyName);
     }
 
     public HttpClient getHttpClient() {
-        return httpClient;
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                if (httpClient == null) {
+                    Metrics.Span span = Metrics.startProcessPhase("config.http-client");
+                    long start = System.nanoTime();
+                    // PRD 5.1: Timeout Policy - 5 seconds
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofSeconds(5));
+                    // Otherwise the client starts an unbounded pool of its own
+                    Executor executor = Threads.httpExecutor();
+                    if (executor != null) {
+                        builder.executor(executor);
+                    }
+                    httpClient = builder.build();
+                    StartupReport.recordProcessPhase("config: http client", System.nanoTime() - start);
+                    span.end();
+                }
+                client = httpClient;
+            }
+        }
+        assert client != null : "HttpClient failed to initialize";
+        return client;
+    }
+
+    private Dotenv dotenv() {
+        Dotenv env = dotenv;
+        if (env == null) {
+            synchronized (this) {
+                if (dotenv == null) {
+                    Metrics.Span span = Metrics.startProcessPhase("config.load");
+                    long start = System.nanoTime();
+                    // Load .env file (ignore if missing to allow system env vars)
+                    dotenv = Dotenv.configure().ignoreIfMissing().load();
+                    StartupReport.recordProcessPhase("config: .env", System.nanoTime() - start);
+                    span.end();
+                }
+                env = dotenv;
+            }
+        }
+        return env;
+    }
+
+    public Path getCacheDir() {
+        return userCacheDir();
+    }
+
+    /**
+     * Base URL of an upstream API: -Ddailybrief.&lt;name&gt;.url, then DAILYBRIEF_&lt;NAME&gt;_URL,
+     * then the public endpoint. Lets the training run and tests point at a local stub.
+     */
+    public static String endpoint(String name, String defaultUrl) {
+        String property = System.getProperty("dailybrief." + name + ".url");
+        if (property != null && !property.isBlank()) {
+            return property;
+        }
+        String env = System.getenv("DAILYBRIEF_" + name.toUpperCase() + "_URL");
+        if (env != null && !env.isBlank()) {
+            return env;
+        }
+        return defaultUrl;
+    }
+
+    /** -Ddailybrief.&lt;name&gt;, then DAILYBRIEF_&lt;NAME&gt; (dots and dashes as underscores); null when neither is set. */
+    public static String setting(String name) {
+        String value = System.getProperty("dailybrief." + name);
+        if (value == null || value.isBlank()) {
+            value = System.getenv("DAILYBRIEF_" + name.toUpperCase().replace('.', '_').replace('-', '_'));
+        }
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * A numeric setting: -Ddailybrief.&lt;name&gt;, then DAILYBRIEF_&lt;NAME&gt; (dots and dashes as
+     * underscores), then {@code defaultValue}. Values that aren't whole numbers are ignored.
+     */
+    public static int limit(String name, int defaultValue) {
+        String value = setting(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    // Per-user cache directory (XDG_CACHE_HOME on Linux, LOCALAPPDATA on Windows).
+    // Static so the daemon client can find its socket without loading the full config.
+    public static Path userCacheDir() {
+        String override = System.getProperty("dailybrief.cache.dir");
+        if (override != null && !override.isBlank()) {
+            return Path.of(override);
+        }
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        if (xdg != null && !xdg.isBlank()) {
+            return Path.of(xdg, "dailybrief");
+        }
+        String localAppData = System.getenv("LOCALAPPDATA");
+        if (localAppData != null && !localAppData.isBlank()) {
+            return Path.of(localAppData, "dailybrief", "cache");
+        }
+        return Path.of(System.getProperty("user.home"), ".cache", "dailybrief");
     }
-}
\ No newline at end of file
+}
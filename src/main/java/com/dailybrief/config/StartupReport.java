@@ -0,0 +1,75 @@
+package com.dailybrief.config;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How long each startup phase of one invocation took, printed by --startup-report. Each CLI
+ * run or daemon request has its own, so concurrent daemon requests never see or clear each
+ * other's phases. Phases are either consecutive marks from the start of the invocation or
+ * individually timed lazy components (which then also count towards the enclosing mark).
+ * <p>
+ * Lazy config setup happens once per process: it is timed with {@link #recordProcessPhase}
+ * and reported by the first invocation to mark a phase after it ran.
+ */
+public final class StartupReport {
+    // Process setup phases no invocation has reported yet
+    private static final List<Phase> UNCLAIMED = new ArrayList<>();
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final long mainStartedMillis;
+    private long lastMark;
+
+    private record Phase(String name, long nanos, boolean nested) {}
+
+    /**
+     * A report for an invocation in an already-running process (a daemon request): the first
+     * mark counts from here, and there is no JVM boot to report for it.
+     */
+    public StartupReport() {
+        this(0);
+    }
+
+    private StartupReport(long mainStartedMillis) {
+        this.mainStartedMillis = mainStartedMillis;
+        this.lastMark = System.nanoTime();
+    }
+
+    /** Called first thing in main: the report also shows how long the JVM took to get there. */
+    public static StartupReport fromMain() {
+        return new StartupReport(System.currentTimeMillis());
+    }
+
+    /** Closes the phase that started at the previous mark. */
+    public synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        synchronized (UNCLAIMED) {
+            phases.addAll(UNCLAIMED);
+            UNCLAIMED.clear();
+        }
+        phases.add(new Phase(phase, now - lastMark, false));
+        lastMark = now;
+    }
+
+    /** Times one-off setup shared by the whole process; see the class comment. */
+    public static void recordProcessPhase(String component, long nanos) {
+        synchronized (UNCLAIMED) {
+            UNCLAIMED.add(new Phase(component, nanos, true));
+        }
+    }
+
+    public synchronized void print(PrintStream out) {
+        out.println("Startup report:");
+        if (mainStartedMillis != 0) {
+            // Only loaded when the report is printed, so java.management costs nothing otherwise
+            long jvmStarted = ManagementFactory.getRuntimeMXBean().getStartTime();
+            out.printf("  %-24s %8.1f ms%n", "jvm boot", (double) (mainStartedMillis - jvmStarted));
+        }
+        for (Phase phase : phases) {
+            String name = phase.nested() ? "  " + phase.name() : phase.name();
+            out.printf("  %-24s %8.1f ms%n", name, phase.nanos() / 1e6);
+        }
+    }
+}
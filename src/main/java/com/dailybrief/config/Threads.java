@@ -0,0 +1,114 @@
+package com.dailybrief.config;
+
+import com.dailybrief.metrics.InstrumentedExecutor;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Threads {
+    /** Pool size of each executor in the platform model: -Ddailybrief.threads or DAILYBRIEF_THREADS. */
+    public static final int PLATFORM_THREADS =
+            AppConfig.limit("threads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Where the HttpClient's own work and the JSON decoding run, chosen with
+     * -Ddailybrief.executor or DAILYBRIEF_EXECUTOR (per_task, platform or default).
+     */
+    public enum Model {
+        /**
+         * A new thread per task from {@link Threads#newPerTaskExecutor}: virtual threads on a Java 21+
+         * runtime, a cached pool of daemon platform threads on the Java 17 the build targets.
+         */
+        PER_TASK,
+        /** Fixed pools of {@link #PLATFORM_THREADS} daemon threads each: the default. */
+        PLATFORM,
+        /** The HttpClient's own unbounded pool, with decoding on whichever thread completes the response. */
+        DEFAULT
+    }
+
+    private Threads() {
+    }
+
+    // Holder idiom: the executors are created on first use, once per JVM (the daemon included)
+    private static final class Shared {
+        static final Model MODEL = configuredModel();
+        static final Executor HTTP = MODEL == Model.DEFAULT ? null : InstrumentedExecutor.register("http", create(MODEL, "dailybrief-http"));
+        static final Executor DECODE = InstrumentedExecutor.register("decode",
+                MODEL == Model.DEFAULT ? Runnable::run : create(MODEL, "dailybrief-decode"));
+
+        private static Executor create(Model model, String namePrefix) {
+            return model == Model.PER_TASK
+                    ? newPerTaskExecutor(namePrefix)
+                    : Executors.newFixedThreadPool(PLATFORM_THREADS, daemonFactory(namePrefix));
+        }
+    }
+
+    public static Model model() {
+        return Shared.MODEL;
+    }
+
+    /** The executor for {@code HttpClient.Builder.executor}, or null to keep the client's default. */
+    public static Executor httpExecutor() {
+        return Shared.HTTP;
+    }
+
+    /**
+     * Where responses are decoded: the {@code *Async} parse stages run here, never on the
+     * HttpClient's threads. Decoding reads the body as it streams in, so it may block.
+     */
+    public static Executor decodeExecutor() {
+        return Shared.DECODE;
+    }
+
+    /**
+     * Why the configured executor model is not the one in use, for the command to print on its
+     * own error stream; null when the setting is unset or valid.
+     */
+    public static String configurationWarning() {
+        String value = AppConfig.setting("executor");
+        return value != null && parse(value) == null
+                ? "unknown executor model '" + value + "', using " + Model.PLATFORM.name().toLowerCase(Locale.ROOT)
+                : null;
+    }
+
+    // An unknown value falls back to the platform pools; configurationWarning() reports it
+    private static Model configuredModel() {
+        String value = AppConfig.setting("executor");
+        Model model = value != null ? parse(value) : null;
+        return model != null ? model : Model.PLATFORM;
+    }
+
+    private static Model parse(String value) {
+        try {
+            return Model.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One thread per task: virtual threads when the runtime has them (Java 21+),
+     * otherwise a cached pool of daemon platform threads. The project targets Java 17,
+     * so the virtual-thread factory is looked up reflectively.
+     */
+    public static ExecutorService newPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonFactory(namePrefix));
+        }
+    }
+
+    public static ThreadFactory daemonFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
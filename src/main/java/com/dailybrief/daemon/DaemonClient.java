@@ -0,0 +1,85 @@
+package com.dailybrief.daemon;
+
+import com.dailybrief.daemon.DaemonProtocol.Request;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Thin client used by the normal entry point: forwards the arguments to a running daemon
+ * and replays its output, so the in-process path (Dotenv, HttpClient, Jackson) is skipped.
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * The daemon never serves its own subcommand, nor watch mode or prefetch, which run for as
+     * long as they are left running; DAILYBRIEF_NO_DAEMON forces the in-process path.
+     */
+    public static boolean shouldForward(String[] args) {
+        if (System.getenv("DAILYBRIEF_NO_DAEMON") != null) {
+            return false;
+        }
+        for (String arg : args) {
+            if (arg.equals("--watch") || arg.startsWith("--watch=")) {
+                return false;
+            }
+        }
+        return args.length == 0 || !("daemon".equals(args[0]) || "prefetch".equals(args[0]));
+    }
+
+    /**
+     * @return the command's exit code, or null when no daemon answered and the caller
+     *         should run in-process instead
+     */
+    public static Integer tryRun(String[] args) {
+        Path socketPath = DaemonProtocol.defaultSocketPath();
+        if (!Files.exists(socketPath)) {
+            return null;
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException | UnsupportedOperationException e) {
+            return null; // Stale socket file or no AF_UNIX support
+        }
+
+        boolean receivedOutput = false;
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DaemonProtocol.writeRequest(out, new Request(Path.of("").toAbsolutePath().toString(), args));
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            while (true) {
+                byte type = in.readByte();
+                if (type == DaemonProtocol.EXIT) {
+                    System.out.flush();
+                    return in.readInt();
+                }
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                PrintStream target = (type == DaemonProtocol.STDERR) ? System.err : System.out;
+                target.write(frame, 0, frame.length);
+                receivedOutput = true;
+            }
+        } catch (IOException e) {
+            if (!receivedOutput) {
+                return null; // Nothing shown yet, so running in-process is safe
+            }
+            System.err.println("Daemon Error: " + e.getMessage());
+            return 1;
+        }
+    }
+}
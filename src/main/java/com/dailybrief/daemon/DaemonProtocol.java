@@ -0,0 +1,103 @@
+package com.dailybrief.daemon;
+
+import com.dailybrief.config.AppConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Wire format between the thin client and the daemon.
+ * Request: magic, working directory, argc, args (all modified UTF-8).
+ * Response: a sequence of frames {@code [type][length][bytes]} ending with an EXIT frame.
+ */
+final class DaemonProtocol {
+    static final int MAGIC = 0x44424431; // "DBD1"
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    private DaemonProtocol() {
+    }
+
+    static Path defaultSocketPath() {
+        String override = System.getenv("DAILYBRIEF_SOCKET");
+        if (override != null && !override.isBlank()) {
+            return Path.of(override);
+        }
+        return AppConfig.userCacheDir().resolve("daemon.sock");
+    }
+
+    record Request(String workingDir, String[] args) {}
+
+    static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(request.workingDir());
+        out.writeInt(request.args().length);
+        for (String arg : request.args()) {
+            out.writeUTF(arg);
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Unknown client protocol");
+        }
+        String workingDir = in.readUTF();
+        int argc = in.readInt();
+        if (argc < 0 || argc > 4096) {
+            throw new IOException("Invalid argument count: " + argc);
+        }
+        String[] args = new String[argc];
+        for (int i = 0; i < argc; i++) {
+            args[i] = in.readUTF();
+        }
+        return new Request(workingDir, args);
+    }
+
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    /** Wraps every write to the client as a frame on the given channel (stdout or stderr). */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
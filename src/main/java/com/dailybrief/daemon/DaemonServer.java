@@ -0,0 +1,144 @@
+package com.dailybrief.daemon;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.commands.RootCommand;
+import com.dailybrief.config.Threads;
+import com.dailybrief.daemon.DaemonProtocol.FrameOutputStream;
+import com.dailybrief.daemon.DaemonProtocol.Request;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resident server behind {@code dailybrief daemon}. Keeps the config, the shared HttpClient
+ * (and its warm connections) and the response cache alive, and runs each client invocation
+ * on its own thread. Shuts itself down after a period without clients.
+ */
+public class DaemonServer {
+    private final Path socketPath;
+    private final Duration idleTimeout;
+    private final ResponseCache cache;
+    private final PrintStream err;
+    private final ExecutorService executor = Threads.newPerTaskExecutor("dailybrief-client");
+    private final AtomicInteger activeClients = new AtomicInteger();
+    private volatile long lastActivity = System.nanoTime();
+    private ServerSocketChannel server;
+
+    /** @param err the daemon's own error stream, for failures no client is left to hear about */
+    public DaemonServer(Path socketPath, Duration idleTimeout, ResponseCache cache, PrintStream err) {
+        this.socketPath = socketPath;
+        this.idleTimeout = idleTimeout;
+        this.cache = cache;
+        this.err = err;
+    }
+
+    public static Path defaultSocketPath() {
+        return DaemonProtocol.defaultSocketPath();
+    }
+
+    public void run() throws IOException {
+        prepareSocketFile();
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+
+        ScheduledExecutorService idleCheck = Executors.newSingleThreadScheduledExecutor(Threads.daemonFactory("dailybrief-idle"));
+        idleCheck.scheduleAtFixedRate(this::closeIfIdle, 1, 1, TimeUnit.SECONDS);
+        try {
+            while (server.isOpen()) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (ClosedChannelException e) {
+                    break; // Idle shutdown
+                }
+                activeClients.incrementAndGet();
+                lastActivity = System.nanoTime();
+                executor.execute(() -> handle(client));
+            }
+        } finally {
+            idleCheck.shutdownNow();
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+            Request request = DaemonProtocol.readRequest(in);
+
+            PrintStream stdout = new PrintStream(new FrameOutputStream(out, DaemonProtocol.STDOUT), true, StandardCharsets.UTF_8);
+            PrintStream stderr = new PrintStream(new FrameOutputStream(out, DaemonProtocol.STDERR), true, StandardCharsets.UTF_8);
+
+            int exitCode;
+            if (request.args().length > 0 && "daemon".equals(request.args()[0])) {
+                stderr.println("A daemon is already running at " + socketPath);
+                exitCode = 1;
+            } else {
+                CommandLine commandLine = new CommandLine(new RootCommand(stdout, stderr, cache, Path.of(request.workingDir())));
+                commandLine.setOut(new PrintWriter(stdout, true));
+                commandLine.setErr(new PrintWriter(stderr, true));
+                exitCode = commandLine.execute(request.args());
+            }
+            stdout.flush();
+            stderr.flush();
+            DaemonProtocol.writeExit(out, exitCode);
+        } catch (IOException e) {
+            err.println("Daemon Warning: " + e.getMessage());
+        } finally {
+            lastActivity = System.nanoTime();
+            activeClients.decrementAndGet();
+        }
+    }
+
+    private void closeIfIdle() {
+        boolean idle = activeClients.get() == 0 && System.nanoTime() - lastActivity > idleTimeout.toNanos();
+        if (idle) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+                // Accept loop exits either way
+            }
+        }
+    }
+
+    // A leftover socket file from a crashed daemon blocks bind(); a live one means we should not start
+    private void prepareSocketFile() throws IOException {
+        Files.createDirectories(socketPath.toAbsolutePath().getParent());
+        if (!Files.exists(socketPath)) {
+            return;
+        }
+        try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            throw new IllegalStateException("A daemon is already running at " + socketPath);
+        } catch (IOException stale) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+}
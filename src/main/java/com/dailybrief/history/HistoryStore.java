@@ -0,0 +1,426 @@
+package com.dailybrief.history;
+
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Every dashboard fetched, kept next to the response cache so trends and past headlines can
+ * be read back without calling any API. An append-only log of {@link Segment}s: weather is
+ * one fixed-width record per reading, headlines one per article, all records of a fetch
+ * sharing its time, and strings are interned per segment. A query maps the segments its time
+ * range overlaps and decodes only the records of the subject asked for.
+ * <p>
+ * Appends and compaction hold an exclusive lock on a file in the store, queries a shared one,
+ * so every CLI process and the daemon can use it at once. When a segment fills up it is
+ * sealed and segments older than the retention are deleted; {@link #compact()} also drops
+ * repeats of one observation (a dashboard served from cache records the reading the last one
+ * did) and rewrites what is left into full segments.
+ */
+public final class HistoryStore {
+    public static final String DIR_NAME = "history";
+    static final int SEGMENT_RECORDS = 4096;
+    // One store per directory and process: FileLock is per JVM, the monitor keeps threads apart
+    private static final Map<Path, HistoryStore> SHARED = new ConcurrentHashMap<>();
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final Duration retention;
+    private final Clock clock;
+    private FileChannel lockChannel;
+    // The segment this process appends to, with its interned strings; re-checked under the lock
+    private Appender appender;
+
+    /** One weather reading; {@code observedAt} is when the provider observed it, 0 when unknown. */
+    public record Reading(long at, String name, String country, double temp, int humidity, String condition,
+                          long observedAt) {}
+
+    /** One article of a headlines snapshot; {@code at} is when the snapshot was fetched. */
+    public record Headline(long at, String title, String source, String url, String publishedAt) {}
+
+    public record Compaction(int segmentsBefore, int segmentsAfter, long recordsBefore, long recordsAfter,
+                             long bytesBefore, long bytesAfter) {}
+
+    /**
+     * @param retention how long records are kept; zero keeps them forever
+     */
+    HistoryStore(Path dir, int segmentRecords, Duration retention, Clock clock) {
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /** The store in the cache directory, or null without one (a memory-only cache). */
+    public static HistoryStore inDir(Path cacheDir) {
+        if (cacheDir == null) {
+            return null;
+        }
+        return SHARED.computeIfAbsent(cacheDir.resolve(DIR_NAME),
+                dir -> new HistoryStore(dir, SEGMENT_RECORDS, retention(), Clock.systemUTC()));
+    }
+
+    /** -Ddailybrief.history.retention-days or DAILYBRIEF_HISTORY_RETENTION_DAYS, 90 by default; 0 keeps everything. */
+    public static Duration retention() {
+        return Duration.ofDays(Math.max(0, AppConfig.limit("history.retention-days", 90)));
+    }
+
+    /**
+     * Records one fetched dashboard: the weather of {@code city} and the headlines fetched
+     * for {@code newsLabel}; either may be null.
+     */
+    public void record(String city, WeatherResponse weather, String newsLabel, NewsResponse news) throws IOException {
+        List<NewsResponse.Article> articles = news != null && news.articles() != null && newsLabel != null
+                ? news.articles() : List.of();
+        // A snapshot never spans two segments
+        int headlines = Math.min(articles.size(), segmentRecords - 1);
+        if (weather == null && headlines == 0) {
+            return;
+        }
+        synchronized (this) {
+            Files.createDirectories(dir);
+            try (FileLock ignored = lock(false)) {
+                // Under the lock, so times are in append order whichever process appends
+                long at = clock.millis();
+                Appender out = appender();
+                boolean rolled = out.room((weather != null ? 1 : 0) + headlines);
+                if (weather != null) {
+                    WeatherResponse.Weather condition = weather.weather() != null && !weather.weather().isEmpty()
+                            ? weather.weather().get(0) : null;
+                    out.weather(subject(city), at, new Reading(at, weather.name(),
+                            weather.sys() != null ? weather.sys().country() : null,
+                            weather.main() != null ? weather.main().temp() : Double.NaN,
+                            weather.main() != null ? weather.main().humidity() : -1,
+                            condition != null ? condition.description() : null, weather.dt() * 1000));
+                }
+                for (int rank = 0; rank < headlines; rank++) {
+                    NewsResponse.Article article = articles.get(rank);
+                    out.headline(subject(newsLabel), at, rank, new Headline(at, article.title(),
+                            article.source() != null ? article.source().name() : null, article.url(), article.publishedAt()));
+                }
+                if (rolled) {
+                    dropExpired();
+                }
+            }
+        }
+    }
+
+    /** The readings recorded for {@code city} in [since, until] (epoch millis), oldest first. */
+    public List<Reading> readings(String city, long since, long until) throws IOException {
+        String subject = subject(city);
+        long hash = hash(subject);
+        List<Reading> readings = new ArrayList<>();
+        synchronized (this) {
+            if (!Files.isDirectory(dir)) {
+                return readings;
+            }
+            try (FileLock ignored = lock(true)) {
+                for (Path file : segmentFiles()) {
+                    Segment segment = Segment.open(file, false);
+                    if (!segment.overlaps(since, until)) {
+                        continue;
+                    }
+                    ByteBuffer pool = segment.mapStrings();
+                    segment.scan(Segment.WEATHER, hash, since, until, record -> {
+                        // The hash narrows it down; the subject itself rules out a collision
+                        if (subject.equals(Segment.string(pool, segment.subject(record)))) {
+                            readings.add(reading(segment, pool, record));
+                        }
+                    });
+                }
+            }
+        }
+        readings.sort(Comparator.comparingLong(Reading::at));
+        return readings;
+    }
+
+    /** The latest headlines snapshot for {@code newsLabel} fetched at or before {@code at}, in the order shown. */
+    public List<Headline> headlinesAt(String newsLabel, long at) throws IOException {
+        String subject = subject(newsLabel);
+        long hash = hash(subject);
+        synchronized (this) {
+            if (!Files.isDirectory(dir)) {
+                return List.of();
+            }
+            try (FileLock ignored = lock(true)) {
+                List<Path> files = segmentFiles();
+                // Newest segment first: the snapshot is in the first one that has any
+                for (int i = files.size() - 1; i >= 0; i--) {
+                    Segment segment = Segment.open(files.get(i), false);
+                    if (!segment.overlaps(Long.MIN_VALUE, at)) {
+                        continue;
+                    }
+                    ByteBuffer pool = segment.mapStrings();
+                    List<Integer> matches = new ArrayList<>();
+                    segment.scan(Segment.HEADLINE, hash, Long.MIN_VALUE, at, record -> {
+                        if (subject.equals(Segment.string(pool, segment.subject(record)))) {
+                            matches.add(record);
+                        }
+                    });
+                    if (matches.isEmpty()) {
+                        continue;
+                    }
+                    long latest = matches.stream().mapToLong(segment::at).max().getAsLong();
+                    return matches.stream()
+                            .filter(record -> segment.at(record) == latest)
+                            .sorted(Comparator.comparingInt(segment::shortWord))
+                            .map(record -> headline(segment, pool, record))
+                            .toList();
+                }
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Rewrites the store without the records past the retention, readings of the same
+     * provider observation as the previous one for the same city (readings with no observation
+     * time are all kept), snapshots identical to the previous one for the same
+     * headlines, and anything older than what was already kept for its subject, or as old and
+     * in a later segment (a copy left by an interrupted compaction). What is left is packed into
+     * full segments.
+     */
+    public Compaction compact() throws IOException {
+        synchronized (this) {
+            if (!Files.isDirectory(dir)) {
+                return new Compaction(0, 0, 0, 0, 0, 0);
+            }
+            try (FileLock ignored = lock(false)) {
+                List<Path> files = segmentFiles();
+                if (files.isEmpty()) {
+                    return new Compaction(0, 0, 0, 0, 0, 0);
+                }
+                long cutoff = cutoff();
+                List<Segment> old = new ArrayList<>();
+                long recordsBefore = 0;
+                long bytesBefore = 0;
+                for (Path file : files) {
+                    Segment segment = Segment.open(file, false);
+                    old.add(segment);
+                    recordsBefore += segment.count();
+                    bytesBefore += segment.bytes();
+                }
+                Appender out = new Appender(Segment.create(dir, old.get(old.size() - 1).sequence + 1, segmentRecords));
+                List<Segment> written = new ArrayList<>(List.of(out.segment));
+                Map<Long, Long> lastAt = new HashMap<>();
+                Map<Long, Long> lastSequence = new HashMap<>();
+                Map<Long, Long> lastObserved = new HashMap<>();
+                Map<Long, List<String>> lastTitles = new HashMap<>();
+                long recordsAfter = 0;
+                for (Segment segment : old) {
+                    ByteBuffer pool = segment.mapStrings();
+                    int count = segment.count();
+                    for (int record = 0; record < count; ) {
+                        long at = segment.at(record);
+                        long hash = segment.subjectHash(record);
+                        String subject = Segment.string(pool, segment.subject(record));
+                        byte kind = segment.kind(record);
+                        // Key per kind: a city and a headlines label may share a name
+                        long key = hash * 31 + kind;
+                        if (kind == Segment.WEATHER) {
+                            Reading reading = reading(segment, pool, record);
+                            record++;
+                            if (at < cutoff || copied(key, at, segment.sequence, lastAt, lastSequence)) {
+                                continue;
+                            }
+                            long observed = reading.observedAt();
+                            if (observed != 0 && Objects.equals(lastObserved.put(key, observed), observed)) {
+                                continue;
+                            }
+                            if (out.room(1)) {
+                                written.add(out.segment);
+                            }
+                            out.weather(subject, at, reading);
+                            recordsAfter++;
+                        } else {
+                            // A snapshot: this record and the ones after it with the same subject and time
+                            List<Headline> snapshot = new ArrayList<>();
+                            while (record < count && segment.kind(record) == Segment.HEADLINE
+                                    && segment.subjectHash(record) == hash && segment.at(record) == at) {
+                                snapshot.add(headline(segment, pool, record));
+                                record++;
+                            }
+                            if (at < cutoff || copied(key, at, segment.sequence, lastAt, lastSequence)) {
+                                continue;
+                            }
+                            List<String> titles = snapshot.stream().map(Headline::title).toList();
+                            if (titles.equals(lastTitles.put(key, titles))) {
+                                continue;
+                            }
+                            if (out.room(snapshot.size())) {
+                                written.add(out.segment);
+                            }
+                            for (int rank = 0; rank < snapshot.size(); rank++) {
+                                out.headline(subject, at, rank, snapshot.get(rank));
+                            }
+                            recordsAfter += snapshot.size();
+                        }
+                    }
+                }
+                for (Segment segment : old) {
+                    segment.delete();
+                }
+                appender = null;
+                long bytesAfter = 0;
+                for (Segment segment : written) {
+                    bytesAfter += segment.bytes();
+                }
+                return new Compaction(old.size(), written.size(), recordsBefore, recordsAfter, bytesBefore, bytesAfter);
+            }
+        }
+    }
+
+    // Behind what was kept for the key: older, or as old but in a later segment. Else this is the newest
+    private static boolean copied(long key, long at, long sequence, Map<Long, Long> lastAt, Map<Long, Long> lastSequence) {
+        long kept = lastAt.getOrDefault(key, Long.MIN_VALUE);
+        if (at < kept || at == kept && sequence > lastSequence.get(key)) {
+            return true;
+        }
+        lastAt.put(key, at);
+        lastSequence.put(key, sequence);
+        return false;
+    }
+
+    // Sealed segments whose newest record is past the retention; never the one being appended to
+    private void dropExpired() throws IOException {
+        long cutoff = cutoff();
+        for (Path file : segmentFiles()) {
+            Segment segment = Segment.open(file, false);
+            if (segment.sealed() && segment.count() > 0 && segment.lastAt() < cutoff) {
+                segment.delete();
+            }
+        }
+    }
+
+    private long cutoff() {
+        return retention.isZero() ? Long.MIN_VALUE : clock.millis() - retention.toMillis();
+    }
+
+    // The last segment, unless another process sealed it or none exists yet
+    private Appender appender() throws IOException {
+        List<Path> files = segmentFiles();
+        Path last = files.isEmpty() ? null : files.get(files.size() - 1);
+        if (appender == null || last == null || !appender.segment.file.equals(last)) {
+            appender = last != null
+                    ? new Appender(Segment.open(last, true))
+                    : new Appender(Segment.create(dir, 1, segmentRecords));
+        }
+        appender.refresh();
+        return appender;
+    }
+
+    /** Appends to one segment at a time, interning its strings, and rolls over to the next when full. */
+    private final class Appender {
+        Segment segment;
+        private final Map<String, Integer> interned = new HashMap<>();
+        private int internedUpTo;
+
+        Appender(Segment segment) {
+            this.segment = segment;
+        }
+
+        // Strings other processes added to the pool since
+        void refresh() throws IOException {
+            internedUpTo = segment.loadStrings(internedUpTo, interned);
+        }
+
+        /** Makes room for {@code records} more; true when that took a new segment. */
+        boolean room(int records) throws IOException {
+            if (!segment.sealed() && segment.count() + records <= segment.capacity()) {
+                return false;
+            }
+            if (!segment.sealed()) {
+                segment.seal();
+            }
+            segment = Segment.create(dir, segment.sequence + 1, segmentRecords);
+            interned.clear();
+            internedUpTo = 0;
+            return true;
+        }
+
+        void weather(String subject, long at, Reading reading) throws IOException {
+            segment.append(Segment.WEATHER, reading.humidity(), string(subject), hash(subject), at,
+                    string(reading.name()), string(reading.country()), Float.floatToRawIntBits((float) reading.temp()),
+                    string(reading.condition()), reading.observedAt());
+        }
+
+        void headline(String subject, long at, int rank, Headline headline) throws IOException {
+            segment.append(Segment.HEADLINE, rank, string(subject), hash(subject), at,
+                    string(headline.title()), string(headline.source()), string(headline.url()), string(headline.publishedAt()), 0);
+        }
+
+        private int string(String value) throws IOException {
+            if (value == null) {
+                return Segment.NO_STRING;
+            }
+            Integer ref = interned.get(value);
+            if (ref == null) {
+                ref = segment.addString(value);
+                interned.put(value, ref);
+                internedUpTo = ref + Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+            }
+            return ref;
+        }
+    }
+
+    private static Reading reading(Segment segment, ByteBuffer pool, int record) {
+        return new Reading(segment.at(record), Segment.string(pool, segment.word(record, 0)),
+                Segment.string(pool, segment.word(record, 1)), segment.floatWord(record, 2),
+                segment.shortWord(record), Segment.string(pool, segment.word(record, 3)), segment.observed(record));
+    }
+
+    private static Headline headline(Segment segment, ByteBuffer pool, int record) {
+        return new Headline(segment.at(record), Segment.string(pool, segment.word(record, 0)),
+                Segment.string(pool, segment.word(record, 1)), Segment.string(pool, segment.word(record, 2)),
+                Segment.string(pool, segment.word(record, 3)));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> Segment.sequence(file) >= 0).sorted(Comparator.comparingLong(Segment::sequence)).toList();
+        }
+    }
+
+    private FileLock lock(boolean shared) throws IOException {
+        if (lockChannel == null) {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return lockChannel.lock(0, Long.MAX_VALUE, shared);
+    }
+
+    /** "München" and "munchen  " are one city; "US - BUSINESS" and "us - business" one headlines query. */
+    static String subject(String name) {
+        return CityIndex.normalize(name);
+    }
+
+    // 64-bit FNV-1a of the subject, the key the index is sorted by
+    static long hash(String subject) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < subject.length(); i++) {
+            hash ^= subject.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
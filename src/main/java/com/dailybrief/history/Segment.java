@@ -0,0 +1,331 @@
+package com.dailybrief.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * One file of the history log: a header, then fixed-width records in the order they were
+ * appended, preallocated up to the capacity and memory-mapped. Strings (names, titles,
+ * sources) live once each in a sidecar pool and records refer to them by offset. Once full
+ * a segment is sealed: a sidecar index of (subject hash, time, record) sorted the same way
+ * turns a subject's time range into a binary search. Until then it is scanned, comparing only
+ * the hash and time words of each record.
+ * <p>
+ * Layout (big-endian): magic "DBHS", version, record count, sealed flag, first and last
+ * record time; then per record kind (1 byte), padding, a short (humidity or rank), the
+ * subject's string, the subject hash, the time, four kind-specific words and when the
+ * provider observed the reading (0 when unknown). The count is written after the record, so
+ * a torn append is never read.
+ */
+final class Segment {
+    static final int MAGIC = 0x44424853; // "DBHS"
+    static final int INDEX_MAGIC = 0x44424858; // "DBHX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 48;
+    static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES + Integer.BYTES;
+    static final byte WEATHER = 1;
+    static final byte HEADLINE = 2;
+    static final int NO_STRING = -1;
+
+    final long sequence;
+    final Path file;
+    final Path strings;
+    final Path index;
+    private final MappedByteBuffer map;
+    private final int capacity;
+
+    private Segment(Path dir, long sequence, MappedByteBuffer map) {
+        this.sequence = sequence;
+        this.file = dir.resolve(name(sequence, "seg"));
+        this.strings = dir.resolve(name(sequence, "str"));
+        this.index = dir.resolve(name(sequence, "idx"));
+        this.map = map;
+        this.capacity = (map.capacity() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    static String name(long sequence, String extension) {
+        return String.format(Locale.ROOT, "%08d.%s", sequence, extension);
+    }
+
+    /** The sequence number of a segment file name, or -1 for any other file. */
+    static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.matches("\\d{8}\\.seg")) {
+            return -1;
+        }
+        return Long.parseLong(name.substring(0, 8));
+    }
+
+    static Segment create(Path dir, long sequence, int capacity) throws IOException {
+        Path file = dir.resolve(name(sequence, "seg"));
+        // The pool first: a segment is never on disk without one, even after a crash in between
+        Files.write(dir.resolve(name(sequence, "str")), new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file to its full size, sparse until written
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            map.putInt(4, VERSION).putInt(8, 0).putInt(12, 0).putLong(16, Long.MAX_VALUE).putLong(24, Long.MIN_VALUE);
+            map.putInt(0, MAGIC);
+            return new Segment(dir, sequence, map);
+        }
+    }
+
+    static Segment open(Path file, boolean writable) throws IOException {
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed, and after the file is deleted
+            MappedByteBuffer map = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a history segment: " + file);
+            }
+            return new Segment(file.getParent(), sequence(file), map);
+        }
+    }
+
+    int count() {
+        return Math.min(map.getInt(8), capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean sealed() {
+        return map.getInt(12) != 0;
+    }
+
+    long firstAt() {
+        return map.getLong(16);
+    }
+
+    long lastAt() {
+        return map.getLong(24);
+    }
+
+    boolean overlaps(long since, long until) {
+        return count() > 0 && firstAt() <= until && lastAt() >= since;
+    }
+
+    byte kind(int record) {
+        return map.get(offset(record));
+    }
+
+    int shortWord(int record) {
+        return map.getShort(offset(record) + 2);
+    }
+
+    int subject(int record) {
+        return map.getInt(offset(record) + 4);
+    }
+
+    long subjectHash(int record) {
+        return map.getLong(offset(record) + 8);
+    }
+
+    long at(int record) {
+        return map.getLong(offset(record) + 16);
+    }
+
+    /** Kind-specific word 0..3. */
+    int word(int record, int word) {
+        return map.getInt(offset(record) + 24 + word * Integer.BYTES);
+    }
+
+    float floatWord(int record, int word) {
+        return map.getFloat(offset(record) + 24 + word * Integer.BYTES);
+    }
+
+    /** When the provider observed the reading, epoch millis; 0 when unknown. */
+    long observed(int record) {
+        return map.getLong(offset(record) + 40);
+    }
+
+    /**
+     * Appends one record; the words are string references or, for {@code floatWord}, a raw
+     * float. False when the segment is full.
+     */
+    boolean append(byte kind, int shortWord, int subject, long subjectHash, long at, int w0, int w1, int w2, int w3,
+                   long observed) {
+        int record = count();
+        if (record == capacity) {
+            return false;
+        }
+        int o = offset(record);
+        map.put(o, kind).put(o + 1, (byte) 0).putShort(o + 2, (short) shortWord)
+                .putInt(o + 4, subject).putLong(o + 8, subjectHash).putLong(o + 16, at)
+                .putInt(o + 24, w0).putInt(o + 28, w1).putInt(o + 32, w2).putInt(o + 36, w3)
+                .putLong(o + 40, observed);
+        if (at < firstAt()) {
+            map.putLong(16, at);
+        }
+        if (at > lastAt()) {
+            map.putLong(24, at);
+        }
+        map.putInt(8, record + 1);
+        return true;
+    }
+
+    /** Appends {@code value} to the string pool and returns its reference. */
+    int addString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(strings, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long ref = channel.size();
+            if (ref + Integer.BYTES + bytes.length > Integer.MAX_VALUE) {
+                throw new IOException("History string pool full: " + strings);
+            }
+            ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes).flip();
+            channel.write(entry, ref);
+            return (int) ref;
+        }
+    }
+
+    /** Every string in the pool from byte {@code from} on, by reference; for re-interning after a restart. */
+    int loadStrings(int from, Map<String, Integer> into) throws IOException {
+        ByteBuffer pool = mapStrings();
+        int at = from;
+        while (at + Integer.BYTES <= pool.limit()) {
+            int length = pool.getInt(at);
+            if (length < 0 || at + Integer.BYTES + length > pool.limit()) {
+                break; // A string being written right now, by a process without the lock
+            }
+            into.putIfAbsent(new String(bytes(pool, at + Integer.BYTES, length), StandardCharsets.UTF_8), at);
+            at += Integer.BYTES + length;
+        }
+        return at;
+    }
+
+    ByteBuffer mapStrings() throws IOException {
+        try (FileChannel channel = FileChannel.open(strings, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return ByteBuffer.allocate(0); // Not written yet: addString creates it
+        }
+    }
+
+    static String string(ByteBuffer pool, int ref) {
+        if (ref == NO_STRING || ref < 0 || ref + Integer.BYTES > pool.limit()) {
+            return null;
+        }
+        int length = pool.getInt(ref);
+        return new String(bytes(pool, ref + Integer.BYTES, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(ByteBuffer pool, int from, int length) {
+        byte[] bytes = new byte[length];
+        pool.get(from, bytes);
+        return bytes;
+    }
+
+    /**
+     * Calls {@code visitor} with every record of {@code kind} for {@code subjectHash} timed in
+     * [since, until], in time order: through the index once sealed, by a scan before.
+     */
+    void scan(byte kind, long subjectHash, long since, long until, IntConsumer visitor) throws IOException {
+        if (!overlaps(since, until)) {
+            return;
+        }
+        ByteBuffer entries = sealed() ? mapIndex() : null;
+        if (entries == null) {
+            int count = count();
+            for (int record = 0; record < count; record++) {
+                long at = at(record);
+                if (subjectHash(record) == subjectHash && at >= since && at <= until && kind(record) == kind) {
+                    visitor.accept(record);
+                }
+            }
+            return;
+        }
+        int n = (entries.limit() - 8) / INDEX_ENTRY_BYTES;
+        // First entry at or after (subjectHash, since)
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int o = 8 + mid * INDEX_ENTRY_BYTES;
+            int cmp = Long.compare(entries.getLong(o), subjectHash);
+            if (cmp < 0 || cmp == 0 && entries.getLong(o + 8) < since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < n; i++) {
+            int o = 8 + i * INDEX_ENTRY_BYTES;
+            if (entries.getLong(o) != subjectHash || entries.getLong(o + 8) > until) {
+                break;
+            }
+            int record = entries.getInt(o + 16);
+            if (kind(record) == kind) {
+                visitor.accept(record);
+            }
+        }
+    }
+
+    // The sealed index, or null when it is missing or unreadable: the caller scans instead
+    private ByteBuffer mapIndex() {
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (entries.limit() < 8 || entries.getInt(0) != INDEX_MAGIC
+                    || entries.getInt(4) != count() || entries.limit() != 8 + count() * INDEX_ENTRY_BYTES) {
+                return null;
+            }
+            return entries;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Writes the index and marks the segment sealed: no more appends. */
+    void seal() throws IOException {
+        int count = count();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        // Stable: equal times keep their append order, so snapshots read back as written
+        Arrays.sort(order, Comparator.<Integer>comparingLong(this::subjectHash).thenComparingLong(this::at));
+        ByteBuffer entries = ByteBuffer.allocate(8 + count * INDEX_ENTRY_BYTES).putInt(INDEX_MAGIC).putInt(count);
+        for (int record : order) {
+            entries.putLong(subjectHash(record)).putLong(at(record)).putInt(record);
+        }
+        entries.flip();
+        Path temp = index.resolveSibling(index.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map.putInt(12, 1);
+        map.force();
+    }
+
+    long bytes() throws IOException {
+        long bytes = Files.size(file) + (Files.exists(strings) ? Files.size(strings) : 0);
+        return Files.exists(index) ? bytes + Files.size(index) : bytes;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(index);
+        Files.deleteIfExists(strings);
+        Files.deleteIfExists(file);
+    }
+
+    private static int offset(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dailybrief.metrics;
+
+/**
+ * Latency histogram with fixed exponential buckets (50us doubling up to ~52s, plus overflow).
+ * The bounds are the same in every process, so histograms from many invocations can be
+ * merged by adding bucket counts.
+ */
+public final class Histogram {
+    static final int BUCKETS = 21;
+    private static final long FIRST_BOUND_MICROS = 50;
+
+    private final long[] counts = new long[BUCKETS + 1];
+    private long count;
+    private long sumNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+
+    /** Upper bound of bucket {@code i} in microseconds; the last bucket is unbounded. */
+    public static long upperBoundMicros(int i) {
+        return i < BUCKETS ? FIRST_BOUND_MICROS << i : Long.MAX_VALUE;
+    }
+
+    public synchronized void record(long nanos) {
+        long micros = nanos / 1000;
+        int i = 0;
+        while (i < BUCKETS && micros > upperBoundMicros(i)) {
+            i++;
+        }
+        counts[i]++;
+        count++;
+        sumNanos += nanos;
+        minNanos = Math.min(minNanos, nanos);
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized long sumNanos() {
+        return sumNanos;
+    }
+
+    public synchronized long minNanos() {
+        return count == 0 ? 0 : minNanos;
+    }
+
+    public synchronized long maxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long[] bucketCounts() {
+        return counts.clone();
+    }
+
+    /** Upper bound of the bucket holding the given percentile, clamped to the observed max. */
+    public synchronized long percentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BUCKETS ? Math.min(upperBoundMicros(i) * 1000, maxNanos) : maxNanos;
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dailybrief.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts what goes through an executor: tasks submitted, waiting for a thread, running and
+ * done, and the most ever running at once. The counters are process-wide and never reset,
+ * so a load test or a long-lived daemon sees its peaks; --timings and --metrics-out report
+ * every registered executor.
+ */
+public final class InstrumentedExecutor implements Executor {
+    private static final List<InstrumentedExecutor> REGISTERED = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final Executor delegate;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    /** Tasks waiting for a thread ({@code queued}) and running ({@code active}) right now. */
+    public record Stats(String name, long submitted, long completed, int active, long queued, int peakActive) {}
+
+    private InstrumentedExecutor(String name, Executor delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    /** Wraps {@code delegate} and adds it to the executors the metrics report. */
+    public static InstrumentedExecutor register(String name, Executor delegate) {
+        InstrumentedExecutor executor = new InstrumentedExecutor(name, delegate);
+        REGISTERED.add(executor);
+        return executor;
+    }
+
+    /** Drops {@code executor} from the report, for executors that don't live as long as the process. */
+    static void unregister(InstrumentedExecutor executor) {
+        REGISTERED.remove(executor);
+    }
+
+    public static List<Stats> snapshots() {
+        return REGISTERED.stream().map(InstrumentedExecutor::stats).toList();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                started.incrementAndGet();
+                peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        long done = completed.get();
+        int running = active.get();
+        // Read in this order, a task can only be counted as started before it is counted as submitted
+        long begun = started.get();
+        long total = submitted.get();
+        return new Stats(name, total, done, running, Math.max(0, total - begun), peakActive.get());
+    }
+}
@@ -0,0 +1,189 @@
+package com.dailybrief.metrics;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency registry of one invocation: each CLI run or daemon request creates its own and
+ * hands it to the services it builds, so concurrent daemon requests never see or clear each
+ * other's phases. Every phase goes to a {@link Histogram} (printed by --timings, appended by
+ * --metrics-out) and, while a JFR recording is running, to a {@link PhaseEvent}; spans of
+ * {@link #NONE} only feed JFR. Both reports also carry the process-wide
+ * {@link InstrumentedExecutor} counters.
+ * <p>
+ * One-off process setup (loading the config, building the HTTP client) is timed with
+ * {@link #startProcessPhase} and reported by the first invocation to report after it ran.
+ */
+public final class Metrics {
+    /** Records nothing: for services built outside an invocation (tests, the prefetcher, the load test). */
+    public static final Metrics NONE = new Metrics(false);
+    // Process setup phases no invocation has reported yet
+    private static final Metrics UNCLAIMED = new Metrics();
+
+    private final Map<String, Histogram> histograms = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final boolean recording;
+
+    public Metrics() {
+        this(true);
+    }
+
+    private Metrics(boolean recording) {
+        this.recording = recording;
+    }
+
+    /** Starts timing a phase; end the span on whichever thread finishes it. */
+    public Span start(String phase) {
+        return new Span(this, phase);
+    }
+
+    public void record(String phase, long nanos) {
+        if (recording) {
+            histograms.computeIfAbsent(phase, name -> new Histogram()).record(nanos);
+        }
+    }
+
+    /** Times one-off setup shared by the whole process; see the class comment. */
+    public static Span startProcessPhase(String phase) {
+        return UNCLAIMED.start(phase);
+    }
+
+    // Moves the unreported process setup phases into this invocation's histograms
+    private void claimProcessPhases() {
+        if (!recording) {
+            return;
+        }
+        List<Map.Entry<String, Histogram>> setup;
+        synchronized (UNCLAIMED.histograms) {
+            setup = List.copyOf(UNCLAIMED.histograms.entrySet());
+            UNCLAIMED.histograms.clear();
+        }
+        for (Map.Entry<String, Histogram> entry : setup) {
+            histograms.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public static final class Span {
+        private final Metrics metrics;
+        private final String phase;
+        private final long start = System.nanoTime();
+        private final PhaseEvent event = new PhaseEvent();
+
+        private Span(Metrics metrics, String phase) {
+            this.metrics = metrics;
+            this.phase = phase;
+            event.begin();
+        }
+
+        public void end() {
+            metrics.record(phase, System.nanoTime() - start);
+            commit(0);
+        }
+
+        /**
+         * Ends a span that interleaved I/O with CPU work: {@code waitNanos} is recorded under
+         * {@code waitPhase} and only the remainder under this span's phase.
+         */
+        public void endExcluding(String waitPhase, long waitNanos) {
+            long elapsed = System.nanoTime() - start;
+            metrics.record(waitPhase, waitNanos);
+            metrics.record(phase, Math.max(0, elapsed - waitNanos));
+            commit(waitNanos);
+        }
+
+        private void commit(long ioWait) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase;
+                event.ioWait = ioWait;
+                event.commit();
+            }
+        }
+    }
+
+    /** Per-phase breakdown, in the order the phases first ran. */
+    public void printTimings(PrintStream out) {
+        claimProcessPhases();
+        out.println("Timings:");
+        out.printf("  %-22s %5s %9s %9s %9s%n", "phase", "count", "total ms", "p50 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : snapshot()) {
+            Histogram h = entry.getValue();
+            out.printf("  %-22s %5d %9.1f %9.1f %9.1f%n", entry.getKey(), h.count(),
+                    h.sumNanos() / 1e6, h.percentileNanos(50) / 1e6, h.maxNanos() / 1e6);
+        }
+        List<InstrumentedExecutor.Stats> executors = InstrumentedExecutor.snapshots();
+        if (!executors.isEmpty()) {
+            out.printf("  %-22s %9s %6s %6s %6s%n", "executor", "completed", "active", "queued", "peak");
+            for (InstrumentedExecutor.Stats e : executors) {
+                out.printf("  %-22s %9d %6d %6d %6d%n", e.name(), e.completed(), e.active(), e.queued(), e.peakActive());
+            }
+        }
+    }
+
+    /**
+     * Appends this invocation's histograms to {@code file} as one NDJSON record. Bucket bounds
+     * are fixed, so records from many runs aggregate by summing {@code buckets} per phase.
+     */
+    public void appendTo(Path file) throws IOException {
+        claimProcessPhases();
+        try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             // Created here so timing a run never loads the generator classes it doesn't need
+             JsonGenerator json = new JsonFactory().setRootValueSeparator(null).createGenerator(stream, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("timestamp", System.currentTimeMillis());
+            json.writeArrayFieldStart("bucket_bounds_us");
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                json.writeNumber(Histogram.upperBoundMicros(i));
+            }
+            json.writeEndArray();
+            json.writeObjectFieldStart("phases");
+            for (Map.Entry<String, Histogram> entry : snapshot()) {
+                Histogram h = entry.getValue();
+                json.writeObjectFieldStart(entry.getKey());
+                json.writeNumberField("count", h.count());
+                json.writeNumberField("sum_us", h.sumNanos() / 1000);
+                json.writeNumberField("min_us", h.minNanos() / 1000);
+                json.writeNumberField("max_us", h.maxNanos() / 1000);
+                json.writeNumberField("p50_us", h.percentileNanos(50) / 1000);
+                json.writeNumberField("p99_us", h.percentileNanos(99) / 1000);
+                json.writeArrayFieldStart("buckets");
+                for (long bucket : h.bucketCounts()) {
+                    json.writeNumber(bucket);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeObjectFieldStart("executors");
+            for (InstrumentedExecutor.Stats e : InstrumentedExecutor.snapshots()) {
+                json.writeObjectFieldStart(e.name());
+                json.writeNumberField("submitted", e.submitted());
+                json.writeNumberField("completed", e.completed());
+                json.writeNumberField("active", e.active());
+                json.writeNumberField("queued", e.queued());
+                json.writeNumberField("peak_active", e.peakActive());
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+    }
+
+    private List<Map.Entry<String, Histogram>> snapshot() {
+        synchronized (histograms) {
+            return List.copyOf(histograms.entrySet());
+        }
+    }
+}
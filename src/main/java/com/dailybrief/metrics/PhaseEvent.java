@@ -0,0 +1,28 @@
+package com.dailybrief.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One timed step of the dashboard pipeline, visible in any JFR recording
+ * (e.g. {@code -XX:StartFlightRecording}). Costs nothing when no recording is running.
+ */
+@Name("dailybrief.Phase")
+@Label("DailyBrief Phase")
+@Category("DailyBrief")
+@Description("One timed step of the dashboard pipeline")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("I/O Wait")
+    @Description("Part of the duration spent blocked reading the response body")
+    @Timespan(Timespan.NANOSECONDS)
+    public long ioWait;
+}
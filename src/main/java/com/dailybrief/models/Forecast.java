@@ -0,0 +1,28 @@
+package com.dailybrief.models;
+
+/**
+ * The 5-day / 3-hour forecast as parallel primitive columns: slot {@code i} is
+ * {@code times[i]}, {@code temps[i]} and so on. Forty slots cost four small arrays instead of
+ * forty records of boxed fields, which matters once a batch holds forecasts for many cities.
+ * The arrays are shared, not copied: treat them as read-only.
+ */
+public record Forecast(
+        String city,
+        String country,
+        int timezoneOffset,  // seconds east of UTC
+        long[] times,        // epoch seconds, start of each slot
+        double[] temps,      // °C
+        int[] humidity,      // %
+        double[] precipitation // mm of rain and snow in the slot
+) {
+    public Forecast {
+        int n = times.length;
+        if (temps.length != n || humidity.length != n || precipitation.length != n) {
+            throw new IllegalArgumentException("Forecast columns differ in length");
+        }
+    }
+
+    public int size() {
+        return times.length;
+    }
+}
@@ -6,10 +6,24 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record NewsResponse(
         String status,
-        List<Article> articles
+        List<Article> articles,
+        boolean stale   // served from the cache past its TTL while a refresh runs
 ) {
+    public NewsResponse(String status, List<Article> articles) {
+        this(status, articles, false);
+    }
+
+    public NewsResponse asStale() {
+        return stale ? this : new NewsResponse(status, articles, true);
+    }
+
+    /** {@code publishedAt} is the ISO-8601 timestamp NewsAPI sends; it and {@code url} may be null. */
     @JsonIgnoreProperties(ignoreUnknown = true)
-    public record Article(String title, String description, Source source) {}
+    public record Article(String title, String description, Source source, String url, String publishedAt) {
+        public Article(String title, String description, Source source) {
+            this(title, description, source, null, null);
+        }
+    }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record Source(String name) {}
@@ -8,8 +8,23 @@ public record WeatherResponse(
         String name,
         Main main,
         List<Weather> weather,
-        Sys sys
+        Sys sys,
+        long dt,
+        boolean stale   // served from the cache past its TTL while a refresh runs
 ) {
+    public WeatherResponse(String name, Main main, List<Weather> weather, Sys sys, long dt) {
+        this(name, main, weather, sys, dt, false);
+    }
+
+    /** Without an observation time, as for providers that don't report one. */
+    public WeatherResponse(String name, Main main, List<Weather> weather, Sys sys) {
+        this(name, main, weather, sys, 0);
+    }
+
+    public WeatherResponse asStale() {
+        return stale ? this : new WeatherResponse(name, main, weather, sys, dt, true);
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record Main(double temp, int humidity) {}
 
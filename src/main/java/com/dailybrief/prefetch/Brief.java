@@ -0,0 +1,36 @@
+package com.dailybrief.prefetch;
+
+import com.dailybrief.services.HeadlineQuery;
+
+import java.util.Locale;
+
+/**
+ * What one interactive run asked for: a city, and which of weather, news (with its headline
+ * query) and the forecast it showed. Cities compare case- and whitespace-insensitively, like
+ * the cache keys.
+ *
+ * @param news the headline query, or null when news was off
+ */
+public record Brief(String city, boolean weather, HeadlineQuery news, boolean forecast) {
+    public Brief {
+        city = city.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /** "london: weather, news (US), forecast" */
+    public String describe() {
+        StringBuilder description = new StringBuilder(city).append(':');
+        String separator = " ";
+        if (weather) {
+            description.append(separator).append("weather");
+            separator = ", ";
+        }
+        if (news != null) {
+            description.append(separator).append("news (").append(news.label()).append(')');
+            separator = ", ";
+        }
+        if (forecast) {
+            description.append(separator).append("forecast");
+        }
+        return description.toString();
+    }
+}
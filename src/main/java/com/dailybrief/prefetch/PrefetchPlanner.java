@@ -0,0 +1,82 @@
+package com.dailybrief.prefetch;
+
+import com.dailybrief.prefetch.UsageLog.Usage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Learns habits from the usage log: the same brief, run at about the same time of day on
+ * several different days. Each brief's runs are reduced to the first run per day in each
+ * cluster of times of day (runs less than {@link #CLUSTER_GAP_MINUTES} apart), and a cluster
+ * seen on at least {@code minDays} days is a habit, expected at the median of those first runs.
+ */
+public final class PrefetchPlanner {
+    static final int CLUSTER_GAP_MINUTES = 30;
+    /** Each habit costs requests every day: the most regular ones win. */
+    public static final int MAX_HABITS = 20;
+
+    /** A brief expected at about {@code at} local time, seen on {@code days} days. */
+    public record Habit(Brief brief, LocalTime at, int days) {}
+
+    private PrefetchPlanner() {
+    }
+
+    public static List<Habit> habits(List<Usage> usages, ZoneId zone, int minDays) {
+        Map<Brief, List<ZonedDateTime>> runs = new LinkedHashMap<>();
+        for (Usage usage : usages) {
+            runs.computeIfAbsent(usage.brief(), b -> new ArrayList<>())
+                    .add(Instant.ofEpochMilli(usage.at()).atZone(zone));
+        }
+        List<Habit> habits = new ArrayList<>();
+        runs.forEach((brief, times) -> habits.addAll(habitsOf(brief, times, minDays)));
+        habits.sort(Comparator.comparingInt(Habit::days).reversed().thenComparing(Habit::at));
+        return List.copyOf(habits.subList(0, Math.min(habits.size(), MAX_HABITS)));
+    }
+
+    private static List<Habit> habitsOf(Brief brief, List<ZonedDateTime> times, int minDays) {
+        List<ZonedDateTime> byTimeOfDay = new ArrayList<>(times);
+        byTimeOfDay.sort(Comparator.comparing(ZonedDateTime::toLocalTime));
+        List<Habit> habits = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= byTimeOfDay.size(); i++) {
+            boolean clusterEnds = i == byTimeOfDay.size() || minuteOfDay(byTimeOfDay.get(i))
+                    - minuteOfDay(byTimeOfDay.get(i - 1)) >= CLUSTER_GAP_MINUTES;
+            if (clusterEnds) {
+                Habit habit = habit(brief, byTimeOfDay.subList(start, i), minDays);
+                if (habit != null) {
+                    habits.add(habit);
+                }
+                start = i;
+            }
+        }
+        return habits;
+    }
+
+    private static Habit habit(Brief brief, List<ZonedDateTime> cluster, int minDays) {
+        // Later runs the same day were served by the first one
+        Map<LocalDate, Integer> firstRun = new TreeMap<>();
+        for (ZonedDateTime time : cluster) {
+            firstRun.merge(time.toLocalDate(), minuteOfDay(time), Math::min);
+        }
+        if (firstRun.size() < minDays) {
+            return null;
+        }
+        int[] minutes = firstRun.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int median = minutes[(minutes.length - 1) / 2];
+        return new Habit(brief, LocalTime.of(median / 60, median % 60), firstRun.size());
+    }
+
+    private static int minuteOfDay(ZonedDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
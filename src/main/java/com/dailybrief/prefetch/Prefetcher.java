@@ -0,0 +1,177 @@
+package com.dailybrief.prefetch;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.Threads;
+import com.dailybrief.prefetch.PrefetchPlanner.Habit;
+import com.dailybrief.services.HeadlineQuery;
+import com.dailybrief.services.NewsService;
+import com.dailybrief.services.RateLimiter;
+import com.dailybrief.services.WeatherService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the response store shortly before the briefs the usage log says are coming, so
+ * the interactive run at that time is served locally. A habit expected at {@code t} is
+ * fetched once a day, at {@code t - lead} plus a stable per-habit offset of up to half the
+ * lead, so habits at the same time don't fetch in the same second. Requests are paced by
+ * the fetcher's rate limiter and go through the normal services: quota, breaker and
+ * conditional requests apply, and an entry that is still fresh costs nothing.
+ * <p>
+ * Run it resident with {@link #start} (the daemon, or {@code dailybrief prefetch}), or call
+ * {@link #runDue} from a timer every few minutes.
+ */
+public class Prefetcher implements Closeable {
+    private static final Duration HABIT_RELOAD = Duration.ofMinutes(5);
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UsageLog log;
+    private final Fetcher fetcher;
+    private final Duration lead;
+    private final int minDays;
+    private final PrintStream err;
+    private final Clock clock;
+    private final Set<String> done = new HashSet<>();
+    private LocalDate doneDay;
+    private List<Habit> habits;
+    private Instant habitsLoaded;
+    private volatile ScheduledExecutorService timer;
+
+    /** Brings one brief's entries in the response store up to date; blocks until they are. */
+    @FunctionalInterface
+    public interface Fetcher {
+        void fetch(Brief brief) throws Exception;
+    }
+
+    /**
+     * @param lead    how long before the expected run to fetch; keep it under the cache TTLs
+     *                (10 minutes for weather) so the entries are still fresh when the run comes
+     * @param minDays days a brief must have been run at about the same time to count as a habit
+     */
+    public Prefetcher(UsageLog log, Fetcher fetcher, Duration lead, int minDays, PrintStream err) {
+        this(log, fetcher, lead, minDays, err, Clock.systemDefaultZone());
+    }
+
+    Prefetcher(UsageLog log, Fetcher fetcher, Duration lead, int minDays, PrintStream err, Clock clock) {
+        this.log = log;
+        this.fetcher = fetcher;
+        this.lead = lead;
+        this.minDays = minDays;
+        this.err = err;
+        this.clock = clock;
+    }
+
+    /**
+     * Fetches through the given services' shared cache. Each request waits for the limiter,
+     * and stale entries' background refreshes are waited for, so they are on disk on return.
+     */
+    public static Fetcher services(AppConfig config, ResponseCache cache, CityIndex cities, RateLimiter limiter) {
+        WeatherService weather = new WeatherService(config, cache, 0, cities);
+        Map<HeadlineQuery, NewsService> news = new ConcurrentHashMap<>();
+        return brief -> {
+            List<CompletableFuture<?>> fetches = new ArrayList<>();
+            if (brief.weather()) {
+                limiter.acquire();
+                fetches.add(weather.getWeatherAsync(brief.city()));
+            }
+            if (brief.forecast()) {
+                limiter.acquire();
+                fetches.add(weather.getForecastAsync(brief.city()));
+            }
+            if (brief.news() != null) {
+                limiter.acquire();
+                fetches.add(news.computeIfAbsent(brief.news(), q -> new NewsService(config, cache, q)).getNewsAsync());
+            }
+            CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new))
+                    .get(FETCH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            cache.awaitRefreshes(FETCH_TIMEOUT);
+        };
+    }
+
+    /** The habits learned from the log, most regular first. */
+    public synchronized List<Habit> habits() throws IOException {
+        Instant now = clock.instant();
+        if (habits == null || Duration.between(habitsLoaded, now).compareTo(HABIT_RELOAD) >= 0) {
+            habits = PrefetchPlanner.habits(log.read(now.minus(UsageLog.WINDOW).toEpochMilli()), clock.getZone(), minDays);
+            habitsLoaded = now;
+        }
+        return habits;
+    }
+
+    /** When {@code habit} is fetched on the day of {@code expected}. */
+    public Instant prefetchAt(Habit habit, ZonedDateTime expected) {
+        long spread = Math.max(1, lead.toSeconds() / 2);
+        long offset = Math.floorMod(31L * habit.brief().hashCode() + habit.at().hashCode(), spread);
+        return expected.toInstant().minus(lead).plusSeconds(offset);
+    }
+
+    /** Fetches every habit due now and not fetched yet today; returns how many were. */
+    public synchronized int runDue() throws IOException {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        if (!now.toLocalDate().equals(doneDay)) {
+            done.clear();
+            doneDay = now.toLocalDate();
+        }
+        int fetched = 0;
+        for (Habit habit : habits()) {
+            // The next time it is expected: a habit just after midnight is fetched the evening before
+            ZonedDateTime expected = now.with(habit.at());
+            if (!expected.isAfter(now)) {
+                expected = expected.plusDays(1).with(habit.at());
+            }
+            boolean due = !now.toInstant().isBefore(prefetchAt(habit, expected));
+            if (!due || !done.add(habit.brief() + "@" + expected.toLocalDateTime())) {
+                continue;
+            }
+            try {
+                fetcher.fetch(habit.brief());
+                fetched++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                err.println("Prefetch Warning: " + habit.brief().describe() + ": " + cause.getMessage());
+            }
+        }
+        return fetched;
+    }
+
+    /** Checks for due habits every {@code tick} on a daemon thread until {@link #close()}. */
+    public synchronized void start(Duration tick) {
+        timer = Executors.newSingleThreadScheduledExecutor(Threads.daemonFactory("dailybrief-prefetch"));
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                runDue();
+            } catch (IOException | RuntimeException e) {
+                err.println("Prefetch Warning: " + e.getMessage());
+            }
+        }, 0, tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+}
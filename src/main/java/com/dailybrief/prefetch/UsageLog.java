@@ -0,0 +1,202 @@
+package com.dailybrief.prefetch;
+
+import com.dailybrief.services.HeadlineQuery;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local record of the interactive runs, one NDJSON line each, that the prefetcher learns
+ * from. Lives next to the response cache and never leaves the machine. Each line is a
+ * single append, so concurrent runs don't interleave; once the file passes
+ * {@link #MAX_BYTES} it is rewritten with only the last {@link #WINDOW}, at most
+ * {@link #MAX_ENTRIES} runs of it. Appends and that rewrite hold a lock on a sidecar file,
+ * so a run appending while another compacts can't lose its line; reads need none, as the
+ * rewrite is swapped in atomically.
+ */
+public class UsageLog {
+    public static final String FILE_NAME = "usage.ndjson";
+    /** How far back habits are learned from. */
+    public static final Duration WINDOW = Duration.ofDays(28);
+    static final long MAX_BYTES = 256 * 1024;
+    static final int MAX_ENTRIES = 1000;
+    private static final JsonFactory FACTORY = new JsonFactory().setRootValueSeparator(null);
+    // FileLock is per JVM: threads in one process take this monitor first
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    /** One run: when it started (epoch millis) and what it showed. */
+    public record Usage(long at, Brief brief) {}
+
+    public UsageLog(Path file) {
+        this.file = file;
+    }
+
+    /** The log in the cache directory, or null without one (a memory-only cache). */
+    public static UsageLog inDir(Path cacheDir) {
+        return cacheDir != null ? new UsageLog(cacheDir.resolve(FILE_NAME)) : null;
+    }
+
+    public void append(long at, Brief brief) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(160);
+        try (JsonGenerator json = FACTORY.createGenerator(line, JsonEncoding.UTF8)) {
+            write(json, new Usage(at, brief));
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // Not the log itself: compaction replaces it, and a lock on the old file would guard nothing
+        Path lockFile = dir.resolve(file.getFileName() + ".lock");
+        synchronized (PROCESS_LOCKS.computeIfAbsent(lockFile, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Files.write(file, line.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (Files.size(file) > MAX_BYTES) {
+                    compact(at - WINDOW.toMillis());
+                }
+            }
+        }
+    }
+
+    /** The runs logged since {@code sinceMillis}, oldest first; unreadable lines are skipped. */
+    public List<Usage> read(long sinceMillis) throws IOException {
+        List<Usage> usages = new ArrayList<>();
+        try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                Usage usage = parse(line);
+                if (usage != null && usage.at() >= sinceMillis) {
+                    usages.add(usage);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        return usages;
+    }
+
+    // Only under the lock
+    private void compact(long sinceMillis) throws IOException {
+        List<Usage> recent = read(sinceMillis);
+        List<Usage> kept = recent.subList(Math.max(0, recent.size() - MAX_ENTRIES), recent.size());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "usage", ".tmp");
+        try {
+            try (JsonGenerator json = FACTORY.createGenerator(Files.newOutputStream(tmp), JsonEncoding.UTF8)) {
+                for (Usage usage : kept) {
+                    write(json, usage);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void write(JsonGenerator json, Usage usage) throws IOException {
+        Brief brief = usage.brief();
+        json.writeStartObject();
+        json.writeNumberField("at", usage.at());
+        json.writeStringField("city", brief.city());
+        json.writeBooleanField("weather", brief.weather());
+        json.writeBooleanField("forecast", brief.forecast());
+        if (brief.news() != null) {
+            HeadlineQuery news = brief.news();
+            json.writeObjectFieldStart("news");
+            json.writeArrayFieldStart("countries");
+            for (String country : news.countries()) {
+                json.writeString(country);
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("categories");
+            for (String category : news.categories()) {
+                json.writeString(category);
+            }
+            json.writeEndArray();
+            json.writeNumberField("pages", news.pages());
+            json.writeNumberField("limit", news.limit());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static Usage parse(String line) {
+        try (JsonParser p = FACTORY.createParser(line)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            long at = -1;
+            String city = null;
+            boolean weather = false;
+            boolean forecast = false;
+            HeadlineQuery news = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "at" -> at = p.getValueAsLong();
+                    case "city" -> city = p.getValueAsString();
+                    case "weather" -> weather = p.getValueAsBoolean();
+                    case "forecast" -> forecast = p.getValueAsBoolean();
+                    case "news" -> news = readNews(p);
+                    default -> p.skipChildren();
+                }
+            }
+            return at >= 0 && city != null ? new Usage(at, new Brief(city, weather, news, forecast)) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null; // A torn or hand-edited line costs that run, not the log
+        }
+    }
+
+    private static HeadlineQuery readNews(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        List<String> countries = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        int pages = 1;
+        int limit = HeadlineQuery.DEFAULT.limit();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "countries" -> readStrings(p, countries);
+                case "categories" -> readStrings(p, categories);
+                case "pages" -> pages = p.getValueAsInt();
+                case "limit" -> limit = p.getValueAsInt();
+                default -> p.skipChildren();
+            }
+        }
+        return new HeadlineQuery(countries, categories, pages, limit);
+    }
+
+    private static void readStrings(JsonParser p, List<String> into) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.VALUE_STRING) {
+            into.add(p.getText());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.dailybrief.services;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Retries retryable HTTP statuses (429 and 5xx) with "full jitter" exponential backoff:
+ * attempt n waits a random time up to {@code base * 2^n}, capped, so a fleet of CLI
+ * processes hitting the same outage does not retry in lock-step. A Retry-After hint is
+ * honoured when it fits under the cap, otherwise the error is returned as-is.
+ */
+public final class Backoff {
+    public static final int MAX_ATTEMPTS = 3;
+    private static final Duration BASE = Duration.ofMillis(200);
+    private static final Duration CAP = Duration.ofSeconds(5);
+
+    private Backoff() {
+    }
+
+    public static <T> CompletableFuture<T> retry(Supplier<CompletableFuture<T>> attempt) {
+        return retry(attempt, MAX_ATTEMPTS, BASE, CAP);
+    }
+
+    public static <T> CompletableFuture<T> retry(Supplier<CompletableFuture<T>> attempt,
+                                                 int maxAttempts, Duration base, Duration cap) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        // Cancelling the result (deadline, lost race) cancels whichever attempt is running
+        result.whenComplete((value, e) -> {
+            CompletableFuture<T> running = current.get();
+            if (running != null) {
+                running.cancel(true);
+            }
+        });
+        run(attempt, 0, maxAttempts, base, cap, result, current);
+        return result;
+    }
+
+    private static <T> void run(Supplier<CompletableFuture<T>> attempt, int n, int maxAttempts,
+                                Duration base, Duration cap,
+                                CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        current.set(future);
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Duration delay = n + 1 < maxAttempts ? delayFor(cause, n, base, cap) : null;
+            if (delay == null) {
+                result.completeExceptionally(cause);
+            } else {
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> run(attempt, n + 1, maxAttempts, base, cap, result, current));
+            }
+        });
+    }
+
+    /** How long to wait before the next attempt, or null when the failure is not worth retrying. */
+    static Duration delayFor(Throwable cause, int attempt, Duration base, Duration cap) {
+        if (!(cause instanceof HttpStatusException status) || !status.isRetryable()) {
+            return null;
+        }
+        long ceiling = Math.min(cap.toMillis(), base.toMillis() << Math.min(attempt, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        Duration retryAfter = status.retryAfter();
+        if (retryAfter != null) {
+            if (retryAfter.compareTo(cap) > 0) {
+                return null; // The server wants us gone for longer than we are willing to wait
+            }
+            return Duration.ofMillis(Math.max(jittered, retryAfter.toMillis()));
+        }
+        return Duration.ofMillis(jittered);
+    }
+}
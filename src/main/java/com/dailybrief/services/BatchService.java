@@ -0,0 +1,139 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Multi-city orchestrator. Cities are pulled lazily from the input and fanned out through
+ * {@link WeatherProvider} with at most {@code concurrency} requests in flight, so memory stays
+ * flat however long the input is. News is fetched once and shared by the whole batch.
+ * <p>
+ * A city refused by the provider's per-minute quota waits for the next minute and is tried
+ * again, holding its slot meanwhile, so a batch larger than the minute's budget slows down
+ * instead of failing every city past it. The daily ceiling still fails the rest.
+ * <p>
+ * A city that fails is reported and the batch goes on; a sink that fails (the export can't be
+ * written) stops it: no more cities are read, and the first such failure is rethrown by
+ * {@link #run} once the cities in flight have finished.
+ */
+public class BatchService {
+    private final WeatherProvider weatherService;
+    private final NewsService newsService;
+    private final int concurrency;
+    private final RateLimiter weatherLimiter;
+    private final RateLimiter newsLimiter;
+    private final PrintStream err;
+
+    public BatchService(WeatherProvider weatherService, NewsService newsService, int concurrency, double requestsPerSecond) {
+        this(weatherService, newsService, concurrency, requestsPerSecond, System.err);
+    }
+
+    /** @param err where a failed headlines fetch is reported: the request's own stream under the daemon */
+    public BatchService(WeatherProvider weatherService, NewsService newsService, int concurrency, double requestsPerSecond,
+                        PrintStream err) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.weatherService = weatherService;
+        this.newsService = newsService;
+        this.concurrency = concurrency;
+        this.weatherLimiter = new RateLimiter(requestsPerSecond);
+        this.newsLimiter = new RateLimiter(requestsPerSecond);
+        this.err = err;
+    }
+
+    public record CityResult(String city, WeatherResponse weather, String error) {}
+
+    public record BatchSummary(int cities, int failed) {}
+
+    public BatchSummary run(Iterator<String> cities, boolean noNews,
+                            Consumer<NewsResponse> newsSink, Consumer<CityResult> citySink) throws InterruptedException {
+        CompletableFuture<NewsResponse> newsFuture = noNews ? CompletableFuture.completedFuture(null) : fetchNews();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Throwable> sinkFailure = new AtomicReference<>();
+
+        while (sinkFailure.get() == null && cities.hasNext()) {
+            String city = cities.next();
+            // Blocks the reader while the window is full: back-pressure instead of buffering
+            inFlight.acquire();
+            weatherLimiter.acquire();
+            total.incrementAndGet();
+
+            weather(city).whenComplete((weather, e) -> {
+                try {
+                    if (e != null) {
+                        failed.incrementAndGet();
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        citySink.accept(new CityResult(city, null, cause.getMessage()));
+                    } else {
+                        citySink.accept(new CityResult(city, weather, null));
+                    }
+                } catch (RuntimeException | Error sinkError) {
+                    sinkFailure.compareAndSet(null, sinkError);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        // Drain: every permit back means every city has been written (or has failed to be)
+        inFlight.acquire(concurrency);
+        Throwable sinkError = sinkFailure.get();
+        if (sinkError instanceof RuntimeException e) {
+            throw e;
+        } else if (sinkError != null) {
+            throw (Error) sinkError;
+        }
+
+        NewsResponse news = newsFuture.join();
+        if (news != null) {
+            newsSink.accept(news);
+        }
+        return new BatchSummary(total.get(), failed.get());
+    }
+
+    private CompletableFuture<WeatherResponse> weather(String city) {
+        CompletableFuture<WeatherResponse> future;
+        try {
+            future = weatherService.getWeatherAsync(city);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.exceptionallyCompose(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Duration wait = cause instanceof QuotaManager.ExhaustedException exhausted ? exhausted.retryAfter() : null;
+            if (wait == null) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait.toMillis(), TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> weather(city));
+        });
+    }
+
+    private CompletableFuture<NewsResponse> fetchNews() {
+        try {
+            newsLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(null);
+        }
+        return newsService.getNewsAsync().exceptionally(e -> {
+            err.println("Service Error: " + e.getMessage());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,246 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-provider circuit breaker. After {@link #FAILURE_THRESHOLD} consecutive provider failures
+ * (network errors, 401/403, 429, 5xx) the circuit opens and requests fail immediately; once the
+ * cool-down has passed a single trial request is let through (half-open) and its outcome closes
+ * or re-opens the circuit, with the cool-down doubling on every re-open.
+ * <p>
+ * State lives in a 32-byte file next to the response cache, read and written under an exclusive
+ * file lock, so every CLI process (and the daemon) sees the same circuit. Without a cache
+ * directory the state is kept in memory.
+ */
+public class CircuitBreaker {
+    public static final int FAILURE_THRESHOLD = 3;
+    private static final Duration BASE_COOLDOWN = Duration.ofSeconds(30);
+    private static final Duration MAX_COOLDOWN = Duration.ofMinutes(10);
+    // A half-open trial that never reports back stops blocking others after this long
+    private static final Duration TRIAL_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int MAGIC = 0x44424342; // "DBCB"
+    private static final int FILE_BYTES = 4 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    // FileLock is per JVM: threads in one process take this monitor first
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final String provider;
+    private final Path stateFile;
+    private final Duration baseCooldown;
+    private final State memory = new State();
+
+    private static final class State {
+        int state = CLOSED;
+        int failures;
+        int openCount;
+        long openUntil;
+        long trialStartedAt;
+        boolean dirty;
+    }
+
+    /** The circuit is open: the request was not sent. */
+    public static class OpenException extends RuntimeException {
+        OpenException(String provider, long openUntil) {
+            super(provider + " circuit open after repeated failures; next attempt after "
+                    + LocalTime.ofInstant(Instant.ofEpochMilli(openUntil), ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS));
+        }
+    }
+
+    /**
+     * @param stateFile where the shared state lives, or null to keep it in this instance only
+     */
+    public CircuitBreaker(String provider, Path stateFile) {
+        this(provider, stateFile, BASE_COOLDOWN);
+    }
+
+    CircuitBreaker(String provider, Path stateFile, Duration baseCooldown) {
+        this.provider = provider;
+        this.stateFile = stateFile;
+        this.baseCooldown = baseCooldown;
+    }
+
+    /** A breaker whose state sits next to the cache's store (memory-only for a disabled cache). */
+    public static CircuitBreaker forCache(String provider, ResponseCache cache) {
+        Path dir = cache.dir();
+        return new CircuitBreaker(provider, dir != null ? dir.resolve("breaker-" + provider.toLowerCase(Locale.ROOT) + ".state") : null);
+    }
+
+    /** True while requests would be rejected; never changes the state. */
+    public boolean isOpen() {
+        return update(s -> rejects(s, System.currentTimeMillis()));
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        long[] openUntil = new long[1];
+        boolean allowed = update(s -> {
+            long now = System.currentTimeMillis();
+            if (rejects(s, now)) {
+                openUntil[0] = s.state == OPEN ? s.openUntil : s.trialStartedAt + TRIAL_TIMEOUT.toMillis();
+                return false;
+            }
+            if (s.state != CLOSED) {
+                // Cool-down over (or the last trial went silent): this request is the trial
+                s.state = HALF_OPEN;
+                s.trialStartedAt = now;
+                s.dirty = true;
+            }
+            return true;
+        });
+        if (!allowed) {
+            return CompletableFuture.failedFuture(new OpenException(provider, openUntil[0]));
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, e) -> {
+            Throwable cause = unwrap(e);
+            boolean unsent = cause instanceof CancellationException || cause instanceof QuotaManager.ExhaustedException;
+            if (cause == null || !(unsent || isProviderFailure(cause))) {
+                // The provider answered, even if the answer was a 404 for an unknown city
+                update(this::onSuccess);
+            } else if (unsent) {
+                update(this::onAbandoned);
+            } else {
+                update(this::onFailure);
+            }
+        });
+        return future;
+    }
+
+    private static boolean rejects(State s, long now) {
+        if (s.state == OPEN) {
+            return now < s.openUntil;
+        }
+        return s.state == HALF_OPEN && s.trialStartedAt != 0 && now - s.trialStartedAt < TRIAL_TIMEOUT.toMillis();
+    }
+
+    private Void onSuccess(State s) {
+        if (s.state != CLOSED || s.failures != 0 || s.openCount != 0) {
+            s.state = CLOSED;
+            s.failures = 0;
+            s.openCount = 0;
+            s.trialStartedAt = 0;
+            s.dirty = true;
+        }
+        return null;
+    }
+
+    private Void onFailure(State s) {
+        s.failures++;
+        if (s.state == HALF_OPEN || s.failures >= FAILURE_THRESHOLD) {
+            s.openCount++;
+            long cooldown = Math.min(MAX_COOLDOWN.toMillis(), baseCooldown.toMillis() << Math.min(s.openCount - 1, 16));
+            s.state = OPEN;
+            s.openUntil = System.currentTimeMillis() + cooldown;
+            s.trialStartedAt = 0;
+        }
+        s.dirty = true;
+        return null;
+    }
+
+    // A cancelled trial (lost race, missed deadline) or one the quota held back says nothing about the provider
+    private Void onAbandoned(State s) {
+        if (s.state == HALF_OPEN) {
+            s.trialStartedAt = 0;
+            s.dirty = true;
+        }
+        return null;
+    }
+
+    static boolean isProviderFailure(Throwable cause) {
+        if (cause instanceof HttpStatusException status) {
+            return status.isProviderFailure();
+        }
+        return cause instanceof IOException; // connect failures and HTTP timeouts included
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private <R> R update(Function<State, R> op) {
+        if (stateFile == null) {
+            synchronized (memory) {
+                return op.apply(memory);
+            }
+        }
+        synchronized (PROCESS_LOCKS.computeIfAbsent(stateFile, path -> new Object())) {
+            try {
+                Files.createDirectories(stateFile.getParent());
+                try (FileChannel channel = FileChannel.open(stateFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    State s = read(channel);
+                    R result = op.apply(s);
+                    if (s.dirty) {
+                        write(channel, s);
+                    }
+                    return result;
+                }
+            } catch (IOException e) {
+                // A broken state file must never stop a fetch: fall back to this process's view
+                synchronized (memory) {
+                    return op.apply(memory);
+                }
+            }
+        }
+    }
+
+    private static State read(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(FILE_BYTES);
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) > 0) {
+            // read the whole record
+        }
+        State s = new State();
+        buf.flip();
+        if (buf.remaining() == FILE_BYTES && buf.getInt() == MAGIC) {
+            s.state = buf.getInt();
+            s.failures = buf.getInt();
+            s.openCount = buf.getInt();
+            s.openUntil = buf.getLong();
+            s.trialStartedAt = buf.getLong();
+        }
+        return s;
+    }
+
+    private static void write(FileChannel channel, State s) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(FILE_BYTES)
+                .putInt(MAGIC).putInt(s.state).putInt(s.failures).putInt(s.openCount)
+                .putLong(s.openUntil).putLong(s.trialStartedAt);
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf, buf.position());
+        }
+    }
+}
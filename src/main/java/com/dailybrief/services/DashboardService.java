@@ -1,58 +1,270 @@
 package com.dailybrief.services;
 
+import com.dailybrief.cache.ResponseCache;
 import com.dailybrief.config.AppConfig;
+import com.dailybrief.metrics.Metrics;
 import com.dailybrief.models.NewsResponse;
 import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.NewsWidget;
+import com.dailybrief.widgets.Panel;
+import com.dailybrief.widgets.WeatherWidget;
+import com.dailybrief.widgets.Widget;
+import com.dailybrief.widgets.WidgetContext;
+import com.dailybrief.widgets.WidgetScheduler;
+import com.dailybrief.widgets.Widgets;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * Builds the dashboard from the installed {@link Widget}s, run together by a
+ * {@link WidgetScheduler}. Weather and news keep their own fields in {@link DashboardData};
+ * every other widget becomes a {@link Panel}.
+ */
 public class DashboardService {
-    private final WeatherService weatherService;
+    private final WeatherProvider weatherService;
     private final NewsService newsService;
+    private final Duration deadline;
+    private final List<Widget<?>> widgets;
+    private final WidgetScheduler scheduler;
+    private final Metrics metrics;
+    private final SingleFlight<FlightKey, Object> flights = new SingleFlight<>();
 
-    public DashboardService(WeatherService weatherService, NewsService newsService) {
+    public DashboardService(WeatherProvider weatherService, NewsService newsService) {
+        this(weatherService, newsService, null);
+    }
+
+    /**
+     * @param deadline total budget for the whole dashboard; a widget that misses it is
+     *                 cancelled and shown as unavailable. Null waits indefinitely.
+     */
+    public DashboardService(WeatherProvider weatherService, NewsService newsService, Duration deadline) {
+        this(weatherService, newsService, deadline, Widgets.discover(), new WidgetScheduler());
+    }
+
+    public DashboardService(WeatherProvider weatherService, NewsService newsService, Duration deadline,
+                            List<Widget<?>> widgets, WidgetScheduler scheduler) {
+        this(weatherService, newsService, deadline, widgets, scheduler, Metrics.NONE);
+    }
+
+    /** @param metrics the invocation's registry, where waiting for the dashboard is timed */
+    public DashboardService(WeatherProvider weatherService, NewsService newsService, Duration deadline,
+                            List<Widget<?>> widgets, WidgetScheduler scheduler, Metrics metrics) {
         this.weatherService = weatherService;
         this.newsService = newsService;
+        this.deadline = deadline;
+        this.widgets = widgets;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
     }
 
     public DashboardService() {
-        this(new WeatherService(AppConfig.getInstance()), new NewsService());
+        this(ResponseCache.disabled());
+    }
+
+    public DashboardService(ResponseCache cache) {
+        this(new WeatherService(AppConfig.getInstance(), cache),
+                new NewsService(AppConfig.getInstance(), cache));
+    }
+
+    public record DashboardData(WeatherResponse weather, NewsResponse news, List<Panel> panels) {
+        public DashboardData(WeatherResponse weather, NewsResponse news) {
+            this(weather, news, List.of());
+        }
     }
 
-    public record DashboardData(WeatherResponse weather, NewsResponse news) {}
+    /**
+     * Progressive mode: each widget is published as soon as its own future completes,
+     * on the thread that completed it. A null widget failed or was disabled.
+     */
+    public interface Listener {
+        /** Publishes nothing and reports nothing. */
+        Listener NONE = new Listener() {};
 
-    private <T> T handleException(Throwable e) {
+        default void onWeather(WeatherResponse weather) {
+        }
+
+        default void onNews(NewsResponse news) {
+        }
+
+        /** Any widget other than weather and news. */
+        default void onPanel(Panel panel) {
+        }
+
+        /** Dropped unless the listener says where errors go: see {@link #printingTo}. */
+        default void onError(Throwable e) {
+        }
+
+        /** Publishes nothing and reports errors on {@code err}, the request's own stream under the daemon. */
+        static Listener printingTo(PrintStream err) {
+            return new Listener() {
+                @Override
+                public void onError(Throwable e) {
+                    err.println("Service Error: " + e.getMessage());
+                }
+            };
+        }
+    }
+
+    private <T> T handleException(Throwable e, Listener listener) {
         Throwable cause = e.getCause() != null ? e.getCause() : e;
         if (cause instanceof IllegalStateException) {
             throw new RuntimeException(cause);
         }
-        System.err.println("Service Error: " + e.getMessage());
+        listener.onError(e);
         return null; // Partial failure handling
     }
 
+    /** Ids of the widgets this service runs, for validating --skip. */
+    public List<String> widgetIds() {
+        return widgets.stream().map(Widget::id).toList();
+    }
+
+    public List<Widget<?>> enabledWidgets(Set<String> skip) {
+        return widgets.stream().filter(w -> !skip.contains(w.id())).toList();
+    }
+
     // TDD 4.2: Orchestrator Logic
     public DashboardData getDashboard(String city, boolean noNews, boolean noWeather) {
-        CompletableFuture<WeatherResponse> weatherFuture;
-        CompletableFuture<NewsResponse> newsFuture;
+        return getDashboard(city, noNews, noWeather, Listener.NONE);
+    }
 
-        // Handle Weather Request
+    public DashboardData getDashboard(String city, boolean noNews, boolean noWeather, Listener listener) {
+        return getDashboard(city, skipped(noNews, noWeather, Set.of()), listener);
+    }
+
+    /** Folds the legacy --no-weather/--no-news flags into a set of widget ids to leave out. */
+    public static Set<String> skipped(boolean noNews, boolean noWeather, Set<String> skip) {
+        Set<String> all = new HashSet<>(skip);
         if (noWeather) {
-            weatherFuture = CompletableFuture.completedFuture(null);
-        } else {
-            weatherFuture = weatherService.getWeatherAsync(city)
-                    .exceptionally(this::handleException);
+            all.add(WeatherWidget.ID);
         }
-
-        // Handle News Request
         if (noNews) {
-            newsFuture = CompletableFuture.completedFuture(null);
-        } else {
-            newsFuture = newsService.getNewsAsync()
-                    .exceptionally(this::handleException);
+            all.add(NewsWidget.ID);
+        }
+        return all;
+    }
+
+    /**
+     * Blocking form of {@link #getDashboardAsync}.
+     *
+     * @param skip ids of widgets to leave out; a widget that depends on one of them is an error
+     */
+    public DashboardData getDashboard(String city, Set<String> skip, Listener listener) {
+        CompletableFuture<DashboardData> dashboard = getDashboardAsync(city, skip, listener);
+        Metrics.Span join = metrics.start("dashboard.join");
+        try {
+            return dashboard.join();
+        } finally {
+            join.end();
+        }
+    }
+
+    public CompletableFuture<DashboardData> getDashboardAsync(String city) {
+        return getDashboardAsync(city, Set.of(), Listener.NONE);
+    }
+
+    /**
+     * The dashboard without blocking the calling thread: completes when every widget has
+     * landed (failed widgets read as null), on the thread that completed the last one.
+     * Concurrent calls for the same city share each widget's upstream call. Cancelling the
+     * result abandons this caller's share of the fetches in flight.
+     */
+    public CompletableFuture<DashboardData> getDashboardAsync(String city, Set<String> skip, Listener listener) {
+        List<Widget<?>> enabled = enabledWidgets(skip);
+        Map<String, CompletableFuture<Object>> scheduled = scheduler.schedule(
+                enabled.stream().<Widget<?>>map(this::coalesced).toList(),
+                new WidgetContext(city, weatherService, newsService, Map.of()), deadline);
+
+        // Every widget is published as it lands; failures are reported and read as null
+        Map<String, CompletableFuture<Object>> settled = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> published = new ArrayList<>();
+        for (Widget<?> widget : enabled) {
+            CompletableFuture<Object> value = scheduled.get(widget.id()).exceptionally(e -> handleException(e, listener));
+            settled.put(widget.id(), value);
+            published.add(value.thenAccept(v -> publish(widget, v, listener)));
+        }
+        // A disabled weather/news widget is still published, as null
+        if (skip.contains(WeatherWidget.ID)) {
+            listener.onWeather(null);
+        }
+        if (skip.contains(NewsWidget.ID)) {
+            listener.onNews(null);
         }
 
-        // Wait for both (Parallel Execution)
-        CompletableFuture.allOf(weatherFuture, newsFuture).join();
+        // Parallel Execution: done when all of them are
+        CompletableFuture<DashboardData> dashboard = CompletableFuture.allOf(published.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<Panel> panels = new ArrayList<>();
+                    for (Widget<?> widget : enabled) {
+                        if (!isBuiltIn(widget)) {
+                            panels.add(new Panel(widget, settled.get(widget.id()).join()));
+                        }
+                    }
+                    return new DashboardData(valueOf(settled, WeatherWidget.ID, WeatherResponse.class),
+                            valueOf(settled, NewsWidget.ID, NewsResponse.class), panels);
+                });
+        dashboard.whenComplete((data, e) -> {
+            if (dashboard.isCancelled()) {
+                scheduled.values().forEach(widget -> widget.cancel(true));
+            }
+        });
+        return dashboard;
+    }
+
+    private record FlightKey(String widget, Map<String, Object> inputs) {}
+
+    // The same widget, except that concurrent dashboards for one city share a single fetch
+    private Widget<Object> coalesced(Widget<?> widget) {
+        return new Widget<>() {
+            @Override
+            public String id() {
+                return widget.id();
+            }
+
+            @Override
+            public Set<String> dependsOn() {
+                return widget.dependsOn();
+            }
+
+            @Override
+            public int priority() {
+                return widget.priority();
+            }
+
+            @Override
+            public Duration deadline() {
+                return widget.deadline();
+            }
+
+            @Override
+            public CompletableFuture<Object> fetch(WidgetContext context) {
+                FlightKey key = new FlightKey(ResponseCache.key(widget.id(), context.city()), context.inputs());
+                return flights.run(key, () -> widget.fetch(context));
+            }
+        };
+    }
+
+    private static void publish(Widget<?> widget, Object value, Listener listener) {
+        switch (widget.id()) {
+            case WeatherWidget.ID -> listener.onWeather((WeatherResponse) value);
+            case NewsWidget.ID -> listener.onNews((NewsResponse) value);
+            default -> listener.onPanel(new Panel(widget, value));
+        }
+    }
+
+    private static boolean isBuiltIn(Widget<?> widget) {
+        return widget.id().equals(WeatherWidget.ID) || widget.id().equals(NewsWidget.ID);
+    }
 
-        return new DashboardData(weatherFuture.join(), newsFuture.join());
+    private static <T> T valueOf(Map<String, CompletableFuture<Object>> settled, String id, Class<T> type) {
+        CompletableFuture<Object> value = settled.get(id);
+        return value != null ? type.cast(value.join()) : null;
     }
-}
\ No newline at end of file
+}
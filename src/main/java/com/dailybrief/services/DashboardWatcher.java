@@ -0,0 +1,123 @@
+package com.dailybrief.services;
+
+import com.dailybrief.config.Threads;
+import com.dailybrief.widgets.Widget;
+import com.dailybrief.widgets.WidgetContext;
+import com.dailybrief.widgets.WidgetScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch mode: one long-lived process that refreshes every widget on its own timer, the watch
+ * interval give or take {@link #JITTER}, so providers don't fire in lockstep. A refresh that
+ * takes longer than the interval is abandoned.
+ * <p>
+ * Only a value that differs from the last one published reaches the listener. The cache hands
+ * back the very object it already holds for an unchanged entry (a fresh hit or a 304), so data
+ * that did not change is neither parsed nor rendered again.
+ */
+public class DashboardWatcher {
+    static final double JITTER = 0.1;
+
+    public interface Listener {
+        void onChange(Widget<?> widget, Object value);
+
+        void onError(Widget<?> widget, Throwable e);
+    }
+
+    private final WeatherProvider weatherService;
+    private final NewsService newsService;
+    private final Map<String, Widget<?>> widgets = new LinkedHashMap<>();
+    private final WidgetScheduler scheduler;
+    private final Duration interval;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(Threads.daemonFactory("watch"));
+    private final Map<String, Object> published = new HashMap<>();
+
+    public DashboardWatcher(WeatherProvider weatherService, NewsService newsService, List<Widget<?>> widgets,
+                            WidgetScheduler scheduler, Duration interval) {
+        this.weatherService = weatherService;
+        this.newsService = newsService;
+        widgets.forEach(widget -> this.widgets.put(widget.id(), widget));
+        this.scheduler = scheduler;
+        this.interval = interval;
+    }
+
+    /** Fetches every widget now, then keeps each on its own schedule until {@link #stop()}. */
+    public void start(String city, Listener listener) {
+        WidgetContext context = new WidgetContext(city, weatherService, newsService, Map.of());
+        for (Widget<?> widget : widgets.values()) {
+            List<Widget<?>> needed = withDependencies(widget);
+            timer.execute(() -> refresh(widget, needed, context, listener));
+        }
+    }
+
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    private void refresh(Widget<?> widget, List<Widget<?>> needed, WidgetContext context, Listener listener) {
+        CompletableFuture<Object> result;
+        try {
+            // Dependencies come along; when they are unchanged they are cache hits
+            result = scheduler.schedule(needed, context, interval).get(widget.id());
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, e) -> {
+            if (e != null) {
+                listener.onError(widget, e);
+            } else if (changed(widget, value)) {
+                listener.onChange(widget, value);
+            }
+            if (!timer.isShutdown()) {
+                timer.schedule(() -> refresh(widget, needed, context, listener), nextDelay(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private synchronized boolean changed(Widget<?> widget, Object value) {
+        if (published.containsKey(widget.id())) {
+            Object previous = published.get(widget.id());
+            if (previous == value || Objects.equals(previous, value)) {
+                return false;
+            }
+        }
+        published.put(widget.id(), value);
+        return true;
+    }
+
+    long nextDelay() {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return Math.max(1, Math.round(interval.toMillis() * factor));
+    }
+
+    // The widget and everything it depends on, for the scheduler
+    private List<Widget<?>> withDependencies(Widget<?> widget) {
+        Map<String, Widget<?>> needed = new LinkedHashMap<>();
+        List<Widget<?>> pending = new ArrayList<>(List.of(widget));
+        while (!pending.isEmpty()) {
+            Widget<?> next = pending.remove(pending.size() - 1);
+            if (needed.putIfAbsent(next.id(), next) == null) {
+                for (String dependency : next.dependsOn()) {
+                    Widget<?> required = widgets.get(dependency);
+                    if (required == null) {
+                        throw new IllegalArgumentException(next.id() + " depends on " + dependency + ", which is not enabled");
+                    }
+                    pending.add(required);
+                }
+            }
+        }
+        return new ArrayList<>(needed.values());
+    }
+}
@@ -0,0 +1,175 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.NewsResponse;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the {@code limit} most recent distinct articles out of any number offered, in a
+ * min-heap ordered by publication time, so memory is proportional to the limit and not to
+ * what the fan-out fetched. Syndicated copies (the same story under another outlet's URL, or
+ * the same URL under a re-worded title) are recognised by a hash of the normalized title or
+ * the normalized URL; of two copies the more recent is kept.
+ * <p>
+ * Duplicates are only looked up among the articles being kept: a copy of an evicted article
+ * can only get in by being more recent than everything left, in which case the original
+ * isn't in the result anyway. Thread-safe; pages are offered as they land.
+ */
+public class HeadlineMerger {
+    private static final Comparator<Entry> OLDEST_FIRST =
+            Comparator.comparingLong((Entry e) -> e.publishedAt).thenComparingLong(e -> -e.sequence);
+
+    private final int limit;
+    private final PriorityQueue<Entry> heap;
+    // Title and URL hashes of the articles in the heap
+    private final Map<Long, Entry> kept = new HashMap<>();
+    private long sequence;
+
+    private static final class Entry {
+        final NewsResponse.Article article;
+        final long publishedAt;
+        final long sequence;
+        final long titleHash;
+        final long urlHash;
+
+        Entry(NewsResponse.Article article, long publishedAt, long sequence, long titleHash, long urlHash) {
+            this.article = article;
+            this.publishedAt = publishedAt;
+            this.sequence = sequence;
+            this.titleHash = titleHash;
+            this.urlHash = urlHash;
+        }
+    }
+
+    public HeadlineMerger(int limit) {
+        this.limit = limit;
+        this.heap = new PriorityQueue<>(limit + 1, OLDEST_FIRST);
+    }
+
+    public synchronized void offerAll(NewsResponse page) {
+        if (page != null && page.articles() != null) {
+            page.articles().forEach(this::offer);
+        }
+    }
+
+    public synchronized void offer(NewsResponse.Article article) {
+        if (article.title() == null || article.title().isBlank() || "[Removed]".equals(article.title())) {
+            return; // NewsAPI's placeholder for withdrawn articles
+        }
+        Entry entry = new Entry(article, publishedAt(article), sequence++, titleHash(article.title()), urlHash(article.url()));
+        Entry sameTitle = kept.get(entry.titleHash);
+        Entry sameUrl = entry.urlHash != 0 ? kept.get(entry.urlHash) : null;
+        if (sameTitle != null || sameUrl != null) {
+            // The title may match one kept article and the URL another: replace both or neither
+            if (sameTitle != null && OLDEST_FIRST.compare(entry, sameTitle) <= 0
+                    || sameUrl != null && OLDEST_FIRST.compare(entry, sameUrl) <= 0) {
+                return; // A copy we have is at least as recent
+            }
+            if (sameTitle != null) {
+                remove(sameTitle);
+            }
+            if (sameUrl != null && sameUrl != sameTitle) {
+                remove(sameUrl);
+            }
+        } else if (heap.size() == limit) {
+            if (OLDEST_FIRST.compare(entry, heap.peek()) <= 0) {
+                return;
+            }
+            remove(heap.peek());
+        }
+        heap.add(entry);
+        kept.put(entry.titleHash, entry);
+        if (entry.urlHash != 0) {
+            kept.put(entry.urlHash, entry);
+        }
+    }
+
+    /** The kept articles, most recent first. */
+    public synchronized List<NewsResponse.Article> top() {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort(OLDEST_FIRST.reversed());
+        return entries.stream().map(e -> e.article).toList();
+    }
+
+    private void remove(Entry entry) {
+        heap.remove(entry);
+        kept.remove(entry.titleHash, entry);
+        kept.remove(entry.urlHash, entry);
+    }
+
+    private static long publishedAt(NewsResponse.Article article) {
+        if (article.publishedAt() == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Instant.parse(article.publishedAt()).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Case, punctuation and NewsAPI's " - Outlet" suffix don't count:
+     * "Markets Rally!" and "markets rally - Reuters" are the same story.
+     */
+    static long titleHash(String title) {
+        String stripped = title;
+        int suffix = stripped.lastIndexOf(" - ");
+        if (suffix > 0) {
+            stripped = stripped.substring(0, suffix);
+        }
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return fnv1a("t:" + normalized);
+    }
+
+    /** Scheme, "www.", query, fragment and a trailing slash don't count; 0 for no URL. */
+    static long urlHash(String url) {
+        if (url == null || url.isBlank()) {
+            return 0;
+        }
+        String normalized = url.trim().toLowerCase(Locale.ROOT);
+        int end = normalized.length();
+        for (char stop : new char[] {'?', '#'}) {
+            int at = normalized.indexOf(stop);
+            if (at >= 0) {
+                end = Math.min(end, at);
+            }
+        }
+        normalized = normalized.substring(0, end);
+        int scheme = normalized.indexOf("://");
+        if (scheme >= 0) {
+            normalized = normalized.substring(scheme + 3);
+        }
+        if (normalized.startsWith("www.")) {
+            normalized = normalized.substring(4);
+        }
+        if (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return fnv1a("u:" + normalized);
+    }
+
+    // 64-bit FNV-1a: cheap, and collisions at headline volumes are vanishingly unlikely
+    private static long fnv1a(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package com.dailybrief.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Which headlines to fetch: every country crossed with every category (or no category), each
+ * for {@code pages} pages of {@code limit} articles. The merged result is the {@code limit}
+ * most recent distinct articles. The default is the single request the brief always made.
+ */
+public record HeadlineQuery(List<String> countries, List<String> categories, int pages, int limit) {
+    public static final HeadlineQuery DEFAULT = new HeadlineQuery(List.of("us"), List.of(), 1, 5);
+    public static final int MAX_LIMIT = 100; // NewsAPI's largest pageSize
+    public static final int MAX_PAGES = 5;
+    // Each request spends NewsAPI quota: a brief shouldn't cost a fifth of the free day
+    public static final int MAX_REQUESTS = 20;
+    private static final Set<String> CATEGORIES =
+            Set.of("business", "entertainment", "general", "health", "science", "sports", "technology");
+
+    public HeadlineQuery {
+        countries = countries.stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).distinct().toList();
+        categories = categories.stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).distinct().toList();
+        if (countries.isEmpty()) {
+            throw new IllegalArgumentException("At least one news country is needed");
+        }
+        for (String country : countries) {
+            if (!country.matches("[a-z]{2}")) {
+                throw new IllegalArgumentException("Not a two-letter country code: " + country);
+            }
+        }
+        for (String category : categories) {
+            if (!CATEGORIES.contains(category)) {
+                throw new IllegalArgumentException("Unknown news category: " + category
+                        + " (use " + String.join(", ", CATEGORIES.stream().sorted().toList()) + ")");
+            }
+        }
+        if (pages < 1 || pages > MAX_PAGES) {
+            throw new IllegalArgumentException("News pages must be between 1 and " + MAX_PAGES);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("News limit must be between 1 and " + MAX_LIMIT);
+        }
+        int requests = countries.size() * Math.max(1, categories.size()) * pages;
+        if (requests > MAX_REQUESTS) {
+            throw new IllegalArgumentException("That news fan-out takes " + requests
+                    + " requests per brief; at most " + MAX_REQUESTS + " are allowed");
+        }
+    }
+
+    /** The query string of every request in the fan-out; the default query is just "country=us&pageSize=5". */
+    public List<String> requests() {
+        List<String> requests = new ArrayList<>();
+        List<String> categoryOrNone = categories.isEmpty() ? Collections.singletonList(null) : categories;
+        for (String country : countries) {
+            for (String category : categoryOrNone) {
+                for (int page = 1; page <= pages; page++) {
+                    StringBuilder query = new StringBuilder("country=").append(country);
+                    if (category != null) {
+                        query.append("&category=").append(category);
+                    }
+                    query.append("&pageSize=").append(limit);
+                    if (page > 1) {
+                        query.append("&page=").append(page);
+                    }
+                    requests.add(query.toString());
+                }
+            }
+        }
+        return requests;
+    }
+
+    /** "US" or "US, GB - BUSINESS, SCIENCE", for the headlines header. */
+    public String label() {
+        String label = String.join(", ", countries).toUpperCase(Locale.ROOT);
+        return categories.isEmpty() ? label : label + " - " + String.join(", ", categories).toUpperCase(Locale.ROOT);
+    }
+}
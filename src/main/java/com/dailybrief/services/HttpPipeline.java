@@ -0,0 +1,70 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The request/response steps every upstream call shares on top of
+ * {@link com.dailybrief.config.AppConfig#getHttpClient()}: HttpClient neither asks for nor
+ * decodes compressed bodies, so requests advertise gzip/deflate here and bodies are
+ * decompressed as a stream on read; stored validators turn refreshes into conditional
+ * requests, whose 304 answer carries no body at all.
+ */
+public final class HttpPipeline {
+    public static final int NOT_MODIFIED = 304;
+
+    private HttpPipeline() {
+    }
+
+    /** A GET for {@code uri}, conditional when {@code validators} are given. */
+    public static HttpRequest request(String uri, ResponseCache.Validators validators) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(uri)).GET()
+                .header("Accept-Encoding", "gzip, deflate");
+        if (validators != null) {
+            if (validators.etag() != null) {
+                builder.header("If-None-Match", validators.etag());
+            }
+            if (validators.lastModified() != null) {
+                builder.header("If-Modified-Since", validators.lastModified());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * {@code raw} (the response body, possibly wrapped for timing) decompressed on the fly
+     * according to the response's Content-Encoding.
+     */
+    public static InputStream decoded(HttpResponse<?> response, InputStream raw) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(raw, 8192);
+            case "deflate" -> new InflaterInputStream(raw);
+            default -> raw;
+        };
+    }
+
+    /** Closes a body we are not going to read, such as the empty one of a 304. */
+    public static void discard(HttpResponse<InputStream> response) {
+        try (InputStream ignored = response.body()) {
+            // nothing to read
+        } catch (IOException ignored) {
+            // Best effort
+        }
+    }
+
+    public static String etag(HttpResponse<?> response) {
+        return response.headers().firstValue("ETag").orElse(null);
+    }
+
+    public static String lastModified(HttpResponse<?> response) {
+        return response.headers().firstValue("Last-Modified").orElse(null);
+    }
+}
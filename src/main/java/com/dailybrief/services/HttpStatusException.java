@@ -0,0 +1,67 @@
+package com.dailybrief.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+
+/** A non-200 answer from an upstream API, with what the retry and breaker logic need to know. */
+public class HttpStatusException extends RuntimeException {
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public HttpStatusException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Builds the exception for {@code response}, reading a short snippet of its body for the
+     * message, decompressed like any other body: error pages are gzipped too.
+     */
+    public static HttpStatusException of(String api, HttpResponse<InputStream> response) {
+        Duration retryAfter = response.headers().firstValue("Retry-After")
+                .flatMap(HttpStatusException::parseSeconds)
+                .orElse(null);
+        String snippet;
+        try {
+            snippet = JsonDecoder.errorSnippet(HttpPipeline.decoded(response, response.body()));
+        } catch (IOException e) {
+            // Not the compressed body the headers promised: no snippet rather than binary noise
+            HttpPipeline.discard(response);
+            snippet = "";
+        }
+        return new HttpStatusException(api + " API Error (Status " + response.statusCode() + "): " + snippet,
+                response.statusCode(), retryAfter);
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /** The server's Retry-After hint, or null. */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /** Rate limited or a server-side failure: worth another attempt. */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /** The provider itself is unusable right now (down, throttling or rejecting our key). */
+    public boolean isProviderFailure() {
+        return isRetryable() || statusCode == 401 || statusCode == 403;
+    }
+
+    // Only the delta-seconds form; an HTTP-date is ignored
+    private static Optional<Duration> parseSeconds(String value) {
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming, projection-only decoding of the upstream JSON bodies.
+ * Parses straight from the response stream with a shared {@link JsonFactory} and only
+ * materializes the fields {@link com.dailybrief.ui.ConsoleRenderer} reads; everything else
+ * is skipped token by token. Bodies larger than the cap are rejected mid-stream.
+ */
+public final class JsonDecoder {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int ERROR_SNIPPET_BYTES = 512;
+
+    /** Body size cap, overridable with -Ddailybrief.maxBodyBytes. */
+    public static final long MAX_BODY_BYTES = Long.getLong("dailybrief.maxBodyBytes", 1024 * 1024);
+
+    private JsonDecoder() {
+    }
+
+    public static WeatherResponse decodeWeather(InputStream body) throws IOException {
+        return decodeWeather(body, MAX_BODY_BYTES);
+    }
+
+    public static WeatherResponse decodeWeather(InputStream body, long maxBytes) throws IOException {
+        CappedInputStream in = new CappedInputStream(body, maxBytes);
+        try (JsonParser p = FACTORY.createParser(in)) {
+            expectObject(p);
+            String name = null;
+            WeatherResponse.Main main = null;
+            List<WeatherResponse.Weather> weather = null;
+            WeatherResponse.Sys sys = null;
+            long dt = 0;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "name" -> name = p.getValueAsString();
+                    case "main" -> main = readMain(p);
+                    case "weather" -> weather = readWeatherList(p);
+                    case "sys" -> sys = readSys(p);
+                    case "dt" -> dt = p.getValueAsLong();
+                    default -> p.skipChildren();
+                }
+                // Everything the renderer and the history need is in hand: don't parse the rest of the body
+                if (name != null && main != null && weather != null && sys != null && dt != 0) {
+                    break;
+                }
+            }
+            in.drain();
+            return new WeatherResponse(name, main, weather, sys, dt);
+        }
+    }
+
+    public static NewsResponse decodeNews(InputStream body) throws IOException {
+        return decodeNews(body, MAX_BODY_BYTES);
+    }
+
+    public static NewsResponse decodeNews(InputStream body, long maxBytes) throws IOException {
+        CappedInputStream in = new CappedInputStream(body, maxBytes);
+        try (JsonParser p = FACTORY.createParser(in)) {
+            expectObject(p);
+            String status = null;
+            List<NewsResponse.Article> articles = null;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "status" -> status = p.getValueAsString();
+                    case "articles" -> articles = readArticles(p);
+                    default -> p.skipChildren();
+                }
+                if (status != null && articles != null) {
+                    break;
+                }
+            }
+            in.drain();
+            return new NewsResponse(status, articles);
+        }
+    }
+
+    public static Forecast decodeForecast(InputStream body) throws IOException {
+        return decodeForecast(body, MAX_BODY_BYTES);
+    }
+
+    /**
+     * The 5-day / 3-hour forecast, each slot decoded straight into the column arrays: no
+     * per-slot objects. The arrays are sized from "cnt" when it comes first, as it does
+     * upstream, and grown otherwise.
+     */
+    public static Forecast decodeForecast(InputStream body, long maxBytes) throws IOException {
+        try (JsonParser p = FACTORY.createParser(new CappedInputStream(body, maxBytes))) {
+            expectObject(p);
+            String city = null;
+            String country = null;
+            int timezone = 0;
+            int capacity = 40;
+            int n = 0;
+            long[] times = null;
+            double[] temps = null;
+            int[] humidity = null;
+            double[] precipitation = null;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("cnt") && times == null) {
+                    capacity = Math.max(1, p.getValueAsInt());
+                } else if (field.equals("list") && p.currentToken() == JsonToken.START_ARRAY) {
+                    times = new long[capacity];
+                    temps = new double[capacity];
+                    humidity = new int[capacity];
+                    precipitation = new double[capacity];
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        if (n == times.length) {
+                            int grown = n * 2;
+                            times = Arrays.copyOf(times, grown);
+                            temps = Arrays.copyOf(temps, grown);
+                            humidity = Arrays.copyOf(humidity, grown);
+                            precipitation = Arrays.copyOf(precipitation, grown);
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String name = p.currentName();
+                            p.nextToken();
+                            switch (name) {
+                                case "dt" -> times[n] = p.getValueAsLong();
+                                case "main" -> readSlotMain(p, temps, humidity, n);
+                                case "rain", "snow" -> precipitation[n] += readThreeHours(p);
+                                default -> p.skipChildren();
+                            }
+                        }
+                        n++;
+                    }
+                } else if (field.equals("city") && p.currentToken() == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        switch (name) {
+                            case "name" -> city = p.getValueAsString();
+                            case "country" -> country = p.getValueAsString();
+                            case "timezone" -> timezone = p.getValueAsInt();
+                            default -> p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (times == null) {
+                throw new IOException("Forecast response has no list");
+            }
+            if (n != times.length) {
+                times = Arrays.copyOf(times, n);
+                temps = Arrays.copyOf(temps, n);
+                humidity = Arrays.copyOf(humidity, n);
+                precipitation = Arrays.copyOf(precipitation, n);
+            }
+            return new Forecast(city, country, timezone, times, temps, humidity, precipitation);
+        }
+    }
+
+    /** First hit of an Open-Meteo geocoding search, or null when the city is unknown. */
+    public static OpenMeteoWeatherService.Place decodePlace(InputStream body) throws IOException {
+        try (JsonParser p = FACTORY.createParser(new CappedInputStream(body, MAX_BODY_BYTES))) {
+            expectObject(p);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("results") && p.currentToken() == JsonToken.START_ARRAY) {
+                    return p.nextToken() == JsonToken.START_OBJECT ? readPlace(p) : null;
+                }
+                p.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    /** Open-Meteo current conditions, mapped onto the OpenWeatherMap shape the renderer reads. */
+    public static WeatherResponse decodeOpenMeteo(InputStream body, OpenMeteoWeatherService.Place place) throws IOException {
+        try (JsonParser p = FACTORY.createParser(new CappedInputStream(body, MAX_BODY_BYTES))) {
+            expectObject(p);
+            WeatherResponse.Main main = null;
+            WeatherResponse.Weather condition = null;
+            long sunrise = 0;
+            long sunset = 0;
+            long time = 0;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("current") && p.currentToken() == JsonToken.START_OBJECT) {
+                    double temp = 0.0;
+                    int humidity = 0;
+                    int code = -1;
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        switch (name) {
+                            case "temperature_2m" -> temp = p.getValueAsDouble();
+                            case "relative_humidity_2m" -> humidity = p.getValueAsInt();
+                            case "weather_code" -> code = p.getValueAsInt();
+                            case "time" -> time = p.getValueAsLong();
+                            default -> p.skipChildren();
+                        }
+                    }
+                    main = new WeatherResponse.Main(temp, humidity);
+                    condition = OpenMeteoWeatherService.condition(code);
+                } else if (field.equals("daily") && p.currentToken() == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        switch (name) {
+                            case "sunrise" -> sunrise = firstLong(p);
+                            case "sunset" -> sunset = firstLong(p);
+                            default -> p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (main == null) {
+                throw new IOException("Open-Meteo response has no current conditions");
+            }
+            return new WeatherResponse(place.name(), main, List.of(condition),
+                    new WeatherResponse.Sys(place.country(), sunrise, sunset), time);
+        }
+    }
+
+    /** Reads at most a short prefix of an error body for the exception message. */
+    public static String errorSnippet(InputStream body) {
+        try (body) {
+            return new String(body.readNBytes(ERROR_SNIPPET_BYTES), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void expectObject(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+    }
+
+    private static WeatherResponse.Main readMain(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        double temp = 0.0;
+        int humidity = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "temp" -> temp = p.getValueAsDouble();
+                case "humidity" -> humidity = p.getValueAsInt();
+                default -> p.skipChildren();
+            }
+        }
+        return new WeatherResponse.Main(temp, humidity);
+    }
+
+    private static void readSlotMain(JsonParser p, double[] temps, int[] humidity, int slot) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "temp" -> temps[slot] = p.getValueAsDouble();
+                case "humidity" -> humidity[slot] = p.getValueAsInt();
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // {"3h": mm}
+    private static double readThreeHours(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return 0.0;
+        }
+        double mm = 0.0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals("3h")) {
+                mm = p.getValueAsDouble();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return mm;
+    }
+
+    private static List<WeatherResponse.Weather> readWeatherList(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<WeatherResponse.Weather> list = new ArrayList<>(1);
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String main = null;
+            String description = null;
+            String icon = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "main" -> main = p.getValueAsString();
+                    case "description" -> description = p.getValueAsString();
+                    case "icon" -> icon = p.getValueAsString();
+                    default -> p.skipChildren();
+                }
+            }
+            list.add(new WeatherResponse.Weather(main, description, icon));
+        }
+        return list;
+    }
+
+    private static WeatherResponse.Sys readSys(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        String country = null;
+        long sunrise = 0;
+        long sunset = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "country" -> country = p.getValueAsString();
+                case "sunrise" -> sunrise = p.getValueAsLong();
+                case "sunset" -> sunset = p.getValueAsLong();
+                default -> p.skipChildren();
+            }
+        }
+        return new WeatherResponse.Sys(country, sunrise, sunset);
+    }
+
+    // Title and source name are rendered, url and publishedAt feed the merge; description and the rest are skipped
+    private static List<NewsResponse.Article> readArticles(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<NewsResponse.Article> articles = new ArrayList<>();
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String title = null;
+            NewsResponse.Source source = null;
+            String url = null;
+            String publishedAt = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "title" -> title = p.getValueAsString();
+                    case "source" -> source = readSource(p);
+                    case "url" -> url = p.getValueAsString();
+                    case "publishedAt" -> publishedAt = p.getValueAsString();
+                    default -> p.skipChildren();
+                }
+            }
+            articles.add(new NewsResponse.Article(title, null, source, url, publishedAt));
+        }
+        return articles;
+    }
+
+    private static NewsResponse.Source readSource(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        String name = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals("name")) {
+                name = p.getValueAsString();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new NewsResponse.Source(name);
+    }
+
+    private static OpenMeteoWeatherService.Place readPlace(JsonParser p) throws IOException {
+        String name = null;
+        String country = null;
+        double latitude = 0.0;
+        double longitude = 0.0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "name" -> name = p.getValueAsString();
+                case "country_code" -> country = p.getValueAsString();
+                case "latitude" -> latitude = p.getValueAsDouble();
+                case "longitude" -> longitude = p.getValueAsDouble();
+                default -> p.skipChildren();
+            }
+        }
+        return new OpenMeteoWeatherService.Place(name, country, latitude, longitude);
+    }
+
+    private static long firstLong(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return 0;
+        }
+        long first = 0;
+        boolean seen = false;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (!seen) {
+                first = p.getValueAsLong();
+                seen = true;
+            }
+            p.skipChildren();
+        }
+        return first;
+    }
+
+    /** Fails the read as soon as more than {@code maxBytes} have been consumed. */
+    static final class CappedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long consumed;
+
+        CappedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        /**
+         * Reads what is left of the body unparsed. Closing a response body before its end makes
+         * HttpClient drop the connection instead of keeping it alive for the next request. Past
+         * the cap the rest is left unread, and the connection goes.
+         */
+        void drain() {
+            byte[] skipped = new byte[8192];
+            try {
+                while (read(skipped, 0, skipped.length) >= 0) {
+                    // discard
+                }
+            } catch (IOException e) {
+                // Too long or broken: closing drops the connection, which is all that is lost
+            }
+        }
+
+        private void count(long n) throws IOException {
+            consumed += n;
+            if (consumed > maxBytes) {
+                throw new IOException("Response body exceeds " + maxBytes + " bytes");
+            }
+        }
+    }
+}
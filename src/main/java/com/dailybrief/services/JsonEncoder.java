@@ -0,0 +1,129 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.Codec;
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes the projected records back out in the upstream JSON shape, so cached entries
+ * are read with the same {@link JsonDecoder} as live responses and a warm run never
+ * loads jackson-databind.
+ */
+public final class JsonEncoder {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public static final Codec<WeatherResponse> WEATHER_CODEC =
+            Codec.of(JsonEncoder::encodeWeather, JsonDecoder::decodeWeather, WeatherResponse::asStale);
+    public static final Codec<NewsResponse> NEWS_CODEC =
+            Codec.of(JsonEncoder::encodeNews, JsonDecoder::decodeNews, NewsResponse::asStale);
+    public static final Codec<Forecast> FORECAST_CODEC = Codec.of(JsonEncoder::encodeForecast, JsonDecoder::decodeForecast);
+
+    private JsonEncoder() {
+    }
+
+    public static byte[] encodeWeather(WeatherResponse w) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (JsonGenerator g = FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeStringField("name", w.name());
+            if (w.main() != null) {
+                g.writeObjectFieldStart("main");
+                g.writeNumberField("temp", w.main().temp());
+                g.writeNumberField("humidity", w.main().humidity());
+                g.writeEndObject();
+            }
+            if (w.weather() != null) {
+                g.writeArrayFieldStart("weather");
+                for (WeatherResponse.Weather condition : w.weather()) {
+                    g.writeStartObject();
+                    g.writeStringField("main", condition.main());
+                    g.writeStringField("description", condition.description());
+                    g.writeStringField("icon", condition.icon());
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+            }
+            if (w.sys() != null) {
+                g.writeObjectFieldStart("sys");
+                g.writeStringField("country", w.sys().country());
+                g.writeNumberField("sunrise", w.sys().sunrise());
+                g.writeNumberField("sunset", w.sys().sunset());
+                g.writeEndObject();
+            }
+            if (w.dt() != 0) {
+                g.writeNumberField("dt", w.dt());
+            }
+            g.writeEndObject();
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] encodeNews(NewsResponse n) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (JsonGenerator g = FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeStringField("status", n.status());
+            if (n.articles() != null) {
+                g.writeArrayFieldStart("articles");
+                for (NewsResponse.Article article : n.articles()) {
+                    g.writeStartObject();
+                    g.writeStringField("title", article.title());
+                    if (article.source() != null) {
+                        g.writeObjectFieldStart("source");
+                        g.writeStringField("name", article.source().name());
+                        g.writeEndObject();
+                    }
+                    if (article.url() != null) {
+                        g.writeStringField("url", article.url());
+                    }
+                    if (article.publishedAt() != null) {
+                        g.writeStringField("publishedAt", article.publishedAt());
+                    }
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+            }
+            g.writeEndObject();
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] encodeForecast(Forecast f) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + f.size() * 64);
+        try (JsonGenerator g = FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            // First, so the decoder can size its columns up front
+            g.writeNumberField("cnt", f.size());
+            g.writeObjectFieldStart("city");
+            g.writeStringField("name", f.city());
+            g.writeStringField("country", f.country());
+            g.writeNumberField("timezone", f.timezoneOffset());
+            g.writeEndObject();
+            g.writeArrayFieldStart("list");
+            for (int i = 0; i < f.size(); i++) {
+                g.writeStartObject();
+                g.writeNumberField("dt", f.times()[i]);
+                g.writeObjectFieldStart("main");
+                g.writeNumberField("temp", f.temps()[i]);
+                g.writeNumberField("humidity", f.humidity()[i]);
+                g.writeEndObject();
+                if (f.precipitation()[i] > 0) {
+                    g.writeObjectFieldStart("rain");
+                    g.writeNumberField("3h", f.precipitation()[i]);
+                    g.writeEndObject();
+                }
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,148 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The last {@code capacity} latencies of one provider, for picking the hedge delay.
+ * Until enough samples are in, the fallback delay is used instead of a percentile.
+ * <p>
+ * With a state file the window lives next to the response cache, read and written under an
+ * exclusive file lock like the circuit breaker's, so one-shot CLI runs add to (and hedge on)
+ * the same window as the daemon. Without one it is kept in memory.
+ */
+public class LatencyWindow {
+    private static final int MIN_SAMPLES = 8;
+    private static final int MAGIC = 0x44424c57; // "DBLW"
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    // FileLock is per JVM: threads in one process take this monitor first
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path stateFile;
+    private final Duration fallback;
+    private final Samples memory;
+
+    private static final class Samples {
+        final long[] values;
+        int count;
+        int next;
+        boolean dirty;
+
+        Samples(int capacity) {
+            this.values = new long[capacity];
+        }
+    }
+
+    public LatencyWindow(int capacity, Duration fallback) {
+        this(capacity, fallback, null);
+    }
+
+    /**
+     * @param stateFile where the shared window lives, or null to keep it in this instance only
+     */
+    public LatencyWindow(int capacity, Duration fallback, Path stateFile) {
+        this.memory = new Samples(capacity);
+        this.fallback = fallback;
+        this.stateFile = stateFile;
+    }
+
+    /** A window whose samples sit next to the cache's store, or null for a disabled cache. */
+    public static LatencyWindow forCache(String provider, ResponseCache cache, int capacity, Duration fallback) {
+        Path dir = cache.dir();
+        return dir != null
+                ? new LatencyWindow(capacity, fallback, dir.resolve("latency-" + provider.toLowerCase(Locale.ROOT) + ".state"))
+                : null;
+    }
+
+    public void record(Duration latency) {
+        update(s -> {
+            s.values[s.next] = latency.toMillis();
+            s.next = (s.next + 1) % s.values.length;
+            s.count = Math.min(s.count + 1, s.values.length);
+            s.dirty = true;
+            return null;
+        });
+    }
+
+    /** The given percentile (0-100) of the recorded latencies. */
+    public Duration percentile(double percentile) {
+        long[] sorted = update(s -> s.count < MIN_SAMPLES ? null : Arrays.copyOf(s.values, s.count));
+        if (sorted == null) {
+            return fallback;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return Duration.ofMillis(sorted[Math.max(0, Math.min(rank, sorted.length - 1))]);
+    }
+
+    private <R> R update(Function<Samples, R> op) {
+        if (stateFile == null) {
+            synchronized (memory) {
+                return op.apply(memory);
+            }
+        }
+        synchronized (PROCESS_LOCKS.computeIfAbsent(stateFile, path -> new Object())) {
+            try {
+                Files.createDirectories(stateFile.getParent());
+                try (FileChannel channel = FileChannel.open(stateFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    Samples s = read(channel, memory.values.length);
+                    R result = op.apply(s);
+                    if (s.dirty) {
+                        write(channel, s);
+                    }
+                    return result;
+                }
+            } catch (IOException e) {
+                // A broken state file must never stop a fetch: fall back to this process's samples
+                synchronized (memory) {
+                    return op.apply(memory);
+                }
+            }
+        }
+    }
+
+    // Layout (big-endian): magic, capacity, count, next, then capacity samples in millis
+    private static Samples read(FileChannel channel, int capacity) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + capacity * Long.BYTES);
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) > 0) {
+            // read the whole window
+        }
+        Samples s = new Samples(capacity);
+        buf.flip();
+        // A window of another capacity starts over
+        if (buf.remaining() == buf.capacity() && buf.getInt() == MAGIC && buf.getInt() == capacity) {
+            s.count = buf.getInt();
+            s.next = buf.getInt();
+            buf.asLongBuffer().get(s.values);
+            if (s.count < 0 || s.count > capacity || s.next < 0 || s.next >= capacity) {
+                return new Samples(capacity);
+            }
+        }
+        return s;
+    }
+
+    private static void write(FileChannel channel, Samples s) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + s.values.length * Long.BYTES)
+                .putInt(MAGIC).putInt(s.values.length).putInt(s.count).putInt(s.next);
+        buf.asLongBuffer().put(s.values);
+        buf.position(buf.capacity()).flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf, buf.position());
+        }
+    }
+}
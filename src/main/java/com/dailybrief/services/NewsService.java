@@ -1,17 +1,61 @@
 package com.dailybrief.services;
 
+import com.dailybrief.cache.Fetched;
+import com.dailybrief.cache.ResponseCache;
 import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.Threads;
+import com.dailybrief.metrics.Metrics;
+import com.dailybrief.metrics.TimedInputStream;
 import com.dailybrief.models.NewsResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.net.URI;
+import java.io.InputStream;
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class NewsService {
-    private static final String API_URL = "https://newsapi.org/v2/top-headlines";
-    private final AppConfig config = AppConfig.getInstance();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final String API_URL = AppConfig.endpoint("news", "https://newsapi.org/v2/top-headlines");
+    private static final Duration CACHE_TTL = Duration.ofMinutes(15);
+    // Headlines age slower than the weather: half an hour past the TTL still reads as news
+    private static final Duration STALE_FOR = Duration.ofMinutes(30);
+    // NewsAPI's developer plan: 100 requests a day
+    private static final QuotaManager.Limits LIMITS = QuotaManager.Limits.of("news", 100, 0);
+    private final AppConfig config;
+    private final ResponseCache cache;
+    private final CircuitBreaker breaker;
+    private final HeadlineQuery headlines;
+    private final Metrics metrics;
+
+    public NewsService() {
+        this(AppConfig.getInstance(), ResponseCache.disabled());
+    }
+
+    public NewsService(AppConfig config, ResponseCache cache) {
+        this(config, cache, HeadlineQuery.DEFAULT);
+    }
+
+    /**
+     * @param headlines the countries, categories and pages to fetch; anything beyond a single
+     *                  request is fanned out concurrently and merged into the most recent distinct articles
+     */
+    public NewsService(AppConfig config, ResponseCache cache, HeadlineQuery headlines) {
+        this(config, cache, headlines, Metrics.NONE);
+    }
+
+    /** @param metrics the invocation's registry, where each request's phases are timed */
+    public NewsService(AppConfig config, ResponseCache cache, HeadlineQuery headlines, Metrics metrics) {
+        this.config = config;
+        this.cache = cache;
+        this.breaker = CircuitBreaker.forCache("News", cache);
+        this.headlines = headlines;
+        this.metrics = metrics;
+    }
 
     public CompletableFuture<NewsResponse> getNewsAsync() {
         String apiKey = config.getApiKey("NEWS_API_KEY");
@@ -19,24 +63,126 @@ public class NewsService {
             return CompletableFuture.failedFuture(new IllegalStateException("NEWS_API_KEY is missing in .env"));
         }
 
-        String uri = String.format("%s?country=us&pageSize=5&apiKey=%s", API_URL, apiKey);
-
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(uri)).GET().build();
+        QuotaManager quota = QuotaManager.forKey("News", apiKey, LIMITS, cache);
+        List<String> requests = headlines.requests();
+        if (requests.size() == 1) {
+            return fetchPage(requests.get(0), apiKey, quota);
+        }
+        return fanOut(requests, apiKey, quota);
+    }
 
-        return config.getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(response -> {
-                    // CRITICAL FIX: Check for HTTP errors
-                    if (response.statusCode() != 200) {
-                        throw new RuntimeException("News API Error (Status " + response.statusCode() + "): " + response.body());
+    /**
+     * Every request at once, each page merged as it lands and then let go: the fan-out holds
+     * the kept articles, not the pages. Each page still has its response cache entry, so a
+     * run's memory grows with the pages fetched either way. Pages that fail are left out; the
+     * brief fails only when all of them do, and is stale when any page it kept was.
+     */
+    private CompletableFuture<NewsResponse> fanOut(List<String> requests, String apiKey, QuotaManager quota) {
+        HeadlineMerger merger = new HeadlineMerger(headlines.limit());
+        // The pages still in flight, for cancelling; a slot is cleared once its page is merged
+        AtomicReferenceArray<CompletableFuture<NewsResponse>> inFlight = new AtomicReferenceArray<>(requests.size());
+        AtomicBoolean stale = new AtomicBoolean();
+        List<CompletableFuture<Throwable>> landed = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            int slot = i;
+            CompletableFuture<NewsResponse> page = fetchPage(requests.get(i), apiKey, quota);
+            inFlight.set(slot, page);
+            landed.add(page.handle((news, e) -> {
+                if (e == null) {
+                    merger.offerAll(news);
+                    if (news != null && news.stale()) {
+                        stale.set(true);
                     }
-                    return response.body();
-                })
-                .thenApply(json -> {
-                    try {
-                        return mapper.readValue(json, NewsResponse.class);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to parse News JSON", e);
+                }
+                inFlight.set(slot, null);
+                return e;
+            }));
+        }
+        CompletableFuture<NewsResponse> merged = CompletableFuture.allOf(landed.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Throwable first = null;
+                    int failed = 0;
+                    for (CompletableFuture<Throwable> page : landed) {
+                        Throwable e = page.join();
+                        if (e != null) {
+                            failed++;
+                            first = first == null ? e : first;
+                        }
+                    }
+                    if (failed == landed.size()) {
+                        throw first instanceof CompletionException ce ? ce : new CompletionException(first);
                     }
+                    return new NewsResponse("ok", merger.top(), stale.get());
                 });
+        // A missed deadline abandons every page still in flight
+        merged.whenComplete((news, e) -> {
+            if (e != null) {
+                for (int i = 0; i < inFlight.length(); i++) {
+                    CompletableFuture<NewsResponse> page = inFlight.get(i);
+                    if (page != null) {
+                        page.cancel(true);
+                    }
+                }
+            }
+        });
+        return merged;
+    }
+
+    private CompletableFuture<NewsResponse> fetchPage(String query, String apiKey, QuotaManager quota) {
+        String key = ResponseCache.key("news", query);
+        if (breaker.isOpen() || quota.isLow()) {
+            // Known to be failing, or down to the last of the quota: any cached answer, however old
+            NewsResponse last = cache.lastKnown(key, CACHE_TTL, JsonEncoder.NEWS_CODEC);
+            if (last != null) {
+                return CompletableFuture.completedFuture(last);
+            }
+        }
+        return cache.getConditional(key, CACHE_TTL, STALE_FOR, JsonEncoder.NEWS_CODEC,
+                validators -> breaker.call(() -> Backoff.retry(() -> fetchNews(query, apiKey, validators, quota))));
+    }
+
+    private CompletableFuture<Fetched<NewsResponse>> fetchNews(String query, String apiKey,
+                                                               ResponseCache.Validators validators, QuotaManager quota) {
+        if (!quota.tryAcquire()) {
+            return CompletableFuture.failedFuture(quota.exhausted());
+        }
+        Metrics.Span build = metrics.start("news.build");
+        String uri = String.format("%s?%s&apiKey=%s", API_URL, query, apiKey);
+
+        HttpRequest request = HttpPipeline.request(uri, validators);
+        build.end();
+
+        // Client creation is timed as config.http-client, not as part of the first byte
+        HttpClient client = config.getHttpClient();
+        Metrics.Span firstByte = metrics.start("news.first-byte");
+        CompletableFuture<HttpResponse<InputStream>> sent =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        // ofInputStream completes on the response headers; the body is read during decode,
+        // on the decode executor, so a slow body never holds one of the client's threads
+        sent.thenRun(firstByte::end);
+        CompletableFuture<Fetched<NewsResponse>> decoded = sent.thenApplyAsync(response -> {
+            if (response.statusCode() == HttpPipeline.NOT_MODIFIED) {
+                // Our stored copy is still current: no body to read
+                HttpPipeline.discard(response);
+                return Fetched.notModified();
+            }
+            // CRITICAL FIX: Check for HTTP errors
+            if (response.statusCode() != 200) {
+                throw HttpStatusException.of("News", response);
+            }
+            // Decompressed and decoded straight from the stream; no intermediate String
+            Metrics.Span decode = metrics.start("news.decode");
+            TimedInputStream raw = new TimedInputStream(response.body());
+            try (InputStream in = HttpPipeline.decoded(response, raw)) {
+                NewsResponse result = JsonDecoder.decodeNews(in);
+                decode.endExcluding("news.body", raw.readNanos());
+                return Fetched.of(result, HttpPipeline.etag(response), HttpPipeline.lastModified(response));
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse News JSON", e);
+            }
+        }, Threads.decodeExecutor());
+        // A missed deadline aborts the HTTP exchange instead of letting it run on
+        decoded.whenComplete((news, e) -> sent.cancel(true));
+        return decoded;
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.City;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.Threads;
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.WeatherResponse;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keyless weather from Open-Meteo: a geocoding lookup, then current conditions for the
+ * coordinates, mapped onto {@link WeatherResponse} so the renderer can't tell the difference.
+ * Used as the second runner in {@link RacingWeatherService}.
+ */
+public class OpenMeteoWeatherService implements WeatherProvider {
+    private static final String GEOCODING_URL = AppConfig.endpoint("geocoding", "https://geocoding-api.open-meteo.com/v1/search");
+    private static final String FORECAST_URL = AppConfig.endpoint("openmeteo", "https://api.open-meteo.com/v1/forecast");
+    private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+    private final AppConfig config;
+    private final ResponseCache cache;
+    private final CircuitBreaker breaker;
+    private final CityIndex cities;
+
+    public record Place(String name, String country, double latitude, double longitude) {}
+
+    public OpenMeteoWeatherService(AppConfig config, ResponseCache cache) {
+        this(config, cache, null);
+    }
+
+    /** @param cities when given, known cities skip the geocoding request and unknown ones fail locally */
+    public OpenMeteoWeatherService(AppConfig config, ResponseCache cache, CityIndex cities) {
+        this.config = config;
+        this.cache = cache;
+        this.breaker = CircuitBreaker.forCache("OpenMeteo", cache);
+        this.cities = cities;
+    }
+
+    @Override
+    public CompletableFuture<WeatherResponse> getWeatherAsync(String city) {
+        Place known = null;
+        if (cities != null) {
+            List<City> matches = cities.matches(city);
+            if (matches.isEmpty() && !CityIndex.qualified(city)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(WeatherService.unknownCity(cities, city)));
+            }
+            if (matches.size() == 1) {
+                // Coordinates straight from the index: no geocoding request
+                City match = matches.get(0);
+                known = new Place(match.name(), match.country(), match.latitude(), match.longitude());
+            }
+        }
+        Place place = known;
+        return cache.get(ResponseCache.key("openmeteo", city), CACHE_TTL, JsonEncoder.WEATHER_CODEC,
+                () -> breaker.call(() -> Backoff.retry(() -> place != null ? forecast(place) : fetchWeather(city))));
+    }
+
+    /** Not offered: the forecast panel is OpenWeatherMap's 5-day / 3-hour shape. */
+    @Override
+    public CompletableFuture<Forecast> getForecastAsync(String city) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("Open-Meteo has no forecast panel"));
+    }
+
+    private CompletableFuture<WeatherResponse> fetchWeather(String city) {
+        String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8).replace("+", "%20");
+        CompletableFuture<Place> place = send(GEOCODING_URL + "?count=1&format=json&name=" + encodedCity,
+                "Geocoding", in -> {
+                    Place found = JsonDecoder.decodePlace(in);
+                    if (found == null) {
+                        throw new IllegalArgumentException("City not found: " + city);
+                    }
+                    return found;
+                });
+        AtomicReference<CompletableFuture<WeatherResponse>> forecast = new AtomicReference<>();
+        CompletableFuture<WeatherResponse> weather = place.thenCompose(found -> {
+            forecast.set(forecast(found));
+            return forecast.get();
+        });
+        // Cancelling the race loser stops whichever of the two requests is in flight
+        weather.whenComplete((w, e) -> {
+            place.cancel(true);
+            CompletableFuture<WeatherResponse> pending = forecast.get();
+            if (pending != null) {
+                pending.cancel(true);
+            }
+        });
+        return weather;
+    }
+
+    private CompletableFuture<WeatherResponse> forecast(Place place) {
+        return send(String.format(Locale.ROOT,
+                "%s?latitude=%.4f&longitude=%.4f&current=temperature_2m,relative_humidity_2m,weather_code"
+                        + "&daily=sunrise,sunset&timeformat=unixtime&forecast_days=1",
+                FORECAST_URL, place.latitude(), place.longitude()),
+                "Open-Meteo", in -> JsonDecoder.decodeOpenMeteo(in, place));
+    }
+
+    private <T> CompletableFuture<T> send(String uri, String api, Decoder<T> decoder) {
+        HttpRequest request = HttpPipeline.request(uri, null);
+        CompletableFuture<HttpResponse<InputStream>> sent =
+                config.getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<T> decoded = sent.thenApplyAsync(response -> {
+            if (response.statusCode() != 200) {
+                throw HttpStatusException.of(api, response);
+            }
+            try (InputStream in = HttpPipeline.decoded(response, response.body())) {
+                return decoder.decode(in);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse " + api + " JSON", e);
+            }
+        }, Threads.decodeExecutor());
+        decoded.whenComplete((value, e) -> sent.cancel(true));
+        return decoded;
+    }
+
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T decode(InputStream in) throws Exception;
+    }
+
+    /** WMO weather interpretation code to a description and the OpenWeatherMap icon the art is keyed on. */
+    static WeatherResponse.Weather condition(int code) {
+        if (code == 0) {
+            return new WeatherResponse.Weather("Clear", "clear sky", "01d");
+        } else if (code == 1 || code == 2) {
+            return new WeatherResponse.Weather("Clouds", code == 1 ? "mainly clear" : "partly cloudy", "02d");
+        } else if (code == 3) {
+            return new WeatherResponse.Weather("Clouds", "overcast", "04d");
+        } else if (code == 45 || code == 48) {
+            return new WeatherResponse.Weather("Fog", "fog", "50d");
+        } else if (code >= 51 && code <= 57) {
+            return new WeatherResponse.Weather("Drizzle", "drizzle", "09d");
+        } else if ((code >= 61 && code <= 67) || (code >= 80 && code <= 82)) {
+            return new WeatherResponse.Weather("Rain", code >= 80 ? "rain showers" : "rain", "10d");
+        } else if ((code >= 71 && code <= 77) || code == 85 || code == 86) {
+            return new WeatherResponse.Weather("Snow", "snow", "13d");
+        } else if (code >= 95 && code <= 99) {
+            return new WeatherResponse.Weather("Thunderstorm", "thunderstorm", "11d");
+        }
+        return new WeatherResponse.Weather("Unknown", "Unknown", null);
+    }
+}
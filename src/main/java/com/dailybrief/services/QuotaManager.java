@@ -0,0 +1,244 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request budget of one API key, with a ceiling per UTC day and per minute (0 for none).
+ * Every HTTP request to the provider takes one unit through {@link #tryAcquire()}; once a
+ * ceiling is reached the request is not sent at all. The last tenth of the daily budget is a
+ * reserve: while in it (or while this minute's budget is spent) the services answer from
+ * whatever they have cached and only spend requests on data they don't have. Requests that
+ * are not strictly needed (hedges) also stay out of the last tenth of the minute's budget.
+ * <p>
+ * The counters live in a 32-byte memory-mapped file next to the response cache, updated under
+ * an exclusive file lock, so every CLI process on the host (and the daemon) draws on the same
+ * budget. Without a cache directory they are kept in memory.
+ */
+public class QuotaManager {
+    private static final int MAGIC = 0x44425154; // "DBQT"
+    private static final int FILE_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final double RESERVE = 0.1;
+    // One manager (and one mapping) per state file and process, however many services ask
+    private static final Map<Path, QuotaManager> SHARED = new ConcurrentHashMap<>();
+
+    private final String provider;
+    private final Limits limits;
+    private final Path stateFile;
+    private final Clock clock;
+    private final State memory = new State();
+    private FileChannel channel;
+    private MappedByteBuffer map;
+
+    /** Requests allowed per UTC day and per minute; 0 means no ceiling. */
+    public record Limits(int perDay, int perMinute) {
+        /** -Ddailybrief.&lt;name&gt;.daily-limit / .minute-limit, or the environment, over the defaults. */
+        public static Limits of(String name, int perDay, int perMinute) {
+            return new Limits(AppConfig.limit(name + ".daily-limit", perDay), AppConfig.limit(name + ".minute-limit", perMinute));
+        }
+    }
+
+    private static final class State {
+        long day;
+        int dayCount;
+        long minute;
+        int minuteCount;
+        boolean dirty;
+    }
+
+    /** A ceiling was reached: the request was not sent. */
+    public static class ExhaustedException extends RuntimeException {
+        private final Duration retryAfter;
+
+        ExhaustedException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        /** How long until the next minute's budget when only that ceiling was reached; null for the daily one. */
+        public Duration retryAfter() {
+            return retryAfter;
+        }
+    }
+
+    /**
+     * @param stateFile where the shared counters live, or null to keep them in this instance only
+     */
+    public QuotaManager(String provider, Limits limits, Path stateFile) {
+        this(provider, limits, stateFile, Clock.systemUTC());
+    }
+
+    QuotaManager(String provider, Limits limits, Path stateFile, Clock clock) {
+        this.provider = provider;
+        this.limits = limits;
+        this.stateFile = stateFile;
+        this.clock = clock;
+    }
+
+    /**
+     * The budget of {@code apiKey} at {@code provider}, stored next to the cache's store. The
+     * file is named after a hash of the key, so a new key starts a new budget and the key
+     * itself is never written to disk.
+     */
+    public static QuotaManager forKey(String provider, String apiKey, Limits limits, ResponseCache cache) {
+        Path dir = cache.dir();
+        if (dir == null) {
+            return new QuotaManager(provider, limits, null);
+        }
+        String name = String.format(Locale.ROOT, "quota-%s-%08x.state", provider.toLowerCase(Locale.ROOT), apiKey.hashCode());
+        return SHARED.computeIfAbsent(dir.resolve(name), file -> new QuotaManager(provider, limits, file));
+    }
+
+    /** Takes one request from the budget, or returns false when a ceiling has been reached. */
+    public boolean tryAcquire() {
+        return update(s -> {
+            if (exhausted(s) != null) {
+                return false;
+            }
+            s.dayCount++;
+            s.minuteCount++;
+            s.dirty = true;
+            return true;
+        });
+    }
+
+    /**
+     * True when a request beyond what is needed (a hedge) still leaves the reserve of both
+     * ceilings intact: the last tenth of the day's and of the minute's budget go to data.
+     */
+    public boolean canSpare() {
+        return update(s -> {
+            boolean day = limits.perDay() <= 0
+                    || limits.perDay() - s.dayCount > Math.max(1, (int) (limits.perDay() * RESERVE));
+            boolean minute = limits.perMinute() <= 0
+                    || limits.perMinute() - s.minuteCount > Math.max(1, (int) (limits.perMinute() * RESERVE));
+            return day && minute;
+        });
+    }
+
+    /** True when requests should be saved for data there is no other way to get. */
+    public boolean isLow() {
+        return update(s -> {
+            boolean dayLow = limits.perDay() > 0
+                    && limits.perDay() - s.dayCount <= Math.max(1, (int) (limits.perDay() * RESERVE));
+            boolean minuteSpent = limits.perMinute() > 0 && s.minuteCount >= limits.perMinute();
+            return dayLow || minuteSpent;
+        });
+    }
+
+    /** Requests left today, or -1 without a daily ceiling. */
+    public int remainingToday() {
+        return update(s -> limits.perDay() > 0 ? Math.max(0, limits.perDay() - s.dayCount) : -1);
+    }
+
+    /** The failure for a request refused by {@link #tryAcquire()}. */
+    public ExhaustedException exhausted() {
+        return update(s -> {
+            String which = exhausted(s);
+            boolean dayOver = limits.perDay() > 0 && s.dayCount >= limits.perDay();
+            // The minute rolled over since the refusal: worth trying again right away
+            Duration retryAfter = dayOver ? null
+                    : which == null ? Duration.ZERO
+                    : Duration.ofMillis(60_000L - Math.floorMod(clock.millis(), 60_000L));
+            return new ExhaustedException(provider + " " + (which != null ? which : "request") + " quota used up; request not sent",
+                    retryAfter);
+        });
+    }
+
+    // Which ceiling is reached, or null; rolls the windows forward first
+    private String exhausted(State s) {
+        long now = clock.millis();
+        long day = Math.floorDiv(now, 86_400_000L);
+        long minute = Math.floorDiv(now, 60_000L);
+        if (s.day != day) {
+            s.day = day;
+            s.dayCount = 0;
+            s.dirty = true;
+        }
+        if (s.minute != minute) {
+            s.minute = minute;
+            s.minuteCount = 0;
+            s.dirty = true;
+        }
+        if (limits.perDay() > 0 && s.dayCount >= limits.perDay()) {
+            return "daily (" + limits.perDay() + ")";
+        }
+        if (limits.perMinute() > 0 && s.minuteCount >= limits.perMinute()) {
+            return "per-minute (" + limits.perMinute() + ")";
+        }
+        return null;
+    }
+
+    private <R> R update(Function<State, R> op) {
+        if (stateFile == null) {
+            synchronized (memory) {
+                exhausted(memory);
+                return op.apply(memory);
+            }
+        }
+        synchronized (this) {
+            try {
+                MappedByteBuffer counters = mapped();
+                // FileLock is per JVM: this monitor keeps threads of one process apart
+                try (FileLock ignored = channel.lock()) {
+                    State s = read(counters);
+                    exhausted(s);
+                    R result = op.apply(s);
+                    if (s.dirty) {
+                        write(counters, s);
+                    }
+                    return result;
+                }
+            } catch (IOException e) {
+                // A broken state file must never stop a fetch: fall back to this process's count
+                synchronized (memory) {
+                    exhausted(memory);
+                    return op.apply(memory);
+                }
+            }
+        }
+    }
+
+    private MappedByteBuffer mapped() throws IOException {
+        if (map == null) {
+            Files.createDirectories(stateFile.getParent());
+            channel = FileChannel.open(stateFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Mapping past the end grows the file; a new one reads as zeros, i.e. no magic yet
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+        }
+        return map;
+    }
+
+    private static State read(MappedByteBuffer counters) {
+        State s = new State();
+        if (counters.getInt(0) == MAGIC) {
+            s.dayCount = counters.getInt(4);
+            s.day = counters.getLong(8);
+            s.minute = counters.getLong(16);
+            s.minuteCount = counters.getInt(24);
+        }
+        return s;
+    }
+
+    private static void write(MappedByteBuffer counters, State s) {
+        counters.putInt(4, s.dayCount)
+                .putLong(8, s.day)
+                .putLong(16, s.minute)
+                .putInt(24, s.minuteCount)
+                .putInt(0, MAGIC);
+    }
+}
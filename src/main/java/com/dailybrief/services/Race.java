@@ -0,0 +1,157 @@
+package com.dailybrief.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * First valid answer wins. Attempts are started {@code stagger} apart (all at once for
+ * {@link Duration#ZERO}), the next one early when every attempt started so far has failed
+ * with an error worth another attempt; once one succeeds, or the caller gives up on the
+ * result, every other attempt is cancelled. The race fails when every attempt has failed, or
+ * when everything started has and the last failure isn't worth another, reporting the failure
+ * of the earliest.
+ */
+public final class Race {
+
+    private Race() {
+    }
+
+    public static <T> CompletableFuture<T> firstSuccess(List<Supplier<CompletableFuture<T>>> attempts, Duration stagger) {
+        return firstSuccess(attempts, stagger, e -> true);
+    }
+
+    /**
+     * @param worthAnother whether a failure is worth starting another attempt for; for attempts
+     *                     that repeat one request, a failure the repeat would only get again
+     *                     (a 404, a bad key) is not
+     */
+    public static <T> CompletableFuture<T> firstSuccess(List<Supplier<CompletableFuture<T>>> attempts, Duration stagger,
+                                                        Predicate<Throwable> worthAnother) {
+        if (attempts.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Nothing to race"));
+        }
+        State<T> state = new State<>(attempts, worthAnother);
+        state.result.whenComplete((v, e) -> state.cancelAll());
+
+        if (stagger.isZero()) {
+            // Start everything before listening, so a fast failure can't end the race early
+            List<CompletableFuture<T>> started = new ArrayList<>(attempts.size());
+            for (Supplier<CompletableFuture<T>> attempt : attempts) {
+                started.add(state.start(attempt));
+            }
+            for (int i = 0; i < started.size(); i++) {
+                state.listen(i, started.get(i));
+            }
+        } else {
+            state.launch(0);
+            for (int i = 1; i < attempts.size(); i++) {
+                int index = i;
+                // A no-op when failures already started it
+                CompletableFuture.delayedExecutor(stagger.toMillis() * i, TimeUnit.MILLISECONDS).execute(() -> state.launch(index));
+            }
+        }
+        return state.result;
+    }
+
+    private static final class State<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<Supplier<CompletableFuture<T>>> attempts;
+        private final Predicate<Throwable> worthAnother;
+        // In attempt order: started.size() is the index of the next attempt to start
+        private final List<CompletableFuture<T>> started = new ArrayList<>();
+        private final Throwable[] errors;
+        private int failed;
+
+        State(List<Supplier<CompletableFuture<T>>> attempts, Predicate<Throwable> worthAnother) {
+            this.attempts = attempts;
+            this.worthAnother = worthAnother;
+            this.errors = new Throwable[attempts.size()];
+        }
+
+        /** Starts every attempt up to {@code index} not started yet, unless the race is over. */
+        void launch(int index) {
+            while (true) {
+                int next;
+                CompletableFuture<T> future;
+                synchronized (this) {
+                    next = started.size();
+                    if (result.isDone() || next > index || next == attempts.size()) {
+                        return;
+                    }
+                    future = start(attempts.get(next));
+                }
+                listen(next, future);
+            }
+        }
+
+        synchronized CompletableFuture<T> start(Supplier<CompletableFuture<T>> attempt) {
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            started.add(future);
+            if (result.isDone()) {
+                future.cancel(true); // Lost before it started
+            }
+            return future;
+        }
+
+        void listen(int index, CompletableFuture<T> future) {
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    // Losers go first, so they are cancelled by the time anyone sees the winner
+                    cancelAll();
+                    result.complete(value);
+                } else {
+                    fail(index, e);
+                }
+            });
+        }
+
+        private void fail(int index, Throwable e) {
+            Throwable first = null;
+            int next;
+            synchronized (this) {
+                errors[index] = e;
+                if (++failed < started.size()) {
+                    return;
+                }
+                next = started.size();
+            }
+            if (next < attempts.size() && worthAnother.test(unwrap(e))) {
+                // Everything started has failed: no point waiting out the stagger for the next
+                launch(next);
+                return;
+            }
+            synchronized (this) {
+                for (Throwable error : errors) {
+                    if (error != null) {
+                        first = error;
+                        break;
+                    }
+                }
+            }
+            result.completeExceptionally(first);
+        }
+
+        private static Throwable unwrap(Throwable e) {
+            return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        }
+
+        void cancelAll() {
+            List<CompletableFuture<T>> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(started);
+            }
+            snapshot.forEach(f -> f.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.WeatherResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Asks several weather providers at once; the first valid answer wins and the others are
+ * cancelled. A provider that fails (a missing API key included) just drops out of the race.
+ */
+public class RacingWeatherService implements WeatherProvider {
+    private final List<WeatherProvider> providers;
+
+    public RacingWeatherService(List<WeatherProvider> providers) {
+        this.providers = List.copyOf(providers);
+    }
+
+    @Override
+    public CompletableFuture<WeatherResponse> getWeatherAsync(String city) {
+        List<Supplier<CompletableFuture<WeatherResponse>>> attempts = providers.stream()
+                .<Supplier<CompletableFuture<WeatherResponse>>>map(provider -> () -> provider.getWeatherAsync(city))
+                .toList();
+        return Race.firstSuccess(attempts, Duration.ZERO);
+    }
+
+    /** Not raced: only the first provider has a forecast of this shape. */
+    @Override
+    public CompletableFuture<Forecast> getForecastAsync(String city) {
+        return providers.get(0).getForecastAsync(city);
+    }
+}
@@ -0,0 +1,149 @@
+package com.dailybrief.services;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Merges concurrent identical requests: while a call for a key is in flight, further callers
+ * for that key wait for it instead of making their own. Every caller gets its own future, so
+ * one giving up (a deadline, a cancelled request) doesn't fail the others; only when every
+ * caller has given up is the shared call itself abandoned. Once the call completes the key is
+ * free again: results are shared, never cached.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> shared = new CompletableFuture<>();
+        // Guarded by this
+        CompletableFuture<? extends V> upstream;
+        int waiters;
+        boolean abandoned;
+    }
+
+    public CompletableFuture<V> run(K key, Supplier<? extends CompletableFuture<? extends V>> call) {
+        while (true) {
+            Flight<V> flight = new Flight<>();
+            Flight<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                CompletableFuture<V> waiter = join(flight);
+                start(key, flight, call);
+                return waiter;
+            }
+            CompletableFuture<V> waiter = join(existing);
+            if (waiter != null) {
+                return waiter;
+            }
+            // Every caller of that flight gave up just now: it is on its way out, start a new one
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /** Number of keys with a call in flight. */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private void start(K key, Flight<V> flight, Supplier<? extends CompletableFuture<? extends V>> call) {
+        CompletableFuture<? extends V> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        boolean abandoned;
+        synchronized (flight) {
+            flight.upstream = upstream;
+            abandoned = flight.abandoned;
+        }
+        upstream.whenComplete((value, e) -> {
+            // Off the map before anyone sees the result, so later callers start afresh
+            inFlight.remove(key, flight);
+            if (e == null) {
+                flight.shared.complete(value);
+            } else {
+                flight.shared.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        if (abandoned) {
+            upstream.completeExceptionally(new CancellationException("Every caller gave up"));
+        }
+    }
+
+    // A new waiter on the flight, or null when the flight was already abandoned
+    private CompletableFuture<V> join(Flight<V> flight) {
+        synchronized (flight) {
+            if (flight.abandoned) {
+                return null;
+            }
+            flight.waiters++;
+        }
+        Waiter<V> waiter = new Waiter<>(this, flight);
+        flight.shared.whenComplete((value, e) -> {
+            if (e == null) {
+                waiter.complete(value);
+            } else {
+                waiter.completeExceptionally(e);
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * A caller's future. Giving up on it (failing or cancelling it) is noticed before any of its
+     * dependents run, so by the time anyone sees this caller fail, a call nobody waits for any
+     * more has already been abandoned.
+     */
+    private static final class Waiter<V> extends CompletableFuture<V> {
+        private final SingleFlight<?, V> owner;
+        private final Flight<V> flight;
+        private final AtomicBoolean left = new AtomicBoolean();
+
+        Waiter(SingleFlight<?, V> owner, Flight<V> flight) {
+            this.owner = owner;
+            this.flight = flight;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            giveUp(ex);
+            return super.completeExceptionally(ex);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            giveUp(new CancellationException());
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        // Stages derived from a waiter are ordinary futures
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+
+        private void giveUp(Throwable reason) {
+            if (!isDone() && !flight.shared.isDone() && left.compareAndSet(false, true)) {
+                owner.leave(flight, reason);
+            }
+        }
+    }
+
+    private void leave(Flight<V> flight, Throwable reason) {
+        CompletableFuture<? extends V> upstream = null;
+        synchronized (flight) {
+            if (--flight.waiters == 0 && !flight.shared.isDone()) {
+                flight.abandoned = true;
+                upstream = flight.upstream; // null while still starting: start() sees the flag
+            }
+        }
+        if (upstream != null) {
+            // The same signal a single caller would have sent: the services cancel their requests
+            upstream.completeExceptionally(reason);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cities.City;
+import com.dailybrief.cities.Geohash;
+import com.dailybrief.models.WeatherResponse;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Snaps cities to a geohash grid so every city in a cell is served by one upstream fetch
+ * for the cell's centre, cached under the cell rather than the name. Concurrent lookups for
+ * a cell share the fetch in flight. Coarser cells save more requests and are less exact:
+ * the hit ratio is what to tune {@code precision} against.
+ */
+public final class WeatherGrid {
+    public static final int MAX_PRECISION = 9; // ~5 m: finer than any weather model
+    private final int precision;
+    private final SingleFlight<String, WeatherResponse> flights = new SingleFlight<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+
+    /** Lookups answered without an upstream request of their own are hits. */
+    public record Stats(int precision, long lookups, long fetches) {
+        public double hitRatio() {
+            return lookups == 0 ? 0 : Math.max(0, lookups - fetches) / (double) lookups;
+        }
+
+        /** "precision 5: 120 lookups, 18 upstream fetches, 85.0% hit ratio" */
+        public String describe() {
+            return String.format(Locale.ROOT, "precision %d: %d lookups, %d upstream fetches, %.1f%% hit ratio",
+                    precision, lookups, fetches, hitRatio() * 100);
+        }
+    }
+
+    public WeatherGrid(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Grid precision must be between 1 and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+    }
+
+    public String cell(City city) {
+        return Geohash.encode(city.latitude(), city.longitude(), precision);
+    }
+
+    /** "lat=51.5137&lon=-0.1099": the cell's centre, as the provider's query. */
+    static String query(String cell) {
+        double[] centre = Geohash.centre(cell);
+        return String.format(Locale.ROOT, "lat=%.4f&lon=%.4f", centre[0], centre[1]);
+    }
+
+    /** The cell's weather under the city's own name, so a shared answer reads as the city asked for. */
+    static WeatherResponse relabel(WeatherResponse weather, City city) {
+        if (weather == null) {
+            return null;
+        }
+        WeatherResponse.Sys sys = weather.sys() != null
+                ? new WeatherResponse.Sys(city.country(), weather.sys().sunrise(), weather.sys().sunset())
+                : new WeatherResponse.Sys(city.country(), 0, 0);
+        return new WeatherResponse(city.name(), weather.main(), weather.weather(), sys, weather.dt(), weather.stale());
+    }
+
+    SingleFlight<String, WeatherResponse> flights() {
+        return flights;
+    }
+
+    void recordLookup() {
+        lookups.increment();
+    }
+
+    void recordFetch() {
+        fetches.increment();
+    }
+
+    public Stats stats() {
+        return new Stats(precision, lookups.sum(), fetches.sum());
+    }
+}
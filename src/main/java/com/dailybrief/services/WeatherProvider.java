@@ -0,0 +1,17 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.WeatherResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the dashboard's weather comes from: OpenWeatherMap ({@link WeatherService}),
+ * Open-Meteo, or a race between providers. Failures, an unknown city included, come back as
+ * a failed future rather than thrown.
+ */
+public interface WeatherProvider {
+    CompletableFuture<WeatherResponse> getWeatherAsync(String city);
+
+    /** The 5-day / 3-hour forecast; a provider without one fails the future. */
+    CompletableFuture<Forecast> getForecastAsync(String city);
+}
@@ -1,24 +1,99 @@
 package com.dailybrief.services;
 
+import com.dailybrief.cache.Codec;
+import com.dailybrief.cache.Fetched;
+import com.dailybrief.cities.City;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.cache.ResponseCache;
 import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.Threads;
+import com.dailybrief.metrics.Metrics;
+import com.dailybrief.metrics.TimedInputStream;
+import com.dailybrief.models.Forecast;
 import com.dailybrief.models.WeatherResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.net.URI;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
-public class WeatherService {
-    private static final String API_URL = "https://api.openweathermap.org/data/2.5/weather";
+public class WeatherService implements WeatherProvider {
+    private static final String API_URL = AppConfig.endpoint("weather", "https://api.openweathermap.org/data/2.5/weather");
+    private static final String FORECAST_URL = AppConfig.endpoint("forecast", "https://api.openweathermap.org/data/2.5/forecast");
+    private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+    // How long past the TTL conditions may still be shown (marked stale) while they refresh
+    private static final Duration STALE_FOR = Duration.ofMinutes(5);
+    // Slots are three hours wide and the model reruns a few times a day
+    private static final Duration FORECAST_CACHE_TTL = Duration.ofMinutes(30);
+    private static final Duration FORECAST_STALE_FOR = Duration.ofMinutes(15);
+    // OpenWeatherMap's free plan: 60 calls a minute
+    private static final QuotaManager.Limits LIMITS = QuotaManager.Limits.of("weather", 0, 60);
+    public static final double DEFAULT_HEDGE_PERCENTILE = 95;
+    private static final int LATENCY_SAMPLES = 128;
+    private static final Duration HEDGE_FALLBACK = Duration.ofSeconds(1);
+    // Without a cache directory: shared by every instance, so a resident daemon still learns the provider's latency
+    private static final LatencyWindow LATENCIES = new LatencyWindow(LATENCY_SAMPLES, HEDGE_FALLBACK);
     private final AppConfig config;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ResponseCache cache;
+    private final double hedgePercentile;
+    private final CircuitBreaker breaker;
+    private final LatencyWindow latencies;
+    private final CityIndex cities;
+    private final WeatherGrid grid;
+    private final Metrics metrics;
 
     public WeatherService(AppConfig config) {
+        this(config, ResponseCache.disabled());
+    }
+
+    public WeatherService(AppConfig config, ResponseCache cache) {
+        this(config, cache, DEFAULT_HEDGE_PERCENTILE);
+    }
+
+    /**
+     * @param hedgePercentile when the first attempt has not answered by this percentile of recent
+     *                        latencies, a duplicate request is fired and the first answer wins; 0 disables hedging
+     */
+    public WeatherService(AppConfig config, ResponseCache cache, double hedgePercentile) {
+        this(config, cache, hedgePercentile, null);
+    }
+
+    /**
+     * @param cities local city index: names it resolves unambiguously are requested by city ID,
+     *               names it does not know fail without a request; null sends every name as is
+     */
+    public WeatherService(AppConfig config, ResponseCache cache, double hedgePercentile, CityIndex cities) {
+        this(config, cache, hedgePercentile, cities, null);
+    }
+
+    /**
+     * @param grid when set, cities the index resolves unambiguously share the weather of their
+     *             grid cell; null fetches every city on its own
+     */
+    public WeatherService(AppConfig config, ResponseCache cache, double hedgePercentile, CityIndex cities, WeatherGrid grid) {
+        this(config, cache, hedgePercentile, cities, grid, Metrics.NONE);
+    }
+
+    /** @param metrics the invocation's registry, where each request's phases are timed */
+    public WeatherService(AppConfig config, ResponseCache cache, double hedgePercentile, CityIndex cities,
+                          WeatherGrid grid, Metrics metrics) {
         this.config = config;
+        this.cache = cache;
+        this.hedgePercentile = hedgePercentile;
+        this.breaker = CircuitBreaker.forCache("Weather", cache);
+        LatencyWindow persisted = LatencyWindow.forCache("Weather", cache, LATENCY_SAMPLES, HEDGE_FALLBACK);
+        this.latencies = persisted != null ? persisted : LATENCIES;
+        this.cities = cities;
+        this.grid = cities != null ? grid : null;
+        this.metrics = metrics;
     }
 
+    @Override
     public CompletableFuture<WeatherResponse> getWeatherAsync(String city) {
         String apiKey = config.getApiKey("OPENWEATHER_API_KEY");
         if (apiKey == null || apiKey.isBlank()) {
@@ -26,25 +101,209 @@ public class WeatherService {
             return CompletableFuture.failedFuture(new IllegalStateException("OPENWEATHER_API_KEY is missing in .env"));
         }
 
-        String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8).replace("+", "%20");
-        String uri = String.format("%s?q=%s&units=metric&appid=%s", API_URL, encodedCity, apiKey);
-
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(uri)).GET().build();
-
-        return config.getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(response -> {
-                    // CRITICAL FIX: Check for HTTP errors (401 Unauthorized, 404 Not Found, etc.)
-                    if (response.statusCode() != 200) {
-                        throw new RuntimeException("Weather API Error (Status " + response.statusCode() + "): " + response.body());
-                    }
-                    return response.body();
-                })
-                .thenApply(json -> {
-                    try {
-                        return mapper.readValue(json, WeatherResponse.class);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to parse Weather JSON", e);
-                    }
-                });
+        City place;
+        String query;
+        try {
+            place = grid != null ? locate(city) : null;
+            query = place != null ? null : query(city);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        QuotaManager quota = QuotaManager.forKey("Weather", apiKey, LIMITS, cache);
+        if (place != null) {
+            return getCellWeatherAsync(place, apiKey, quota);
+        }
+
+        String key = ResponseCache.key("weather", city);
+        if (breaker.isOpen() || quota.isLow()) {
+            // Known to be failing, or down to the last of the quota: any cached answer, however old
+            WeatherResponse last = cache.lastKnown(key, CACHE_TTL, JsonEncoder.WEATHER_CODEC);
+            if (last != null) {
+                return CompletableFuture.completedFuture(last);
+            }
+        }
+        return cache.getConditional(key, CACHE_TTL, STALE_FOR, JsonEncoder.WEATHER_CODEC,
+                validators -> breaker.call(() -> Backoff.retry(() -> fetchHedged(query, apiKey, validators, quota))));
+    }
+
+    // One cache entry and at most one request in flight per grid cell, whichever city asks
+    private CompletableFuture<WeatherResponse> getCellWeatherAsync(City place, String apiKey, QuotaManager quota) {
+        grid.recordLookup();
+        String cell = grid.cell(place);
+        String key = ResponseCache.key("weather", "gh:" + cell);
+        if (breaker.isOpen() || quota.isLow()) {
+            WeatherResponse last = cache.lastKnown(key, CACHE_TTL, JsonEncoder.WEATHER_CODEC);
+            if (last != null) {
+                return CompletableFuture.completedFuture(WeatherGrid.relabel(last, place));
+            }
+        }
+        String query = WeatherGrid.query(cell);
+        return grid.flights().run(cell, () -> cache.getConditional(key, CACHE_TTL, STALE_FOR, JsonEncoder.WEATHER_CODEC,
+                validators -> {
+                    grid.recordFetch();
+                    return breaker.call(() -> Backoff.retry(() -> fetchHedged(query, apiKey, validators, quota)));
+                })).thenApply(weather -> WeatherGrid.relabel(weather, place));
+    }
+
+    /**
+     * The 5-day / 3-hour forecast, from the same provider, key, quota and breaker as the
+     * current conditions. Never hedged: it is a background panel, not worth a second request.
+     */
+    @Override
+    public CompletableFuture<Forecast> getForecastAsync(String city) {
+        String apiKey = config.getApiKey("OPENWEATHER_API_KEY");
+        if (apiKey == null || apiKey.isBlank()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("OPENWEATHER_API_KEY is missing in .env"));
+        }
+        String query;
+        try {
+            query = query(city);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        String key = ResponseCache.key("forecast", city);
+        QuotaManager quota = QuotaManager.forKey("Weather", apiKey, LIMITS, cache);
+        if (breaker.isOpen() || quota.isLow()) {
+            Forecast last = cache.lastKnown(key, FORECAST_CACHE_TTL, JsonEncoder.FORECAST_CODEC);
+            if (last != null) {
+                return CompletableFuture.completedFuture(last);
+            }
+        }
+        return cache.getConditional(key, FORECAST_CACHE_TTL, FORECAST_STALE_FOR, JsonEncoder.FORECAST_CODEC,
+                validators -> breaker.call(() -> Backoff.retry(
+                        () -> fetch(FORECAST_URL, "forecast", query, apiKey, validators, quota, JsonDecoder::decodeForecast))));
+    }
+
+    // "q=<name>" or "id=<city id>"; a bare name unknown to the index is an IllegalArgumentException
+    private String query(String city) {
+        if (cities == null) {
+            return byName(city);
+        }
+        City match = locate(city);
+        // Ambiguous names ("London") are left to the provider, which knows which one is meant
+        return match != null ? "id=" + match.id() : byName(city);
+    }
+
+    // The one city the index has under this name, or null when it has several or can't tell
+    private City locate(String city) {
+        List<City> matches = resolve(city);
+        if (matches.isEmpty() && CityIndex.qualified(city)) {
+            return null;
+        }
+        if (matches.isEmpty()) {
+            throw new IllegalArgumentException(unknownCity(cities, city));
+        }
+        return matches.size() == 1 ? matches.get(0) : null;
+    }
+
+    // Index lookups, timed as their own phase
+    private List<City> resolve(String city) {
+        Metrics.Span lookup = metrics.start("city.lookup");
+        try {
+            return cities.matches(city);
+        } finally {
+            lookup.end();
+        }
+    }
+
+    /** "Unknown city: Lodnon (did you mean London, GB?)" */
+    public static String unknownCity(CityIndex cities, String city) {
+        List<String> close = cities.suggest(city, 3).stream().map(City::label).toList();
+        return "Unknown city: " + city.trim() + (close.isEmpty() ? "" : " (did you mean " + String.join("; ", close) + "?)");
+    }
+
+    private static String byName(String city) {
+        return "q=" + URLEncoder.encode(city, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private CompletableFuture<Fetched<WeatherResponse>> fetchHedged(String query, String apiKey,
+                                                                    ResponseCache.Validators validators, QuotaManager quota) {
+        // A hedge is a second request: not worth it near either ceiling, where it would take a city's turn
+        if (hedgePercentile <= 0) {
+            return fetchWeather(query, apiKey, validators, quota);
+        }
+        if (!quota.canSpare()) {
+            return timed(fetchWeather(query, apiKey, validators, quota));
+        }
+        return Race.firstSuccess(
+                List.of(() -> timed(fetchWeather(query, apiKey, validators, quota)), () -> timed(fetchWeather(query, apiKey, validators, quota))),
+                latencies.percentile(hedgePercentile), WeatherService::worthRepeating);
+    }
+
+    /**
+     * Records how long {@code attempt} took once it answers. One cancelled first (a race loser,
+     * a missed deadline) counts for as long as it ran: leaving the slow ones out would pull the
+     * percentile down and fire hedges too early. Failures (a fast 401) are left out.
+     */
+    private <T> CompletableFuture<T> timed(CompletableFuture<T> attempt) {
+        long start = System.nanoTime();
+        attempt.whenComplete((value, e) -> {
+            if (e == null || attempt.isCancelled()) {
+                latencies.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+        });
+        return attempt;
+    }
+
+    // A failed primary only hedges early when the same request could go better: not for a 4xx or a bad body
+    private static boolean worthRepeating(Throwable e) {
+        if (e instanceof HttpStatusException status) {
+            return status.isRetryable();
+        }
+        return e instanceof IOException;
+    }
+
+    private CompletableFuture<Fetched<WeatherResponse>> fetchWeather(String query, String apiKey,
+                                                                     ResponseCache.Validators validators, QuotaManager quota) {
+        return fetch(API_URL, "weather", query, apiKey, validators, quota, JsonDecoder::decodeWeather);
+    }
+
+    // query: "q=<name>", "id=<city id>" or "lat=..&lon=.."; phase: "weather" or "forecast", for metrics and errors
+    private <T> CompletableFuture<Fetched<T>> fetch(String endpoint, String phase, String query, String apiKey,
+                                                    ResponseCache.Validators validators, QuotaManager quota,
+                                                    Codec.Decoder<T> decoder) {
+        if (!quota.tryAcquire()) {
+            return CompletableFuture.failedFuture(quota.exhausted());
+        }
+        String label = Character.toUpperCase(phase.charAt(0)) + phase.substring(1);
+        Metrics.Span build = metrics.start(phase + ".build");
+        String uri = String.format("%s?%s&units=metric&appid=%s", endpoint, query, apiKey);
+
+        HttpRequest request = HttpPipeline.request(uri, validators);
+        build.end();
+
+        // Client creation is timed as config.http-client, not as part of the first byte
+        HttpClient client = config.getHttpClient();
+        Metrics.Span firstByte = metrics.start(phase + ".first-byte");
+        CompletableFuture<HttpResponse<InputStream>> sent =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        // ofInputStream completes on the response headers; the body is read during decode,
+        // on the decode executor, so a slow body never holds one of the client's threads
+        sent.thenRun(firstByte::end);
+        CompletableFuture<Fetched<T>> decoded = sent.thenApplyAsync(response -> {
+            if (response.statusCode() == HttpPipeline.NOT_MODIFIED) {
+                // Our stored copy is still current: no body to read
+                HttpPipeline.discard(response);
+                return Fetched.notModified();
+            }
+            // CRITICAL FIX: Check for HTTP errors (401 Unauthorized, 404 Not Found, etc.)
+            if (response.statusCode() != 200) {
+                throw HttpStatusException.of(label, response);
+            }
+            // Decompressed and decoded straight from the stream; no intermediate String
+            Metrics.Span decode = metrics.start(phase + ".decode");
+            TimedInputStream raw = new TimedInputStream(response.body());
+            try (InputStream in = HttpPipeline.decoded(response, raw)) {
+                T result = decoder.decode(in);
+                decode.endExcluding(phase + ".body", raw.readNanos());
+                return Fetched.of(result, HttpPipeline.etag(response), HttpPipeline.lastModified(response));
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse " + label + " JSON", e);
+            }
+        }, Threads.decodeExecutor());
+        // Cancelling the result (lost race, missed deadline) aborts the HTTP exchange too
+        decoded.whenComplete((weather, e) -> sent.cancel(true));
+        return decoded;
     }
 }
\ No newline at end of file
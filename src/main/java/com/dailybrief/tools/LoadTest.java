@@ -0,0 +1,234 @@
+package com.dailybrief.tools;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.config.Threads;
+import com.dailybrief.metrics.InstrumentedExecutor;
+import com.dailybrief.services.DashboardService;
+import com.dailybrief.services.NewsService;
+import com.dailybrief.services.WeatherService;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@link DashboardService} against a {@link StubUpstream} and reports latency
+ * percentiles, throughput and allocation rate, so executor, cache and parsing changes can be
+ * judged under load without touching the real APIs.
+ * <p>
+ * With {@code --rate} requests are started on a fixed schedule whether or not earlier ones
+ * have finished (open loop), and latency counts from the scheduled start, so a stall shows up
+ * in the percentiles instead of quietly lowering the offered load. Without it,
+ * {@code --concurrency} callers each start the next dashboard as soon as the last one returns.
+ */
+@Command(name = "loadtest", mixinStandardHelpOptions = true,
+        description = "Load-test the dashboard against a local stub upstream.")
+public class LoadTest implements Callable<Integer> {
+
+    @Option(names = "--rate", description = "Dashboards started per second (open loop)")
+    double rate;
+
+    @Option(names = "--concurrency", defaultValue = "16", description = "Concurrent callers when no --rate is given (default: ${DEFAULT-VALUE})")
+    int concurrency;
+
+    @Option(names = "--duration", defaultValue = "30", description = "Measured seconds (default: ${DEFAULT-VALUE})")
+    int durationSeconds;
+
+    @Option(names = "--warmup", defaultValue = "5", description = "Unmeasured seconds first, for the JIT (default: ${DEFAULT-VALUE})")
+    int warmupSeconds;
+
+    @Option(names = "--cities", defaultValue = "50", description = "Distinct cities cycled through (default: ${DEFAULT-VALUE})")
+    int cities;
+
+    @Option(names = "--latency", defaultValue = "50", description = "Median upstream latency in ms (default: ${DEFAULT-VALUE})")
+    long medianMillis;
+
+    @Option(names = "--latency-p99", defaultValue = "250", description = "99th percentile upstream latency in ms (default: ${DEFAULT-VALUE})")
+    long p99Millis;
+
+    @Option(names = "--error-rate", defaultValue = "0", description = "Share of upstream requests failed with 503 (default: ${DEFAULT-VALUE})")
+    double errorRate;
+
+    @Option(names = "--payload-bytes", defaultValue = "0", description = "Minimum upstream body size (default: canned payloads)")
+    int payloadBytes;
+
+    @Option(names = "--cache", description = "Serve through a response cache in a temporary directory")
+    boolean cache;
+
+    @Option(names = "--hedge-percentile", defaultValue = "95", description = "Weather hedge percentile, 0 to disable (default: ${DEFAULT-VALUE})")
+    double hedgePercentile;
+
+    @Option(names = "--executor", description = "Execution model: virtual, platform or default (default: virtual where available)")
+    String executor;
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new LoadTest()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        StubUpstream.Profile profile = new StubUpstream.Profile(
+                Duration.ofMillis(medianMillis), Duration.ofMillis(p99Millis), errorRate, payloadBytes);
+        try (StubUpstream stub = new StubUpstream(profile)) {
+            // Must be set before the service classes read their endpoints and Threads its model
+            if (executor != null) {
+                System.setProperty("dailybrief.executor", executor);
+            }
+            System.setProperty("dailybrief.weather.url", stub.weatherUrl());
+            System.setProperty("dailybrief.news.url", stub.newsUrl());
+            System.setProperty("OPENWEATHER_API_KEY", "loadtest");
+            System.setProperty("NEWS_API_KEY", "loadtest");
+            // The stub has no quota to protect
+            System.setProperty("dailybrief.news.daily-limit", "0");
+            System.setProperty("dailybrief.weather.minute-limit", "0");
+            ResponseCache responses = cache
+                    ? new ResponseCache(Files.createTempDirectory("dailybrief-loadtest"), null)
+                    : ResponseCache.disabled();
+            AppConfig config = AppConfig.getInstance();
+            DashboardService dashboard = new DashboardService(
+                    new WeatherService(config, responses, hedgePercentile), new NewsService(config, responses));
+
+            String mode = rate > 0 ? String.format(Locale.ROOT, "%.0f/s open loop", rate) : concurrency + " callers";
+            System.out.printf(Locale.ROOT, "Load test: %s, %d cities, upstream %dms median / %dms p99, %.1f%% errors%n",
+                    mode, cities, medianMillis, p99Millis, errorRate * 100);
+            if (warmupSeconds > 0) {
+                run(dashboard, Duration.ofSeconds(warmupSeconds));
+            }
+            long requestsBefore = stub.requests();
+            long errorsBefore = stub.errors();
+            long allocatedBefore = allocatedBytes();
+            Run measured = run(dashboard, Duration.ofSeconds(durationSeconds));
+            long allocated = allocatedBytes() - allocatedBefore;
+            report(measured, stub.requests() - requestsBefore, stub.errors() - errorsBefore, allocated);
+        }
+        return 0;
+    }
+
+    private Run run(DashboardService dashboard, Duration length) throws InterruptedException {
+        Run run = new Run();
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        if (rate > 0) {
+            long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            for (long i = 0, due = start; due < end; i++, due = start + i * period) {
+                LockSupport.parkNanos(due - System.nanoTime());
+                pending.add(run.time(dashboard, city(i), due));
+                pending.removeIf(CompletableFuture::isDone);
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        } else {
+            ExecutorService callers = Threads.newPerTaskExecutor("loadtest");
+            AtomicLong next = new AtomicLong();
+            for (int c = 0; c < concurrency; c++) {
+                callers.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        run.time(dashboard, city(next.getAndIncrement()), System.nanoTime()).join();
+                    }
+                });
+            }
+            callers.shutdown();
+            callers.awaitTermination(length.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS);
+        }
+        run.elapsedNanos = System.nanoTime() - start;
+        return run;
+    }
+
+    private String city(long i) {
+        return "City " + (i % cities);
+    }
+
+    private static void report(Run run, long upstreamRequests, long upstreamErrors, long allocatedBytes) {
+        long[] sorted = run.latencies();
+        double seconds = run.elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "Dashboards:  %d in %.1fs (%.1f/s), %d with failed widgets%n",
+                sorted.length, seconds, sorted.length / seconds, run.failed.get());
+        System.out.printf(Locale.ROOT, "Latency:     p50 %s  p99 %s  p999 %s  max %s%n",
+                millis(percentile(sorted, 50)), millis(percentile(sorted, 99)),
+                millis(percentile(sorted, 99.9)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        System.out.printf(Locale.ROOT, "Upstream:    %d requests (%.2f per dashboard), %d failed on purpose%n",
+                upstreamRequests, sorted.length == 0 ? 0.0 : (double) upstreamRequests / sorted.length, upstreamErrors);
+        if (allocatedBytes >= 0) {
+            System.out.printf(Locale.ROOT, "Allocation:  %.1f MB/s, %.1f KB per dashboard (live threads only)%n",
+                    allocatedBytes / seconds / (1 << 20), sorted.length == 0 ? 0.0 : allocatedBytes / 1024.0 / sorted.length);
+        }
+        System.out.println("Executors:   " + Threads.model().name().toLowerCase(Locale.ROOT) + " model");
+        for (InstrumentedExecutor.Stats e : InstrumentedExecutor.snapshots()) {
+            System.out.printf(Locale.ROOT, "  %-8s %d tasks, peak %d running at once, %d still queued%n",
+                    e.name(), e.completed(), e.peakActive(), e.queued());
+        }
+    }
+
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+
+    /** Bytes allocated so far by the threads still alive, or -1 where the JVM can't tell. */
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds())).filter(b -> b > 0).sum();
+    }
+
+    /** Latencies and failures of one phase. */
+    private static final class Run {
+        private long[] latencies = new long[1024];
+        private int count;
+        final AtomicLong failed = new AtomicLong();
+        long elapsedNanos;
+
+        CompletableFuture<?> time(DashboardService dashboard, String city, long startedNanos) {
+            boolean[] error = new boolean[1];
+            DashboardService.Listener listener = new DashboardService.Listener() {
+                @Override
+                public void onError(Throwable e) {
+                    error[0] = true;
+                }
+            };
+            return dashboard.getDashboardAsync(city, Set.of(), listener).whenComplete((data, e) -> {
+                if (e != null || error[0]) {
+                    failed.incrementAndGet();
+                }
+                record(System.nanoTime() - startedNanos);
+            });
+        }
+
+        synchronized void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        synchronized long[] latencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
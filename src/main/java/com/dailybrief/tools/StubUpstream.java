@@ -0,0 +1,194 @@
+package com.dailybrief.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.dailybrief.config.Threads;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for OpenWeatherMap and NewsAPI, serving canned payloads on an ephemeral port.
+ * Point the services at it with {@link #weatherUrl()} / {@link #newsUrl()} through the
+ * dailybrief.weather.url and dailybrief.news.url system properties.
+ * <p>
+ * A {@link Profile} makes it behave like a loaded provider: answers are held back for a
+ * log-normally distributed delay (on a timer, so slow answers don't tie up server threads),
+ * a share of requests fail with 503, and payloads can be grown to a target size.
+ */
+public class StubUpstream implements AutoCloseable {
+    static final String WEATHER_JSON = """
+            {"coord":{"lon":-0.1257,"lat":51.5085},
+             "weather":[{"id":804,"main":"Clouds","description":"overcast clouds","icon":"04d"}],
+             "base":"stations",
+             "main":{"temp":11.3,"feels_like":10.4,"temp_min":10.1,"temp_max":12.2,"pressure":1022,"humidity":81},
+             "visibility":10000,"wind":{"speed":2.06,"deg":210},"clouds":{"all":100},"dt":1699996422,
+             "sys":{"type":2,"id":2075535,"country":"GB","sunrise":1699946477,"sunset":1699978892},
+             "timezone":0,"id":2643743,"name":"London","cod":200}
+            """;
+
+    static final String NEWS_JSON = """
+            {"status":"ok","totalResults":3,"articles":[
+             {"source":{"id":"bbc-news","name":"BBC News"},"author":"BBC","title":"Markets rally as inflation cools",
+              "description":"Stocks rose on Tuesday.","url":"https://example.com/1","publishedAt":"2024-01-01T08:00:00Z"},
+             {"source":{"id":null,"name":"Reuters"},"author":null,"title":"Storm warning issued for the coast",
+              "description":"Residents are advised to prepare.","url":"https://example.com/2","publishedAt":"2024-01-01T07:30:00Z"},
+             {"source":{"id":"the-verge","name":"The Verge"},"author":"Staff","title":"New phone launches next week",
+              "description":"Rumours confirmed.","url":"https://example.com/3","publishedAt":"2024-01-01T07:00:00Z"}]}
+            """;
+
+    private static final String NEWS_ARTICLE = """
+            {"source":{"id":null,"name":"Wire"},"author":null,"title":"Filler story %d",
+             "description":"Padding the payload.","url":"https://example.com/filler/%d","publishedAt":"2024-01-01T06:00:00Z"}""";
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    /**
+     * How the stub answers.
+     *
+     * @param median      median response delay; zero answers at once
+     * @param p99         99th percentile delay; at or below the median every answer takes the median
+     * @param errorRate   share of requests (0-1) answered with 503
+     * @param payloadBytes minimum body size: news gains filler articles, weather a padding field
+     */
+    public record Profile(Duration median, Duration p99, double errorRate, int payloadBytes) {
+        public static final Profile INSTANT = new Profile(Duration.ZERO, Duration.ZERO, 0, 0);
+
+        public Profile {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("Error rate must be between 0 and 1");
+            }
+        }
+
+        /** One delay drawn from the log-normal distribution with this median and p99. */
+        long sampleNanos() {
+            long medianNanos = median.toNanos();
+            if (medianNanos <= 0 || p99.compareTo(median) <= 0) {
+                return Math.max(0, medianNanos);
+            }
+            double sigma = Math.log((double) p99.toNanos() / medianNanos) / Z_99;
+            return (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService timer;
+    private final Profile profile;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StubUpstream() throws IOException {
+        this(Profile.INSTANT);
+    }
+
+    public StubUpstream(Profile profile) throws IOException {
+        this.profile = profile;
+        byte[] weather = weatherBody(profile.payloadBytes()).getBytes(StandardCharsets.UTF_8);
+        byte[] news = newsBody(profile.payloadBytes()).getBytes(StandardCharsets.UTF_8);
+        // Without TCP_NODELAY every small answer waits out the client's delayed ACK (~40ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(Threads.daemonFactory("stub-timer"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        handlers = Executors.newFixedThreadPool(2, Threads.daemonFactory("stub"));
+        server.setExecutor(handlers);
+        server.createContext("/weather", exchange -> answer(exchange, weather));
+        server.createContext("/news", exchange -> answer(exchange, news));
+        server.start();
+    }
+
+    /** Requests received so far, and how many of them were failed on purpose. */
+    public long requests() {
+        return requests.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    public String weatherUrl() {
+        return baseUrl() + "/weather";
+    }
+
+    public String newsUrl() {
+        return baseUrl() + "/news";
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void answer(HttpExchange exchange, byte[] body) {
+        requests.incrementAndGet();
+        boolean fail = profile.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < profile.errorRate();
+        if (fail) {
+            errors.incrementAndGet();
+        }
+        Runnable reply = () -> {
+            try {
+                if (fail) {
+                    respond(exchange, 503, "{\"status\":\"error\",\"message\":\"Injected failure\"}".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    respond(exchange, 200, body);
+                }
+            } catch (IOException e) {
+                exchange.close(); // The client gave up (a hedge or race loser)
+            }
+        };
+        long delay = profile.sampleNanos();
+        if (delay > 0) {
+            timer.schedule(reply, delay, TimeUnit.NANOSECONDS);
+        } else {
+            reply.run();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static String weatherBody(int minBytes) {
+        int missing = minBytes - WEATHER_JSON.length();
+        if (missing <= 0) {
+            return WEATHER_JSON;
+        }
+        int end = WEATHER_JSON.lastIndexOf('}');
+        return WEATHER_JSON.substring(0, end) + ",\"padding\":\"" + "x".repeat(missing) + "\"}\n";
+    }
+
+    static String newsBody(int minBytes) {
+        if (NEWS_JSON.length() >= minBytes) {
+            return NEWS_JSON;
+        }
+        int end = NEWS_JSON.lastIndexOf("]}");
+        StringBuilder body = new StringBuilder(minBytes + NEWS_ARTICLE.length()).append(NEWS_JSON, 0, end);
+        for (int i = 4; body.length() + 2 < minBytes; i++) {
+            body.append(',').append(String.format(NEWS_ARTICLE, i, i));
+        }
+        return body.append("]}\n").toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        timer.shutdownNow();
+        handlers.shutdownNow();
+    }
+}
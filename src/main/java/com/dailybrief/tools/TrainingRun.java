@@ -0,0 +1,47 @@
+package com.dailybrief.tools;
+
+import com.dailybrief.commands.RootCommand;
+import picocli.CommandLine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Exercises the common CLI paths against {@link StubUpstream} so that
+ * {@code -XX:ArchiveClassesAtExit} captures every class a real run loads.
+ * Used by the {@code appcds} Maven profile; never talks to the real APIs.
+ */
+public class TrainingRun {
+
+    public static void main(String[] args) throws Exception {
+        Path cacheDir = Files.createTempDirectory("dailybrief-training");
+        try (StubUpstream stub = new StubUpstream()) {
+            // Must be set before the service classes read their endpoints
+            System.setProperty("dailybrief.weather.url", stub.weatherUrl());
+            System.setProperty("dailybrief.news.url", stub.newsUrl());
+            System.setProperty("dailybrief.cache.dir", cacheDir.toString());
+            System.setProperty("OPENWEATHER_API_KEY", "training");
+            System.setProperty("NEWS_API_KEY", "training");
+
+            PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+            String[][] runs = {
+                    {"--help"},
+                    {"--no-cache", "--city", "London"},          // cold path: HTTP + decode + cache write
+                    {"--city", "London", "--startup-report"},     // warm path: cache read
+                    {"--city", "London", "--city", "Paris", "--no-news"}, // batch mode
+            };
+            for (String[] run : runs) {
+                CommandLine commandLine = new CommandLine(new RootCommand(sink, sink, null, null));
+                commandLine.setOut(new PrintWriter(sink, true));
+                int exitCode = commandLine.execute(run);
+                if (exitCode != 0) {
+                    throw new IllegalStateException("Training run failed (exit " + exitCode + "): " + String.join(" ", run));
+                }
+            }
+        }
+        System.out.println("Training run complete");
+    }
+}
@@ -0,0 +1,235 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Streams batch results as they complete. Implementations are called from
+ * whichever thread finishes a city, so every write is synchronized.
+ */
+public interface BatchWriter extends Closeable {
+
+    void writeWeather(String city, WeatherResponse weather, String error);
+
+    void writeNews(NewsResponse news);
+
+    /** Picks the export format from the file extension (.csv, .ndjson/.jsonl), or console text when null. */
+    static BatchWriter forOutput(Path output, ConsoleRenderer renderer, PrintStream console) throws IOException {
+        return forOutput(output, OutputFormat.TEXT, renderer, console);
+    }
+
+    /** As above, with {@code format} deciding how the console is written when there is no output file. */
+    static BatchWriter forOutput(Path output, OutputFormat format, ConsoleRenderer renderer, PrintStream console) throws IOException {
+        if (output == null) {
+            return switch (format) {
+                case TEXT -> new Text(renderer, console);
+                case JSON -> new Json(console);
+                case NDJSON -> new Ndjson(console, false);
+            };
+        }
+        String name = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new Csv(Files.newBufferedWriter(output, StandardCharsets.UTF_8));
+        } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new Ndjson(Files.newOutputStream(output), true);
+        }
+        throw new IllegalArgumentException("Unsupported output format (use .csv or .ndjson): " + output);
+    }
+
+    class Text implements BatchWriter {
+        private final ConsoleRenderer renderer;
+        private final PrintStream out;
+
+        Text(ConsoleRenderer renderer, PrintStream out) {
+            this.renderer = renderer;
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void writeWeather(String city, WeatherResponse weather, String error) {
+            if (weather != null) {
+                renderer.renderWeather(weather);
+            } else {
+                out.println("WEATHER (" + city + "): Unavailable - " + error);
+            }
+        }
+
+        @Override
+        public synchronized void writeNews(NewsResponse news) {
+            renderer.renderNews(news);
+        }
+
+        @Override
+        public void close() {
+            out.flush();
+        }
+    }
+
+    class Csv implements BatchWriter {
+        private final BufferedWriter out;
+
+        Csv(BufferedWriter out) throws IOException {
+            this.out = out;
+            out.write("city,name,country,temp_c,humidity,condition,error");
+            out.newLine();
+        }
+
+        @Override
+        public synchronized void writeWeather(String city, WeatherResponse w, String error) {
+            try {
+                out.write(String.join(",",
+                        escape(city),
+                        escape(w != null ? w.name() : null),
+                        escape(w != null && w.sys() != null ? w.sys().country() : null),
+                        w != null && w.main() != null ? String.format(Locale.ROOT, "%.1f", w.main().temp()) : "",
+                        w != null && w.main() != null ? Integer.toString(w.main().humidity()) : "",
+                        escape(w != null && w.weather() != null && !w.weather().isEmpty() ? w.weather().get(0).description() : null),
+                        escape(error)));
+                out.newLine();
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void writeNews(NewsResponse news) {
+            // Headlines are shared by every row and have no place in the per-city table
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+            return value;
+        }
+    }
+
+    class Ndjson implements BatchWriter {
+        // One record per line: newlines are written explicitly, so no root separator
+        private static final JsonFactory FACTORY = new JsonFactory().setRootValueSeparator(null);
+        private final JsonGenerator json;
+
+        /** @param owned whether closing the writer closes {@code stream} (a file, not stdout) */
+        Ndjson(OutputStream stream, boolean owned) throws IOException {
+            this.json = FACTORY.createGenerator(stream, JsonEncoding.UTF8);
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, owned);
+        }
+
+        @Override
+        public synchronized void writeWeather(String city, WeatherResponse w, String error) {
+            try {
+                json.writeStartObject();
+                json.writeStringField("type", "weather");
+                json.writeStringField("city", city);
+                if (w != null) {
+                    JsonRenderer.writeWeatherFields(json, w);
+                } else {
+                    json.writeStringField("error", error);
+                }
+                json.writeEndObject();
+                endRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void writeNews(NewsResponse news) {
+            try {
+                json.writeStartObject();
+                json.writeStringField("type", "news");
+                JsonRenderer.writeArticles(json, news);
+                json.writeEndObject();
+                endRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void endRecord() throws IOException {
+            json.writeRaw('\n');
+            json.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            json.close();
+        }
+    }
+
+    /**
+     * One document, {"cities": [...], "news": {...}}, streamed as it goes: each city is
+     * written into the array when it completes and the news lands after the last one.
+     */
+    class Json implements BatchWriter {
+        private final JsonGenerator json;
+
+        Json(OutputStream stream) throws IOException {
+            this.json = new JsonFactory().createGenerator(stream, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("cities");
+        }
+
+        @Override
+        public synchronized void writeWeather(String city, WeatherResponse w, String error) {
+            try {
+                json.writeStartObject();
+                json.writeStringField("city", city);
+                if (w != null) {
+                    JsonRenderer.writeWeatherFields(json, w);
+                } else {
+                    json.writeStringField("error", error);
+                }
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void writeNews(NewsResponse news) {
+            try {
+                json.writeEndArray();
+                json.writeObjectFieldStart("news");
+                JsonRenderer.writeArticles(json, news);
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (json.getOutputContext().inArray()) {
+                json.writeEndArray(); // No news in this batch
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            json.close();
+        }
+    }
+}
@@ -1,14 +1,197 @@
 package com.dailybrief.ui;
 
+import com.dailybrief.metrics.Metrics;
 import com.dailybrief.models.NewsResponse;
 import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.Panel;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
+import java.util.Formatter;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Builds each frame into a reusable buffer and hands it to the stream in a single write,
+ * instead of one printf (and one flush) per line. Output is byte-identical to the
+ * line-by-line version.
+ */
 public class ConsoleRenderer {
+    private static final String NL = System.lineSeparator();
+    private static final String RULE = "=========================================";
+    private static final String BLANK_ART = " ".repeat(AsciiArt.WIDTH) + " ";
+    // Art blocks split and padded to AsciiArt.WIDTH once, instead of split("\n") + "%-15s" per render
+    private static final Map<String, String[]> PADDED_ART = new ConcurrentHashMap<>();
 
-    public void renderWeather(WeatherResponse w) {
+    private final PrintStream out;
+    private final String headlinesLabel;
+    private final Metrics metrics;
+    private final StringBuilder frame = new StringBuilder(2048);
+    private final Formatter formatter = new Formatter(frame);
+
+    public ConsoleRenderer() {
+        this(System.out);
+    }
+
+    public ConsoleRenderer(PrintStream out) {
+        this(out, "US");
+    }
+
+    /** @param headlinesLabel what the headlines header says they cover, e.g. "US, GB - BUSINESS" */
+    public ConsoleRenderer(PrintStream out, String headlinesLabel) {
+        this(out, headlinesLabel, Metrics.NONE);
+    }
+
+    /** @param metrics where the render phase is timed */
+    public ConsoleRenderer(PrintStream out, String headlinesLabel, Metrics metrics) {
+        this.out = out;
+        this.headlinesLabel = headlinesLabel;
+        this.metrics = metrics;
+    }
+
+    public synchronized void renderWeather(WeatherResponse w) {
+        frame.setLength(0);
+        appendWeather(w);
+        flushFrame();
+    }
+
+    public synchronized void renderNews(NewsResponse data) {
+        frame.setLength(0);
+        appendNews(data);
+        flushFrame();
+    }
+
+    /**
+     * The whole dashboard between the rules, including the "Done in" footer, as one frame.
+     * A null widget is reported as unavailable unless it was disabled.
+     */
+    public void renderDashboard(WeatherResponse weather, NewsResponse news,
+                                boolean noWeather, boolean noNews, long startTimeMillis) {
+        renderDashboard(weather, news, List.of(), noWeather, noNews, startTimeMillis);
+    }
+
+    /** As above, with the other widgets' panels below the news. */
+    public synchronized void renderDashboard(WeatherResponse weather, NewsResponse news, List<Panel> panels,
+                                             boolean noWeather, boolean noNews, long startTimeMillis) {
+        Metrics.Span render = metrics.start("render");
+        frame.setLength(0);
+        appendDashboard(weather, false, news, false, panels, noWeather, noNews);
+        formatter.format("Done in %dms%n", (System.currentTimeMillis() - startTimeMillis));
+        flushFrame();
+        render.end();
+    }
+
+    /**
+     * Progressive mode: erases the {@code previousRows} terminal rows painted last time (ANSI
+     * cursor-up and clear) and paints the dashboard again in the same place, with a loading
+     * line for each pending widget. Returns the visible width of each line painted, so the
+     * caller can count the rows they take at whatever width the terminal has by the next call.
+     */
+    public synchronized int[] repaintDashboard(int previousRows,
+                                               WeatherResponse weather, boolean weatherPending,
+                                               NewsResponse news, boolean newsPending,
+                                               boolean noWeather, boolean noNews) {
+        frame.setLength(0);
+        appendErase(previousRows);
+        int start = frame.length();
+        appendDashboard(weather, weatherPending, news, newsPending, List.of(), noWeather, noNews);
+        int lines = 0;
+        for (int i = start; i < frame.length(); i++) {
+            if (frame.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        int[] widths = new int[lines];
+        for (int i = start, line = start, n = 0; i < frame.length(); i++) {
+            if (frame.charAt(i) == '\n') {
+                widths[n++] = Terminal.width(frame.subSequence(line, i));
+                line = i + 1;
+            }
+        }
+        flushFrame();
+        return widths;
+    }
+
+    /** Erases the last {@code rows} painted by {@link #repaintDashboard}. */
+    public synchronized void eraseLines(int rows) {
+        frame.setLength(0);
+        appendErase(rows);
+        flushFrame();
+    }
+
+    /**
+     * The weather section exactly as a full render lays it out, returned instead of printed,
+     * for callers that compose and diff frames themselves (watch mode).
+     */
+    public synchronized String weatherSection(WeatherResponse weather, boolean pending, boolean disabled) {
+        frame.setLength(0);
+        appendWeatherSection(weather, pending, disabled);
+        return frame.toString();
+    }
+
+    public synchronized String newsSection(NewsResponse news, boolean pending, boolean disabled) {
+        frame.setLength(0);
+        appendNewsSection(news, pending, disabled);
+        return frame.toString();
+    }
+
+    public synchronized String panelSection(Panel panel, boolean pending) {
+        frame.setLength(0);
+        if (pending) {
+            frame.append('\n').append(AnsiColors.DIM).append(panel.widget().id().toUpperCase(Locale.ROOT))
+                    .append(": Loading...").append(AnsiColors.RESET).append(NL);
+        } else {
+            panel.render(frame);
+        }
+        return frame.toString();
+    }
+
+    /** The horizontal rule above and below the dashboard. */
+    public static String rule() {
+        return RULE;
+    }
+
+    private void appendErase(int lines) {
+        if (lines > 0) {
+            // CPL to the first painted line, then ED: clear to the end of the screen
+            frame.append("\u001B[").append(lines).append("F\u001B[J");
+        }
+    }
+
+    private void appendDashboard(WeatherResponse weather, boolean weatherPending,
+                                 NewsResponse news, boolean newsPending, List<Panel> panels,
+                                 boolean noWeather, boolean noNews) {
+        frame.append('\n').append(RULE).append(NL);
+        appendWeatherSection(weather, weatherPending, noWeather);
+        appendNewsSection(news, newsPending, noNews);
+        for (Panel panel : panels) {
+            panel.render(frame);
+        }
+        frame.append(RULE).append(NL);
+    }
+
+    private void appendWeatherSection(WeatherResponse weather, boolean pending, boolean disabled) {
+        if (pending) {
+            frame.append(AnsiColors.DIM).append("WEATHER: Loading...").append(AnsiColors.RESET).append(NL);
+        } else if (weather != null) {
+            appendWeather(weather);
+        } else if (!disabled) {
+            frame.append("WEATHER: Unavailable (See errors above)").append(NL);
+        }
+    }
+
+    private void appendNewsSection(NewsResponse news, boolean pending, boolean disabled) {
+        if (pending) {
+            frame.append('\n').append(AnsiColors.DIM).append("NEWS: Loading...").append(AnsiColors.RESET).append(NL);
+        } else if (news != null) {
+            appendNews(news);
+        } else if (!disabled) {
+            frame.append("\nNEWS: Unavailable (See errors above)").append(NL);
+        }
+    }
+
+    private void appendWeather(WeatherResponse w) {
         String country = (w.sys() != null) ? w.sys().country() : "N/A";
         String desc = (w.weather() != null && !w.weather().isEmpty())
                 ? w.weather().get(0).description()
@@ -18,30 +201,59 @@ public class ConsoleRenderer {
                 ? w.weather().get(0).icon()
                 : null;
 
-        String artBlock = AsciiArt.getWeatherArt(iconCode);
-        String[] artLines = artBlock.split("\n");
-
-        List<String> textLines = new ArrayList<>();
-        textLines.add(String.format("WEATHER: %s, %s", w.name(), country));
-        textLines.add(String.format("Temp: %.1f°C | Condition: %s", temp, desc));
-
-        int maxLines = Math.max(artLines.length, textLines.size());
+        String[] artLines = PADDED_ART.computeIfAbsent(AsciiArt.getWeatherArt(iconCode), ConsoleRenderer::padArt);
+        int textLines = 2;
+        int maxLines = Math.max(artLines.length, textLines);
 
         for (int i = 0; i < maxLines; i++) {
-            String art = (i < artLines.length) ? artLines[i] : "";
-            String text = (i < textLines.size()) ? textLines.get(i) : "";
-            // Pad art to AsciiArt.WIDTH chars for alignment
-            System.out.printf("%-" + AsciiArt.WIDTH + "s %s%n", art, text);
+            frame.append(i < artLines.length ? artLines[i] : BLANK_ART);
+            if (i == 0) {
+                frame.append("WEATHER: ").append(w.name()).append(", ").append(country);
+                appendStale(w.stale());
+            } else if (i == 1) {
+                formatter.format("Temp: %.1f°C | Condition: %s", temp, desc);
+            }
+            frame.append(NL);
         }
     }
 
-    public void renderNews(NewsResponse data) {
-        System.out.println("\nTOP HEADLINES (US):");
+    private void appendNews(NewsResponse data) {
+        frame.append("\nTOP HEADLINES (").append(headlinesLabel).append("):");
+        appendStale(data.stale());
+        frame.append(NL);
         for (NewsResponse.Article article : data.articles()) {
             String sourceName = (article.source() != null) ? article.source().name() : "Unknown Source";
-            System.out.printf("- %s%s%s [%s%s%s]%n",
-                    AnsiColors.BOLD, article.title(), AnsiColors.RESET,
-                    AnsiColors.DIM, sourceName, AnsiColors.RESET);
+            frame.append("- ")
+                    .append(AnsiColors.BOLD).append(article.title()).append(AnsiColors.RESET)
+                    .append(" [")
+                    .append(AnsiColors.DIM).append(sourceName).append(AnsiColors.RESET)
+                    .append(']').append(NL);
+        }
+    }
+
+    // Cached data served past its TTL while it refreshes
+    private void appendStale(boolean stale) {
+        if (stale) {
+            frame.append(' ').append(AnsiColors.DIM).append("(stale)").append(AnsiColors.RESET);
+        }
+    }
+
+    // One print of the whole frame: PrintStream encodes it in one pass and writes it in one go
+    private void flushFrame() {
+        out.print(frame);
+        out.flush();
+    }
+
+    // Each line padded to AsciiArt.WIDTH plus the separating space
+    private static String[] padArt(String art) {
+        String[] lines = art.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            StringBuilder padded = new StringBuilder(AsciiArt.WIDTH + 1).append(lines[i]);
+            while (padded.length() < AsciiArt.WIDTH) {
+                padded.append(' ');
+            }
+            lines[i] = padded.append(' ').toString();
         }
+        return lines;
     }
 }
@@ -0,0 +1,216 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.DashboardService;
+import com.dailybrief.widgets.Panel;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The dashboard for --format json/ndjson: a streaming generator writes straight into the
+ * output stream, with no ANSI codes, no art and no intermediate String.
+ * <p>
+ * JSON mode writes one document once the dashboard is complete. NDJSON mode writes a record
+ * per widget from {@link #listener}, on whichever thread the widget landed, and flushes it at
+ * once, followed by a closing "done" record. The record shapes match the batch NDJSON export.
+ */
+public class JsonRenderer implements Closeable {
+    // One record per line: newlines are written explicitly, so no root separator
+    private static final JsonFactory FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    private final JsonGenerator json;
+    private final boolean ndjson;
+    private final String city;
+    private final boolean noWeather;
+    private final boolean noNews;
+    private final List<String> errors = new ArrayList<>();
+
+    public JsonRenderer(OutputStream out, boolean ndjson, String city, boolean noWeather, boolean noNews) throws IOException {
+        this.json = FACTORY.createGenerator(out, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.ndjson = ndjson;
+        this.city = city;
+        this.noWeather = noWeather;
+        this.noNews = noNews;
+    }
+
+    /** Streams each widget as it lands in NDJSON mode; collects errors for the document in JSON mode. */
+    public DashboardService.Listener listener() {
+        return new DashboardService.Listener() {
+            @Override
+            public void onWeather(WeatherResponse weather) {
+                if (ndjson && !noWeather) {
+                    record(() -> {
+                        json.writeStringField("type", "weather");
+                        json.writeStringField("city", city);
+                        writeWeatherOrError(weather);
+                    });
+                }
+            }
+
+            @Override
+            public void onNews(NewsResponse news) {
+                if (ndjson && !noNews) {
+                    record(() -> {
+                        json.writeStringField("type", "news");
+                        writeNewsOrError(news);
+                    });
+                }
+            }
+
+            @Override
+            public void onPanel(Panel panel) {
+                if (ndjson) {
+                    record(() -> {
+                        json.writeStringField("type", "widget");
+                        json.writeStringField("id", panel.widget().id());
+                        json.writeStringField("city", city);
+                        json.writeFieldName("value");
+                        panel.writeJson(json);
+                    });
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                String message = (e.getCause() != null ? e.getCause() : e).getMessage();
+                if (ndjson) {
+                    record(() -> {
+                        json.writeStringField("type", "error");
+                        json.writeStringField("city", city);
+                        json.writeStringField("message", message);
+                    });
+                } else {
+                    synchronized (JsonRenderer.this) {
+                        errors.add(message);
+                    }
+                }
+            }
+        };
+    }
+
+    /** The whole dashboard as one document (JSON), or the closing record (NDJSON). */
+    public synchronized void finish(DashboardService.DashboardData data, long startTimeMillis) {
+        long elapsed = System.currentTimeMillis() - startTimeMillis;
+        if (ndjson) {
+            record(() -> {
+                json.writeStringField("type", "done");
+                json.writeStringField("city", city);
+                json.writeNumberField("elapsed_ms", elapsed);
+            });
+            return;
+        }
+        record(() -> {
+            json.writeStringField("city", city);
+            if (!noWeather) {
+                json.writeObjectFieldStart("weather");
+                writeWeatherOrError(data.weather());
+                json.writeEndObject();
+            }
+            if (!noNews) {
+                json.writeObjectFieldStart("news");
+                writeNewsOrError(data.news());
+                json.writeEndObject();
+            }
+            json.writeObjectFieldStart("widgets");
+            for (Panel panel : data.panels()) {
+                json.writeFieldName(panel.widget().id());
+                panel.writeJson(json);
+            }
+            json.writeEndObject();
+            json.writeArrayFieldStart("errors");
+            for (String error : errors) {
+                json.writeString(error);
+            }
+            json.writeEndArray();
+            json.writeNumberField("elapsed_ms", elapsed);
+        });
+    }
+
+    private void writeWeatherOrError(WeatherResponse weather) throws IOException {
+        if (weather != null) {
+            writeWeatherFields(json, weather);
+        } else {
+            json.writeStringField("error", "Unavailable");
+        }
+    }
+
+    private void writeNewsOrError(NewsResponse news) throws IOException {
+        if (news != null) {
+            writeArticles(json, news);
+        } else {
+            json.writeStringField("error", "Unavailable");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Fields {
+        void write() throws IOException;
+    }
+
+    // One object, a newline and a flush: a consumer sees each record as soon as it is complete
+    private synchronized void record(Fields fields) {
+        try {
+            json.writeStartObject();
+            fields.write();
+            json.writeEndObject();
+            json.writeRaw('\n');
+            json.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        json.close();
+    }
+
+    /** The flat weather fields shared by dashboard and batch records. */
+    static void writeWeatherFields(JsonGenerator json, WeatherResponse w) throws IOException {
+        json.writeStringField("name", w.name());
+        if (w.sys() != null) {
+            json.writeStringField("country", w.sys().country());
+        }
+        if (w.main() != null) {
+            json.writeNumberField("temp", w.main().temp());
+            json.writeNumberField("humidity", w.main().humidity());
+        }
+        if (w.weather() != null && !w.weather().isEmpty()) {
+            json.writeStringField("condition", w.weather().get(0).description());
+        }
+        if (w.stale()) {
+            json.writeBooleanField("stale", true);
+        }
+    }
+
+    static void writeArticles(JsonGenerator json, NewsResponse news) throws IOException {
+        if (news.stale()) {
+            json.writeBooleanField("stale", true);
+        }
+        json.writeArrayFieldStart("articles");
+        if (news.articles() != null) {
+            for (NewsResponse.Article article : news.articles()) {
+                json.writeStartObject();
+                json.writeStringField("title", article.title());
+                json.writeStringField("source", article.source() != null ? article.source().name() : null);
+                if (article.url() != null) {
+                    json.writeStringField("url", article.url());
+                }
+                if (article.publishedAt() != null) {
+                    json.writeStringField("published_at", article.publishedAt());
+                }
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+    }
+}
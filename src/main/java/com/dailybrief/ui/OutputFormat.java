@@ -0,0 +1,11 @@
+package com.dailybrief.ui;
+
+/** What --format writes to stdout. */
+public enum OutputFormat {
+    /** The dashboard layout with ASCII art and ANSI colors. */
+    TEXT,
+    /** One JSON document once everything has landed. */
+    JSON,
+    /** One JSON record per line, written the moment each widget (or batch city) lands. */
+    NDJSON
+}
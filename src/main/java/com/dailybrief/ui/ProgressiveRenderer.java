@@ -0,0 +1,102 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.Panel;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Paints the dashboard as widgets arrive. Each section keeps its place in the layout: a
+ * widget that is still loading shows a placeholder, and every arrival repaints the block in
+ * place, so time to first output is the fastest provider's latency.
+ * <p>
+ * Repainting needs a terminal. Without one (pipes, the daemon) nothing is drawn until
+ * {@link #finish}, which prints the same frame as the non-progressive path.
+ */
+public class ProgressiveRenderer {
+    private final ConsoleRenderer renderer;
+    private final PrintStream err;
+    private final boolean ansi;
+    private final boolean noWeather;
+    private final boolean noNews;
+    private final Supplier<Terminal.Size> terminal;
+
+    private WeatherResponse weather;
+    private NewsResponse news;
+    private boolean weatherPending;
+    private boolean newsPending;
+    // Visible width of each line on screen; counted in rows only when they are erased
+    private int[] painted = new int[0];
+    // Only the final frame shows the other widgets' panels
+    private final List<Panel> panels = new ArrayList<>();
+    // Held back while painting: a stray stderr line would throw off the cursor-up count
+    private final List<String> errors = new ArrayList<>();
+
+    public ProgressiveRenderer(ConsoleRenderer renderer, PrintStream err, boolean ansi,
+                               boolean noWeather, boolean noNews) {
+        this(renderer, err, ansi, noWeather, noNews, Terminal.measured());
+    }
+
+    ProgressiveRenderer(ConsoleRenderer renderer, PrintStream err, boolean ansi,
+                        boolean noWeather, boolean noNews, Supplier<Terminal.Size> terminal) {
+        this.renderer = renderer;
+        this.err = err;
+        this.ansi = ansi;
+        this.noWeather = noWeather;
+        this.noNews = noNews;
+        this.weatherPending = !noWeather;
+        this.newsPending = !noNews;
+        this.terminal = terminal;
+    }
+
+    public synchronized void start() {
+        repaint();
+    }
+
+    public synchronized void weatherReady(WeatherResponse weather) {
+        this.weather = weather;
+        this.weatherPending = false;
+        repaint();
+    }
+
+    public synchronized void newsReady(NewsResponse news) {
+        this.news = news;
+        this.newsPending = false;
+        repaint();
+    }
+
+    public synchronized void panelReady(Panel panel) {
+        panels.add(panel);
+    }
+
+    public synchronized void error(Throwable e) {
+        errors.add("Service Error: " + e.getMessage());
+    }
+
+    /** Final frame, with errors printed above it and the "Done in" footer below. */
+    public synchronized void finish(long startTimeMillis) {
+        if (ansi && painted.length > 0) {
+            renderer.eraseLines(paintedRows());
+            painted = new int[0];
+        }
+        errors.forEach(err::println);
+        err.flush();
+        renderer.renderDashboard(weather, news, panels, noWeather, noNews, startTimeMillis);
+    }
+
+    private void repaint() {
+        if (ansi) {
+            painted = renderer.repaintDashboard(paintedRows(), weather, weatherPending, news, newsPending, noWeather, noNews);
+        }
+    }
+
+    // CPL moves up screen rows, not lines: a line wider than the terminal took several.
+    // The first paint has nothing to erase, so it never waits for the terminal's size
+    private int paintedRows() {
+        return painted.length == 0 ? 0 : Terminal.rows(painted, terminal.get().columns());
+    }
+}
@@ -0,0 +1,76 @@
+package com.dailybrief.ui;
+
+/**
+ * Draws a series as a row of block characters, one per point, lowest to highest across
+ * the range. Reads the primitive arrays in place and appends chars straight into the
+ * caller's frame: nothing is allocated per point.
+ */
+public final class Sparkline {
+    private static final char[] BARS = {'▁', '▂', '▃', '▄', '▅', '▆', '▇', '█'};
+
+    private Sparkline() {
+    }
+
+    /** Scaled between the series' own minimum and maximum. */
+    public static StringBuilder append(StringBuilder out, double[] values) {
+        return append(out, values, min(values), max(values));
+    }
+
+    /** Scaled between {@code low} and {@code high}; values outside are clamped. */
+    public static StringBuilder append(StringBuilder out, double[] values, double low, double high) {
+        for (double value : values) {
+            out.append(bar(value, low, high));
+        }
+        return out;
+    }
+
+    public static StringBuilder append(StringBuilder out, int[] values) {
+        int low = min(values);
+        int high = max(values);
+        for (int value : values) {
+            out.append(bar(value, low, high));
+        }
+        return out;
+    }
+
+    public static double min(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    public static double max(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    public static int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    public static int max(int[] values) {
+        int max = Integer.MIN_VALUE;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    // A flat series sits on the floor rather than in the middle
+    private static char bar(double value, double low, double high) {
+        if (!(high > low)) {
+            return BARS[0];
+        }
+        int level = (int) Math.round((value - low) / (high - low) * (BARS.length - 1));
+        return BARS[Math.max(0, Math.min(BARS.length - 1, level))];
+    }
+}
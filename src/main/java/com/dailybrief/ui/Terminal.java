@@ -0,0 +1,214 @@
+package com.dailybrief.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * What the repainting renderers need to know about the terminal: its size, and how many
+ * rows a line really takes once it wraps. Widths count code points and skip ANSI escape
+ * sequences; wide (CJK, emoji) characters are counted as one column.
+ */
+public final class Terminal {
+    private static final char ESC = '\u001B';
+    // How stale a repainting renderer's idea of the size may get before it is measured again
+    private static final Duration SIZE_TTL = Duration.ofSeconds(1);
+
+    /** Columns and rows of the terminal. */
+    public record Size(int columns, int rows) {
+        public static final Size DEFAULT = new Size(80, 24);
+    }
+
+    private Terminal() {
+    }
+
+    /**
+     * $COLUMNS/$LINES when exported, otherwise {@code stty size} on the controlling terminal,
+     * otherwise 80x24.
+     */
+    public static Size size() {
+        int columns = env("COLUMNS");
+        int rows = env("LINES");
+        if (columns > 0 && rows > 0) {
+            return new Size(columns, rows);
+        }
+        Size stty = stty();
+        return new Size(columns > 0 ? columns : stty.columns(), rows > 0 ? rows : stty.rows());
+    }
+
+    /**
+     * {@link #size()} for a renderer that repaints: measured in the background from now on and
+     * again, in the background, once a second while in use. Only a call before the first
+     * measurement is in waits for it; after that a resize shows up one call late at worst,
+     * and no paint ever waits for {@code stty}.
+     */
+    public static Supplier<Size> measured() {
+        return new MeasuredSize(Terminal::size, SIZE_TTL);
+    }
+
+    static final class MeasuredSize implements Supplier<Size> {
+        private final Supplier<Size> measure;
+        private final long ttlNanos;
+        private final CompletableFuture<Size> first;
+        private volatile Size known;
+        private volatile long measuredAt;
+        private boolean measuring;
+
+        MeasuredSize(Supplier<Size> measure, Duration ttl) {
+            this.measure = measure;
+            this.ttlNanos = ttl.toNanos();
+            this.first = refresh();
+        }
+
+        @Override
+        public Size get() {
+            Size size = known;
+            if (size == null) {
+                return first.join();
+            }
+            synchronized (this) {
+                if (!measuring && System.nanoTime() - measuredAt > ttlNanos) {
+                    refresh();
+                }
+            }
+            return size;
+        }
+
+        private synchronized CompletableFuture<Size> refresh() {
+            measuring = true;
+            return CompletableFuture.supplyAsync(measure).handle((size, e) -> {
+                Size now = size != null ? size : Size.DEFAULT;
+                synchronized (this) {
+                    known = now;
+                    measuredAt = System.nanoTime();
+                    measuring = false;
+                }
+                return now;
+            });
+        }
+    }
+
+    /** Visible columns of {@code line}: code points, escape sequences and control characters excluded. */
+    public static int width(CharSequence line) {
+        int width = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ESC) {
+                i = endOfEscape(line, i);
+            } else if (c >= ' ' && !Character.isLowSurrogate(c)) {
+                width++;
+            }
+        }
+        return width;
+    }
+
+    /** Terminal rows {@code line} (without its newline) takes once it wraps at {@code columns}. */
+    public static int rows(CharSequence line, int columns) {
+        return rows(width(line), columns);
+    }
+
+    /** Terminal rows lines of these visible {@code widths} take once they wrap at {@code columns}. */
+    public static int rows(int[] widths, int columns) {
+        int rows = 0;
+        for (int width : widths) {
+            rows += rows(width, columns);
+        }
+        return rows;
+    }
+
+    private static int rows(int width, int columns) {
+        return columns <= 0 || width == 0 ? 1 : (width + columns - 1) / columns;
+    }
+
+    /**
+     * {@code line} cut to {@code columns} visible columns, the last one an ellipsis when
+     * anything was cut. Escape sequences are kept, and a reset is appended after a cut so a
+     * colour never leaks into the next row.
+     */
+    public static String clip(String line, int columns) {
+        if (columns <= 0 || width(line) <= columns) {
+            return line;
+        }
+        StringBuilder clipped = new StringBuilder(line.length());
+        int width = 0;
+        boolean styled = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ESC) {
+                int end = endOfEscape(line, i);
+                clipped.append(line, i, end + 1);
+                styled = true;
+                i = end;
+            } else if (Character.isLowSurrogate(c)) {
+                clipped.append(c);
+            } else if (width < columns - 1) {
+                clipped.append(c);
+                width++;
+            } else {
+                break;
+            }
+        }
+        // A dangling high surrogate would print as garbage
+        if (clipped.length() > 0 && Character.isHighSurrogate(clipped.charAt(clipped.length() - 1))) {
+            clipped.setLength(clipped.length() - 1);
+        }
+        clipped.append('…');
+        if (styled) {
+            clipped.append(AnsiColors.RESET);
+        }
+        return clipped.toString();
+    }
+
+    // Index of the last char of the CSI sequence starting at i ("ESC[...m"), or i for a lone ESC
+    private static int endOfEscape(CharSequence line, int i) {
+        if (i + 1 >= line.length() || line.charAt(i + 1) != '[') {
+            return i;
+        }
+        for (int j = i + 2; j < line.length(); j++) {
+            char c = line.charAt(j);
+            if (c >= '@' && c <= '~') {
+                return j;
+            }
+        }
+        return line.length() - 1;
+    }
+
+    private static int env(String name) {
+        try {
+            String value = System.getenv(name);
+            return value != null ? Integer.parseInt(value.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Size stty() {
+        File tty = new File("/dev/tty");
+        if (!tty.exists()) {
+            return Size.DEFAULT;
+        }
+        try {
+            Process process = new ProcessBuilder("stty", "size")
+                    .redirectInput(tty)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(500, TimeUnit.MILLISECONDS)) {
+                process.destroy();
+                return Size.DEFAULT;
+            }
+            String[] size = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim().split("\\s+");
+            int rows = Integer.parseInt(size[0]);
+            int columns = Integer.parseInt(size[1]);
+            return rows > 0 && columns > 0 ? new Size(columns, rows) : Size.DEFAULT;
+        } catch (IOException | RuntimeException e) {
+            return Size.DEFAULT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Size.DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.NewsWidget;
+import com.dailybrief.widgets.Panel;
+import com.dailybrief.widgets.WeatherWidget;
+import com.dailybrief.widgets.Widget;
+
+import java.io.PrintStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a watch-mode dashboard on screen. Each widget's section is rendered once per change
+ * and kept; every update composes the frame from those sections and, on a terminal, rewrites
+ * only the rows whose text differs from what is already on screen, addressing each one with
+ * CUP (ESC[row;1H) and clearing its tail with EL. A refresh that changed nothing touches
+ * only the status line. Rows are clipped to the terminal's width and the frame to its height
+ * first: a line that wrapped, or a frame that scrolled, would put text on rows the diff
+ * doesn't know about. A resize repaints everything.
+ * <p>
+ * Without a terminal each changed frame is printed in full, one after the other.
+ */
+public class WatchRenderer {
+    private static final String ESC = "\u001B[";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final ConsoleRenderer renderer;
+    private final PrintStream out;
+    private final boolean ansi;
+    private final Duration interval;
+    private final Clock clock;
+    private final Supplier<Terminal.Size> terminal;
+    private Terminal.Size size;
+    // Widget id -> its rendered section, in layout order: weather, news, then the other panels
+    private final Map<String, String> sections = new LinkedHashMap<>();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+    private List<String> screen = List.of();
+    private LocalTime updatedAt;
+    private boolean started;
+
+    public WatchRenderer(ConsoleRenderer renderer, PrintStream out, boolean ansi,
+                         List<Widget<?>> widgets, Duration interval) {
+        this(renderer, out, ansi, widgets, interval, Clock.systemDefaultZone(), Terminal.measured());
+    }
+
+    WatchRenderer(ConsoleRenderer renderer, PrintStream out, boolean ansi,
+                  List<Widget<?>> widgets, Duration interval, Clock clock) {
+        this(renderer, out, ansi, widgets, interval, clock, () -> Terminal.Size.DEFAULT);
+    }
+
+    WatchRenderer(ConsoleRenderer renderer, PrintStream out, boolean ansi,
+                  List<Widget<?>> widgets, Duration interval, Clock clock, Supplier<Terminal.Size> terminal) {
+        this.renderer = renderer;
+        this.out = out;
+        this.ansi = ansi;
+        this.interval = interval;
+        this.clock = clock;
+        this.terminal = terminal;
+        List<Widget<?>> layout = new ArrayList<>(widgets);
+        layout.sort((a, b) -> Integer.compare(rank(a), rank(b)));
+        for (Widget<?> widget : layout) {
+            sections.put(widget.id(), section(widget, null, true));
+        }
+    }
+
+    public synchronized void start() {
+        paint();
+    }
+
+    public synchronized void update(Widget<?> widget, Object value) {
+        sections.put(widget.id(), section(widget, value, false));
+        errors.remove(widget.id());
+        updatedAt = LocalTime.now(clock);
+        paint();
+    }
+
+    /** The last good value stays on screen; a widget that never loaded shows as unavailable. */
+    public synchronized void error(Widget<?> widget, Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        errors.put(widget.id(), cause.getMessage());
+        if (sections.get(widget.id()).equals(section(widget, null, true))) {
+            sections.put(widget.id(), section(widget, null, false));
+        }
+        paint();
+    }
+
+    /** Leaves the cursor below the dashboard and visible again. */
+    public synchronized void close() {
+        if (ansi && started) {
+            out.print(ESC + (screen.size() + 1) + ";1H" + ESC + "?25h");
+            out.flush();
+        }
+    }
+
+    private String section(Widget<?> widget, Object value, boolean pending) {
+        return switch (widget.id()) {
+            case WeatherWidget.ID -> renderer.weatherSection((WeatherResponse) value, pending, false);
+            case NewsWidget.ID -> renderer.newsSection((NewsResponse) value, pending, false);
+            default -> renderer.panelSection(new Panel(widget, value), pending);
+        };
+    }
+
+    private static int rank(Widget<?> widget) {
+        return switch (widget.id()) {
+            case WeatherWidget.ID -> 0;
+            case NewsWidget.ID -> 1;
+            default -> 2;
+        };
+    }
+
+    private List<String> frameLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(ConsoleRenderer.rule());
+        sections.values().forEach(section -> section.lines().forEach(lines::add));
+        lines.add(ConsoleRenderer.rule());
+        lines.add(status());
+        errors.forEach((id, message) -> lines.add(AnsiColors.RED + id + ": " + message + AnsiColors.RESET));
+        return lines;
+    }
+
+    private void paint() {
+        List<String> lines = frameLines();
+        StringBuilder frame = new StringBuilder();
+        if (ansi) {
+            Terminal.Size now = terminal.get();
+            if (started && !now.equals(size)) {
+                // Resized: whatever wrapped or reflowed on screen no longer matches our rows
+                frame.append(ESC).append('H').append(ESC).append("2J");
+                screen = List.of();
+            }
+            size = now;
+            lines = fit(lines, now);
+            if (!started) {
+                frame.append(ESC).append("?25l").append(ESC).append('H').append(ESC).append("2J");
+            }
+            for (int row = 0; row < Math.max(lines.size(), screen.size()); row++) {
+                String line = row < lines.size() ? lines.get(row) : "";
+                if (row < screen.size() && screen.get(row).equals(line)) {
+                    continue;
+                }
+                frame.append(ESC).append(row + 1).append(";1H").append(line).append(ESC).append('K');
+            }
+        } else if (!lines.equals(screen)) {
+            lines.forEach(line -> frame.append(line).append(System.lineSeparator()));
+        }
+        started = true;
+        screen = lines;
+        if (frame.length() > 0) {
+            out.print(frame);
+            out.flush();
+        }
+    }
+
+    // Every line within the width, and the frame within the height, so each line is one row
+    private static List<String> fit(List<String> lines, Terminal.Size size) {
+        List<String> fitted = new ArrayList<>(Math.min(lines.size(), size.rows()));
+        int shown = lines.size() <= size.rows() ? lines.size() : size.rows() - 1;
+        for (int row = 0; row < shown; row++) {
+            fitted.add(Terminal.clip(lines.get(row), size.columns()));
+        }
+        if (shown < lines.size()) {
+            fitted.add(Terminal.clip(AnsiColors.DIM + "(" + (lines.size() - shown) + " more lines: enlarge the terminal)"
+                    + AnsiColors.RESET, size.columns()));
+        }
+        return fitted;
+    }
+
+    private String status() {
+        String refresh = "every " + interval.toSeconds() + "s";
+        return AnsiColors.DIM + (updatedAt != null ? "Updated " + TIME.format(updatedAt) + ", refreshing " + refresh : "Refreshing " + refresh)
+                + AnsiColors.RESET;
+    }
+}
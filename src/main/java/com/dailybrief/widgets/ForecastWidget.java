@@ -0,0 +1,124 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.models.Forecast;
+import com.dailybrief.ui.Sparkline;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Temperature, humidity and precipitation over the next five days as sparklines, one
+ * character per 3-hour slot, over a row marking where each local day starts. Opt-in
+ * (--widget forecast): it costs a second weather request per brief.
+ */
+public class ForecastWidget implements Widget<Forecast> {
+    public static final String ID = "forecast";
+    private static final String NL = System.lineSeparator();
+    private static final String[] DAYS = {"Mo", "Tu", "We", "Th", "Fr", "Sa", "Su"};
+    private static final int LABEL_WIDTH = 8;
+    // Below a millimetre, a full bar would overstate a drizzle
+    private static final double PRECIPITATION_SCALE_MM = 1.0;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public boolean optIn() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Forecast> fetch(WidgetContext context) {
+        return context.weatherService().getForecastAsync(context.city());
+    }
+
+    @Override
+    public void render(Forecast forecast, StringBuilder frame) {
+        if (forecast == null || forecast.size() == 0) {
+            Widget.super.render(null, frame);
+            return;
+        }
+        frame.append(NL).append("FORECAST: ").append(forecast.city());
+        if (forecast.country() != null) {
+            frame.append(", ").append(forecast.country());
+        }
+        frame.append(" (").append(forecast.size()).append(" x 3h)").append(NL);
+
+        label(frame, "Temp");
+        Sparkline.append(frame, forecast.temps());
+        frame.append(String.format(Locale.ROOT, "  %.1f..%.1f°C",
+                Sparkline.min(forecast.temps()), Sparkline.max(forecast.temps()))).append(NL);
+
+        label(frame, "Humid");
+        Sparkline.append(frame, forecast.humidity());
+        frame.append("  ").append(Sparkline.min(forecast.humidity()))
+                .append("..").append(Sparkline.max(forecast.humidity())).append('%').append(NL);
+
+        label(frame, "Precip");
+        double wettest = Sparkline.max(forecast.precipitation());
+        Sparkline.append(frame, forecast.precipitation(), 0.0, Math.max(wettest, PRECIPITATION_SCALE_MM));
+        frame.append(String.format(Locale.ROOT, "  max %.1fmm", wettest)).append(NL);
+
+        appendDays(forecast, frame);
+    }
+
+    // Two-letter weekday under the first slot of each local day
+    private static void appendDays(Forecast forecast, StringBuilder frame) {
+        label(frame, "");
+        long previous = Long.MIN_VALUE;
+        boolean covered = false;
+        for (int i = 0; i < forecast.size(); i++) {
+            long day = Math.floorDiv(forecast.times()[i] + forecast.timezoneOffset(), 86_400L);
+            if (covered) {
+                covered = false; // second letter of the label before
+            } else if (day != previous && i + 1 < forecast.size()) {
+                // 1970-01-01 was a Thursday
+                frame.append(DAYS[(int) Math.floorMod(day + 3, 7L)]);
+                covered = true;
+            } else {
+                frame.append(' ');
+            }
+            previous = day;
+        }
+        int end = frame.length();
+        while (frame.charAt(end - 1) == ' ') {
+            end--;
+        }
+        frame.setLength(end);
+        frame.append(NL);
+    }
+
+    private static void label(StringBuilder frame, String label) {
+        frame.append(label);
+        for (int i = label.length(); i < LABEL_WIDTH; i++) {
+            frame.append(' ');
+        }
+    }
+
+    /** The columns as parallel arrays, like the model. */
+    @Override
+    public void writeJson(Forecast forecast, JsonGenerator json) throws IOException {
+        if (forecast == null) {
+            json.writeNull();
+            return;
+        }
+        int n = forecast.size();
+        json.writeStartObject();
+        json.writeStringField("city", forecast.city());
+        json.writeStringField("country", forecast.country());
+        json.writeNumberField("timezone_offset", forecast.timezoneOffset());
+        json.writeFieldName("times");
+        json.writeArray(forecast.times(), 0, n);
+        json.writeFieldName("temp");
+        json.writeArray(forecast.temps(), 0, n);
+        json.writeFieldName("humidity");
+        json.writeArray(forecast.humidity(), 0, n);
+        json.writeFieldName("precipitation");
+        json.writeArray(forecast.precipitation(), 0, n);
+        json.writeEndObject();
+    }
+}
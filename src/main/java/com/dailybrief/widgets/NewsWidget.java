@@ -0,0 +1,19 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.models.NewsResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public class NewsWidget implements Widget<NewsResponse> {
+    public static final String ID = "news";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public CompletableFuture<NewsResponse> fetch(WidgetContext context) {
+        return context.newsService().getNewsAsync();
+    }
+}
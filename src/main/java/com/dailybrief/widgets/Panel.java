@@ -0,0 +1,19 @@
+package com.dailybrief.widgets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/** A widget's output as it goes to the renderer; {@code value} is null when the widget failed. */
+public record Panel(Widget<?> widget, Object value) {
+
+    @SuppressWarnings("unchecked")
+    public void render(StringBuilder frame) {
+        ((Widget<Object>) widget).render(value, frame);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void writeJson(JsonGenerator json) throws IOException {
+        ((Widget<Object>) widget).writeJson(value, json);
+    }
+}
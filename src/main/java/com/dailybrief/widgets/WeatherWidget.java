@@ -0,0 +1,25 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.models.WeatherResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public class WeatherWidget implements Widget<WeatherResponse> {
+    public static final String ID = "weather";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    // Top of the layout, so it goes first
+    @Override
+    public int priority() {
+        return 10;
+    }
+
+    @Override
+    public CompletableFuture<WeatherResponse> fetch(WidgetContext context) {
+        return context.weatherService().getWeatherAsync(context.city());
+    }
+}
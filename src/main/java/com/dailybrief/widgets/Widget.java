@@ -0,0 +1,72 @@
+package com.dailybrief.widgets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A dashboard panel. Implementations are discovered through {@link java.util.ServiceLoader}
+ * (listed in {@code META-INF/services/com.dailybrief.widgets.Widget}) and need a public
+ * no-argument constructor. {@link WidgetScheduler} runs every enabled widget concurrently;
+ * a widget starts as soon as the widgets it depends on have produced their output.
+ */
+public interface Widget<T> {
+
+    /** Unique id, also the name used with --skip. */
+    String id();
+
+    /** Ids of the widgets whose output this one needs, read through {@link WidgetContext#input}. */
+    default Set<String> dependsOn() {
+        return Set.of();
+    }
+
+    /** Left out of the dashboard unless asked for with --widget, e.g. when it costs an extra request. */
+    default boolean optIn() {
+        return false;
+    }
+
+    /** Higher priorities are started first when the shared executor is saturated. */
+    default int priority() {
+        return 0;
+    }
+
+    /** Budget of this widget alone, on top of the dashboard deadline; null for none. */
+    default Duration deadline() {
+        return null;
+    }
+
+    CompletableFuture<T> fetch(WidgetContext context);
+
+    /**
+     * Appends this widget's section to the dashboard frame; {@code value} is null when the
+     * widget failed. Weather and news have their own layouts in the console renderer.
+     */
+    default void render(T value, StringBuilder frame) {
+        String title = id().toUpperCase(Locale.ROOT);
+        frame.append(System.lineSeparator()).append(title).append(": ")
+                .append(value != null ? value : "Unavailable (See errors above)")
+                .append(System.lineSeparator());
+    }
+
+    /**
+     * Writes this widget's value for --format json/ndjson; {@code value} is null when the
+     * widget failed. Numbers and booleans stay JSON scalars, anything else is its string form.
+     */
+    default void writeJson(T value, JsonGenerator json) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Boolean b) {
+            json.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            json.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number n) {
+            json.writeNumber(n.doubleValue());
+        } else {
+            json.writeString(value.toString());
+        }
+    }
+}
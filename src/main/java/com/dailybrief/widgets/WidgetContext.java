@@ -0,0 +1,27 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.services.NewsService;
+import com.dailybrief.services.WeatherProvider;
+
+import java.util.Map;
+
+/**
+ * What a widget gets to work with: the request, the shared services and the outputs of the
+ * widgets it declared in {@link Widget#dependsOn()}.
+ */
+public record WidgetContext(String city, WeatherProvider weatherService, NewsService newsService,
+                            Map<String, Object> inputs) {
+
+    /** Output of a dependency; null if that widget produced nothing. */
+    public <D> D input(String widgetId, Class<D> type) {
+        if (!inputs.containsKey(widgetId)) {
+            throw new IllegalArgumentException("Not a declared dependency: " + widgetId);
+        }
+        return type.cast(inputs.get(widgetId));
+    }
+
+    /** The same request with the given dependency outputs. */
+    public WidgetContext withInputs(Map<String, Object> inputs) {
+        return new WidgetContext(city, weatherService, newsService, inputs);
+    }
+}
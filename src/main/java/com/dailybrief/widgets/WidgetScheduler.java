@@ -0,0 +1,212 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.config.Threads;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a set of widgets concurrently, so the dashboard takes as long as its slowest
+ * dependency chain rather than the sum of its widgets. A widget starts the moment every
+ * widget it depends on has finished (a failed dependency reads as null); independent widgets
+ * start together.
+ * <p>
+ * The {@code fetch} calls run on one bounded pool shared by every dashboard in the process.
+ * When it is saturated, queued widgets start highest priority first. A widget that misses
+ * its deadline, or the dashboard's, fails with a {@link TimeoutException}, which also fails
+ * the future its fetch returned so the services cancel their in-flight requests.
+ */
+public class WidgetScheduler {
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor SHARED_POOL = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+            30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), Threads.daemonFactory("widget"));
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    static {
+        SHARED_POOL.allowCoreThreadTimeOut(true);
+    }
+
+    private final ThreadPoolExecutor pool;
+
+    public WidgetScheduler() {
+        this(SHARED_POOL);
+    }
+
+    /** @param pool must queue on a {@link PriorityBlockingQueue} for priorities to apply */
+    WidgetScheduler(ThreadPoolExecutor pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts every widget and returns their results by id, in dependency order.
+     *
+     * @param deadline budget for the whole set, null for none
+     * @throws IllegalArgumentException on a duplicate id, a dependency that is not in
+     *                                  {@code widgets} or a dependency cycle
+     */
+    public Map<String, CompletableFuture<Object>> schedule(List<Widget<?>> widgets, WidgetContext context, Duration deadline) {
+        long startedAt = System.nanoTime();
+        Map<String, CompletableFuture<Object>> results = new LinkedHashMap<>();
+        for (Widget<?> widget : order(widgets)) {
+            List<String> dependencies = List.copyOf(widget.dependsOn());
+            CompletableFuture<?>[] inputs = dependencies.stream().map(results::get).toArray(CompletableFuture[]::new);
+            results.put(widget.id(), start(widget, dependencies, inputs, context, startedAt, deadline));
+        }
+        return results;
+    }
+
+    private CompletableFuture<Object> start(Widget<?> widget, List<String> dependencies, CompletableFuture<?>[] inputs,
+                                            WidgetContext context, long startedAt, Duration deadline) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<>();
+
+        Executor prioritized = task -> pool.execute(new PrioritizedTask(widget.priority(), task));
+        CompletableFuture.allOf(inputs).whenCompleteAsync((ignored, e) -> {
+            if (result.isDone()) {
+                return; // Timed out while waiting for its inputs
+            }
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < inputs.length; i++) {
+                values.put(dependencies.get(i), inputs[i].isCompletedExceptionally() ? null : inputs[i].join());
+            }
+            CompletableFuture<?> fetched = fetch(widget, context.withInputs(values));
+            inFlight.set(fetched);
+            fetched.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(ex);
+                }
+            });
+            if (result.isDone()) {
+                result.whenComplete((value, ex) -> failFetch(fetched, ex)); // Timed out while fetch() was running
+            }
+        }, prioritized);
+        // A cancelled result (the caller gave up on the dashboard) abandons the fetch too
+        result.whenComplete((value, e) -> {
+            CompletableFuture<?> fetched = inFlight.get();
+            if (fetched != null) {
+                failFetch(fetched, e);
+            }
+        });
+
+        Duration budget = budget(deadline, widget.deadline());
+        if (budget != null) {
+            long remaining = Math.max(0, startedAt + budget.toNanos() - System.nanoTime());
+            CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> {
+                TimeoutException timeout = new TimeoutException(title(widget) + " missed the " + budget.toMillis() + "ms deadline");
+                // The fetch first, so it is already failed (and its requests cancelled) when anyone sees the result
+                CompletableFuture<?> fetched = inFlight.get();
+                if (fetched != null) {
+                    fetched.completeExceptionally(timeout);
+                }
+                result.completeExceptionally(timeout);
+            });
+        }
+        return result;
+    }
+
+    private static CompletableFuture<?> fetch(Widget<?> widget, WidgetContext context) {
+        try {
+            return widget.fetch(context);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void failFetch(CompletableFuture<?> fetched, Throwable e) {
+        if (e != null) {
+            fetched.completeExceptionally(e);
+        }
+    }
+
+    private static Duration budget(Duration dashboard, Duration widget) {
+        if (dashboard == null) {
+            return widget;
+        }
+        return widget == null || dashboard.compareTo(widget) <= 0 ? dashboard : widget;
+    }
+
+    // "weather" -> "Weather", matching how the services name themselves in errors
+    private static String title(Widget<?> widget) {
+        String id = widget.id();
+        return id.isEmpty() ? id : id.substring(0, 1).toUpperCase(Locale.ROOT) + id.substring(1);
+    }
+
+    /** Dependencies before dependents; otherwise highest priority first, then input order. */
+    static List<Widget<?>> order(List<Widget<?>> widgets) {
+        Map<String, Widget<?>> byId = new LinkedHashMap<>();
+        widgets.stream()
+                .sorted(Comparator.comparingInt((Widget<?> w) -> w.priority()).reversed())
+                .forEach(widget -> {
+                    if (byId.putIfAbsent(widget.id(), widget) != null) {
+                        throw new IllegalArgumentException("Duplicate widget id: " + widget.id());
+                    }
+                });
+        List<Widget<?>> ordered = new ArrayList<>(byId.size());
+        Map<String, Boolean> visiting = new HashMap<>();
+        for (Widget<?> widget : byId.values()) {
+            visit(widget, byId, visiting, ordered);
+        }
+        return ordered;
+    }
+
+    // visiting: false while on the current path, true once placed
+    private static void visit(Widget<?> widget, Map<String, Widget<?>> byId, Map<String, Boolean> visiting,
+                              List<Widget<?>> ordered) {
+        Boolean state = visiting.get(widget.id());
+        if (Boolean.TRUE.equals(state)) {
+            return;
+        }
+        if (state != null) {
+            throw new IllegalArgumentException("Widget dependency cycle through " + widget.id());
+        }
+        visiting.put(widget.id(), false);
+        for (String dependency : widget.dependsOn()) {
+            Widget<?> required = byId.get(dependency);
+            if (required == null) {
+                throw new IllegalArgumentException(widget.id() + " depends on " + dependency + ", which is not enabled");
+            }
+            visit(required, byId, visiting, ordered);
+        }
+        visiting.put(widget.id(), true);
+        ordered.add(widget);
+    }
+
+    // The pool's queue orders these: higher priority first, FIFO within a priority
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final int priority;
+        private final long sequence = SEQUENCE.getAndIncrement();
+        private final Runnable task;
+
+        PrioritizedTask(int priority, Runnable task) {
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.dailybrief.widgets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+public final class Widgets {
+    // Widgets are stateless, so the providers are loaded once per JVM (the daemon included)
+    private static final List<Widget<?>> INSTALLED = load();
+
+    private Widgets() {
+    }
+
+    /** Every widget on the classpath, in the order of the service files. */
+    public static List<Widget<?>> installed() {
+        return INSTALLED;
+    }
+
+    /** The widgets a dashboard runs by default: all but the opt-in ones. */
+    public static List<Widget<?>> discover() {
+        return discover(Set.of());
+    }
+
+    /** The default widgets plus the opt-in ones named in {@code optIn}. */
+    public static List<Widget<?>> discover(Set<String> optIn) {
+        return INSTALLED.stream().filter(w -> !w.optIn() || optIn.contains(w.id())).toList();
+    }
+
+    private static List<Widget<?>> load() {
+        List<Widget<?>> widgets = new ArrayList<>();
+        for (Widget<?> widget : ServiceLoader.load(Widget.class)) {
+            widgets.add(widget);
+        }
+        return List.copyOf(widgets);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dailybrief.cache;
+
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.JsonEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private CompletableFuture<WeatherResponse> fetch(String name) {
+        fetches.incrementAndGet();
+        return CompletableFuture.completedFuture(new WeatherResponse(name, new WeatherResponse.Main(12.5, 80), null, null));
+    }
+
+    @Test
+    void testFreshEntryIsServedWithoutFetching() {
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        String key = ResponseCache.key("weather", "London");
+
+        cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("London")).join();
+        WeatherResponse cached = cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Other")).join();
+
+        assertEquals("London", cached.name());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void testEntryIsPersistedAcrossInstances() {
+        String key = ResponseCache.key("weather", "  New   York ");
+        new ResponseCache(cacheDir, null).get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("New York")).join();
+
+        // A second process sees the entry through the on-disk store, with a normalized key
+        ResponseCache other = new ResponseCache(cacheDir, null);
+        WeatherResponse cached = other.get(ResponseCache.key("weather", "new york"), Duration.ofMinutes(10),
+                JsonEncoder.WEATHER_CODEC, () -> fetch("Other")).join();
+
+        assertEquals("New York", cached.name());
+        assertEquals(12.5, cached.main().temp());
+        assertEquals(1, fetches.get());
+    }
+
+    private CompletableFuture<Fetched<WeatherResponse>> fetched(String name) {
+        return fetch(name).thenApply(weather -> Fetched.of(weather, null, null));
+    }
+
+    @Test
+    void testStaleEntryIsServedMarkedAndRefreshed() {
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        String key = ResponseCache.key("weather", "Paris");
+        cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Paris v1")).join();
+
+        // Past a TTL of zero but inside the stale window: served as-is, marked, while a refresh runs
+        WeatherResponse stale = cache.getConditional(key, Duration.ZERO, Duration.ofMinutes(5), JsonEncoder.WEATHER_CODEC,
+                validators -> fetched("Paris v2")).join();
+        cache.awaitRefreshes(Duration.ofSeconds(1));
+        WeatherResponse refreshed = cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Paris v3")).join();
+
+        assertEquals("Paris v1", stale.name());
+        assertTrue(stale.stale());
+        assertEquals("Paris v2", refreshed.name());
+        assertFalse(refreshed.stale());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testEntryPastTheStaleWindowIsFetchedAgain() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        String key = ResponseCache.key("weather", "Rome");
+        cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Rome v1")).join();
+        Thread.sleep(5);
+
+        WeatherResponse served = cache.getConditional(key, Duration.ZERO, Duration.ZERO, JsonEncoder.WEATHER_CODEC,
+                validators -> fetched("Rome v2")).join();
+
+        assertEquals("Rome v2", served.name());
+        assertFalse(served.stale());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testLastKnownIsMarkedStaleOncePastItsTtl() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        String key = ResponseCache.key("weather", "Oslo");
+        cache.get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Oslo")).join();
+        Thread.sleep(5);
+
+        assertFalse(cache.lastKnown(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC).stale());
+        assertTrue(cache.lastKnown(key, Duration.ZERO, JsonEncoder.WEATHER_CODEC).stale());
+    }
+
+    @Test
+    void testMaxAgeZeroForcesFetch() throws InterruptedException {
+        String key = ResponseCache.key("weather", "Tokyo");
+        new ResponseCache(cacheDir, null).get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Tokyo")).join();
+        Thread.sleep(5);
+
+        WeatherResponse fresh = new ResponseCache(cacheDir, Duration.ZERO)
+                .get(key, Duration.ofMinutes(10), JsonEncoder.WEATHER_CODEC, () -> fetch("Tokyo fresh")).join();
+
+        assertEquals("Tokyo fresh", fresh.name());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testStoreFailureIsReportedOnTheGivenStream() throws IOException {
+        // A file where the cache directory should be: every write fails
+        Path blocked = Files.createFile(cacheDir.resolve("blocked"));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        ResponseCache cache = new ResponseCache(blocked, null, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        WeatherResponse served = cache.get(ResponseCache.key("weather", "Lima"), Duration.ofMinutes(10),
+                JsonEncoder.WEATHER_CODEC, () -> fetch("Lima")).join();
+
+        assertEquals("Lima", served.name());
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Cache Warning: "), err.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.dailybrief.cities;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityIndexTest {
+
+    private static final String CITY_LIST = """
+            [
+              {"id": 2643743, "name": "London", "state": "", "country": "GB", "coord": {"lon": -0.12574, "lat": 51.50853}},
+              {"id": 6058560, "name": "London", "state": "", "country": "CA", "coord": {"lon": -81.23304, "lat": 42.98339}},
+              {"id": 2643741, "name": "City of London", "state": "", "country": "GB", "coord": {"lon": -0.09184, "lat": 51.51279}},
+              {"id": 2988507, "name": "Paris", "state": "", "country": "FR", "coord": {"lon": 2.3488, "lat": 48.85341}},
+              {"id": 2867714, "name": "München", "state": "", "country": "DE", "coord": {"lon": 11.57549, "lat": 48.13743}},
+              {"id": 2657896, "name": "Londonderry County Borough", "state": "", "country": "GB", "coord": {"lon": -7.30917, "lat": 54.9981}},
+              {"id": 5128581, "name": "New York City", "state": "NY", "country": "US", "coord": {"lon": -74.00597, "lat": 40.71427}}
+            ]
+            """;
+
+    @TempDir
+    static Path dir;
+    private static CityIndex index;
+
+    @BeforeAll
+    static void build() throws IOException {
+        Path file = dir.resolve("cities.idx");
+        int count = CityIndexWriter.build(new ByteArrayInputStream(CITY_LIST.getBytes(StandardCharsets.UTF_8)), file);
+        assertEquals(7, count);
+        index = CityIndex.open(file);
+    }
+
+    @Test
+    void testExactLookupIsCaseAccentAndSpaceInsensitive() {
+        assertEquals(List.of(2988507), ids(index.matches("  PARIS ")));
+        assertEquals(List.of(2867714), ids(index.matches("Munchen")));
+        assertEquals(List.of(5128581), ids(index.matches("new   york city")));
+        assertEquals("München", index.matches("munchen").get(0).name());
+        assertEquals(48.137, index.matches("munchen").get(0).latitude(), 0.001);
+    }
+
+    @Test
+    void testCountrySuffixDisambiguates() {
+        assertEquals(2, index.matches("London").size());
+        assertEquals(List.of(6058560), ids(index.matches("London, ca")));
+        assertEquals(List.of(2643743), ids(index.matches("London,GB")));
+        assertTrue(index.matches("London, FR").isEmpty());
+    }
+
+    @Test
+    void testStateQualifiedQueryNarrowsToTheCountry() {
+        assertEquals(List.of(5128581), ids(index.matches("New York City, NY, US")));
+        assertEquals(List.of(5128581), ids(index.matches("new york city,ny,us")));
+        assertEquals(List.of(5128581), ids(index.matches("New York City, New York, United States")));
+        assertTrue(index.matches("New York City, NY, GB").isEmpty());
+        assertTrue(CityIndex.qualified("Portland,OR,US"));
+        assertTrue(CityIndex.qualified("London, GB"));
+        assertFalse(CityIndex.qualified("London"));
+        assertEquals(List.of("New York City, US"),
+                index.suggest("New Yrok City, NY, US", 3).stream().map(City::label).toList());
+    }
+
+    @Test
+    void testUnknownNameMissesAndSuggestsNearNames() {
+        assertTrue(index.matches("Lodnon").isEmpty());
+        assertTrue(index.matches("Lond").isEmpty(), "A prefix is not a match");
+        List<String> suggestions = index.suggest("Lodnon", 3).stream().map(City::label).toList();
+        assertTrue(suggestions.contains("London, GB") && suggestions.contains("London, CA"), suggestions.toString());
+        assertTrue(index.suggest("Xyzzy", 3).isEmpty());
+    }
+
+    @Test
+    void testPrefixListsDistinctNamesInOrder() {
+        List<String> labels = index.prefix("lon", 10).stream().map(City::label).toList();
+        assertEquals(List.of("London, CA", "London, GB", "Londonderry County Borough, GB"), labels);
+        assertEquals(1, index.prefix("lon", 1).size());
+        assertTrue(index.prefix("zz", 10).isEmpty());
+    }
+
+    @Test
+    void testGzippedListAndForeignFiles(@TempDir Path tmp) throws IOException {
+        Path gz = tmp.resolve("city.list.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            out.write(CITY_LIST.getBytes(StandardCharsets.UTF_8));
+        }
+        Path file = tmp.resolve("cities.idx");
+        assertEquals(7, CityIndexWriter.build(gz, file));
+        assertEquals(7, CityIndex.open(file).size());
+
+        Path garbage = tmp.resolve("garbage.idx");
+        Files.writeString(garbage, "definitely not an index");
+        assertThrows(IOException.class, () -> CityIndex.open(garbage));
+        assertNull(CityIndex.openIfPresent(tmp.resolve("missing.idx")));
+    }
+
+    private static List<Integer> ids(List<City> cities) {
+        return cities.stream().map(City::id).toList();
+    }
+}
@@ -0,0 +1,33 @@
+package com.dailybrief.cities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void testEncodesKnownPoints() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("gcpvj", Geohash.encode(51.50853, -0.12574, 5));
+        assertEquals("u09tv", Geohash.encode(48.85341, 2.3488, 5));
+    }
+
+    @Test
+    void testCellContainsItsPointsAndCentre() {
+        String cell = Geohash.encode(51.50853, -0.12574, 5);
+        double[] bounds = Geohash.bounds(cell);
+        assertTrue(bounds[0] <= 51.50853 && 51.50853 < bounds[2]);
+        assertTrue(bounds[1] <= -0.12574 && -0.12574 < bounds[3]);
+        double[] centre = Geohash.centre(cell);
+        assertEquals(cell, Geohash.encode(centre[0], centre[1], 5));
+        // Each extra character narrows the cell: a longer hash extends the shorter one
+        assertTrue(Geohash.encode(51.50853, -0.12574, 7).startsWith(cell));
+    }
+
+    @Test
+    void testRejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.bounds("gcpa"));
+    }
+}
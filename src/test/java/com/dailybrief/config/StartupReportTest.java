@@ -0,0 +1,38 @@
+package com.dailybrief.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupReportTest {
+
+    private static String print(StartupReport report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        report.print(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testConcurrentInvocationsKeepTheirOwnPhases() {
+        StartupReport first = new StartupReport();
+        StartupReport second = new StartupReport();
+        first.mark("first request");
+        StartupReport.recordProcessPhase("config: test setup", 1_000_000);
+        second.mark("second request");
+        first.mark("first render");
+
+        String report = print(second);
+        assertTrue(report.contains("second request"), report);
+        assertTrue(report.contains("config: test setup"), "Process setup goes to the first to mark after it: " + report);
+        assertFalse(report.contains("first"), "Another invocation's phases stay out: " + report);
+        assertFalse(report.contains("jvm boot"), "No JVM boot inside a running process: " + report);
+
+        String other = print(first);
+        assertTrue(other.contains("first request") && other.contains("first render"), other);
+        assertFalse(other.contains("config: test setup"), "Setup is reported once: " + other);
+    }
+}
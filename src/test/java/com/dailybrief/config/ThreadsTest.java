@@ -0,0 +1,29 @@
+package com.dailybrief.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadsTest {
+
+    @AfterEach
+    void clearSetting() {
+        System.clearProperty("dailybrief.executor");
+    }
+
+    @Test
+    void testUnknownModelIsReportedNotPrinted() {
+        System.setProperty("dailybrief.executor", "virtual");
+
+        assertEquals("unknown executor model 'virtual', using platform", Threads.configurationWarning());
+    }
+
+    @Test
+    void testKnownModelsNeedNoWarning() {
+        for (String value : new String[]{"per-task", "PER_TASK", "platform", "default"}) {
+            System.setProperty("dailybrief.executor", value);
+            assertNull(Threads.configurationWarning(), value);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.dailybrief.daemon;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.daemon.DaemonProtocol.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaemonServerTest {
+
+    private record Reply(int exitCode, String out, String err) {}
+
+    @Test
+    void testRequestsRoundTripOverTheSocket(@TempDir Path dir) throws Exception {
+        Path socket = dir.resolve("daemon.sock");
+        DaemonServer server = new DaemonServer(socket, Duration.ofSeconds(2), ResponseCache.disabled(), System.err);
+        Thread thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        Reply version = send(socket, dir, "--version");
+        assertEquals(0, version.exitCode());
+        assertEquals("1.0", version.out().trim());
+        assertEquals("", version.err());
+
+        // Picocli's own errors reach the client's stderr, not the daemon's
+        Reply unknown = send(socket, dir, "--no-such-option");
+        assertEquals(2, unknown.exitCode());
+        assertTrue(unknown.err().contains("Unknown option: '--no-such-option'"), unknown.err());
+        assertEquals("", unknown.out());
+
+        Reply nested = send(socket, dir, "daemon");
+        assertEquals(1, nested.exitCode());
+        assertTrue(nested.err().contains("A daemon is already running"), nested.err());
+
+        // Idle shutdown removes the socket
+        thread.join(10_000);
+        assertFalse(thread.isAlive(), "The daemon should stop once idle");
+        assertFalse(Files.exists(socket));
+    }
+
+    // Retried while the server starts: the socket file appears on bind, a moment before it listens
+    private static SocketChannel connect(Path socket) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return SocketChannel.open(UnixDomainSocketAddress.of(socket));
+            } catch (IOException notYet) {
+                if (attempt == 250) {
+                    throw notYet;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static Reply send(Path socket, Path workingDir, String... args) throws IOException, InterruptedException {
+        try (SocketChannel channel = connect(socket)) {
+            DaemonProtocol.writeRequest(new DataOutputStream(Channels.newOutputStream(channel)),
+                    new Request(workingDir.toString(), args));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            while (true) {
+                byte type = in.readByte();
+                if (type == DaemonProtocol.EXIT) {
+                    return new Reply(in.readInt(), out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+                }
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                (type == DaemonProtocol.STDERR ? err : out).write(frame);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.dailybrief.history;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long START = Instant.parse("2026-10-01T00:00:00Z").toEpochMilli();
+
+    /** A clock the test moves by hand. */
+    private static final class MovableClock extends Clock {
+        long now = START;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+
+    private static WeatherResponse weather(String name, String country, double temp, String condition) {
+        return observed(name, country, temp, condition, 0);
+    }
+
+    // observedAt: the provider's observation time, epoch seconds
+    private static WeatherResponse observed(String name, String country, double temp, String condition, long observedAt) {
+        return new WeatherResponse(name, new WeatherResponse.Main(temp, 70),
+                List.of(new WeatherResponse.Weather("Clouds", condition, "04d")), new WeatherResponse.Sys(country, 0, 0), observedAt);
+    }
+
+    private static NewsResponse news(String... titles) {
+        return new NewsResponse("ok", Stream.of(titles)
+                .map(t -> new NewsResponse.Article(t, null, new NewsResponse.Source("Wire"), "https://example.com/" + t.length(), null))
+                .toList());
+    }
+
+    @Test
+    void testRangeQueryReadsSealedAndActiveSegments(@TempDir Path dir) throws IOException {
+        MovableClock clock = new MovableClock();
+        HistoryStore store = new HistoryStore(dir, 4, Duration.ZERO, clock);
+        for (int hour = 0; hour < 10; hour++) {
+            clock.now = START + hour * HOUR;
+            store.record("München", weather("Munich", "DE", hour, "overcast clouds"), null, null);
+            store.record("Paris", weather("Paris", "FR", 100 + hour, "clear sky"), null, null);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(4, files.filter(f -> f.toString().endsWith(".idx")).count(), "Every full segment is sealed with an index");
+        }
+
+        List<HistoryStore.Reading> readings = store.readings("  munchen ", START + 2 * HOUR, START + 9 * HOUR);
+        assertEquals(List.of(2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0), readings.stream().map(HistoryStore.Reading::temp).toList());
+        assertEquals("Munich", readings.get(0).name());
+        assertEquals("DE", readings.get(0).country());
+        assertEquals("overcast clouds", readings.get(0).condition());
+        assertEquals(70, readings.get(0).humidity());
+        assertTrue(store.readings("London", START, START + 9 * HOUR).isEmpty());
+    }
+
+    @Test
+    void testHeadlinesAtIsTheLatestSnapshotBeforeThen(@TempDir Path dir) throws IOException {
+        MovableClock clock = new MovableClock();
+        HistoryStore store = new HistoryStore(dir, 5, Duration.ZERO, clock);
+        clock.now = START + 8 * HOUR;
+        store.record("London", null, "US", news("Markets rally", "Storm warning", "Cup final"));
+        clock.now = START + 10 * HOUR;
+        // Doesn't fit beside the first snapshot: starts the next segment
+        store.record("London", weather("London", "GB", 12, "rain"), "US", news("Rate cut", "Election day"));
+        store.record("London", null, "US - BUSINESS", news("Earnings beat"));
+
+        List<HistoryStore.Headline> nine = store.headlinesAt("us", START + 9 * HOUR);
+        assertEquals(List.of("Markets rally", "Storm warning", "Cup final"), nine.stream().map(HistoryStore.Headline::title).toList());
+        assertEquals("Wire", nine.get(0).source());
+        assertEquals(START + 8 * HOUR, nine.get(0).at());
+        assertEquals(List.of("Rate cut", "Election day"),
+                store.headlinesAt("US", START + 11 * HOUR).stream().map(HistoryStore.Headline::title).toList());
+        assertEquals(List.of("Earnings beat"),
+                store.headlinesAt("US - BUSINESS", START + 11 * HOUR).stream().map(HistoryStore.Headline::title).toList());
+        assertTrue(store.headlinesAt("US", START + 7 * HOUR).isEmpty());
+    }
+
+    @Test
+    void testCompactionDropsRepeatsAndExpiredRecords(@TempDir Path dir) throws IOException {
+        MovableClock clock = new MovableClock();
+        HistoryStore store = new HistoryStore(dir, 4, Duration.ofDays(2), clock);
+        store.record("London", weather("London", "GB", 5, "fog"), "US", news("Old news"));
+        clock.now = START + Duration.ofDays(3).toMillis();
+        long observation = clock.now / 1000;
+        for (int i = 0; i < 6; i++) {
+            clock.now += HOUR;
+            // Three runs served one cached observation, then three new ones: the last two read alike but are a day apart
+            if (i >= 3) {
+                observation += i == 5 ? 86_400 : 3_600;
+            }
+            double temp = i < 3 ? 10 : 11;
+            store.record("London", observed("London", "GB", temp, "drizzle", observation), "US", news("Fresh"));
+        }
+
+        HistoryStore.Compaction result = store.compact();
+        assertEquals(2 + 6 * 2, result.recordsBefore());
+        // The expired pair goes, then one reading per observation and a single snapshot
+        assertEquals(5, result.recordsAfter());
+        assertEquals(2, result.segmentsAfter());
+        long now = clock.now;
+        List<HistoryStore.Reading> readings = store.readings("London", 0, now);
+        assertEquals(List.of(10.0, 11.0, 11.0, 11.0), readings.stream().map(HistoryStore.Reading::temp).toList());
+        assertEquals(observation * 1000, readings.get(3).observedAt());
+        assertEquals("Fresh", store.headlinesAt("US", now).get(0).title());
+        assertTrue(store.headlinesAt("US", START + HOUR).isEmpty(), "Expired snapshots are gone");
+
+        // Appends carry on into the compacted store; readings with no observation time are all kept
+        for (int i = 0; i < 2; i++) {
+            clock.now += HOUR;
+            store.record("London", weather("London", "GB", 12, "sun"), null, null);
+        }
+        assertEquals(6, store.readings("London", 0, clock.now).size());
+        assertEquals(7, store.compact().recordsAfter());
+        assertEquals(7, store.compact().recordsAfter(), "Compacting again changes nothing");
+    }
+
+    @Test
+    void testRerunCompactionDropsTheCopiesAnInterruptedOneLeft(@TempDir Path dir) throws IOException {
+        MovableClock clock = new MovableClock();
+        HistoryStore store = new HistoryStore(dir, 4, Duration.ZERO, clock);
+        for (int i = 0; i < 3; i++) {
+            clock.now += HOUR;
+            store.record("Oslo", weather("Oslo", "NO", i, "snow"), null, null);
+        }
+        // Written out by a compaction that stopped before deleting what it copied
+        Files.copy(dir.resolve(Segment.name(1, "seg")), dir.resolve(Segment.name(2, "seg")));
+        Files.copy(dir.resolve(Segment.name(1, "str")), dir.resolve(Segment.name(2, "str")));
+
+        assertEquals(3, store.compact().recordsAfter());
+        assertEquals(List.of(0.0, 1.0, 2.0),
+                store.readings("Oslo", 0, clock.now).stream().map(HistoryStore.Reading::temp).toList());
+    }
+
+    @Test
+    void testSegmentWithoutItsStringPoolStillTakesAppends(@TempDir Path dir) throws IOException {
+        // What a crash between creating a segment and its pool used to leave behind
+        Files.createDirectories(dir);
+        Segment.create(dir, 1, 4);
+        Files.delete(dir.resolve(Segment.name(1, "str")));
+
+        MovableClock clock = new MovableClock();
+        HistoryStore store = new HistoryStore(dir, 4, Duration.ZERO, clock);
+        store.record("Paris", weather("Paris", "FR", 20, "clear sky"), null, null);
+        List<HistoryStore.Reading> readings = store.readings("Paris", 0, clock.now);
+        assertEquals(List.of(20.0), readings.stream().map(HistoryStore.Reading::temp).toList());
+        assertEquals("Paris", readings.get(0).name());
+    }
+}
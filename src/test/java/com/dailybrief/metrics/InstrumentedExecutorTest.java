@@ -0,0 +1,58 @@
+package com.dailybrief.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedExecutorTest {
+
+    @Test
+    void testCountsRunningQueuedAndCompletedTasks() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        InstrumentedExecutor executor = InstrumentedExecutor.register("test-pool", pool);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch running = new CountDownLatch(2);
+            CountDownLatch done = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            InstrumentedExecutor.Stats busy = executor.stats();
+            assertEquals(3, busy.submitted());
+            assertEquals(2, busy.active());
+            assertEquals(1, busy.queued());
+            assertEquals(0, busy.completed());
+            assertTrue(InstrumentedExecutor.snapshots().stream().anyMatch(s -> s.name().equals("test-pool")));
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            InstrumentedExecutor.Stats idle = executor.stats();
+            assertEquals(3, idle.completed());
+            assertEquals(0, idle.active());
+            assertEquals(0, idle.queued());
+            assertEquals(2, idle.peakActive());
+        } finally {
+            pool.shutdownNow();
+            // The registry is process-wide: leave no stale pool in later reports
+            InstrumentedExecutor.unregister(executor);
+        }
+        assertTrue(InstrumentedExecutor.snapshots().stream().noneMatch(s -> s.name().equals("test-pool")));
+    }
+}
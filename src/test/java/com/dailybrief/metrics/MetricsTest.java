@@ -0,0 +1,84 @@
+package com.dailybrief.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testHistogramPercentilesUseFixedBuckets() {
+        Histogram h = new Histogram();
+        for (int i = 0; i < 99; i++) {
+            h.record(TimeUnit.MICROSECONDS.toNanos(40));
+        }
+        h.record(TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertEquals(100, h.count());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(50), h.percentileNanos(50), "Reported as the upper bound of its bucket");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30), h.percentileNanos(100));
+        assertEquals(99, h.bucketCounts()[0]);
+    }
+
+    @Test
+    void testRunsAppendMergeableRecords() throws IOException {
+        Path file = dir.resolve("metrics.ndjson");
+        Metrics first = new Metrics();
+        first.record("weather.decode", TimeUnit.MILLISECONDS.toNanos(2));
+        first.appendTo(file);
+        Metrics next = new Metrics();
+        next.record("weather.decode", TimeUnit.MILLISECONDS.toNanos(3));
+        next.appendTo(file);
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size(), "One record per invocation");
+        JsonNode second = new ObjectMapper().readTree(lines.get(1));
+        JsonNode decode = second.get("phases").get("weather.decode");
+        assertEquals(1, decode.get("count").asInt());
+        assertEquals(3000, decode.get("sum_us").asLong());
+        assertEquals(second.get("bucket_bounds_us").size() + 1, decode.get("buckets").size());
+    }
+
+    @Test
+    void testSpanRecordsWaitSeparately() {
+        Metrics metrics = new Metrics();
+        Metrics.Span span = metrics.start("news.decode");
+        span.endExcluding("news.body", 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.printTimings(new PrintStream(out, true));
+        String timings = out.toString();
+        assertTrue(timings.contains("news.decode"));
+        assertTrue(timings.contains("news.body"));
+    }
+
+    @Test
+    void testConcurrentInvocationsKeepTheirOwnPhases() {
+        Metrics one = new Metrics();
+        Metrics other = new Metrics();
+        one.start("weather.decode").end();
+        other.start("news.decode").end();
+        Metrics.NONE.start("render").end();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        one.printTimings(new PrintStream(out, true));
+        String timings = out.toString();
+        assertTrue(timings.contains("weather.decode"));
+        assertFalse(timings.contains("news.decode"), "Another invocation's phase: " + timings);
+        assertFalse(timings.contains("render"), "NONE records nothing: " + timings);
+    }
+}
@@ -0,0 +1,157 @@
+package com.dailybrief.prefetch;
+
+import com.dailybrief.prefetch.PrefetchPlanner.Habit;
+import com.dailybrief.prefetch.UsageLog.Usage;
+import com.dailybrief.services.HeadlineQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetcherTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+    private static final ZonedDateTime MONDAY = ZonedDateTime.of(2024, 3, 4, 0, 0, 0, 0, ZONE);
+    private static final Brief LONDON = new Brief("London", true, HeadlineQuery.DEFAULT, false);
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    private static long at(int day, int hour, int minute) {
+        return MONDAY.plusDays(day).withHour(hour).withMinute(minute).toInstant().toEpochMilli();
+    }
+
+    /** A clock the test moves by hand. */
+    private static final class MovableClock extends Clock {
+        Instant now;
+
+        MovableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void testUsageLogRoundTripsAndSkipsTornLines(@TempDir Path dir) throws IOException {
+        UsageLog log = UsageLog.inDir(dir);
+        Brief tokyo = new Brief("  Tokyo ", false, new HeadlineQuery(List.of("jp", "us"), List.of("technology"), 2, 10), true);
+        log.append(at(0, 9, 0), LONDON);
+        Files.writeString(dir.resolve(UsageLog.FILE_NAME), "{\"at\":12,\"ci", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Files.writeString(dir.resolve(UsageLog.FILE_NAME), "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        log.append(at(1, 9, 0), tokyo);
+
+        List<Usage> usages = log.read(0);
+        assertEquals(List.of(new Usage(at(0, 9, 0), LONDON), new Usage(at(1, 9, 0), tokyo)), usages);
+        assertEquals("tokyo", usages.get(1).brief().city());
+        assertEquals(List.of(new Usage(at(1, 9, 0), tokyo)), log.read(at(0, 12, 0)));
+        assertEquals(List.of(), UsageLog.inDir(dir.resolve("missing")).read(0));
+    }
+
+    @Test
+    void testConcurrentAppendsSurviveCompaction(@TempDir Path dir) throws Exception {
+        // Enough lines to compact a few times; the same line each time, so the outcome only depends on the count
+        int appends = 8 * (int) (UsageLog.MAX_BYTES / 400);
+        UsageLog serial = new UsageLog(dir.resolve("serial").resolve(UsageLog.FILE_NAME));
+        for (int i = 0; i < appends; i++) {
+            serial.append(at(0, 8, 0), LONDON);
+        }
+
+        UsageLog shared = UsageLog.inDir(dir);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < appends / 8; i++) {
+                        shared.append(at(0, 8, 0), LONDON);
+                    }
+                } catch (IOException e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), errors);
+        assertEquals(serial.read(0).size(), shared.read(0).size(), "No append lost to a compaction");
+    }
+
+    @Test
+    void testHabitsNeedTheSameTimeOnSeveralDays() {
+        List<Usage> usages = new ArrayList<>();
+        int[][] mornings = {{8, 55}, {9, 5}, {9, 10}, {9, 2}};
+        for (int day = 0; day < mornings.length; day++) {
+            usages.add(new Usage(at(day, mornings[day][0], mornings[day][1]), LONDON));
+            // A second look the same morning doesn't count as another day
+            usages.add(new Usage(at(day, mornings[day][0], mornings[day][1] + 3), LONDON));
+        }
+        usages.add(new Usage(at(1, 14, 0), LONDON)); // One afternoon only
+        Brief paris = new Brief("Paris", true, null, false);
+        usages.add(new Usage(at(0, 18, 0), paris));
+        usages.add(new Usage(at(2, 18, 20), paris));
+
+        List<Habit> habits = PrefetchPlanner.habits(usages, ZONE, 2);
+
+        assertEquals(List.of(new Habit(LONDON, LocalTime.of(9, 2), 4), new Habit(paris, LocalTime.of(18, 0), 2)), habits);
+        assertEquals(List.of(new Habit(LONDON, LocalTime.of(9, 2), 4)), PrefetchPlanner.habits(usages, ZONE, 3));
+    }
+
+    @Test
+    void testFetchesEachHabitOnceADayJustBeforeItIsExpected(@TempDir Path dir) throws IOException {
+        UsageLog log = UsageLog.inDir(dir);
+        for (int day = 0; day < 3; day++) {
+            log.append(at(day, 9, 0), LONDON);
+        }
+        List<Brief> fetched = new ArrayList<>();
+        MovableClock clock = new MovableClock(Instant.ofEpochMilli(at(3, 8, 54)));
+        Prefetcher prefetcher = new Prefetcher(log, fetched::add, Duration.ofMinutes(5), 3, QUIET, clock);
+
+        assertEquals(0, prefetcher.runDue());
+        // The stagger puts the fetch within the first half of the lead: 08:55 to 08:57:30
+        Instant due = prefetcher.prefetchAt(prefetcher.habits().get(0), MONDAY.plusDays(3).withHour(9));
+        assertFalse(due.isBefore(Instant.ofEpochMilli(at(3, 8, 55))));
+        assertTrue(due.isBefore(Instant.ofEpochMilli(at(3, 8, 57)).plusSeconds(30)));
+
+        clock.now = due;
+        assertEquals(1, prefetcher.runDue());
+        clock.now = Instant.ofEpochMilli(at(3, 8, 59));
+        assertEquals(0, prefetcher.runDue());
+        clock.now = Instant.ofEpochMilli(at(4, 8, 59));
+        assertEquals(1, prefetcher.runDue());
+        assertEquals(List.of(LONDON, LONDON), fetched);
+    }
+}
@@ -4,11 +4,22 @@ import com.dailybrief.models.NewsResponse;
 import com.dailybrief.models.WeatherResponse;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AsyncOrchestratorTest {
@@ -70,4 +81,106 @@ class AsyncOrchestratorTest {
         assertNotNull(result.weather(), "Weather should be populated");
         assertNull(result.news(), "News should be null due to failure");
     }
+
+    @Test
+    void testPartialFailureIsReportedOnTheCallersStream() {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+        when(mockWeather.getWeatherAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResponse("London", null, null, null)));
+        when(mockNews.getNewsAsync()).thenReturn(CompletableFuture.failedFuture(new RuntimeException("News API Down")));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        new DashboardService(mockWeather, mockNews).getDashboard("TestCity", Set.of(),
+                DashboardService.Listener.printingTo(new PrintStream(err, true, StandardCharsets.UTF_8)));
+
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("News API Down"), err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testProgressiveListenerPublishesFastestFirst() {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+
+        // Weather is slow, news is immediate
+        when(mockWeather.getWeatherAsync(anyString())).thenAnswer(invocation ->
+            CompletableFuture.supplyAsync(() -> {
+                try { Thread.sleep(300); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+                return new WeatherResponse("London", null, null, null);
+            })
+        );
+        when(mockNews.getNewsAsync()).thenReturn(CompletableFuture.completedFuture(new NewsResponse("ok", List.of())));
+
+        List<String> published = new CopyOnWriteArrayList<>();
+        DashboardService dashboardService = new DashboardService(mockWeather, mockNews);
+        long startTime = System.currentTimeMillis();
+        long[] newsAt = new long[1];
+
+        DashboardService.DashboardData result = dashboardService.getDashboard("TestCity", false, false,
+                new DashboardService.Listener() {
+                    @Override
+                    public void onWeather(WeatherResponse weather) {
+                        published.add("weather");
+                    }
+
+                    @Override
+                    public void onNews(NewsResponse news) {
+                        newsAt[0] = System.currentTimeMillis() - startTime;
+                        published.add("news");
+                    }
+                });
+
+        assertEquals(List.of("news", "weather"), published);
+        assertTrue(newsAt[0] < 300, "News should not wait for weather: " + newsAt[0] + "ms");
+        assertNotNull(result.weather());
+        assertNotNull(result.news());
+    }
+
+    @Test
+    void testDeadlineDegradesSlowWidget() {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+
+        CompletableFuture<WeatherResponse> stalled = new CompletableFuture<>();
+        when(mockWeather.getWeatherAsync(anyString())).thenReturn(stalled);
+        when(mockNews.getNewsAsync()).thenReturn(CompletableFuture.completedFuture(new NewsResponse("ok", List.of())));
+
+        DashboardService dashboardService = new DashboardService(mockWeather, mockNews, Duration.ofMillis(200));
+
+        long startTime = System.currentTimeMillis();
+        DashboardService.DashboardData result = dashboardService.getDashboard("TestCity", false, false);
+        long duration = System.currentTimeMillis() - startTime;
+
+        assertNull(result.weather(), "Weather missed the deadline and should be unavailable");
+        assertNotNull(result.news());
+        assertTrue(duration < 1000, "Deadline was not enforced: " + duration + "ms");
+        assertTrue(stalled.isCompletedExceptionally());
+    }
+
+    @Test
+    void testConcurrentAsyncDashboardsShareUpstreamCalls() {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+
+        // Slow enough that every dashboard below asks while the first calls are still in flight
+        when(mockWeather.getWeatherAsync(anyString())).thenAnswer(invocation -> CompletableFuture.supplyAsync(
+                () -> new WeatherResponse("London", null, null, null), CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS)));
+        when(mockNews.getNewsAsync()).thenAnswer(invocation -> CompletableFuture.supplyAsync(
+                () -> new NewsResponse("ok", List.of()), CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS)));
+
+        DashboardService dashboardService = new DashboardService(mockWeather, mockNews);
+        List<CompletableFuture<DashboardService.DashboardData>> dashboards = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Same city, spelled differently
+            dashboards.add(dashboardService.getDashboardAsync(i % 2 == 0 ? "London" : " london "));
+        }
+        dashboards.forEach(dashboard -> assertFalse(dashboard.isDone(), "Nothing may block or complete early"));
+
+        for (CompletableFuture<DashboardService.DashboardData> dashboard : dashboards) {
+            assertEquals("London", dashboard.join().weather().name());
+            assertNotNull(dashboard.join().news());
+        }
+        verify(mockWeather, times(1)).getWeatherAsync(anyString());
+        verify(mockNews, times(1)).getNewsAsync();
+    }
 }
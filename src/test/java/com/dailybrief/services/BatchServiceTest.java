@@ -0,0 +1,149 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BatchServiceTest {
+
+    @Test
+    void testConcurrencyIsBoundedAndNewsIsFetchedOnce() throws InterruptedException {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(mockWeather.getWeatherAsync(anyString())).thenAnswer(invocation -> {
+            String city = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try { Thread.sleep(20); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+                inFlight.decrementAndGet();
+                return new WeatherResponse(city, null, null, null);
+            });
+        });
+        when(mockNews.getNewsAsync()).thenReturn(CompletableFuture.completedFuture(new NewsResponse("ok", List.of())));
+
+        List<String> cities = IntStream.range(0, 20).mapToObj(i -> "City" + i).collect(Collectors.toList());
+        ConcurrentLinkedQueue<BatchService.CityResult> results = new ConcurrentLinkedQueue<>();
+        AtomicInteger newsWrites = new AtomicInteger();
+
+        BatchService batchService = new BatchService(mockWeather, mockNews, 3, 0);
+        BatchService.BatchSummary summary = batchService.run(cities.iterator(), false,
+                news -> newsWrites.incrementAndGet(), results::add);
+
+        assertEquals(20, summary.cities());
+        assertEquals(0, summary.failed());
+        assertEquals(20, results.size());
+        assertTrue(maxInFlight.get() <= 3, "At most 3 requests should be in flight, saw " + maxInFlight.get());
+        assertEquals(1, newsWrites.get());
+        verify(mockNews, times(1)).getNewsAsync();
+    }
+
+    @Test
+    void testFailedCityIsReportedWithoutStoppingBatch() throws InterruptedException {
+        WeatherService mockWeather = mock(WeatherService.class);
+        NewsService mockNews = mock(NewsService.class);
+
+        when(mockWeather.getWeatherAsync("Atlantis"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Weather API Error (Status 404)")));
+        when(mockWeather.getWeatherAsync("London"))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResponse("London", null, null, null)));
+
+        ConcurrentLinkedQueue<BatchService.CityResult> results = new ConcurrentLinkedQueue<>();
+        BatchService batchService = new BatchService(mockWeather, mockNews, 2, 0);
+        BatchService.BatchSummary summary = batchService.run(List.of("Atlantis", "London").iterator(), true,
+                news -> fail("News is disabled"), results::add);
+
+        assertEquals(2, summary.cities());
+        assertEquals(1, summary.failed());
+        assertTrue(results.stream().anyMatch(r -> r.city().equals("Atlantis") && r.error() != null));
+        verifyNoInteractions(mockNews);
+    }
+
+    @Test
+    void testCitiesPastTheMinutesQuotaWaitForTheNextMinute() throws InterruptedException {
+        WeatherProvider weather = mock(WeatherProvider.class);
+        NewsService mockNews = mock(NewsService.class);
+        // A minute of OpenWeatherMap's 60 requests, squeezed into 100ms
+        long windowMillis = 100;
+        long start = System.nanoTime();
+        AtomicInteger window = new AtomicInteger(-1);
+        AtomicInteger used = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        when(weather.getWeatherAsync(anyString())).thenAnswer(invocation -> {
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            synchronized (window) {
+                if (window.getAndSet((int) (elapsed / windowMillis)) != elapsed / windowMillis) {
+                    used.set(0);
+                }
+                if (used.incrementAndGet() > 60) {
+                    refused.incrementAndGet();
+                    return CompletableFuture.failedFuture(new QuotaManager.ExhaustedException(
+                            "Weather per-minute (60) quota used up; request not sent",
+                            Duration.ofMillis(windowMillis - elapsed % windowMillis)));
+                }
+            }
+            return CompletableFuture.completedFuture(new WeatherResponse(invocation.getArgument(0), null, null, null));
+        });
+
+        List<String> cities = IntStream.range(0, 150).mapToObj(i -> "City" + i).collect(Collectors.toList());
+        ConcurrentLinkedQueue<BatchService.CityResult> results = new ConcurrentLinkedQueue<>();
+        BatchService.BatchSummary summary = new BatchService(weather, mockNews, 8, 0)
+                .run(cities.iterator(), true, news -> { }, results::add);
+
+        assertEquals(150, summary.cities());
+        assertEquals(0, summary.failed(), "Cities past the minute's budget should wait, not fail");
+        assertEquals(150, results.stream().filter(r -> r.weather() != null).count());
+        assertTrue(refused.get() > 0, "The batch should have hit the ceiling");
+    }
+
+    @Test
+    void testDailyQuotaStillFailsTheCity() throws InterruptedException {
+        WeatherProvider weather = mock(WeatherProvider.class);
+        when(weather.getWeatherAsync(anyString())).thenReturn(CompletableFuture.failedFuture(
+                new QuotaManager.ExhaustedException("Weather daily (1000) quota used up; request not sent", null)));
+
+        BatchService.BatchSummary summary = new BatchService(weather, mock(NewsService.class), 2, 0)
+                .run(List.of("Oslo", "Bergen").iterator(), true, news -> { }, result -> { });
+        assertEquals(2, summary.failed());
+    }
+
+    @Test
+    void testSinkFailureStopsTheBatchAndIsRethrown() {
+        WeatherProvider weather = mock(WeatherProvider.class);
+        when(weather.getWeatherAsync(anyString())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(new WeatherResponse(invocation.getArgument(0), null, null, null)));
+        AtomicInteger read = new AtomicInteger();
+        Iterator<String> cities = IntStream.range(0, 1000).mapToObj(i -> {
+            read.incrementAndGet();
+            return "City" + i;
+        }).iterator();
+        AtomicInteger written = new AtomicInteger();
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () ->
+                new BatchService(weather, mock(NewsService.class), 4, 0).run(cities, true, news -> { }, result -> {
+                    if (written.incrementAndGet() == 3) {
+                        throw new UncheckedIOException(new IOException("No space left on device"));
+                    }
+                }));
+
+        assertEquals("No space left on device", thrown.getCause().getMessage());
+        assertTrue(read.get() < 1000, "No more cities should be read once the export has failed, read " + read.get());
+    }
+}
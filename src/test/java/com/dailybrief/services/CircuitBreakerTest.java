@@ -0,0 +1,93 @@
+package com.dailybrief.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private CompletableFuture<String> failing(int status) {
+        requests.incrementAndGet();
+        return CompletableFuture.failedFuture(new HttpStatusException("News API Error (Status " + status + ")", status, null));
+    }
+
+    private CompletableFuture<String> ok() {
+        requests.incrementAndGet();
+        return CompletableFuture.completedFuture("ok");
+    }
+
+    @Test
+    void testOpensAfterThresholdAndIsSharedThroughTheStateFile() {
+        Path state = dir.resolve("breaker-news.state");
+        CircuitBreaker breaker = new CircuitBreaker("News", state);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            assertThrows(CompletionException.class, breaker.call(() -> failing(401))::join);
+        }
+
+        // Another process reading the same file skips the request outright
+        CircuitBreaker other = new CircuitBreaker("News", state);
+        assertTrue(other.isOpen());
+        CompletionException e = assertThrows(CompletionException.class, other.call(this::ok)::join);
+        assertInstanceOf(CircuitBreaker.OpenException.class, e.getCause());
+        assertEquals(CircuitBreaker.FAILURE_THRESHOLD, requests.get());
+    }
+
+    @Test
+    void testClientErrorsDoNotTrip() {
+        CircuitBreaker breaker = new CircuitBreaker("Weather", null);
+        for (int i = 0; i < 5; i++) {
+            breaker.call(() -> failing(404));
+        }
+        assertFalse(breaker.isOpen(), "An unknown city says nothing about the provider's health");
+    }
+
+    @Test
+    void testHalfOpenTrialClosesOrReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("News", dir.resolve("breaker.state"), Duration.ofMillis(50));
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.call(() -> CompletableFuture.failedFuture(new ConnectException("refused")));
+        }
+        assertTrue(breaker.isOpen());
+        Thread.sleep(80);
+
+        // Cool-down over: one trial goes through, and a success closes the circuit
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        breaker.call(() -> trial);
+        assertTrue(breaker.isOpen(), "Only one trial request at a time");
+        trial.complete("ok");
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void testRetriesRetryableStatusesWithBackoff() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = Backoff.retry(() -> attempts.incrementAndGet() < 3 ? failing(503) : ok(),
+                3, Duration.ofMillis(1), Duration.ofMillis(10)).join();
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+
+        attempts.set(0);
+        assertThrows(CompletionException.class, Backoff.retry(() -> {
+            attempts.incrementAndGet();
+            return failing(404);
+        }, 3, Duration.ofMillis(1), Duration.ofMillis(10))::join);
+        assertEquals(1, attempts.get(), "A 404 is not retried");
+
+        // A Retry-After longer than we are willing to wait ends the retries
+        HttpStatusException throttled = new HttpStatusException("429", 429, Duration.ofMinutes(1));
+        assertNull(Backoff.delayFor(throttled, 0, Duration.ofMillis(200), Duration.ofSeconds(5)));
+    }
+}
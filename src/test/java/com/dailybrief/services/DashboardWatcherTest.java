@@ -0,0 +1,78 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.NewsWidget;
+import com.dailybrief.widgets.WeatherWidget;
+import com.dailybrief.widgets.Widget;
+import com.dailybrief.widgets.WidgetScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardWatcherTest {
+
+    @Test
+    void testUnchangedDataIsNotRepublished() throws InterruptedException {
+        WeatherService weather = mock(WeatherService.class);
+        NewsService news = mock(NewsService.class);
+        WeatherResponse london = new WeatherResponse("London", null, null, null);
+        AtomicInteger newsFetches = new AtomicInteger();
+        // Weather never changes; news changes on the third refresh only
+        when(weather.getWeatherAsync(anyString())).thenReturn(CompletableFuture.completedFuture(london));
+        when(news.getNewsAsync()).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                new NewsResponse(newsFetches.incrementAndGet() >= 3 ? "changed" : "ok", List.of())));
+
+        List<String> changes = new CopyOnWriteArrayList<>();
+        DashboardWatcher watcher = new DashboardWatcher(weather, news, List.of(new WeatherWidget(), new NewsWidget()),
+                new WidgetScheduler(), Duration.ofMillis(40));
+        watcher.start("London", new DashboardWatcher.Listener() {
+            @Override
+            public void onChange(Widget<?> widget, Object value) {
+                changes.add(widget.id());
+            }
+
+            @Override
+            public void onError(Widget<?> widget, Throwable e) {
+                fail(e);
+            }
+        });
+        try {
+            long until = System.currentTimeMillis() + 2000;
+            while (newsFetches.get() < 5 && System.currentTimeMillis() < until) {
+                Thread.sleep(20);
+            }
+        } finally {
+            watcher.stop();
+        }
+
+        assertTrue(newsFetches.get() >= 5, "News should have been refreshed repeatedly");
+        assertEquals(1, changes.stream().filter("weather"::equals).count(), changes.toString());
+        assertEquals(2, changes.stream().filter("news"::equals).count(), changes.toString());
+    }
+
+    @Test
+    void testRefreshDelayIsJitteredAroundTheInterval() {
+        DashboardWatcher watcher = new DashboardWatcher(null, null, List.of(), new WidgetScheduler(), Duration.ofSeconds(30));
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 200; i++) {
+            long delay = watcher.nextDelay();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        watcher.stop();
+
+        assertTrue(min >= 27_000 && max <= 33_000, min + ".." + max);
+        assertTrue(max > min, "Delays should not all be the same");
+    }
+}
@@ -0,0 +1,114 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.models.NewsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HeadlineMergerTest {
+
+    private static NewsResponse.Article article(String title, String url, String publishedAt) {
+        return new NewsResponse.Article(title, null, new NewsResponse.Source("Wire"), url, publishedAt);
+    }
+
+    @Test
+    void testKeepsTheMostRecentDistinctArticles() {
+        HeadlineMerger merger = new HeadlineMerger(3);
+        merger.offer(article("Markets rally as inflation cools - Reuters", "https://reuters.com/a", "2024-01-01T08:00:00Z"));
+        // Syndicated: same story, another outlet's suffix and punctuation, published later
+        merger.offer(article("Markets rally, as inflation cools! - AP", "https://apnews.com/x", "2024-01-01T09:00:00Z"));
+        // Same URL (tracking query, www.) under a re-worded title, but older: dropped
+        merger.offer(article("Stocks up on cooling inflation", "https://www.apnews.com/x/?utm_source=feed", "2024-01-01T07:00:00Z"));
+        merger.offer(article("Storm warning issued", "https://example.com/storm", "2024-01-01T06:00:00Z"));
+        merger.offer(article("Old news", "https://example.com/old", "2023-12-31T06:00:00Z"));
+        merger.offer(article("New phone launches", "https://example.com/phone", "2024-01-01T10:00:00Z"));
+        merger.offer(article("[Removed]", "https://removed.com", "2024-01-02T00:00:00Z"));
+
+        assertEquals(List.of("New phone launches", "Markets rally, as inflation cools! - AP", "Storm warning issued"),
+                merger.top().stream().map(NewsResponse.Article::title).toList());
+    }
+
+    @Test
+    void testMemoryStaysBoundedByTheLimit() {
+        HeadlineMerger merger = new HeadlineMerger(5);
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 100_000; i++) {
+            merger.offer(article("Story " + i, "https://example.com/" + i, start.plusSeconds(i).toString()));
+        }
+        List<NewsResponse.Article> top = merger.top();
+        assertEquals(5, top.size());
+        assertEquals(List.of("Story 99999", "Story 99998", "Story 99997", "Story 99996", "Story 99995"),
+                top.stream().map(NewsResponse.Article::title).toList());
+    }
+
+    @Test
+    void testDefaultQueryIsTheSingleOriginalRequest() {
+        assertEquals(List.of("country=us&pageSize=5"), HeadlineQuery.DEFAULT.requests());
+        assertEquals("US", HeadlineQuery.DEFAULT.label());
+
+        HeadlineQuery query = new HeadlineQuery(List.of("us", "GB"), List.of("business"), 2, 10);
+        assertEquals(List.of("country=us&category=business&pageSize=10", "country=us&category=business&pageSize=10&page=2",
+                "country=gb&category=business&pageSize=10", "country=gb&category=business&pageSize=10&page=2"), query.requests());
+        assertEquals("US, GB - BUSINESS", query.label());
+        assertThrows(IllegalArgumentException.class, () -> new HeadlineQuery(List.of("usa"), List.of(), 1, 5));
+        assertThrows(IllegalArgumentException.class, () -> new HeadlineQuery(List.of("us"), List.of("politics"), 1, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HeadlineQuery(List.of("us", "gb", "de", "fr", "it"), List.of("business", "science"), 3, 5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFanOutMergesPagesAndSurvivesAFailedOne() {
+        AppConfig config = mock(AppConfig.class);
+        HttpClient client = mock(HttpClient.class);
+        when(config.getApiKey("NEWS_API_KEY")).thenReturn("fan-out-key");
+        when(config.getHttpClient()).thenReturn(client);
+        when(client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenAnswer(invocation -> {
+            String uri = invocation.getArgument(0, HttpRequest.class).uri().toString();
+            HttpResponse<InputStream> response = mock(HttpResponse.class);
+            if (uri.contains("country=fr")) {
+                when(response.statusCode()).thenReturn(404);
+                when(response.body()).thenReturn(InputStream.nullInputStream());
+                when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+                return CompletableFuture.completedFuture(response);
+            }
+            String country = uri.contains("country=us") ? "US" : "GB";
+            String body = """
+                    {"status":"ok","articles":[
+                     {"title":"Shared wire story - %s outlet","url":"https://wire.com/story","publishedAt":"2024-01-01T0%d:00:00Z"},
+                     {"title":"Local %s story","url":"https://%s.example/local","publishedAt":"2024-01-01T05:00:00Z"}]}
+                    """.formatted(country, country.equals("US") ? 8 : 9, country, country.toLowerCase());
+            when(response.statusCode()).thenReturn(200);
+            when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+            when(response.body()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            return CompletableFuture.completedFuture(response);
+        });
+
+        NewsService service = new NewsService(config, ResponseCache.disabled(),
+                new HeadlineQuery(List.of("us", "gb", "fr"), List.of(), 1, 5));
+        NewsResponse news = service.getNewsAsync().join();
+
+        verify(client, times(3)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(List.of("Shared wire story - GB outlet", "Local US story", "Local GB story"),
+                news.articles().stream().map(NewsResponse.Article::title).toList());
+    }
+}
@@ -0,0 +1,148 @@
+package com.dailybrief.services;
+
+import com.dailybrief.models.Forecast;
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDecoderTest {
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWeatherProjectionSkipsUnusedFields() throws IOException {
+        String json = """
+            {
+              "coord": { "lon": -0.1257, "lat": 51.5085 },
+              "weather": [ { "id": 500, "main": "Rain", "description": "light rain", "icon": "10d" } ],
+              "main": { "temp": 11.4, "feels_like": 10.2, "pressure": 1012, "humidity": 87 },
+              "wind": { "speed": 4.1, "deg": 240, "gust": [1, 2, 3] },
+              "sys": { "type": 2, "country": "GB", "sunrise": 1699946477, "sunset": 1699978892 },
+              "name": "London",
+              "cod": 200
+            }
+            """;
+
+        WeatherResponse weather = JsonDecoder.decodeWeather(stream(json));
+
+        assertEquals("London", weather.name());
+        assertEquals(11.4, weather.main().temp());
+        assertEquals(87, weather.main().humidity());
+        assertEquals("10d", weather.weather().get(0).icon());
+        assertEquals("GB", weather.sys().country());
+        assertEquals(1699978892L, weather.sys().sunset());
+    }
+
+    @Test
+    void testNewsProjectionKeepsOnlyRenderedFields() throws IOException {
+        String json = """
+            {
+              "status": "ok",
+              "totalResults": 2,
+              "articles": [
+                { "source": { "id": "bbc-news", "name": "BBC News" }, "author": "A", "title": "First", "description": "d1",
+                  "url": "https://example.com/1", "content": "long body" },
+                { "source": null, "title": "Second", "description": "d2" }
+              ]
+            }
+            """;
+
+        NewsResponse news = JsonDecoder.decodeNews(stream(json));
+
+        assertEquals("ok", news.status());
+        assertEquals(2, news.articles().size());
+        assertEquals("First", news.articles().get(0).title());
+        assertEquals("BBC News", news.articles().get(0).source().name());
+        assertNull(news.articles().get(0).description());
+        assertNull(news.articles().get(1).source());
+    }
+
+    @Test
+    void testBodyIsReadToTheEndAfterAnEarlyStop() throws IOException {
+        // Everything needed comes first; the tail must still be read for the connection to stay alive
+        String json = "{\"status\":\"ok\",\"articles\":[],\"padding\":\"" + "x".repeat(64 * 1024) + "\"}";
+        ByteArrayInputStream body = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+        JsonDecoder.decodeNews(body);
+        assertEquals(0, body.available(), "The unparsed tail was left unread");
+    }
+
+    @Test
+    void testBodyOverCapIsRejected() {
+        String json = "{\"status\":\"ok\",\"padding\":\"" + "x".repeat(4096) + "\",\"articles\":[]}";
+
+        IOException e = assertThrows(IOException.class, () -> JsonDecoder.decodeNews(stream(json), 1024));
+        assertTrue(e.getMessage().contains("exceeds 1024 bytes"), e.getMessage());
+    }
+
+    @Test
+    void testOpenMeteoMapsOntoWeatherShape() throws IOException {
+        OpenMeteoWeatherService.Place place = JsonDecoder.decodePlace(stream("""
+            { "results": [ { "id": 2643743, "name": "London", "latitude": 51.50853, "longitude": -0.12574,
+                             "country_code": "GB", "timezone": "Europe/London" } ],
+              "generationtime_ms": 0.5 }
+            """));
+        WeatherResponse weather = JsonDecoder.decodeOpenMeteo(stream("""
+            { "latitude": 51.5, "longitude": -0.12,
+              "current_units": { "temperature_2m": "°C" },
+              "current": { "time": 1699950000, "interval": 900, "temperature_2m": 11.4,
+                           "relative_humidity_2m": 87, "weather_code": 61 },
+              "daily": { "time": [1699920000], "sunrise": [1699946477], "sunset": [1699978892] } }
+            """), place);
+
+        assertEquals(-0.12574, place.longitude());
+        assertEquals("London", weather.name());
+        assertEquals("GB", weather.sys().country());
+        assertEquals(11.4, weather.main().temp());
+        assertEquals(87, weather.main().humidity());
+        assertEquals("10d", weather.weather().get(0).icon());
+        assertEquals(1699978892L, weather.sys().sunset());
+        assertNull(JsonDecoder.decodePlace(stream("{ \"generationtime_ms\": 0.3 }")));
+    }
+
+    @Test
+    void testForecastDecodesIntoColumnsAndRoundTripsThroughTheCodec() throws IOException {
+        // No "cnt": the columns start small and grow past 40 slots
+        StringBuilder json = new StringBuilder("{\"cod\":\"200\",\"list\":[");
+        for (int i = 0; i < 45; i++) {
+            json.append(i > 0 ? "," : "").append("{\"dt\":").append(1_700_000_000L + i * 10_800L)
+                    .append(",\"main\":{\"temp\":").append(10 + i * 0.5).append(",\"feels_like\":9,\"humidity\":").append(50 + i)
+                    .append("},\"weather\":[{\"id\":500}]");
+            if (i == 3) {
+                json.append(",\"rain\":{\"3h\":1.25},\"snow\":{\"3h\":0.5}");
+            }
+            json.append(",\"dt_txt\":\"ignored\"}");
+        }
+        json.append("],\"city\":{\"id\":2643743,\"name\":\"London\",\"country\":\"GB\",\"timezone\":3600}}");
+
+        Forecast forecast = JsonDecoder.decodeForecast(stream(json.toString()));
+
+        assertEquals(45, forecast.size());
+        assertEquals(45, forecast.temps().length);
+        assertEquals("London", forecast.city());
+        assertEquals("GB", forecast.country());
+        assertEquals(3600, forecast.timezoneOffset());
+        assertEquals(1_700_000_000L + 44 * 10_800L, forecast.times()[44]);
+        assertEquals(32.0, forecast.temps()[44]);
+        assertEquals(94, forecast.humidity()[44]);
+        assertEquals(1.75, forecast.precipitation()[3]);
+        assertEquals(0.0, forecast.precipitation()[4]);
+
+        Forecast cached = JsonEncoder.FORECAST_CODEC.decode(stream(new String(
+                JsonEncoder.FORECAST_CODEC.encode(forecast), StandardCharsets.UTF_8)));
+        assertArrayEquals(forecast.times(), cached.times());
+        assertArrayEquals(forecast.temps(), cached.temps());
+        assertArrayEquals(forecast.humidity(), cached.humidity());
+        assertArrayEquals(forecast.precipitation(), cached.precipitation());
+        assertEquals(forecast.timezoneOffset(), cached.timezoneOffset());
+    }
+}
@@ -0,0 +1,40 @@
+package com.dailybrief.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyWindowTest {
+
+    @Test
+    void testFallbackUntilEnoughSamples() {
+        LatencyWindow window = new LatencyWindow(16, Duration.ofSeconds(1));
+        for (int i = 0; i < 7; i++) {
+            window.record(Duration.ofMillis(100));
+        }
+        assertEquals(Duration.ofSeconds(1), window.percentile(95));
+        window.record(Duration.ofMillis(300));
+        assertEquals(Duration.ofMillis(300), window.percentile(95));
+        assertEquals(Duration.ofMillis(100), window.percentile(50));
+    }
+
+    @Test
+    void testOneShotRunsAddUpThroughTheStateFile(@TempDir Path dir) throws Exception {
+        Path state = dir.resolve("latency-weather.state");
+        // Each run records a single request, then exits
+        for (int run = 0; run < 10; run++) {
+            new LatencyWindow(16, Duration.ofSeconds(1), state).record(Duration.ofMillis(200 + run));
+        }
+        assertEquals(Duration.ofMillis(209), new LatencyWindow(16, Duration.ofSeconds(1), state).percentile(100));
+
+        // A window of another size, or a broken file, starts over
+        assertEquals(Duration.ofSeconds(1), new LatencyWindow(32, Duration.ofSeconds(1), state).percentile(100));
+        Files.write(state, new byte[] {1, 2, 3});
+        assertEquals(Duration.ofSeconds(1), new LatencyWindow(16, Duration.ofSeconds(1), state).percentile(100));
+    }
+}
@@ -0,0 +1,169 @@
+package com.dailybrief.services;
+
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.config.AppConfig;
+import com.dailybrief.models.NewsResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuotaManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDailyBudgetIsSharedThroughTheStateFile() {
+        Path state = dir.resolve("quota-news.state");
+        QuotaManager.Limits limits = new QuotaManager.Limits(5, 0);
+        QuotaManager first = new QuotaManager("News", limits, state);
+        QuotaManager second = new QuotaManager("News", limits, state);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(first.tryAcquire());
+        }
+        // Another process mapping the same file sees the same count
+        assertEquals(2, second.remainingToday());
+        assertTrue(second.tryAcquire());
+        assertTrue(second.tryAcquire());
+        assertFalse(first.tryAcquire());
+        assertEquals(0, first.remainingToday());
+        assertTrue(first.exhausted().getMessage().contains("daily (5)"));
+    }
+
+    @Test
+    void testWindowsRollOverWithTheClock() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T23:59:30Z"));
+        QuotaManager quota = new QuotaManager("Weather", new QuotaManager.Limits(10, 2), dir.resolve("quota.state"), clock);
+        assertTrue(quota.tryAcquire());
+        assertTrue(quota.tryAcquire());
+        assertFalse(quota.tryAcquire(), "Per-minute ceiling");
+        assertTrue(quota.isLow(), "A spent minute sends callers to cached data");
+
+        clock.now = Instant.parse("2024-01-01T23:59:59Z");
+        assertFalse(quota.tryAcquire(), "Still the same minute");
+
+        // A new minute, and a new UTC day
+        clock.now = Instant.parse("2024-01-02T00:00:00Z");
+        assertEquals(10, quota.remainingToday());
+        assertFalse(quota.isLow());
+        assertTrue(quota.tryAcquire());
+    }
+
+    @Test
+    void testMinuteCeilingSaysWhenToTryAgainAndStopsHedgesEarly() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T12:00:15Z"));
+        QuotaManager quota = new QuotaManager("Weather", new QuotaManager.Limits(0, 60), null, clock);
+        for (int i = 0; i < 53; i++) {
+            assertTrue(quota.tryAcquire());
+        }
+        assertTrue(quota.canSpare());
+        assertTrue(quota.tryAcquire());
+        assertFalse(quota.canSpare(), "The last tenth of the minute is for data, not hedges");
+        assertFalse(quota.isLow());
+        while (quota.tryAcquire()) {
+            // spend the rest
+        }
+        assertEquals(Duration.ofSeconds(45), quota.exhausted().retryAfter());
+
+        QuotaManager daily = new QuotaManager("News", new QuotaManager.Limits(1, 60), null, clock);
+        assertTrue(daily.tryAcquire());
+        assertFalse(daily.tryAcquire());
+        assertNull(daily.exhausted().retryAfter(), "Tomorrow is too long to wait");
+    }
+
+    @Test
+    void testLastTenthOfTheDayIsReserved() {
+        QuotaManager quota = new QuotaManager("News", new QuotaManager.Limits(100, 0), null);
+        for (int i = 0; i < 89; i++) {
+            assertTrue(quota.tryAcquire());
+        }
+        assertFalse(quota.isLow());
+        assertTrue(quota.tryAcquire());
+        assertTrue(quota.isLow());
+        assertEquals(10, quota.remainingToday(), "The reserve can still be spent");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNewsServesCachedDataOnceTheQuotaRunsLow(@TempDir Path cacheDir, @TempDir Path emptyCacheDir) {
+        AppConfig config = mock(AppConfig.class);
+        HttpClient client = mock(HttpClient.class);
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(config.getApiKey("NEWS_API_KEY")).thenReturn("quota-test-key");
+        when(config.getHttpClient()).thenReturn(client);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(response.body()).thenReturn(new ByteArrayInputStream("""
+                {"status":"ok","articles":[{"title":"Markets rally","source":{"name":"Reuters"}}]}
+                """.getBytes(StandardCharsets.UTF_8)));
+        when(client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        assertEquals("Markets rally", new NewsService(config, cache).getNewsAsync().join().articles().get(0).title());
+
+        QuotaManager quota = QuotaManager.forKey("News", "quota-test-key", new QuotaManager.Limits(100, 0), cache);
+        while (!quota.isLow()) {
+            quota.tryAcquire();
+        }
+        // Max age zero would normally revalidate; on the last of the quota the stored copy is served
+        NewsResponse served = new NewsService(config, cache.withMaxAge(Duration.ZERO)).getNewsAsync().join();
+        assertEquals("Markets rally", served.articles().get(0).title());
+        verify(client, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+
+        // Nothing cached and nothing left: fails without a round trip
+        ResponseCache empty = new ResponseCache(emptyCacheDir, null);
+        QuotaManager spent = QuotaManager.forKey("News", "quota-test-key", new QuotaManager.Limits(100, 0), empty);
+        while (spent.tryAcquire()) {
+            // use it all up
+        }
+        CompletionException e = assertThrows(CompletionException.class, new NewsService(config, empty).getNewsAsync()::join);
+        assertInstanceOf(QuotaManager.ExhaustedException.class, e.getCause());
+        verify(client, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
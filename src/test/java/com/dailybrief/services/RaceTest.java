@@ -0,0 +1,103 @@
+package com.dailybrief.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RaceTest {
+
+    @Test
+    void testFirstSuccessWinsAndLoserIsCancelled() {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+
+        String winner = Race.<String>firstSuccess(List.of(
+                () -> slow,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("no key")),
+                () -> CompletableFuture.supplyAsync(() -> "fast")), Duration.ZERO).join();
+
+        assertEquals("fast", winner);
+        assertTrue(slow.isCancelled(), "The losing attempt should be cancelled");
+    }
+
+    @Test
+    void testFailsWithEarliestAttemptErrorWhenAllFail() {
+        CompletableFuture<String> race = Race.firstSuccess(List.of(
+                () -> CompletableFuture.supplyAsync(() -> { throw new IllegalStateException("primary"); }),
+                () -> CompletableFuture.failedFuture(new RuntimeException("secondary"))), Duration.ZERO);
+
+        CompletionException e = assertThrows(CompletionException.class, race::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void testHedgeFiresOnlyAfterStagger() {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> stalled = new CompletableFuture<>();
+
+        String answer = Race.<String>firstSuccess(List.of(
+                () -> { started.incrementAndGet(); return stalled; },
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("hedge"); }),
+                Duration.ofMillis(50)).join();
+        assertEquals("hedge", answer);
+        assertTrue(stalled.isCancelled());
+
+        // A fast primary answers before the hedge is due, so no duplicate is sent
+        started.set(0);
+        Race.<String>firstSuccess(List.of(
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("primary"); },
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("hedge"); }),
+                Duration.ofMillis(50)).join();
+        assertEquals(1, started.get());
+    }
+
+    @Test
+    void testFailureStartsTheNextAttemptWithoutWaitingOutTheStagger() {
+        AtomicInteger started = new AtomicInteger();
+        long begin = System.nanoTime();
+
+        String answer = Race.<String>firstSuccess(List.of(
+                () -> { started.incrementAndGet(); return CompletableFuture.failedFuture(new IllegalStateException("no key")); },
+                () -> { started.incrementAndGet(); return CompletableFuture.supplyAsync(() -> { throw new IllegalStateException("down"); }); },
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("third"); }),
+                Duration.ofSeconds(30)).join();
+
+        assertEquals("third", answer, "A failure must not end the race while attempts are left");
+        assertEquals(3, started.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - begin).compareTo(Duration.ofSeconds(5)) < 0, "Didn't wait for the stagger");
+
+        CompletionException e = assertThrows(CompletionException.class, () -> Race.<String>firstSuccess(List.of(
+                () -> CompletableFuture.failedFuture(new IllegalStateException("first")),
+                () -> CompletableFuture.failedFuture(new RuntimeException("second"))), Duration.ofSeconds(30)).join());
+        assertEquals("first", e.getCause().getMessage());
+    }
+
+    @Test
+    void testFailureTheRepeatWouldGetAgainDoesNotStartTheNextAttempt() throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        Predicate<Throwable> retryable = e -> e instanceof HttpStatusException status && status.isRetryable();
+
+        CompletionException e = assertThrows(CompletionException.class, () -> Race.<String>firstSuccess(List.of(
+                () -> { started.incrementAndGet(); return CompletableFuture.failedFuture(new HttpStatusException("not found", 404, null)); },
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("hedge"); }),
+                Duration.ofMillis(50), retryable).join());
+        assertEquals(404, ((HttpStatusException) e.getCause()).statusCode());
+        Thread.sleep(200);
+        assertEquals(1, started.get(), "A 404 would only come back again: the hedge must not be sent, early or on time");
+
+        // A 503 might not
+        started.set(0);
+        String answer = Race.<String>firstSuccess(List.of(
+                () -> { started.incrementAndGet(); return CompletableFuture.failedFuture(new HttpStatusException("unavailable", 503, null)); },
+                () -> { started.incrementAndGet(); return CompletableFuture.completedFuture("hedge"); }),
+                Duration.ofSeconds(30), retryable).join();
+        assertEquals("hedge", answer);
+        assertEquals(2, started.get());
+    }
+}
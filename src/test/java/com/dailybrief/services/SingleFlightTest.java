@@ -0,0 +1,85 @@
+package com.dailybrief.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallersShareOneUpstreamCall() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        int callers = 64;
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<CompletableFuture<String>>> submitted = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                submitted.add(pool.submit(() -> {
+                    go.await();
+                    return flights.run("london", () -> {
+                        calls.incrementAndGet();
+                        return upstream;
+                    });
+                }));
+            }
+            go.countDown();
+            List<CompletableFuture<String>> waiters = new ArrayList<>();
+            for (Future<CompletableFuture<String>> future : submitted) {
+                waiters.add(future.get());
+            }
+            upstream.complete("sunny");
+
+            assertEquals(1, calls.get());
+            for (CompletableFuture<String> waiter : waiters) {
+                assertEquals("sunny", waiter.join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, flights.size(), "A finished call must free its key");
+        assertEquals("rainy", flights.run("london", () -> CompletableFuture.completedFuture("rainy")).join());
+    }
+
+    @Test
+    void testUpstreamIsAbandonedOnlyWhenEveryCallerGivesUp() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.run("paris", () -> upstream);
+        CompletableFuture<String> second = flights.run("paris", () -> fail("Should have joined the call in flight"));
+
+        first.completeExceptionally(new TimeoutException("Weather missed the 200ms deadline"));
+        assertFalse(upstream.isDone(), "Another caller is still waiting");
+
+        second.cancel(true);
+        assertTrue(upstream.isCompletedExceptionally(), "Nobody is waiting any more");
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testFailureIsFannedOutUnwrapped() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.run("oslo", () -> upstream.thenApply(s -> s));
+        CompletableFuture<String> second = flights.run("oslo", () -> upstream);
+
+        upstream.completeExceptionally(new IllegalStateException("OPENWEATHER_API_KEY is missing in .env"));
+
+        for (CompletableFuture<String> waiter : List.of(first, second)) {
+            Throwable cause = assertThrows(Exception.class, waiter::join).getCause();
+            assertInstanceOf(IllegalStateException.class, cause);
+        }
+    }
+}
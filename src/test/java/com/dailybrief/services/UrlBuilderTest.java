@@ -1,20 +1,34 @@
 package com.dailybrief.services;
 
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.cities.CityIndexWriter;
 import com.dailybrief.config.AppConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
@@ -28,7 +42,7 @@ class UrlBuilderTest {
     @Mock
     private HttpClient httpClient;
     @Mock
-    private HttpResponse<String> httpResponse;
+    private HttpResponse<InputStream> httpResponse;
 
     @Captor
     private ArgumentCaptor<HttpRequest> requestCaptor;
@@ -50,9 +64,10 @@ class UrlBuilderTest {
         when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn(apiKey);
         when(appConfig.getHttpClient()).thenReturn(httpClient);
         when(httpResponse.statusCode()).thenReturn(200);
-        when(httpResponse.body()).thenReturn("{}"); // Empty JSON response - parsing failure is expected but not relevant for this URL encoding test
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(httpResponse.body()).thenReturn(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))); // Empty JSON response - parsing failure is expected but not relevant for this URL encoding test
 
-        CompletableFuture<HttpResponse<String>> futureResponse = CompletableFuture.completedFuture(httpResponse);
+        CompletableFuture<HttpResponse<InputStream>> futureResponse = CompletableFuture.completedFuture(httpResponse);
         when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenReturn(futureResponse);
 
@@ -73,4 +88,46 @@ class UrlBuilderTest {
         assertTrue(uri.toString().contains("q=" + expectedEncodedCity),
                    "URI should contain encoded city name: " + expectedEncodedCity + ", but was: " + uri);
     }
+
+    @Test
+    void testIndexedCityIsRequestedByIdAndUnknownCityNeverLeaves(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cities.idx");
+        CityIndexWriter.build(new ByteArrayInputStream(("[{\"id\": 2988507, \"name\": \"Paris\", \"country\": \"FR\","
+                + " \"coord\": {\"lon\": 2.3488, \"lat\": 48.85341}}]").getBytes(StandardCharsets.UTF_8)), file);
+        WeatherService indexed = new WeatherService(appConfig, ResponseCache.disabled(), 0, CityIndex.open(file));
+
+        when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn("dummy_api_key");
+        when(appConfig.getHttpClient()).thenReturn(httpClient);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        indexed.getWeatherAsync("paris");
+        CompletableFuture<?> unknown = indexed.getWeatherAsync("Pariss");
+
+        verify(httpClient).sendAsync(requestCaptor.capture(), any());
+        URI uri = requestCaptor.getValue().uri();
+        assertTrue(uri.toString().contains("id=2988507") && !uri.toString().contains("q="), "Expected an ID lookup: " + uri);
+        CompletionException e = assertThrows(CompletionException.class, unknown::join);
+        assertEquals("Unknown city: Pariss (did you mean Paris, FR?)", e.getCause().getMessage());
+    }
+
+    @Test
+    void testQualifiedCityTheIndexDoesntKnowIsLeftToTheProvider(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cities.idx");
+        CityIndexWriter.build(new ByteArrayInputStream(("[{\"id\": 2988507, \"name\": \"Paris\", \"country\": \"FR\","
+                + " \"coord\": {\"lon\": 2.3488, \"lat\": 48.85341}}]").getBytes(StandardCharsets.UTF_8)), file);
+        WeatherService indexed = new WeatherService(appConfig, ResponseCache.disabled(), 0, CityIndex.open(file));
+
+        when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn("dummy_api_key");
+        when(appConfig.getHttpClient()).thenReturn(httpClient);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        CompletableFuture<?> portland = indexed.getWeatherAsync("Portland,OR,US");
+
+        assertFalse(portland.isCompletedExceptionally(), "Not rejected as an unknown city");
+        verify(httpClient).sendAsync(requestCaptor.capture(), any());
+        URI uri = requestCaptor.getValue().uri();
+        assertTrue(uri.toString().contains("q=Portland%2COR%2CUS"), "Expected a name lookup: " + uri);
+    }
 }
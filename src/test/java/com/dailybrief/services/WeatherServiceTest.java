@@ -1,20 +1,39 @@
 package com.dailybrief.services;
 
+import com.dailybrief.cache.ResponseCache;
+import com.dailybrief.cities.CityIndex;
+import com.dailybrief.cities.CityIndexWriter;
 import com.dailybrief.config.AppConfig;
 import com.dailybrief.models.WeatherResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,7 +44,7 @@ class WeatherServiceTest {
     @Mock
     private HttpClient httpClient;
     @Mock
-    private HttpResponse<String> httpResponse;
+    private HttpResponse<InputStream> httpResponse;
 
     private WeatherService weatherService;
 
@@ -78,9 +97,10 @@ class WeatherServiceTest {
         when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn("dummy_api_key");
         when(appConfig.getHttpClient()).thenReturn(httpClient);
         when(httpResponse.statusCode()).thenReturn(200);
-        when(httpResponse.body()).thenReturn(jsonResponse);
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(httpResponse.body()).thenReturn(new ByteArrayInputStream(jsonResponse.getBytes(StandardCharsets.UTF_8)));
 
-        CompletableFuture<HttpResponse<String>> futureResponse = CompletableFuture.completedFuture(httpResponse);
+        CompletableFuture<HttpResponse<InputStream>> futureResponse = CompletableFuture.completedFuture(httpResponse);
         when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenReturn(futureResponse);
 
@@ -96,4 +116,99 @@ class WeatherServiceTest {
         assertEquals("overcast clouds", response.weather().get(0).description());
         assertEquals("GB", response.sys().country());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGzipBodyAndNotModifiedRevalidation(@TempDir Path cacheDir) throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write("""
+                {"weather":[{"description":"clear sky","icon":"01d"}],"main":{"temp":21.5,"humidity":40},
+                 "sys":{"country":"FR"},"name":"Paris"}
+                """.getBytes(StandardCharsets.UTF_8));
+        }
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(
+                Map.of("Content-Encoding", List.of("gzip"), "ETag", List.of("\"v1\"")), (name, value) -> true));
+        when(httpResponse.body()).thenReturn(new ByteArrayInputStream(gzipped.toByteArray()));
+
+        HttpResponse<InputStream> notModified = mock(HttpResponse.class);
+        when(notModified.statusCode()).thenReturn(304);
+        when(notModified.body()).thenReturn(InputStream.nullInputStream());
+
+        when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn("dummy_api_key");
+        when(appConfig.getHttpClient()).thenReturn(httpClient);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse), CompletableFuture.completedFuture(notModified));
+
+        ResponseCache cache = new ResponseCache(cacheDir, null);
+        WeatherResponse first = new WeatherService(appConfig, cache, 0).getWeatherAsync("Paris").join();
+        // Max age zero: the stored entry may not be served as-is, so it is revalidated
+        WeatherResponse second = new WeatherService(appConfig, cache.withMaxAge(Duration.ZERO), 0).getWeatherAsync("Paris").join();
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).sendAsync(requests.capture(), any());
+        HttpRequest conditional = requests.getAllValues().get(1);
+        assertEquals("gzip, deflate", conditional.headers().firstValue("Accept-Encoding").orElse(null));
+        assertEquals("\"v1\"", conditional.headers().firstValue("If-None-Match").orElse(null));
+        assertEquals("Paris", first.name());
+        assertEquals(21.5, second.main().temp(), "A 304 is served from the stored body");
+    }
+
+    @Test
+    void testGzippedErrorBodyIsReadableInTheMessage() throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write("{\"cod\":401,\"message\":\"Invalid API key\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        when(httpResponse.statusCode()).thenReturn(401);
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip")), (name, value) -> true));
+        when(httpResponse.body()).thenReturn(new ByteArrayInputStream(gzipped.toByteArray()));
+
+        HttpStatusException e = HttpStatusException.of("Weather", httpResponse);
+        assertEquals("Weather API Error (Status 401): {\"cod\":401,\"message\":\"Invalid API key\"}", e.getMessage());
+    }
+
+    @Test
+    void testCitiesInOneGridCellShareOneFetch(@TempDir Path dir) throws Exception {
+        Path list = dir.resolve("city.list.json");
+        Files.writeString(list, """
+                [
+                  {"id": 2643743, "name": "London", "country": "GB", "coord": {"lon": -0.12574, "lat": 51.50853}},
+                  {"id": 2643741, "name": "City of London", "country": "GB", "coord": {"lon": -0.09184, "lat": 51.51279}},
+                  {"id": 2988507, "name": "Paris", "country": "FR", "coord": {"lon": 2.3488, "lat": 48.85341}}
+                ]
+                """);
+        CityIndexWriter.build(list, dir.resolve("cities.idx"));
+        CityIndex index = CityIndex.open(dir.resolve("cities.idx"));
+
+        when(appConfig.getApiKey("OPENWEATHER_API_KEY")).thenReturn("dummy_api_key");
+        when(appConfig.getHttpClient()).thenReturn(httpClient);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(httpResponse.body()).thenAnswer(invocation -> new ByteArrayInputStream("""
+                {"weather":[{"description":"light rain","icon":"10d"}],"main":{"temp":12.0,"humidity":80},
+                 "sys":{"country":"GB"},"name":"Clerkenwell"}
+                """.getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
+
+        WeatherGrid grid = new WeatherGrid(4);
+        WeatherService service = new WeatherService(appConfig, new ResponseCache(dir.resolve("cache"), null), 0, index, grid);
+        WeatherResponse london = service.getWeatherAsync("London").join();
+        WeatherResponse city = service.getWeatherAsync("City of London").join();
+        service.getWeatherAsync("Paris").join();
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).sendAsync(requests.capture(), any());
+        String query = requests.getAllValues().get(0).uri().getQuery();
+        assertTrue(query.startsWith("lat=") && query.contains("&lon="), "The cell centre is requested, not the name: " + query);
+        assertEquals("London", london.name(), "A shared answer carries the name asked for");
+        assertEquals("City of London", city.name());
+        assertEquals(12.0, city.main().temp());
+        WeatherGrid.Stats stats = grid.stats();
+        assertEquals(3, stats.lookups());
+        assertEquals(2, stats.fetches());
+        assertEquals(1 / 3.0, stats.hitRatio(), 1e-9);
+    }
 }
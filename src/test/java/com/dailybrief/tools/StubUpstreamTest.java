@@ -0,0 +1,63 @@
+package com.dailybrief.tools;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.JsonDecoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubUpstreamTest {
+
+    @Test
+    void testPaddedPayloadsStillDecode() throws IOException {
+        String weather = StubUpstream.weatherBody(16_384);
+        String news = StubUpstream.newsBody(16_384);
+        assertTrue(weather.length() >= 16_384);
+        assertTrue(news.length() >= 16_384);
+
+        WeatherResponse decodedWeather = JsonDecoder.decodeWeather(
+                new ByteArrayInputStream(weather.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("London", decodedWeather.name());
+        NewsResponse decodedNews = JsonDecoder.decodeNews(
+                new ByteArrayInputStream(news.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(decodedNews.articles().size() > 3);
+        assertEquals("Markets rally as inflation cools", decodedNews.articles().get(0).title());
+    }
+
+    @Test
+    void testLatencyFollowsMedianAndP99() {
+        StubUpstream.Profile profile = new StubUpstream.Profile(Duration.ofMillis(20), Duration.ofMillis(200), 0, 0);
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = profile.sampleNanos();
+        }
+        Arrays.sort(samples);
+        assertEquals(20, LoadTest.percentile(samples, 50) / 1_000_000.0, 2);
+        assertEquals(200, LoadTest.percentile(samples, 99) / 1_000_000.0, 40);
+
+        StubUpstream.Profile fixed = new StubUpstream.Profile(Duration.ofMillis(5), Duration.ZERO, 0, 0);
+        assertEquals(Duration.ofMillis(5).toNanos(), fixed.sampleNanos());
+    }
+
+    @Test
+    void testErrorRateFailsEveryRequestAtOne() throws Exception {
+        try (StubUpstream stub = new StubUpstream(new StubUpstream.Profile(Duration.ZERO, Duration.ZERO, 1, 0))) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(stub.newsUrl())).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, response.statusCode());
+            assertEquals(1, stub.requests());
+            assertEquals(1, stub.errors());
+        }
+    }
+}
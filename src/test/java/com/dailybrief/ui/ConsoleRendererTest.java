@@ -0,0 +1,187 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsoleRendererTest {
+
+    private static final WeatherResponse RAINY = new WeatherResponse("London",
+            new WeatherResponse.Main(11.46, 87),
+            List.of(new WeatherResponse.Weather("Rain", "light rain", "10d")),
+            new WeatherResponse.Sys("GB", 1699946477L, 1699978892L));
+
+    private static final NewsResponse NEWS = new NewsResponse("ok", List.of(
+            new NewsResponse.Article("Markets rally", null, new NewsResponse.Source("Reuters")),
+            new NewsResponse.Article("Storm warning", null, null)));
+
+    // The original line-by-line rendering, kept as the reference for byte-identical output
+    private static void legacyWeather(PrintStream out, WeatherResponse w) {
+        String country = (w.sys() != null) ? w.sys().country() : "N/A";
+        String desc = (w.weather() != null && !w.weather().isEmpty()) ? w.weather().get(0).description() : "Unknown";
+        double temp = (w.main() != null) ? w.main().temp() : 0.0;
+        String iconCode = (w.weather() != null && !w.weather().isEmpty()) ? w.weather().get(0).icon() : null;
+        String[] artLines = AsciiArt.getWeatherArt(iconCode).split("\n");
+        List<String> textLines = List.of(
+                String.format("WEATHER: %s, %s", w.name(), country),
+                String.format("Temp: %.1f°C | Condition: %s", temp, desc));
+        for (int i = 0; i < Math.max(artLines.length, textLines.size()); i++) {
+            String art = (i < artLines.length) ? artLines[i] : "";
+            String text = (i < textLines.size()) ? textLines.get(i) : "";
+            out.printf("%-" + AsciiArt.WIDTH + "s %s%n", art, text);
+        }
+    }
+
+    private static void legacyNews(PrintStream out, NewsResponse data) {
+        out.println("\nTOP HEADLINES (US):");
+        for (NewsResponse.Article article : data.articles()) {
+            String sourceName = (article.source() != null) ? article.source().name() : "Unknown Source";
+            out.printf("- %s%s%s [%s%s%s]%n", AnsiColors.BOLD, article.title(), AnsiColors.RESET,
+                    AnsiColors.DIM, sourceName, AnsiColors.RESET);
+        }
+    }
+
+    @Test
+    void testWeatherOutputIsByteIdentical() {
+        WeatherResponse sparse = new WeatherResponse("Nowhere", null, null, null);
+        for (WeatherResponse w : List.of(RAINY, sparse)) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            legacyWeather(new PrintStream(expected, true), w);
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            new ConsoleRenderer(new PrintStream(actual, true)).renderWeather(w);
+
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        }
+    }
+
+    @Test
+    void testNewsOutputIsByteIdentical() {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        legacyNews(new PrintStream(expected, true), NEWS);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        new ConsoleRenderer(new PrintStream(actual, true)).renderNews(NEWS);
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    void testStaleDataIsMarked() {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(actual, true));
+        renderer.renderWeather(RAINY.asStale());
+        renderer.renderNews(NEWS.asStale());
+
+        String stale = AnsiColors.DIM + "(stale)" + AnsiColors.RESET;
+        String output = actual.toString();
+        assertTrue(output.contains("WEATHER: London, GB " + stale));
+        assertTrue(output.contains("TOP HEADLINES (US): " + stale));
+    }
+
+    @Test
+    void testDashboardFrameIsWrittenOnce() {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStream legacy = new PrintStream(expected, true);
+        legacy.println("\n=========================================");
+        legacyWeather(legacy, RAINY);
+        legacy.println("\nNEWS: Unavailable (See errors above)");
+        legacy.println("=========================================");
+
+        CountingStream actual = new CountingStream();
+        new ConsoleRenderer(new PrintStream(actual, false)).renderDashboard(RAINY, null, false, false, System.currentTimeMillis());
+
+        String rendered = actual.toString();
+        String frame = rendered.substring(0, rendered.indexOf("Done in"));
+        assertArrayEquals(expected.toByteArray(), frame.getBytes());
+        assertEquals(1, actual.writes, "The frame should reach the stream in a single write");
+    }
+
+    @Test
+    void testRepaintErasesPreviousLinesInPlace() {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(actual, true));
+
+        int loading = Terminal.rows(renderer.repaintDashboard(0, null, true, null, true, false, false), 80);
+        String first = actual.toString();
+        actual.reset();
+        int painted = Terminal.rows(renderer.repaintDashboard(loading, null, true, NEWS, false, false, false), 80);
+        String second = actual.toString();
+
+        assertEquals(first.split("\n", -1).length - 1, loading);
+        assertTrue(second.startsWith("\u001B[" + loading + "F\u001B[J"), "Should move up over the old frame");
+        // Weather keeps its slot above the news that arrived first
+        assertTrue(second.indexOf("WEATHER: Loading...") < second.indexOf("TOP HEADLINES"));
+        assertEquals(second.split("\n", -1).length - 1, painted);
+    }
+
+    @Test
+    void testRepaintCountsWrappedRows() {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(actual, true));
+        int[] widths = renderer.repaintDashboard(0, null, true, NEWS, false, false, false);
+        String frame = actual.toString();
+
+        // The 41-column rules and any longer headline take two rows each at 40 columns
+        int rows = 0;
+        for (String line : frame.split("\n")) {
+            rows += Math.max(1, (Terminal.width(line) + 39) / 40);
+        }
+        assertEquals(rows, Terminal.rows(widths, 40));
+        assertTrue(Terminal.rows(widths, 40) >= Terminal.rows(widths, 80) + 2, "Both rules wrap at 40 columns");
+    }
+
+    @Test
+    void testFirstProgressivePaintDoesNotWaitForTheTerminalSize() {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        AtomicInteger asked = new AtomicInteger();
+        ProgressiveRenderer progressive = new ProgressiveRenderer(new ConsoleRenderer(new PrintStream(actual, true)),
+                new PrintStream(new ByteArrayOutputStream()), true, false, false,
+                () -> { asked.incrementAndGet(); return new Terminal.Size(40, 24); });
+
+        progressive.start();
+        assertEquals(0, asked.get(), "Nothing to erase yet, so no size is needed");
+        progressive.newsReady(NEWS);
+        assertEquals(1, asked.get());
+    }
+
+    @Test
+    void testMeasuredSizeIsCachedAndRefreshedInTheBackground() throws InterruptedException {
+        AtomicInteger measured = new AtomicInteger();
+        Supplier<Terminal.Size> size = new Terminal.MeasuredSize(
+                () -> new Terminal.Size(100 + measured.incrementAndGet(), 30), Duration.ofMillis(50));
+
+        assertEquals(101, size.get().columns());
+        assertEquals(101, size.get().columns());
+        assertEquals(1, measured.get(), "Within the TTL the size is not measured again");
+
+        Thread.sleep(100);
+        // The stale size is returned at once while a new measurement runs
+        assertEquals(101, size.get().columns());
+        for (int i = 0; i < 100 && size.get().columns() == 101; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(102, size.get().columns());
+    }
+
+    private static final class CountingStream extends ByteArrayOutputStream {
+        int writes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.services.DashboardService;
+import com.dailybrief.widgets.Panel;
+import com.dailybrief.widgets.Widget;
+import com.dailybrief.widgets.WidgetContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class JsonRendererTest {
+
+    private static final WeatherResponse RAINY = new WeatherResponse("London",
+            new WeatherResponse.Main(11.5, 87),
+            List.of(new WeatherResponse.Weather("Rain", "light rain", "10d")),
+            new WeatherResponse.Sys("GB", 1699946477L, 1699978892L));
+
+    private static final NewsResponse NEWS = new NewsResponse("ok", List.of(
+            new NewsResponse.Article("Markets rally", null, new NewsResponse.Source("Reuters"))));
+
+    private static final Widget<Integer> AQI = new Widget<>() {
+        @Override
+        public String id() {
+            return "aqi";
+        }
+
+        @Override
+        public CompletableFuture<Integer> fetch(WidgetContext context) {
+            return CompletableFuture.completedFuture(42);
+        }
+    };
+
+    @Test
+    void testNdjsonWritesARecordPerWidgetAsItLands() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonRenderer renderer = new JsonRenderer(bytes, true, "London", false, false)) {
+            DashboardService.Listener listener = renderer.listener();
+            listener.onNews(NEWS);
+            // Flushed per record: visible before the dashboard is done
+            assertEquals("{\"type\":\"news\",\"articles\":[{\"title\":\"Markets rally\",\"source\":\"Reuters\"}]}\n",
+                    bytes.toString(StandardCharsets.UTF_8));
+            listener.onError(new RuntimeException("Weather missed the 500ms deadline"));
+            listener.onWeather(null);
+            listener.onPanel(new Panel(AQI, 42));
+            renderer.finish(new DashboardService.DashboardData(null, NEWS, List.of(new Panel(AQI, 42))), System.currentTimeMillis());
+        }
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertEquals("{\"type\":\"error\",\"city\":\"London\",\"message\":\"Weather missed the 500ms deadline\"}", lines[1]);
+        assertEquals("{\"type\":\"weather\",\"city\":\"London\",\"error\":\"Unavailable\"}", lines[2]);
+        assertEquals("{\"type\":\"widget\",\"id\":\"aqi\",\"city\":\"London\",\"value\":42}", lines[3]);
+        assertEquals("{\"type\":\"done\",\"city\":\"London\",\"elapsed_ms\":0}", lines[4].replaceAll("\"elapsed_ms\":\\d+", "\"elapsed_ms\":0"));
+    }
+
+    @Test
+    void testJsonWritesOneDocumentWithoutSkippedWidgets() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonRenderer renderer = new JsonRenderer(bytes, false, "London", false, true)) {
+            DashboardService.Listener listener = renderer.listener();
+            listener.onWeather(RAINY);
+            listener.onNews(null);
+            listener.onError(new RuntimeException("aqi failed"));
+            // Nothing until the dashboard is complete
+            assertEquals(0, bytes.size());
+            renderer.finish(new DashboardService.DashboardData(RAINY, null, List.of(new Panel(AQI, null))), System.currentTimeMillis());
+        }
+
+        String json = bytes.toString(StandardCharsets.UTF_8).replaceAll("\"elapsed_ms\":\\d+", "\"elapsed_ms\":0");
+        assertEquals("{\"city\":\"London\",\"weather\":{\"name\":\"London\",\"country\":\"GB\",\"temp\":11.5,\"humidity\":87,"
+                + "\"condition\":\"light rain\"},\"widgets\":{\"aqi\":null},\"errors\":[\"aqi failed\"],\"elapsed_ms\":0}\n", json);
+        assertFalse(json.contains("\u001B"));
+    }
+
+    @Test
+    void testBatchJsonStreamsOneDocumentAndLeavesStdoutOpen() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream console = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        try (BatchWriter writer = BatchWriter.forOutput(null, OutputFormat.JSON, new ConsoleRenderer(console), console)) {
+            writer.writeWeather("London", RAINY, null);
+            writer.writeWeather("Atlantis", null, "City not found");
+            writer.writeNews(NEWS);
+        }
+        console.println("still open");
+
+        assertEquals("{\"cities\":[{\"city\":\"London\",\"name\":\"London\",\"country\":\"GB\",\"temp\":11.5,\"humidity\":87,"
+                + "\"condition\":\"light rain\"},{\"city\":\"Atlantis\",\"error\":\"City not found\"}],"
+                + "\"news\":{\"articles\":[{\"title\":\"Markets rally\",\"source\":\"Reuters\"}]}}\nstill open" + System.lineSeparator(),
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+}
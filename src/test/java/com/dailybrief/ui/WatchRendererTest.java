@@ -0,0 +1,117 @@
+package com.dailybrief.ui;
+
+import com.dailybrief.models.NewsResponse;
+import com.dailybrief.models.WeatherResponse;
+import com.dailybrief.widgets.NewsWidget;
+import com.dailybrief.widgets.WeatherWidget;
+import com.dailybrief.widgets.Widget;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchRendererTest {
+
+    private static final Widget<?> WEATHER = new WeatherWidget();
+    private static final Widget<?> NEWS = new NewsWidget();
+    private static final WeatherResponse LONDON = new WeatherResponse("London",
+            new WeatherResponse.Main(11.5, 87), List.of(new WeatherResponse.Weather("Rain", "light rain", "10d")),
+            new WeatherResponse.Sys("GB", 0L, 0L));
+
+    private static NewsResponse headlines(String... titles) {
+        return new NewsResponse("ok", Arrays.stream(titles)
+                .map(title -> new NewsResponse.Article(title, null, new NewsResponse.Source("Reuters")))
+                .toList());
+    }
+
+    @Test
+    void testOnlyChangedRowsAreRewritten() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        WatchRenderer renderer = new WatchRenderer(new ConsoleRenderer(out), out, true, List.of(NEWS, WEATHER),
+                Duration.ofSeconds(30), Clock.fixed(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC));
+
+        renderer.start();
+        renderer.update(WEATHER, LONDON);
+        renderer.update(NEWS, headlines("Markets rally", "Storm warning"));
+        bytes.reset();
+
+        // Only the second headline changed, so its row is the only one rewritten
+        renderer.update(NEWS, headlines("Markets rally", "Storm passes"));
+        String diff = bytes.toString(StandardCharsets.UTF_8);
+
+        assertTrue(diff.contains("Storm passes"), diff);
+        assertFalse(diff.contains("Markets rally"), "An unchanged headline was redrawn: " + diff);
+        assertFalse(diff.contains("WEATHER"), "The unchanged weather section was redrawn: " + diff);
+        assertFalse(diff.contains("\u001B[2J"), "The screen must not be cleared again");
+        assertEquals(1, diff.split("\u001B\\[\\d+;1H", -1).length - 1, "Exactly one row should be addressed: " + diff);
+    }
+
+    @Test
+    void testWithoutTerminalChangedFramesArePrintedWhole() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        WatchRenderer renderer = new WatchRenderer(new ConsoleRenderer(out), out, false, List.of(WEATHER),
+                Duration.ofSeconds(30), Clock.fixed(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC));
+
+        renderer.start();
+        bytes.reset();
+        renderer.update(WEATHER, LONDON);
+        String frame = bytes.toString(StandardCharsets.UTF_8);
+
+        assertFalse(frame.contains("\u001B[?25l"), "No cursor control without a terminal");
+        assertTrue(frame.startsWith(ConsoleRenderer.rule()), frame);
+        assertTrue(frame.contains("WEATHER: London, GB"), frame);
+        assertTrue(frame.contains("Updated 08:00:00, refreshing every 30s"), frame);
+    }
+
+    @Test
+    void testRowsAreClippedToTheTerminalBeforeDiffing() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        Terminal.Size size = new Terminal.Size(40, 12);
+        WatchRenderer renderer = new WatchRenderer(new ConsoleRenderer(out), out, true, List.of(WEATHER, NEWS),
+                Duration.ofSeconds(30), Clock.fixed(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC), () -> size);
+
+        renderer.start();
+        renderer.update(WEATHER, LONDON);
+        renderer.update(NEWS, headlines("A headline far too long to fit on one row of a forty column terminal",
+                "Short", "Shorter", "Brief", "Terse"));
+        String frames = bytes.toString(StandardCharsets.UTF_8);
+
+        Matcher row = Pattern.compile("\u001B\\[(\\d+);1H(.*?)\u001B\\[K").matcher(frames);
+        int rows = 0;
+        while (row.find()) {
+            rows++;
+            assertTrue(Integer.parseInt(row.group(1)) <= size.rows(), "Addressed below the screen: " + row.group(1));
+            assertTrue(Terminal.width(row.group(2)) <= size.columns(), "Would wrap: " + row.group(2));
+        }
+        assertTrue(rows > 0);
+        assertTrue(frames.contains("A headline far too long"), frames);
+        assertFalse(frames.contains("forty column terminal"), "The tail of the long line is cut: " + frames);
+        assertTrue(frames.contains("more lines: enlarge the terminal"), "The frame is cut to the height: " + frames);
+    }
+
+    @Test
+    void testClipKeepsEscapesAndCountsVisibleColumns() {
+        String red = AnsiColors.RED + "0123456789" + AnsiColors.RESET;
+        assertEquals(10, Terminal.width(red));
+        assertEquals(red, Terminal.clip(red, 10));
+        String clipped = Terminal.clip(red, 5);
+        assertEquals(5, Terminal.width(clipped));
+        assertEquals(AnsiColors.RED + "0123…" + AnsiColors.RESET, clipped);
+        assertEquals(3, Terminal.rows("x".repeat(81), 40));
+        assertEquals(1, Terminal.rows("", 40));
+    }
+}
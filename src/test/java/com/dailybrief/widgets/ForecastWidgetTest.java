@@ -0,0 +1,54 @@
+package com.dailybrief.widgets;
+
+import com.dailybrief.models.Forecast;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastWidgetTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    void testRendersSparklinesOverADayAxis() {
+        // 2023-11-13 was a Monday; six slots from 18:00 UTC, an hour ahead locally
+        long start = 1_699_898_400L;
+        long[] times = new long[6];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = start + i * 10_800L;
+        }
+        Forecast forecast = new Forecast("London", "GB", 3600, times,
+                new double[] {4.0, 6.0, 8.0, 10.0, 12.0, 18.0},
+                new int[] {70, 70, 70, 70, 70, 70},
+                new double[] {0.0, 0.0, 0.5, 0.0, 0.0, 2.0});
+
+        StringBuilder frame = new StringBuilder();
+        new ForecastWidget().render(forecast, frame);
+
+        assertEquals(NL + "FORECAST: London, GB (6 x 3h)" + NL
+                + "Temp    ▁▂▃▄▅█  4.0..18.0°C" + NL
+                + "Humid   ▁▁▁▁▁▁  70..70%" + NL
+                + "Precip  ▁▁▃▁▁█  max 2.0mm" + NL
+                + "        MoTu" + NL, frame.toString());
+    }
+
+    @Test
+    void testUnavailableForecastUsesTheDefaultLine() {
+        StringBuilder frame = new StringBuilder();
+        new ForecastWidget().render(null, frame);
+        assertEquals(NL + "FORECAST: Unavailable (See errors above)" + NL, frame.toString());
+    }
+
+    @Test
+    void testOptInWidgetsOnlyRunWhenAskedFor() {
+        List<String> byDefault = Widgets.discover().stream().map(Widget::id).toList();
+        List<String> asked = Widgets.discover(Set.of(ForecastWidget.ID)).stream().map(Widget::id).toList();
+
+        assertFalse(byDefault.contains(ForecastWidget.ID));
+        assertTrue(asked.containsAll(byDefault));
+        assertTrue(asked.contains(ForecastWidget.ID));
+    }
+}
@@ -0,0 +1,150 @@
+package com.dailybrief.widgets;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetSchedulerTest {
+
+    private static final WidgetContext CONTEXT = new WidgetContext("London", null, null, Map.of());
+
+    private static Widget<Object> widget(String id, int priority, Set<String> dependsOn, Duration deadline,
+                                         Function<WidgetContext, CompletableFuture<Object>> fetch) {
+        return new Widget<>() {
+            @Override
+            public String id() {
+                return id;
+            }
+
+            @Override
+            public Set<String> dependsOn() {
+                return dependsOn;
+            }
+
+            @Override
+            public int priority() {
+                return priority;
+            }
+
+            @Override
+            public Duration deadline() {
+                return deadline;
+            }
+
+            @Override
+            public CompletableFuture<Object> fetch(WidgetContext context) {
+                return fetch.apply(context);
+            }
+        };
+    }
+
+    @Test
+    void testDependentReceivesItsInputAndIndependentWidgetsOverlap() {
+        Widget<Object> geocode = widget("geocode", 0, Set.of(), null, ctx ->
+                CompletableFuture.supplyAsync(() -> "51.5,-0.1", CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)));
+        Widget<Object> forecast = widget("forecast", 0, Set.of("geocode"), null, ctx ->
+                CompletableFuture.completedFuture("forecast@" + ctx.input("geocode", String.class)));
+        Widget<Object> stocks = widget("stocks", 0, Set.of(), null, ctx ->
+                CompletableFuture.supplyAsync(() -> "up", CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)));
+
+        long start = System.currentTimeMillis();
+        // Listed before its dependency on purpose
+        Map<String, CompletableFuture<Object>> results = new WidgetScheduler()
+                .schedule(List.of(forecast, geocode, stocks), CONTEXT, null);
+        CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new)).join();
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals("forecast@51.5,-0.1", results.get("forecast").join());
+        assertEquals("up", results.get("stocks").join());
+        assertTrue(duration < 380, "Independent widgets should run concurrently: " + duration + "ms");
+    }
+
+    @Test
+    void testFailedDependencyReadsAsNull() {
+        Widget<Object> geocode = widget("geocode", 0, Set.of(), null, ctx ->
+                CompletableFuture.failedFuture(new RuntimeException("geocoder down")));
+        Widget<Object> forecast = widget("forecast", 0, Set.of("geocode"), null, ctx ->
+                CompletableFuture.completedFuture(ctx.input("geocode", String.class) == null ? "no place" : "place"));
+
+        Map<String, CompletableFuture<Object>> results = new WidgetScheduler()
+                .schedule(List.of(geocode, forecast), CONTEXT, null);
+
+        assertEquals("no place", results.get("forecast").join());
+        assertTrue(results.get("geocode").isCompletedExceptionally());
+    }
+
+    @Test
+    void testRejectsCyclesAndMissingDependencies() {
+        Widget<Object> a = widget("a", 0, Set.of("b"), null, ctx -> CompletableFuture.completedFuture("a"));
+        Widget<Object> b = widget("b", 0, Set.of("a"), null, ctx -> CompletableFuture.completedFuture("b"));
+        WidgetScheduler scheduler = new WidgetScheduler();
+
+        assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(List.of(a, b), CONTEXT, null));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(List.of(a), CONTEXT, null));
+    }
+
+    @Test
+    void testWidgetDeadlineFailsOnlyThatWidgetAndItsFetch() {
+        CompletableFuture<Object> stalled = new CompletableFuture<>();
+        Widget<Object> slow = widget("slow", 0, Set.of(), Duration.ofMillis(100), ctx -> stalled);
+        Widget<Object> fast = widget("fast", 0, Set.of(), null, ctx -> CompletableFuture.completedFuture("ok"));
+
+        Map<String, CompletableFuture<Object>> results = new WidgetScheduler()
+                .schedule(List.of(slow, fast), CONTEXT, Duration.ofSeconds(5));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> results.get("slow").get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals("Slow missed the 100ms deadline", e.getCause().getMessage());
+        assertTrue(stalled.isCompletedExceptionally(), "The in-flight fetch should be failed too");
+        assertEquals("ok", results.get("fast").join());
+    }
+
+    @Test
+    void testSaturatedPoolStartsHighestPriorityFirst() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+        try {
+            // Occupy the only thread so every widget queues up behind it
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            List<String> started = new CopyOnWriteArrayList<>();
+            Function<String, Function<WidgetContext, CompletableFuture<Object>>> record = id -> ctx -> {
+                started.add(id);
+                return CompletableFuture.completedFuture(id);
+            };
+
+            Map<String, CompletableFuture<Object>> results = new WidgetScheduler(pool).schedule(List.of(
+                    widget("low", 0, Set.of(), null, record.apply("low")),
+                    widget("high", 10, Set.of(), null, record.apply("high")),
+                    widget("mid", 5, Set.of(), null, record.apply("mid"))), CONTEXT, null);
+            release.countDown();
+            CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(List.of("high", "mid", "low"), started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}